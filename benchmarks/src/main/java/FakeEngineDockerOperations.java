@@ -0,0 +1,127 @@
+import io.github.padaiyal.adya.benchmarks.DockerOperations;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Docker operations under benchmark, performed by a docker utility against a fake docker engine.
+ */
+public class FakeEngineDockerOperations implements DockerOperations {
+
+  private static final String composeFileContents = String.join("\n",
+      "services:",
+      "  database:",
+      "    image: postgres:latest",
+      "    ports:",
+      "      - \"5432\"",
+      "  cache:",
+      "    image: redis:latest",
+      "  application:",
+      "    image: alpine:latest",
+      "    depends_on:",
+      "      - database",
+      "      - cache",
+      ""
+  );
+
+  private final FakeDockerEngine fakeDockerEngine;
+  private final DockerUtility dockerUtility;
+  private final DockerComposeUtility dockerComposeUtility;
+  private final Path composeFilePath;
+
+  /**
+   * Starts a fake docker engine and builds a docker utility connected to it.
+   *
+   * @param latency        Time the fake docker engine delays every request by.
+   * @param imageCount     Number of filler images in the fake docker engine's inventory.
+   * @param containerCount Number of filler containers in the fake docker engine's inventory.
+   * @param eventsEnabled  If false, the fake docker engine doesn't stream events.
+   * @throws IOException When the fake docker engine can't be started.
+   */
+  public FakeEngineDockerOperations(Duration latency, int imageCount, int containerCount,
+      boolean eventsEnabled) throws IOException {
+    fakeDockerEngine = new FakeDockerEngine(latency, eventsEnabled)
+        .withImages("postgres:latest", "redis:latest", "alpine:latest")
+        .withFillerImages(imageCount)
+        .withFillerContainers(containerCount)
+        .start();
+    dockerUtility = DockerUtility.builder()
+        .withDockerHost(fakeDockerEngine.getDockerHost())
+        .build();
+    dockerComposeUtility = new DockerComposeUtility(dockerUtility);
+    composeFilePath = Files.createTempDirectory("adya_benchmark")
+        .resolve("docker-compose.yml");
+    Files.writeString(composeFilePath, composeFileContents);
+  }
+
+  @Override
+  public String getExistingImageReference() {
+    return "postgres:latest";
+  }
+
+  @Override
+  public String getExistingContainerName() {
+    return "adya_filler_0";
+  }
+
+  @Override
+  public boolean doesImageExist(String imageReference) {
+    return dockerUtility.doesImageExist(imageReference);
+  }
+
+  @Override
+  public boolean doesContainerExist(String containerName, boolean checkAllContainers) {
+    return dockerUtility.doesContainerExist(containerName, checkAllContainers);
+  }
+
+  @Override
+  public void createContainer(String containerName) {
+    dockerUtility.createContainer(
+        new ContainerSpec(DockerImage.POSTGRESQL_LATEST, containerName)
+            .withEphemeralPorts(true)
+    );
+  }
+
+  @Override
+  public void removeContainerIfExists(String containerName) {
+    dockerUtility.removeContainerIfExists(containerName);
+  }
+
+  @Override
+  public void composeUp() {
+    try {
+      dockerComposeUtility.up(composeFilePath, Duration.ofMinutes(1))
+          .values()
+          .forEach(result -> {
+            if (!result.isSuccessful()) {
+              throw new IllegalStateException("Compose service failed - " + result);
+            }
+          });
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (IOException | TimeoutException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void composeDown() {
+    try {
+      dockerComposeUtility.down(composeFilePath, Duration.ofMinutes(1));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (IOException | TimeoutException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void close() {
+    dockerUtility.close();
+    fakeDockerEngine.close();
+  }
+}
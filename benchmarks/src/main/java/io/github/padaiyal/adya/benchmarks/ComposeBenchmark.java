@@ -0,0 +1,58 @@
+package io.github.padaiyal.adya.benchmarks;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures bringing a compose project up and down natively against a fake docker engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {
+    "-Dlog4j.configurationFile=log4j2-benchmark.xml",
+    // Avoids delayed ACK stalls between the docker client and the fake docker engine
+    "-Dsun.net.httpserver.nodelay=true"
+})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ComposeBenchmark {
+
+  @Param({"0", "2000"})
+  public int latencyInMicros;
+
+  @Param({"true", "false"})
+  public boolean eventsEnabled;
+
+  private DockerOperations dockerOperations;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    dockerOperations = DockerOperations.create(Duration.ofNanos(latencyInMicros * 1_000L), 10, 10,
+        eventsEnabled);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    dockerOperations.close();
+  }
+
+  @Benchmark
+  public void composeUpAndDown() {
+    dockerOperations.composeUp();
+    dockerOperations.composeDown();
+  }
+}
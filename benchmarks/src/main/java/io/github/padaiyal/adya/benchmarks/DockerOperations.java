@@ -0,0 +1,99 @@
+package io.github.padaiyal.adya.benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.time.Duration;
+
+/**
+ * The docker operations under benchmark, performed against a fake docker engine. Adya's classes
+ * live in the unnamed package, which can't be referred to from JMH benchmarks as those have to be
+ * in a named package. So benchmarks go through this interface, whose implementation in the unnamed
+ * package is looked up once per trial.
+ */
+public interface DockerOperations extends AutoCloseable {
+
+  /**
+   * Starts a fake docker engine and builds a docker utility connected to it. Each call starts its
+   * own engine and utility, which are released when the returned operations are closed.
+   *
+   * @param latency        Time the fake docker engine delays every request by.
+   * @param imageCount     Number of filler images in the fake docker engine's inventory.
+   * @param containerCount Number of filler containers in the fake docker engine's inventory.
+   * @param eventsEnabled  If false, the fake docker engine doesn't stream events, so that docker
+   *                       state has to be listed for every check.
+   * @return Docker operations against the fake docker engine.
+   */
+  static DockerOperations create(Duration latency, int imageCount, int containerCount,
+      boolean eventsEnabled) {
+    try {
+      return (DockerOperations) Class.forName("FakeEngineDockerOperations")
+          .getConstructor(Duration.class, int.class, int.class, boolean.class)
+          .newInstance(latency, imageCount, containerCount, eventsEnabled);
+    } catch (InvocationTargetException e) {
+      throw new RuntimeException(e.getCause());
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Returns the reference of an image present in the fake docker engine's inventory.
+   *
+   * @return Image reference, in the repository:tag format.
+   */
+  String getExistingImageReference();
+
+  /**
+   * Returns the name of a container present in the fake docker engine's inventory.
+   *
+   * @return Container name.
+   */
+  String getExistingContainerName();
+
+  /**
+   * Checks if the specified image exists, via DockerUtility.doesImageExist.
+   *
+   * @param imageReference Image reference, in the repository:tag format.
+   * @return true if the image exists, else false.
+   */
+  boolean doesImageExist(String imageReference);
+
+  /**
+   * Checks if the specified container exists, via DockerUtility.doesContainerExist.
+   *
+   * @param containerName      Container name.
+   * @param checkAllContainers If true, stopped containers are considered too.
+   * @return true if the container exists, else false.
+   */
+  boolean doesContainerExist(String containerName, boolean checkAllContainers);
+
+  /**
+   * Creates a postgres container, via DockerUtility.createContainer.
+   *
+   * @param containerName Container name.
+   */
+  void createContainer(String containerName);
+
+  /**
+   * Removes a container, via DockerUtility.removeContainerIfExists.
+   *
+   * @param containerName Container name.
+   */
+  void removeContainerIfExists(String containerName);
+
+  /**
+   * Brings up a compose project of three services, two of which are independent, via
+   * DockerComposeUtility.up.
+   */
+  void composeUp();
+
+  /**
+   * Brings down the compose project, via DockerComposeUtility.down.
+   */
+  void composeDown();
+
+  /**
+   * Closes the docker utility and stops the fake docker engine.
+   */
+  @Override
+  void close();
+}
@@ -0,0 +1,83 @@
+package io.github.padaiyal.adya.benchmarks;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the client side overhead of DockerUtility's checks and container management against a
+ * fake docker engine, depending on the daemon's latency, its inventory size and whether docker
+ * state is served from events.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {
+    "-Dlog4j.configurationFile=log4j2-benchmark.xml",
+    // Avoids delayed ACK stalls between the docker client and the fake docker engine
+    "-Dsun.net.httpserver.nodelay=true"
+})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DockerUtilityBenchmark {
+
+  @Param({"0", "500"})
+  public int latencyInMicros;
+
+  @Param({"10", "1000"})
+  public int imageCount;
+
+  @Param({"10", "1000"})
+  public int containerCount;
+
+  @Param({"true", "false"})
+  public boolean eventsEnabled;
+
+  private final AtomicLong containerSequence = new AtomicLong();
+  private DockerOperations dockerOperations;
+  private String existingImageReference;
+  private String existingContainerName;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    dockerOperations = DockerOperations.create(Duration.ofNanos(latencyInMicros * 1_000L),
+        imageCount, containerCount, eventsEnabled);
+    existingImageReference = dockerOperations.getExistingImageReference();
+    existingContainerName = dockerOperations.getExistingContainerName();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    dockerOperations.close();
+  }
+
+  @Benchmark
+  public boolean doesImageExist() {
+    return dockerOperations.doesImageExist(existingImageReference);
+  }
+
+  @Benchmark
+  public boolean doesContainerExist() {
+    return dockerOperations.doesContainerExist(existingContainerName, true);
+  }
+
+  @Benchmark
+  public void createAndRemoveContainer() {
+    String containerName = "adya_benchmark_" + containerSequence.incrementAndGet();
+    dockerOperations.createContainer(containerName);
+    dockerOperations.removeContainerIfExists(containerName);
+  }
+}
@@ -0,0 +1,85 @@
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeoutException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Base class for wait strategies that poll a readiness check until it succeeds or a timeout
+ * elapses.
+ */
+public abstract class AWaitStrategy implements WaitStrategy {
+
+  private static final Logger logger = LogManager.getLogger(AWaitStrategy.class);
+  private static final Duration defaultPollInterval = Duration.ofMillis(250);
+
+  private final Duration startupTimeout;
+  private final Duration pollInterval;
+
+  protected AWaitStrategy(Duration startupTimeout) {
+    this(startupTimeout, defaultPollInterval);
+  }
+
+  protected AWaitStrategy(Duration startupTimeout, Duration pollInterval) {
+    this.startupTimeout = Objects.requireNonNull(startupTimeout);
+    this.pollInterval = Objects.requireNonNull(pollInterval);
+  }
+
+  /**
+   * Performs a single readiness check.
+   *
+   * @param target Container to probe.
+   * @return true if the service is ready, else false.
+   */
+  protected abstract boolean isReady(WaitStrategyTarget target);
+
+  /**
+   * Returns the maximum time to wait for the service to be ready.
+   *
+   * @return Startup timeout.
+   */
+  public Duration getStartupTimeout() {
+    return this.startupTimeout;
+  }
+
+  @Override
+  public void waitUntilReady(WaitStrategyTarget target)
+      throws InterruptedException, TimeoutException {
+    pollUntilReady(target, startupTimeout);
+  }
+
+  /**
+   * Polls the readiness check until it succeeds or the specified timeout elapses.
+   *
+   * @param target  Container to probe.
+   * @param timeout Maximum time to poll for.
+   * @throws InterruptedException When the wait is interrupted.
+   * @throws TimeoutException     When the service isn't ready within the timeout.
+   */
+  protected void pollUntilReady(WaitStrategyTarget target, Duration timeout)
+      throws InterruptedException, TimeoutException {
+    Objects.requireNonNull(target);
+    Objects.requireNonNull(timeout);
+    logger.info("Waiting up to " + timeout + " for container '"
+        + target.getContainerName() + "' to be ready (" + this + ")");
+    long startTime = System.nanoTime();
+    long deadline = startTime + timeout.toNanos();
+    while (true) {
+      if (isReady(target)) {
+        logger.info("Container '" + target.getContainerName() + "' is ready after "
+            + Duration.ofNanos(System.nanoTime() - startTime).toMillis() + " ms");
+        return;
+      }
+      if (!target.isRunning()) {
+        throw new IllegalStateException(
+            "Container '" + target.getContainerName() + "' stopped before it was ready");
+      }
+      if (System.nanoTime() - deadline >= 0) {
+        throw new TimeoutException(
+            "Container '" + target.getContainerName() + "' wasn't ready within "
+                + timeout + " (" + this + ")");
+      }
+      Thread.sleep(pollInterval.toMillis());
+    }
+  }
+}
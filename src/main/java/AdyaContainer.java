@@ -0,0 +1,66 @@
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a container that {@link AdyaContainerExtension} starts for a JUnit 5 test, on a field
+ * or parameter of type {@link ManagedContainer}. Each container gets a unique name and ephemeral
+ * host ports, so tests using it can run in parallel with others.
+ *
+ * <pre>
+ * &#64;ExtendWith(AdyaContainerExtension.class)
+ * public class RepositoryTest {
+ *
+ *   &#64;AdyaContainer(image = DockerImage.POSTGRESQL_LATEST, scope = AdyaContainer.Scope.SUITE)
+ *   static ManagedContainer postgres;
+ * }
+ * </pre>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+public @interface AdyaContainer {
+
+  /**
+   * Determines how long a declared container lives, and thereby which tests share it.
+   */
+  enum Scope {
+    /**
+     * A container per test method, removed after the method.
+     */
+    METHOD,
+    /**
+     * A container per test class, shared by its test methods and removed after them.
+     */
+    CLASS,
+    /**
+     * A container per test run, shared by all test classes declaring the same image and key, and
+     * removed once all tests have run.
+     */
+    SUITE
+  }
+
+  /**
+   * Docker image to start the container from.
+   *
+   * @return Docker image.
+   */
+  DockerImage image();
+
+  /**
+   * Lifetime of the container.
+   *
+   * @return Scope of the container.
+   */
+  Scope scope() default Scope.CLASS;
+
+  /**
+   * Distinguishes several containers of the same image in the same scope. Suite scoped
+   * declarations with the same image and key share a container.
+   *
+   * @return Key of the container.
+   */
+  String key() default "";
+}
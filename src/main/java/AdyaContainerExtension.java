@@ -0,0 +1,192 @@
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionConfigurationException;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+
+/**
+ * JUnit 5 extension that starts the containers declared with {@link AdyaContainer} and injects
+ * them into the annotated fields and parameters. Each container is started once per scope and
+ * removed when the scope ends: method scoped containers after the test method, class scoped ones
+ * after the test class and suite scoped ones after the test run. Containers are kept in the JUnit
+ * extension store of their scope, which starts each of them exactly once even when tests run in
+ * parallel.
+ */
+public class AdyaContainerExtension implements BeforeAllCallback, BeforeEachCallback,
+    ParameterResolver {
+
+  private static final Logger logger = LogManager.getLogger(AdyaContainerExtension.class);
+  private static final ExtensionContext.Namespace namespace = ExtensionContext.Namespace
+      .create(AdyaContainerExtension.class);
+  private static final DockerUtility dockerUtility = new DockerUtility();
+  private static final AtomicBoolean sessionStarted = new AtomicBoolean();
+
+  /**
+   * Container removed when the extension store of its scope is closed.
+   */
+  private static class StartedContainer implements ExtensionContext.Store.CloseableResource {
+
+    private final ManagedContainer managedContainer;
+
+    StartedContainer(ManagedContainer managedContainer) {
+      this.managedContainer = managedContainer;
+    }
+
+    @Override
+    public void close() {
+      logger.info("Removing container " + managedContainer + " at the end of its scope");
+      dockerUtility.removeContainerIfExists(managedContainer.getContainerName(),
+          TeardownPolicy.KILL_AND_REAP);
+    }
+  }
+
+  @Override
+  public void beforeAll(ExtensionContext context) {
+    injectFields(context, null);
+  }
+
+  @Override
+  public void beforeEach(ExtensionContext context) {
+    injectFields(context, context.getRequiredTestInstance());
+  }
+
+  @Override
+  public boolean supportsParameter(ParameterContext parameterContext,
+      ExtensionContext extensionContext) {
+    return parameterContext.isAnnotated(AdyaContainer.class)
+        && parameterContext.getParameter()
+        .getType()
+        .isAssignableFrom(ManagedContainer.class);
+  }
+
+  @Override
+  public Object resolveParameter(ParameterContext parameterContext,
+      ExtensionContext extensionContext) {
+    return getContainer(
+        extensionContext,
+        parameterContext.findAnnotation(AdyaContainer.class)
+            .orElseThrow()
+    );
+  }
+
+  /**
+   * Injects containers into the annotated static fields, or into the annotated instance fields of
+   * the specified test instance.
+   *
+   * @param context      Extension context of the test class or method.
+   * @param testInstance Test instance whose fields are injected, or null to inject static fields.
+   */
+  private void injectFields(ExtensionContext context, Object testInstance) {
+    Class<?> testClass = (testInstance == null) ? context.getRequiredTestClass()
+        : testInstance.getClass();
+    for (Class<?> declaringClass = testClass; declaringClass != null;
+        declaringClass = declaringClass.getSuperclass()) {
+      for (Field field : declaringClass.getDeclaredFields()) {
+        AdyaContainer adyaContainer = field.getAnnotation(AdyaContainer.class);
+        if (adyaContainer == null
+            || Modifier.isStatic(field.getModifiers()) != (testInstance == null)) {
+          continue;
+        }
+        if (!field.getType()
+            .isAssignableFrom(ManagedContainer.class)) {
+          throw new ExtensionConfigurationException("Field '" + field
+              + "' is annotated with @AdyaContainer but isn't a ManagedContainer");
+        }
+        if (testInstance == null && adyaContainer.scope() == AdyaContainer.Scope.METHOD) {
+          throw new ExtensionConfigurationException("Static field '" + field
+              + "' can't hold a method scoped container");
+        }
+        try {
+          field.setAccessible(true);
+          field.set(testInstance, getContainer(context, adyaContainer));
+        } catch (IllegalAccessException e) {
+          throw new ExtensionConfigurationException(
+              "Unable to inject a container into field '" + field + "'", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the declared container, starting it if it hasn't been started in its scope yet.
+   *
+   * @param context       Extension context of the test class or method.
+   * @param adyaContainer Container declaration.
+   * @return The running container.
+   */
+  private ManagedContainer getContainer(ExtensionContext context, AdyaContainer adyaContainer) {
+    ExtensionContext scopeContext;
+    switch (adyaContainer.scope()) {
+      case METHOD -> {
+        if (context.getTestMethod()
+            .isEmpty()) {
+          throw new ExtensionConfigurationException(
+              "Method scoped containers can only be used by test methods");
+        }
+        scopeContext = context;
+      }
+      case CLASS -> {
+        scopeContext = context;
+        while (scopeContext.getTestMethod()
+            .isPresent()) {
+          scopeContext = scopeContext.getParent()
+              .orElseThrow();
+        }
+      }
+      case SUITE -> scopeContext = context.getRoot();
+      default -> throw new IllegalStateException(
+          "Unsupported container scope - " + adyaContainer.scope());
+    }
+    // Stores see the values of their ancestors', so the key includes the scope
+    String storeKey = adyaContainer.scope() + "/" + adyaContainer.image()
+        .name() + "/" + adyaContainer.key();
+    return scopeContext.getStore(namespace)
+        .getOrComputeIfAbsent(
+            storeKey,
+            key -> new StartedContainer(startContainer(adyaContainer)),
+            StartedContainer.class
+        )
+        .managedContainer;
+  }
+
+  private static ManagedContainer startContainer(AdyaContainer adyaContainer) {
+    // Containers leaked by crashed test runs are swept before the first container is started
+    if (sessionStarted.compareAndSet(false, true)) {
+      dockerUtility.sweepOrphanedSessions();
+      dockerUtility.pruneSessionAtShutdown();
+    }
+    DockerImage dockerImage = adyaContainer.image();
+    String containerName = "adya_" + adyaContainer.scope()
+        .name()
+        .toLowerCase() + "_" + dockerImage.name()
+        .toLowerCase() + "_" + UUID.randomUUID()
+        .toString()
+        .substring(0, 8);
+    try {
+      return dockerUtility.createAndRunContainer(
+          new ContainerSpec(dockerImage, containerName)
+              .withEphemeralPorts(true)
+      );
+    } catch (InterruptedException e) {
+      Thread.currentThread()
+          .interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Returns the docker utility used to start and remove the declared containers.
+   *
+   * @return Docker utility.
+   */
+  public static DockerUtility getDockerUtility() {
+    return dockerUtility;
+  }
+}
@@ -0,0 +1,130 @@
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Labels marking the containers and networks created by adya with the session, i.e. the JVM,
+ * that created them and its owner process. Labelled resources can be pruned in bulk with
+ * {@link DockerUtility#prune(String)}, and those left behind by crashed JVMs can be found with
+ * {@link DockerUtility#sweepOrphanedSessions()}.
+ */
+public final class AdyaLabels {
+
+  /**
+   * Label holding the ID of the session that created a resource.
+   */
+  public static final String sessionLabel = "io.github.padaiyal.adya.session";
+  /**
+   * Label holding the owner process of the session, in the host/pid/start time format.
+   */
+  public static final String ownerLabel = "io.github.padaiyal.adya.owner";
+  /**
+   * Label holding the configuration hash of a reusable container, see
+   * {@link ContainerSpec#withReuse(boolean)}.
+   */
+  public static final String configurationHashLabel = "io.github.padaiyal.adya.configuration-hash";
+
+  private static final String sessionId = UUID.randomUUID()
+      .toString();
+  private static final String hostName = getLocalHostName();
+  private static final String owner = hostName + "/" + ProcessHandle.current()
+      .pid() + "/" + getStartTime(ProcessHandle.current());
+  private static final Map<String, String> sessionLabels = Map.of(
+      sessionLabel, sessionId,
+      ownerLabel, owner
+  );
+
+  private AdyaLabels() {
+  }
+
+  /**
+   * Returns the ID of this JVM's session.
+   *
+   * @return Session ID.
+   */
+  public static String getSessionId() {
+    return sessionId;
+  }
+
+  /**
+   * Returns the owner of this JVM's session.
+   *
+   * @return Owner in the host/pid/start time format.
+   */
+  public static String getOwner() {
+    return owner;
+  }
+
+  /**
+   * Returns the labels added to every resource created in this JVM's session.
+   *
+   * @return Session and owner labels.
+   */
+  public static Map<String, String> getSessionLabels() {
+    return sessionLabels;
+  }
+
+  /**
+   * Returns a copy of the specified labels with the session labels added.
+   *
+   * @param labels Labels of a resource.
+   * @return Labels with the session labels added.
+   */
+  public static Map<String, String> withSessionLabels(Map<String, String> labels) {
+    // Input validation
+    Objects.requireNonNull(labels);
+
+    Map<String, String> labelsWithSession = new HashMap<>(labels);
+    labelsWithSession.putAll(sessionLabels);
+    return labelsWithSession;
+  }
+
+  /**
+   * Checks if the owner process of a session is dead. Only owners on this host can be checked, a
+   * process is considered the owner if its pid and start time match, so that reused pids aren't
+   * mistaken for it.
+   *
+   * @param owner Owner in the host/pid/start time format.
+   * @return true if the owner is known to be dead, false if it's alive or on another host.
+   */
+  public static boolean isOwnerDead(String owner) {
+    // Input validation
+    Objects.requireNonNull(owner);
+
+    String[] ownerParts = owner.split("/");
+    if (ownerParts.length != 3 || !ownerParts[0].equals(hostName)) {
+      return false;
+    }
+    long pid;
+    try {
+      pid = Long.parseLong(ownerParts[1]);
+    } catch (NumberFormatException e) {
+      return false;
+    }
+    Optional<ProcessHandle> process = ProcessHandle.of(pid);
+    return process.isEmpty() || !process.get()
+        .isAlive() || !String.valueOf(getStartTime(process.get()))
+        .equals(ownerParts[2]);
+  }
+
+  private static long getStartTime(ProcessHandle process) {
+    return process.info()
+        .startInstant()
+        .map(Instant::toEpochMilli)
+        .orElse(0L);
+  }
+
+  private static String getLocalHostName() {
+    try {
+      return InetAddress.getLocalHost()
+          .getHostName();
+    } catch (UnknownHostException e) {
+      return "localhost";
+    }
+  }
+}
@@ -0,0 +1,369 @@
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Asynchronous facade over {@link DockerUtility}. Every operation is run on an executor and
+ * returns a {@link CompletableFuture} that completes with the result of the equivalent synchronous
+ * method, or completes exceptionally with the exception that method would have thrown. By default
+ * operations run on virtual threads when the runtime supports them, and on a bounded thread pool
+ * otherwise.
+ */
+public class AsyncDockerUtility implements AutoCloseable {
+
+  private static final Logger logger = LogManager.getLogger(AsyncDockerUtility.class);
+  private static final int defaultPoolSize = 32;
+
+  private final DockerUtility dockerUtility;
+  private final ExecutorService executor;
+  private final boolean ownsExecutor;
+
+  /**
+   * Creates an async facade over the specified docker utility, backed by a virtual thread per task
+   * executor if available, else by a bounded thread pool.
+   *
+   * @param dockerUtility Docker utility whose operations are to be run asynchronously.
+   */
+  public AsyncDockerUtility(DockerUtility dockerUtility) {
+    this(dockerUtility, createDefaultExecutor(), true);
+  }
+
+  /**
+   * Creates an async facade over the specified docker utility, backed by the specified executor.
+   * The executor isn't shut down when this facade is closed.
+   *
+   * @param dockerUtility Docker utility whose operations are to be run asynchronously.
+   * @param executor      Executor to run the operations on.
+   */
+  public AsyncDockerUtility(DockerUtility dockerUtility, ExecutorService executor) {
+    this(dockerUtility, executor, false);
+  }
+
+  private AsyncDockerUtility(DockerUtility dockerUtility, ExecutorService executor,
+      boolean ownsExecutor) {
+    this.dockerUtility = Objects.requireNonNull(dockerUtility);
+    this.executor = Objects.requireNonNull(executor);
+    this.ownsExecutor = ownsExecutor;
+  }
+
+  /**
+   * Creates an executor that runs each task on a new virtual thread, falling back to a bounded
+   * pool of daemon threads on runtimes without virtual threads.
+   *
+   * @return The created executor.
+   */
+  private static ExecutorService createDefaultExecutor() {
+    try {
+      // Looked up reflectively as virtual threads are not available in the targeted java version
+      ExecutorService executor = (ExecutorService) Executors.class
+          .getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+      logger.debug("Running docker operations on virtual threads");
+      return executor;
+    } catch (ReflectiveOperationException e) {
+      logger.debug("Virtual threads unavailable, running docker operations on a thread pool");
+      return Executors.newFixedThreadPool(
+          defaultPoolSize,
+          runnable -> {
+            Thread thread = new Thread(runnable, "adya-async-docker");
+            thread.setDaemon(true);
+            return thread;
+          }
+      );
+    }
+  }
+
+  /**
+   * Returns the wrapped docker utility.
+   *
+   * @return The wrapped docker utility.
+   */
+  public DockerUtility getDockerUtility() {
+    return dockerUtility;
+  }
+
+  /**
+   * Asynchronously checks if the specified docker image exists locally.
+   *
+   * @param dockerImage Docker image to check.
+   * @return A future completed with true if the image exists, else false.
+   * @see DockerUtility#doesImageExist(DockerImage)
+   */
+  public CompletableFuture<Boolean> doesImageExist(DockerImage dockerImage) {
+    return supplyAsync(() -> dockerUtility.doesImageExist(dockerImage));
+  }
+
+  /**
+   * Asynchronously checks if the specified container exists.
+   *
+   * @param containerName      Name of the container to check.
+   * @param checkAllContainers If true, it checks all containers, else only running ones.
+   * @return A future completed with true if the container exists, else false.
+   * @see DockerUtility#doesContainerExist(String, boolean)
+   */
+  public CompletableFuture<Boolean> doesContainerExist(String containerName,
+      boolean checkAllContainers) {
+    return supplyAsync(() -> dockerUtility.doesContainerExist(containerName, checkAllContainers));
+  }
+
+  /**
+   * Asynchronously pulls the specified docker image.
+   *
+   * @param dockerImage Docker image to pull.
+   * @return A future completed once the image is pulled.
+   * @see DockerUtility#pullImage(DockerImage)
+   */
+  public CompletableFuture<Void> pullImage(DockerImage dockerImage) {
+    return runAsync(() -> dockerUtility.pullImage(dockerImage));
+  }
+
+  /**
+   * Asynchronously pulls the specified docker images. Concurrent pulls of the same image are
+   * coalesced, and the number of pulls in progress is bounded by the executor.
+   *
+   * @param dockerImages Docker images to pull.
+   * @return A future per docker image, completed once its pull completes.
+   * @see DockerUtility#pullImages(Collection)
+   */
+  public Map<DockerImage, CompletableFuture<Void>> pullImages(
+      Collection<DockerImage> dockerImages) {
+    // Input validation
+    Objects.requireNonNull(dockerImages);
+    dockerImages.forEach(Objects::requireNonNull);
+
+    Map<DockerImage, CompletableFuture<Void>> pulls = new LinkedHashMap<>();
+    dockerImages.forEach(dockerImage -> pulls.computeIfAbsent(dockerImage, this::pullImage));
+    return pulls;
+  }
+
+  /**
+   * Asynchronously creates a container from the specified image with the specified name.
+   *
+   * @param dockerImage             Image from which the container has to be created.
+   * @param containerName           Name of container to create.
+   * @param removeContainerIfExists If true, it removes any container with the same name before
+   *                                creating a new one.
+   * @return A future completed once the container is created.
+   * @see DockerUtility#createContainer(DockerImage, String, boolean)
+   */
+  public CompletableFuture<Void> createContainer(DockerImage dockerImage, String containerName,
+      boolean removeContainerIfExists) {
+    return runAsync(() -> dockerUtility.createContainer(dockerImage, containerName,
+        removeContainerIfExists));
+  }
+
+  /**
+   * Asynchronously creates a container as described by the specified container spec.
+   *
+   * @param containerSpec Spec of the container to create.
+   * @return A future completed once the container is created.
+   * @see DockerUtility#createContainer(ContainerSpec)
+   */
+  public CompletableFuture<Void> createContainer(ContainerSpec containerSpec) {
+    return runAsync(() -> dockerUtility.createContainer(containerSpec));
+  }
+
+  /**
+   * Asynchronously creates and runs a container from the specified image with the specified name,
+   * using the image's default wait strategy.
+   *
+   * @param dockerImage             Image to create a container from.
+   * @param containerName           Name of container to create.
+   * @param removeContainerIfExists If true, it removes any container with the same name before
+   *                                creating a new one.
+   * @return A future completed once the container is ready.
+   * @see DockerUtility#createAndRunContainer(DockerImage, String, boolean)
+   */
+  public CompletableFuture<Void> createAndRunContainer(DockerImage dockerImage,
+      String containerName, boolean removeContainerIfExists) {
+    return runAsync(() -> dockerUtility.createAndRunContainer(dockerImage, containerName,
+        removeContainerIfExists));
+  }
+
+  /**
+   * Asynchronously creates and runs a container from the specified image with the specified name,
+   * using the specified wait strategy.
+   *
+   * @param dockerImage             Image to create a container from.
+   * @param containerName           Name of container to create.
+   * @param removeContainerIfExists If true, it removes any container with the same name before
+   *                                creating a new one.
+   * @param waitStrategy            Strategy to determine when the container is ready.
+   * @return A future completed once the container is ready.
+   * @see DockerUtility#createAndRunContainer(DockerImage, String, boolean, WaitStrategy)
+   */
+  public CompletableFuture<Void> createAndRunContainer(DockerImage dockerImage,
+      String containerName, boolean removeContainerIfExists, WaitStrategy waitStrategy) {
+    return runAsync(() -> dockerUtility.createAndRunContainer(dockerImage, containerName,
+        removeContainerIfExists, waitStrategy));
+  }
+
+  /**
+   * Asynchronously creates and runs a container as described by the specified container spec.
+   *
+   * @param containerSpec Spec of the container to create and run.
+   * @return A future completed with the running container once it's ready.
+   * @see DockerUtility#createAndRunContainer(ContainerSpec)
+   */
+  public CompletableFuture<ManagedContainer> createAndRunContainer(ContainerSpec containerSpec) {
+    return supplyAsync(() -> dockerUtility.createAndRunContainer(containerSpec));
+  }
+
+  /**
+   * Asynchronously creates and runs containers as described by the specified container specs.
+   * All containers are brought up concurrently, and concurrent pulls of the same image are
+   * coalesced.
+   *
+   * @param containerSpecs Specs of the containers to create and run.
+   * @return A future per container name, completed with the running container once it's ready.
+   */
+  public Map<String, CompletableFuture<ManagedContainer>> createAndRunContainers(
+      Collection<ContainerSpec> containerSpecs) {
+    // Input validation
+    Objects.requireNonNull(containerSpecs);
+    containerSpecs.forEach(Objects::requireNonNull);
+
+    Map<String, CompletableFuture<ManagedContainer>> containers = new LinkedHashMap<>();
+    containerSpecs.forEach(containerSpec -> containers.put(
+        containerSpec.getContainerName(),
+        createAndRunContainer(containerSpec)
+    ));
+    return containers;
+  }
+
+  /**
+   * Asynchronously waits until the service in the specified container is ready.
+   *
+   * @param managedContainer Container to wait for.
+   * @param waitStrategy     Strategy determining when the container is ready.
+   * @return A future completed once the container is ready.
+   * @see DockerUtility#waitUntilReady(ManagedContainer, WaitStrategy)
+   */
+  public CompletableFuture<Void> waitUntilReady(ManagedContainer managedContainer,
+      WaitStrategy waitStrategy) {
+    return runAsync(() -> dockerUtility.waitUntilReady(managedContainer, waitStrategy));
+  }
+
+  /**
+   * Asynchronously stops and removes the specified container if it exists.
+   *
+   * @param containerName Name of the container to remove.
+   * @return A future completed once the container is removed.
+   * @see DockerUtility#removeContainerIfExists(String)
+   */
+  public CompletableFuture<Void> removeContainerIfExists(String containerName) {
+    return runAsync(() -> dockerUtility.removeContainerIfExists(containerName));
+  }
+
+  /**
+   * Asynchronously removes the specified container if it exists, as determined by the specified
+   * teardown policy.
+   *
+   * @param containerName  Name of the container to remove.
+   * @param teardownPolicy Policy that determines how the container is stopped and removed.
+   * @return A future completed once the container is removed, or once its name is free for reuse
+   *     with {@link TeardownPolicy#KILL_AND_REAP}.
+   * @see DockerUtility#removeContainerIfExists(String, TeardownPolicy)
+   */
+  public CompletableFuture<Void> removeContainerIfExists(String containerName,
+      TeardownPolicy teardownPolicy) {
+    return runAsync(() -> dockerUtility.removeContainerIfExists(containerName, teardownPolicy));
+  }
+
+  /**
+   * Asynchronously removes all containers and networks created by adya in the specified session,
+   * or in any session.
+   *
+   * @param sessionFilter ID of the session whose resources to remove, or null to remove the
+   *                      resources of all sessions.
+   * @return A future completed with the number of removed resources.
+   * @see DockerUtility#prune(String)
+   */
+  public CompletableFuture<Integer> prune(String sessionFilter) {
+    return supplyAsync(() -> dockerUtility.prune(sessionFilter));
+  }
+
+  /**
+   * Asynchronously executes a command in a running container and waits for it to exit.
+   *
+   * @param containerName        Name of the container.
+   * @param environmentVariables Environment variables set for the command, in the NAME=value
+   *                             format.
+   * @param timeout              Maximum time to wait for the command to exit.
+   * @param command              Command and its arguments.
+   * @return A future completed with the exit code and output of the command.
+   * @see DockerUtility#execInContainer(String, String[], Duration, String...)
+   */
+  public CompletableFuture<ExecResult> execInContainer(String containerName,
+      String[] environmentVariables, Duration timeout, String... command) {
+    return supplyAsync(() -> dockerUtility.execInContainer(containerName, environmentVariables,
+        timeout, command));
+  }
+
+  /**
+   * Shuts down the executor, if it was created by this facade. Operations in progress are allowed
+   * to complete.
+   */
+  @Override
+  public void close() {
+    if (ownsExecutor) {
+      executor.shutdown();
+      try {
+        if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+          logger.warn("Docker operations still in progress after closing");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * An operation without a result that may throw checked exceptions.
+   */
+  @FunctionalInterface
+  private interface Operation {
+
+    void run() throws Exception;
+  }
+
+  private CompletableFuture<Void> runAsync(Operation operation) {
+    return supplyAsync(() -> {
+      operation.run();
+      return null;
+    });
+  }
+
+  /**
+   * Runs the specified operation on the executor. Unlike {@link CompletableFuture#supplyAsync},
+   * the returned future is completed exceptionally with the exception thrown by the operation
+   * itself, so that the semantics of the synchronous methods are kept.
+   *
+   * @param operation Operation to run.
+   * @param <T>       Type of the operation's result.
+   * @return A future completed with the operation's result.
+   */
+  private <T> CompletableFuture<T> supplyAsync(Callable<T> operation) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    executor.execute(() -> {
+      try {
+        future.complete(operation.call());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        future.completeExceptionally(e);
+      } catch (Throwable e) {
+        future.completeExceptionally(e);
+      }
+    });
+    return future;
+  }
+}
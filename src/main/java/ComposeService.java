@@ -0,0 +1,276 @@
+import com.github.dockerjava.api.model.HealthCheck;
+import com.github.dockerjava.api.model.PortBinding;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A service definition parsed from a compose yaml file. Only the subset of the compose
+ * specification needed to run services from images is supported: image, container_name,
+ * environment, command, ports, depends_on and healthcheck.
+ */
+public class ComposeService {
+
+  /**
+   * Condition a dependency has to satisfy before a dependent service is started.
+   */
+  public enum DependencyCondition {
+    SERVICE_STARTED,
+    SERVICE_HEALTHY,
+    SERVICE_COMPLETED_SUCCESSFULLY
+  }
+
+  private static final Pattern durationPattern = Pattern.compile(
+      "(\\d+(?:\\.\\d+)?)(ns|us|ms|s|m|h)");
+
+  private final String name;
+  private final String image;
+  private final String containerName;
+  private final List<String> environment;
+  private final List<String> command;
+  private final List<PortBinding> portBindings;
+  private final Map<String, DependencyCondition> dependencies;
+  private final HealthCheck healthCheck;
+
+  private ComposeService(String name, String image, String containerName,
+      List<String> environment, List<String> command, List<PortBinding> portBindings,
+      Map<String, DependencyCondition> dependencies, HealthCheck healthCheck) {
+    this.name = name;
+    this.image = image;
+    this.containerName = containerName;
+    this.environment = Collections.unmodifiableList(environment);
+    this.command = (command == null) ? null : Collections.unmodifiableList(command);
+    this.portBindings = Collections.unmodifiableList(portBindings);
+    this.dependencies = Collections.unmodifiableMap(dependencies);
+    this.healthCheck = healthCheck;
+  }
+
+  /**
+   * Parses a service definition from the yaml mapping under the compose file's "services" key.
+   *
+   * @param name       Name of the service.
+   * @param definition Yaml mapping defining the service.
+   * @return Parsed service.
+   * @throws IllegalArgumentException When the definition is invalid or uses unsupported syntax.
+   */
+  public static ComposeService parse(String name, Map<?, ?> definition) {
+    // Input validation
+    Objects.requireNonNull(name);
+    Objects.requireNonNull(definition);
+
+    Object image = definition.get("image");
+    if (!(image instanceof String)) {
+      throw new IllegalArgumentException("Service '" + name + "' doesn't specify an image");
+    }
+
+    // Environment variables can be specified as a list of KEY=VALUE strings or as a mapping
+    List<String> environment = new ArrayList<>();
+    Object environmentDefinition = definition.get("environment");
+    if (environmentDefinition instanceof Map) {
+      ((Map<?, ?>) environmentDefinition).forEach((key, value) -> {
+        // A key without a value is passed through from the environment running compose
+        String resolvedValue = (value == null) ? System.getenv(String.valueOf(key))
+            : String.valueOf(value);
+        if (resolvedValue != null) {
+          environment.add(key + "=" + resolvedValue);
+        }
+      });
+    } else if (environmentDefinition instanceof List) {
+      ((List<?>) environmentDefinition).forEach(entry -> environment.add(String.valueOf(entry)));
+    } else if (environmentDefinition != null) {
+      throw new IllegalArgumentException("Invalid environment for service '" + name + "'");
+    }
+
+    List<String> command = null;
+    Object commandDefinition = definition.get("command");
+    if (commandDefinition instanceof String) {
+      command = Arrays.asList(((String) commandDefinition).trim().split("\\s+"));
+    } else if (commandDefinition instanceof List) {
+      command = new ArrayList<>();
+      for (Object argument : (List<?>) commandDefinition) {
+        command.add(String.valueOf(argument));
+      }
+    } else if (commandDefinition != null) {
+      throw new IllegalArgumentException("Invalid command for service '" + name + "'");
+    }
+
+    List<PortBinding> portBindings = new ArrayList<>();
+    Object portsDefinition = definition.get("ports");
+    if (portsDefinition instanceof List) {
+      // A port without a host port is published on a free host port
+      ((List<?>) portsDefinition).forEach(
+          port -> portBindings.add(PortBinding.parse(String.valueOf(port))));
+    } else if (portsDefinition != null) {
+      throw new IllegalArgumentException("Invalid ports for service '" + name + "'");
+    }
+
+    // Dependencies can be specified as a list of service names or as a mapping with conditions
+    Map<String, DependencyCondition> dependencies = new LinkedHashMap<>();
+    Object dependsOnDefinition = definition.get("depends_on");
+    if (dependsOnDefinition instanceof List) {
+      ((List<?>) dependsOnDefinition).forEach(dependency -> dependencies.put(
+          String.valueOf(dependency), DependencyCondition.SERVICE_STARTED));
+    } else if (dependsOnDefinition instanceof Map) {
+      ((Map<?, ?>) dependsOnDefinition).forEach((dependency, dependencyDefinition) -> {
+        Object condition = (dependencyDefinition instanceof Map)
+            ? ((Map<?, ?>) dependencyDefinition).get("condition") : null;
+        dependencies.put(
+            String.valueOf(dependency),
+            (condition == null) ? DependencyCondition.SERVICE_STARTED
+                : DependencyCondition.valueOf(String.valueOf(condition).toUpperCase())
+        );
+      });
+    } else if (dependsOnDefinition != null) {
+      throw new IllegalArgumentException("Invalid depends_on for service '" + name + "'");
+    }
+
+    HealthCheck healthCheck = null;
+    Object healthCheckDefinition = definition.get("healthcheck");
+    if (healthCheckDefinition instanceof Map) {
+      healthCheck = parseHealthCheck(name, (Map<?, ?>) healthCheckDefinition);
+    } else if (healthCheckDefinition != null) {
+      throw new IllegalArgumentException("Invalid healthcheck for service '" + name + "'");
+    }
+
+    Object containerName = definition.get("container_name");
+    return new ComposeService(name, (String) image,
+        (containerName == null) ? null : String.valueOf(containerName),
+        environment, command, portBindings, dependencies, healthCheck);
+  }
+
+  private static HealthCheck parseHealthCheck(String name, Map<?, ?> definition) {
+    HealthCheck healthCheck = new HealthCheck();
+    Object test = definition.get("test");
+    if (test instanceof String) {
+      healthCheck.withTest(List.of("CMD-SHELL", (String) test));
+    } else if (test instanceof List) {
+      List<String> testCommand = new ArrayList<>();
+      for (Object argument : (List<?>) test) {
+        testCommand.add(String.valueOf(argument));
+      }
+      healthCheck.withTest(testCommand);
+    } else if (test != null) {
+      throw new IllegalArgumentException("Invalid healthcheck test for service '" + name + "'");
+    }
+    if (definition.get("interval") != null) {
+      healthCheck.withInterval(parseDurationInNs(String.valueOf(definition.get("interval"))));
+    }
+    if (definition.get("timeout") != null) {
+      healthCheck.withTimeout(parseDurationInNs(String.valueOf(definition.get("timeout"))));
+    }
+    if (definition.get("start_period") != null) {
+      healthCheck.withStartPeriod(
+          parseDurationInNs(String.valueOf(definition.get("start_period"))));
+    }
+    if (definition.get("retries") != null) {
+      healthCheck.withRetries(Integer.parseInt(String.valueOf(definition.get("retries"))));
+    }
+    return healthCheck;
+  }
+
+  /**
+   * Parses a compose duration like "1m30s" or "500ms".
+   *
+   * @param duration Duration to parse.
+   * @return Duration in nanoseconds.
+   */
+  static long parseDurationInNs(String duration) {
+    Matcher matcher = durationPattern.matcher(duration.trim());
+    double durationInNs = 0;
+    int end = 0;
+    while (matcher.find() && matcher.start() == end) {
+      double value = Double.parseDouble(matcher.group(1));
+      durationInNs += value * switch (matcher.group(2)) {
+        case "ns" -> 1L;
+        case "us" -> 1_000L;
+        case "ms" -> 1_000_000L;
+        case "s" -> 1_000_000_000L;
+        case "m" -> 60_000_000_000L;
+        default -> 3_600_000_000_000L;
+      };
+      end = matcher.end();
+    }
+    if (end == 0 || end != duration.trim().length()) {
+      throw new IllegalArgumentException("Invalid duration - " + duration);
+    }
+    return (long) durationInNs;
+  }
+
+  /**
+   * Returns the name of the service.
+   *
+   * @return Name of the service.
+   */
+  public String getName() {
+    return this.name;
+  }
+
+  /**
+   * Returns the image reference of the service.
+   *
+   * @return Image reference, e.g. "postgres:latest".
+   */
+  public String getImage() {
+    return this.image;
+  }
+
+  /**
+   * Returns the container name specified for the service.
+   *
+   * @return Container name, null if none is specified.
+   */
+  public String getContainerName() {
+    return this.containerName;
+  }
+
+  /**
+   * Returns the environment variables of the service.
+   *
+   * @return Environment variables in the KEY=VALUE format.
+   */
+  public List<String> getEnvironment() {
+    return this.environment;
+  }
+
+  /**
+   * Returns the command overriding the image's default command.
+   *
+   * @return Command, null if the image's default command is used.
+   */
+  public List<String> getCommand() {
+    return this.command;
+  }
+
+  /**
+   * Returns the ports published by the service.
+   *
+   * @return Port bindings.
+   */
+  public List<PortBinding> getPortBindings() {
+    return this.portBindings;
+  }
+
+  /**
+   * Returns the services this service depends on, along with the condition each has to satisfy.
+   *
+   * @return Dependencies keyed by service name.
+   */
+  public Map<String, DependencyCondition> getDependencies() {
+    return this.dependencies;
+  }
+
+  /**
+   * Returns the health check overriding the image's HEALTHCHECK.
+   *
+   * @return Health check, null if the image's HEALTHCHECK is used.
+   */
+  public HealthCheck getHealthCheck() {
+    return this.healthCheck;
+  }
+}
@@ -0,0 +1,73 @@
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Outcome of starting a single compose service.
+ */
+public class ComposeServiceResult {
+
+  private final String serviceName;
+  private final String containerName;
+  private final Duration startupDuration;
+  private final Throwable error;
+
+  ComposeServiceResult(String serviceName, String containerName, Duration startupDuration,
+      Throwable error) {
+    this.serviceName = Objects.requireNonNull(serviceName);
+    this.containerName = containerName;
+    this.startupDuration = Objects.requireNonNull(startupDuration);
+    this.error = error;
+  }
+
+  /**
+   * Returns the name of the service.
+   *
+   * @return Name of the service.
+   */
+  public String getServiceName() {
+    return this.serviceName;
+  }
+
+  /**
+   * Returns the name of the service's container.
+   *
+   * @return Name of the container, null if it wasn't created.
+   */
+  public String getContainerName() {
+    return this.containerName;
+  }
+
+  /**
+   * Returns the time taken to create and start the service's container.
+   *
+   * @return Startup duration.
+   */
+  public Duration getStartupDuration() {
+    return this.startupDuration;
+  }
+
+  /**
+   * Returns the error that prevented the service from starting.
+   *
+   * @return Error, null if the service started successfully.
+   */
+  public Throwable getError() {
+    return this.error;
+  }
+
+  /**
+   * Checks if the service started successfully.
+   *
+   * @return true if the service started successfully, else false.
+   */
+  public boolean isSuccessful() {
+    return this.error == null;
+  }
+
+  @Override
+  public String toString() {
+    return this.serviceName + (isSuccessful()
+        ? " started in " + startupDuration.toMillis() + " ms"
+        : " failed - " + error.getMessage());
+  }
+}
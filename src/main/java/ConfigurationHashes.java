@@ -0,0 +1,40 @@
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * Short hashes of configurations, used to tell apart the containers and images created from
+ * different configurations.
+ */
+final class ConfigurationHashes {
+
+  private ConfigurationHashes() {
+  }
+
+  /**
+   * Hashes the specified configuration entries with SHA-256, in the order they are streamed.
+   * Entries are delimited, so that moving characters from one entry to the next changes the hash.
+   *
+   * @param configuration Configuration entries.
+   * @return First 8 bytes of the hash, hex encoded.
+   */
+  static String hash(Stream<String> configuration) {
+    MessageDigest messageDigest;
+    try {
+      messageDigest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+    configuration.forEach(entry -> {
+      messageDigest.update(entry.getBytes(StandardCharsets.UTF_8));
+      messageDigest.update((byte) 0);
+    });
+    StringBuilder configurationHash = new StringBuilder();
+    for (byte hashByte : Arrays.copyOf(messageDigest.digest(), 8)) {
+      configurationHash.append(String.format("%02x", hashByte));
+    }
+    return configurationHash.toString();
+  }
+}
@@ -0,0 +1,123 @@
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Dispatches the container events of a docker daemon's event stream to the listeners registered
+ * for the container they concern. Listeners are registered by container name, and move along with
+ * the container when it is renamed.
+ */
+final class ContainerEventDispatcher implements DockerEventStream.Listener {
+
+  private static final Logger logger = LogManager.getLogger(ContainerEventDispatcher.class);
+  private static final String healthStatusActionPrefix = "health_status: ";
+
+  private final Map<String, List<ContainerEventListener>> listeners = new ConcurrentHashMap<>();
+
+  /**
+   * Registers a listener for the events of the specified container.
+   *
+   * @param containerName Name of the container.
+   * @param listener      Listener to register.
+   */
+  void addListener(String containerName, ContainerEventListener listener) {
+    // Input validation
+    Objects.requireNonNull(containerName);
+    Objects.requireNonNull(listener);
+
+    listeners.compute(containerName, (presentContainerName, containerListeners) -> {
+      List<ContainerEventListener> updatedContainerListeners = (containerListeners == null)
+          ? new CopyOnWriteArrayList<>() : containerListeners;
+      updatedContainerListeners.add(listener);
+      return updatedContainerListeners;
+    });
+  }
+
+  /**
+   * Unregisters a listener for the events of the specified container.
+   *
+   * @param containerName Name of the container.
+   * @param listener      Listener to unregister.
+   */
+  void removeListener(String containerName, ContainerEventListener listener) {
+    listeners.computeIfPresent(Objects.requireNonNull(containerName),
+        (presentContainerName, containerListeners) -> {
+          containerListeners.remove(listener);
+          return containerListeners.isEmpty() ? null : containerListeners;
+        });
+  }
+
+  @Override
+  public void onEvent(Event event) {
+    Map<String, String> attributes = (event.getActor() == null) ? null
+        : event.getActor().getAttributes();
+    String containerName = (attributes == null) ? null : attributes.get("name");
+    String action = event.getAction();
+    if (event.getType() != EventType.CONTAINER || containerName == null || action == null) {
+      return;
+    }
+    if (action.equals("rename")) {
+      String oldContainerName = attributes.get("oldName");
+      if (oldContainerName != null) {
+        moveListeners(oldContainerName.substring(oldContainerName.startsWith("/") ? 1 : 0),
+            containerName);
+      }
+      return;
+    }
+    List<ContainerEventListener> containerListeners = listeners.get(containerName);
+    if (containerListeners == null) {
+      return;
+    }
+    for (ContainerEventListener listener : containerListeners) {
+      try {
+        dispatch(listener, containerName, action, attributes);
+      } catch (RuntimeException e) {
+        logger.error("Container event listener of '" + containerName + "' failed on " + action
+            + " event", e);
+      }
+    }
+  }
+
+  private static void dispatch(ContainerEventListener listener, String containerName,
+      String action, Map<String, String> attributes) {
+    if (action.startsWith(healthStatusActionPrefix)) {
+      listener.onHealthStatus(containerName,
+          action.substring(healthStatusActionPrefix.length()));
+      return;
+    }
+    switch (action) {
+      case "start" -> listener.onStart(containerName);
+      case "die" -> listener.onDie(containerName, parseExitCode(attributes.get("exitCode")));
+      case "oom" -> listener.onOom(containerName);
+      case "destroy" -> listener.onDestroy(containerName);
+      default -> {
+        // Not a lifecycle event
+      }
+    }
+  }
+
+  private void moveListeners(String oldContainerName, String containerName) {
+    List<ContainerEventListener> containerListeners = listeners.remove(oldContainerName);
+    if (containerListeners != null) {
+      listeners.merge(containerName, containerListeners,
+          (presentContainerListeners, movedContainerListeners) -> {
+            presentContainerListeners.addAll(movedContainerListeners);
+            return presentContainerListeners;
+          });
+    }
+  }
+
+  private static Integer parseExitCode(String exitCode) {
+    try {
+      return (exitCode == null) ? null : Integer.valueOf(exitCode);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+}
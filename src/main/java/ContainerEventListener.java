@@ -0,0 +1,50 @@
+/**
+ * Receives the lifecycle events of a container, as reported by the docker daemon's event stream.
+ * Listeners are invoked on the event stream's thread, so they should return quickly. Events
+ * happening while the event stream is reconnecting are missed.
+ */
+public interface ContainerEventListener {
+
+  /**
+   * Invoked when the container is started.
+   *
+   * @param containerName Name of the container.
+   */
+  default void onStart(String containerName) {
+  }
+
+  /**
+   * Invoked when the container's main process exits, for whatever reason.
+   *
+   * @param containerName Name of the container.
+   * @param exitCode      Exit code of the main process, null if the daemon didn't report it.
+   */
+  default void onDie(String containerName, Integer exitCode) {
+  }
+
+  /**
+   * Invoked when a process in the container is killed for exceeding the container's memory limit.
+   * Unless the main process survives, {@link #onDie(String, Integer)} follows.
+   *
+   * @param containerName Name of the container.
+   */
+  default void onOom(String containerName) {
+  }
+
+  /**
+   * Invoked when the status reported by the container's HEALTHCHECK changes.
+   *
+   * @param containerName Name of the container.
+   * @param healthStatus  New health status ("starting", "healthy" or "unhealthy").
+   */
+  default void onHealthStatus(String containerName, String healthStatus) {
+  }
+
+  /**
+   * Invoked when the container is removed. No further events are delivered for it.
+   *
+   * @param containerName Name of the container.
+   */
+  default void onDestroy(String containerName) {
+  }
+}
@@ -0,0 +1,55 @@
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A ready container handed out by a {@link ContainerPool}. Closing the lease releases the container
+ * back to the pool.
+ */
+public class ContainerLease implements AutoCloseable {
+
+  private final ContainerPool containerPool;
+  private final ManagedContainer managedContainer;
+  private final AtomicBoolean released = new AtomicBoolean(false);
+
+  ContainerLease(ContainerPool containerPool, ManagedContainer managedContainer) {
+    this.containerPool = Objects.requireNonNull(containerPool);
+    this.managedContainer = Objects.requireNonNull(managedContainer);
+  }
+
+  /**
+   * Returns the docker image the leased container was created from.
+   *
+   * @return Docker image of the leased container.
+   */
+  public DockerImage getDockerImage() {
+    return this.managedContainer.getDockerImage();
+  }
+
+  /**
+   * Returns the name of the leased container.
+   *
+   * @return Name of the leased container.
+   */
+  public String getContainerName() {
+    return this.managedContainer.getContainerName();
+  }
+
+  /**
+   * Returns the leased container, along with the information needed to connect to it.
+   *
+   * @return Leased container.
+   */
+  public ManagedContainer getManagedContainer() {
+    return this.managedContainer;
+  }
+
+  /**
+   * Releases the container back to the pool. Subsequent calls have no effect.
+   */
+  @Override
+  public void close() {
+    if (released.compareAndSet(false, true)) {
+      containerPool.release(this);
+    }
+  }
+}
@@ -0,0 +1,385 @@
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.StreamType;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Follows the STDOUT and STDERR output of a container on a background reader, keeping the last
+ * lines in a fixed size ring buffer. Lines are passed to subscribers as they're logged, and regex
+ * triggers complete as soon as enough matching lines have been logged, so that log based
+ * readiness doesn't poll the whole output. The stream ends when the container stops or is
+ * removed, or when it's closed.
+ */
+public class ContainerLogStream implements AutoCloseable {
+
+  /**
+   * Default number of lines kept in the ring buffer.
+   */
+  public static final int defaultCapacityInLines = 1000;
+  private static final Logger logger = LogManager.getLogger(ContainerLogStream.class);
+
+  private final DockerClient dockerClient;
+  private final String containerName;
+  private final String[] lines;
+  private final Map<StreamType, StringBuilder> partialLines = new EnumMap<>(StreamType.class);
+  private final List<Consumer<String>> subscribers = new CopyOnWriteArrayList<>();
+  private final List<Trigger> triggers = new ArrayList<>();
+  private final List<Trigger> matchedTriggers = new ArrayList<>();
+  private final CompletableFuture<Void> completion = new CompletableFuture<>();
+  private ResultCallback.Adapter<Frame> callback;
+  private int firstLineIndex = 0;
+  private int bufferedLineCount = 0;
+  private long lineCount = 0;
+
+  /**
+   * Trigger completed with the line on which its pattern has matched the required number of
+   * times.
+   */
+  private static class Trigger {
+
+    private final Pattern pattern;
+    private final CompletableFuture<String> match = new CompletableFuture<>();
+    private int remainingMatches;
+    private String matchedLine;
+
+    Trigger(Pattern pattern, int times) {
+      this.pattern = pattern;
+      this.remainingMatches = times;
+    }
+
+    /**
+     * Counts the line if it matches.
+     *
+     * @param line Logged line.
+     * @return true if the pattern has now matched the required number of lines, else false.
+     */
+    boolean offer(String line) {
+      if (pattern.matcher(line).find() && --remainingMatches == 0) {
+        matchedLine = line;
+        return true;
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Creates a log stream for the specified container. Following starts when
+   * {@link #start()} is called.
+   *
+   * @param dockerClient    Docker client of the daemon running the container.
+   * @param containerName   Name of the container.
+   * @param capacityInLines Number of most recent lines to keep.
+   */
+  public ContainerLogStream(DockerClient dockerClient, String containerName,
+      int capacityInLines) {
+    this.dockerClient = Objects.requireNonNull(dockerClient);
+    this.containerName = Objects.requireNonNull(containerName);
+    if (capacityInLines < 1) {
+      throw new IllegalArgumentException(
+          "Log buffer capacity should be at least 1 line, but is " + capacityInLines);
+    }
+    this.lines = new String[capacityInLines];
+  }
+
+  /**
+   * Starts following the container's output from its very first line.
+   *
+   * @return This log stream.
+   */
+  public synchronized ContainerLogStream start() {
+    if (callback != null) {
+      throw new IllegalStateException(
+          "Log stream of container '" + containerName + "' is already started");
+    }
+    callback = dockerClient.logContainerCmd(containerName)
+        .withStdOut(true)
+        .withStdErr(true)
+        .withFollowStream(true)
+        .exec(new ResultCallback.Adapter<>() {
+          @Override
+          public void onNext(Frame frame) {
+            onFrame(frame);
+          }
+
+          @Override
+          public void onError(Throwable throwable) {
+            logger.debug("Log stream of container '" + containerName + "' failed", throwable);
+            onEnd();
+          }
+
+          @Override
+          public void onComplete() {
+            onEnd();
+          }
+        });
+    return this;
+  }
+
+  /**
+   * Returns the name of the followed container.
+   *
+   * @return Name of the container.
+   */
+  public String getContainerName() {
+    return this.containerName;
+  }
+
+  /**
+   * Returns the lines in the ring buffer, oldest first.
+   *
+   * @return Most recent lines, at most as many as the buffer's capacity.
+   */
+  public synchronized List<String> getLines() {
+    List<String> bufferedLines = new ArrayList<>(bufferedLineCount);
+    for (int offset = 0; offset < bufferedLineCount; offset++) {
+      bufferedLines.add(lines[(firstLineIndex + offset) % lines.length]);
+    }
+    return bufferedLines;
+  }
+
+  /**
+   * Returns the lines in the ring buffer joined into a single string.
+   *
+   * @return Most recent output, with a line separator after each line.
+   */
+  public String getLogs() {
+    StringBuilder logs = new StringBuilder();
+    getLines().forEach(line -> logs.append(line)
+        .append('\n'));
+    return logs.toString();
+  }
+
+  /**
+   * Returns the number of lines logged so far, including those no longer in the ring buffer.
+   *
+   * @return Number of lines.
+   */
+  public synchronized long getLineCount() {
+    return this.lineCount;
+  }
+
+  /**
+   * Checks if the stream has ended, i.e. the container stopped or the stream was closed.
+   *
+   * @return true if the stream has ended, else false.
+   */
+  public boolean isEnded() {
+    return completion.isDone();
+  }
+
+  /**
+   * Returns a future completed when the stream ends.
+   *
+   * @return Future completed when the stream ends.
+   */
+  public CompletableFuture<Void> getCompletion() {
+    return completion;
+  }
+
+  /**
+   * Adds a subscriber that's called on the reader thread with every line logged from now on.
+   * Subscribers should return quickly, as they hold up the reader.
+   *
+   * @param subscriber Callback receiving logged lines.
+   */
+  public void subscribe(Consumer<String> subscriber) {
+    subscribers.add(Objects.requireNonNull(subscriber));
+  }
+
+  /**
+   * Removes a subscriber.
+   *
+   * @param subscriber Subscriber to remove.
+   */
+  public void unsubscribe(Consumer<String> subscriber) {
+    subscribers.remove(subscriber);
+  }
+
+  /**
+   * Returns a future completed with the line on which the specified regex has matched the
+   * specified number of lines. Lines still in the ring buffer are counted too. The future
+   * completes exceptionally if the stream ends before, and can be cancelled to stop matching.
+   *
+   * @param regex Regex that a line has to contain a match of.
+   * @param times Number of matching lines.
+   * @return Future completed with the last matching line.
+   */
+  public CompletableFuture<String> awaitMatch(String regex, int times) {
+    // Input validation
+    Objects.requireNonNull(regex);
+
+    return awaitMatch(Pattern.compile(regex), times);
+  }
+
+  /**
+   * Returns a future completed with the line on which the specified pattern has matched the
+   * specified number of lines. Lines still in the ring buffer are counted too. The future
+   * completes exceptionally if the stream ends before, and can be cancelled to stop matching.
+   *
+   * @param pattern Pattern that a line has to contain a match of.
+   * @param times   Number of matching lines.
+   * @return Future completed with the last matching line.
+   */
+  public CompletableFuture<String> awaitMatch(Pattern pattern, int times) {
+    // Input validation
+    Objects.requireNonNull(pattern);
+    if (times < 1) {
+      throw new IllegalArgumentException("times should be at least 1, but is " + times);
+    }
+
+    Trigger trigger = new Trigger(pattern, times);
+    // Futures are completed without the lock held, as their dependents run synchronously
+    boolean pending;
+    synchronized (this) {
+      pending = getLines().stream()
+          .noneMatch(trigger::offer) && !isEnded();
+      if (pending) {
+        triggers.add(trigger);
+      }
+    }
+    if (trigger.matchedLine != null) {
+      trigger.match.complete(trigger.matchedLine);
+    } else if (!pending) {
+      trigger.match.completeExceptionally(createNoMatchException(trigger));
+    } else {
+      trigger.match.whenComplete((line, throwable) -> {
+        synchronized (this) {
+          triggers.remove(trigger);
+        }
+      });
+    }
+    return trigger.match;
+  }
+
+  /**
+   * Stops following the container's output. Pending triggers complete exceptionally.
+   */
+  @Override
+  public void close() {
+    ResultCallback.Adapter<Frame> startedCallback;
+    synchronized (this) {
+      startedCallback = callback;
+    }
+    if (startedCallback != null) {
+      try {
+        startedCallback.close();
+      } catch (IOException e) {
+        logger.debug("Unable to close log stream of container '" + containerName + "'", e);
+      }
+    }
+    onEnd();
+  }
+
+  private void onFrame(Frame frame) {
+    List<String> completeLines = new ArrayList<>();
+    List<Trigger> completedTriggers;
+    synchronized (this) {
+      StringBuilder partialLine = partialLines.computeIfAbsent(frame.getStreamType(),
+          streamType -> new StringBuilder());
+      partialLine.append(new String(frame.getPayload(), StandardCharsets.UTF_8));
+      int lineEnd;
+      while ((lineEnd = partialLine.indexOf("\n")) >= 0) {
+        String line = partialLine.substring(0,
+            (lineEnd > 0 && partialLine.charAt(lineEnd - 1) == '\r') ? lineEnd - 1 : lineEnd);
+        partialLine.delete(0, lineEnd + 1);
+        append(line);
+        completeLines.add(line);
+      }
+      completedTriggers = drainMatchedTriggers();
+    }
+    publish(completeLines);
+    completedTriggers.forEach(trigger -> trigger.match.complete(trigger.matchedLine));
+  }
+
+  private void onEnd() {
+    List<String> remainingLines = new ArrayList<>();
+    List<Trigger> completedTriggers;
+    List<Trigger> pendingTriggers;
+    synchronized (this) {
+      if (completion.isDone()) {
+        return;
+      }
+      // Output that didn't end with a line separator
+      partialLines.values()
+          .stream()
+          .filter(partialLine -> partialLine.length() > 0)
+          .forEach(partialLine -> {
+            append(partialLine.toString());
+            remainingLines.add(partialLine.toString());
+            partialLine.setLength(0);
+          });
+      completedTriggers = drainMatchedTriggers();
+      pendingTriggers = new ArrayList<>(triggers);
+      triggers.clear();
+      completion.complete(null);
+    }
+    publish(remainingLines);
+    completedTriggers.forEach(trigger -> trigger.match.complete(trigger.matchedLine));
+    pendingTriggers.forEach(trigger -> trigger.match.completeExceptionally(
+        createNoMatchException(trigger)));
+  }
+
+  private IllegalStateException createNoMatchException(Trigger trigger) {
+    return new IllegalStateException("Log stream of container '" + containerName
+        + "' ended without enough matches of '" + trigger.pattern + "'");
+  }
+
+  /**
+   * Returns the triggers matched by appended lines, whose futures are still to be completed.
+   * Called with the lock held.
+   *
+   * @return Matched triggers.
+   */
+  private List<Trigger> drainMatchedTriggers() {
+    List<Trigger> drainedTriggers = new ArrayList<>(matchedTriggers);
+    matchedTriggers.clear();
+    return drainedTriggers;
+  }
+
+  /**
+   * Adds a line to the ring buffer and offers it to the triggers. Called with the lock held.
+   *
+   * @param line Logged line.
+   */
+  private void append(String line) {
+    if (bufferedLineCount < lines.length) {
+      lines[(firstLineIndex + bufferedLineCount++) % lines.length] = line;
+    } else {
+      lines[firstLineIndex] = line;
+      firstLineIndex = (firstLineIndex + 1) % lines.length;
+    }
+    lineCount++;
+    triggers.removeIf(trigger -> {
+      boolean matched = trigger.offer(line);
+      if (matched) {
+        matchedTriggers.add(trigger);
+      }
+      return matched;
+    });
+  }
+
+  private void publish(List<String> publishedLines) {
+    for (String line : publishedLines) {
+      for (Consumer<String> subscriber : subscribers) {
+        try {
+          subscriber.accept(line);
+        } catch (RuntimeException e) {
+          logger.warn("Log subscriber of container '" + containerName + "' failed", e);
+        }
+      }
+    }
+  }
+}
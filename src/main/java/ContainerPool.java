@@ -0,0 +1,351 @@
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Keeps pre-started, ready containers per docker image so that they can be leased without paying
+ * the pull/create/start/boot cost. Released containers are either reset and returned to the pool or
+ * recycled, in the background. Idle containers beyond the minimum idle count are evicted once they
+ * have been idle for longer than the maximum idle time. Pooled containers publish their ports on
+ * free host ports, see {@link ManagedContainer#getMappedPort(int)}.
+ */
+public class ContainerPool implements AutoCloseable {
+
+  /**
+   * Resets a released container so that it can be leased again.
+   */
+  @FunctionalInterface
+  public interface ResetHandler {
+
+    /**
+     * Resets the state of a released container.
+     *
+     * @param containerLease Lease of the released container.
+     * @return true if the container was reset and can be reused, false if it has to be recycled.
+     * @throws Exception When the reset fails, the container is recycled.
+     */
+    boolean reset(ContainerLease containerLease) throws Exception;
+  }
+
+  /**
+   * An idle container along with the time since which it has been idle.
+   */
+  private static class IdleContainer {
+
+    private final ManagedContainer managedContainer;
+    private final Instant idleSince;
+
+    IdleContainer(ManagedContainer managedContainer) {
+      this.managedContainer = managedContainer;
+      this.idleSince = Instant.now();
+    }
+  }
+
+  private static final Logger logger = LogManager.getLogger(ContainerPool.class);
+
+  private final DockerUtility dockerUtility;
+  private final int minIdle;
+  private final int maxIdle;
+  private final Duration maxIdleTime;
+  private final ResetHandler resetHandler;
+  private final String poolId = UUID.randomUUID()
+      .toString()
+      .substring(0, 8);
+  private final AtomicInteger containerSequence = new AtomicInteger();
+  private final Map<DockerImage, Deque<IdleContainer>> idleContainers = new ConcurrentHashMap<>();
+  private final Map<DockerImage, AtomicInteger> pendingContainers = new ConcurrentHashMap<>();
+  private final ExecutorService backgroundExecutor;
+  private final ScheduledExecutorService evictionExecutor;
+  private volatile boolean closed = false;
+
+  /**
+   * Creates a container pool that recycles released containers.
+   *
+   * @param dockerUtility Docker utility used to manage the containers.
+   * @param minIdle       Number of ready containers to keep per docker image.
+   * @param maxIdle       Maximum number of idle containers to keep per docker image.
+   * @param maxIdleTime   Time after which idle containers beyond minIdle are evicted.
+   */
+  public ContainerPool(DockerUtility dockerUtility, int minIdle, int maxIdle,
+      Duration maxIdleTime) {
+    this(dockerUtility, minIdle, maxIdle, maxIdleTime, null);
+  }
+
+  /**
+   * Creates a container pool.
+   *
+   * @param dockerUtility Docker utility used to manage the containers.
+   * @param minIdle       Number of ready containers to keep per docker image.
+   * @param maxIdle       Maximum number of idle containers to keep per docker image.
+   * @param maxIdleTime   Time after which idle containers beyond minIdle are evicted.
+   * @param resetHandler  Handler to reset released containers, if null released containers are
+   *                      recycled.
+   */
+  public ContainerPool(DockerUtility dockerUtility, int minIdle, int maxIdle,
+      Duration maxIdleTime, ResetHandler resetHandler) {
+    // Input validation
+    Objects.requireNonNull(dockerUtility);
+    Objects.requireNonNull(maxIdleTime);
+    if (minIdle < 0 || maxIdle < 1 || minIdle > maxIdle) {
+      throw new IllegalArgumentException(
+          "Expected 0 <= minIdle <= maxIdle and maxIdle >= 1, but minIdle = " + minIdle
+              + " and maxIdle = " + maxIdle);
+    }
+
+    this.dockerUtility = dockerUtility;
+    this.minIdle = minIdle;
+    this.maxIdle = maxIdle;
+    this.maxIdleTime = maxIdleTime;
+    this.resetHandler = resetHandler;
+    this.backgroundExecutor = Executors.newFixedThreadPool(
+        Math.max(2, minIdle),
+        runnable -> {
+          Thread thread = new Thread(runnable, "adya-container-pool-" + poolId);
+          thread.setDaemon(true);
+          return thread;
+        }
+    );
+    this.evictionExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "adya-container-pool-eviction-" + poolId);
+      thread.setDaemon(true);
+      return thread;
+    });
+    long evictionIntervalInMs = Math.max(1_000L, maxIdleTime.toMillis() / 2);
+    this.evictionExecutor.scheduleWithFixedDelay(this::evictIdleContainers,
+        evictionIntervalInMs, evictionIntervalInMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Starts minIdle containers for each of the specified docker images in the background.
+   *
+   * @param dockerImages Docker images to warm up containers for.
+   */
+  public void warmUp(DockerImage... dockerImages) {
+    for (DockerImage dockerImage : dockerImages) {
+      replenish(Objects.requireNonNull(dockerImage));
+    }
+  }
+
+  /**
+   * Leases a ready container created from the specified docker image. If no idle container is
+   * available, a new one is created and started on the calling thread.
+   *
+   * @param dockerImage Docker image of the container to lease.
+   * @return Lease of a ready container, to be closed when it is no longer needed.
+   * @throws InterruptedException When starting a new container is interrupted.
+   */
+  public ContainerLease lease(DockerImage dockerImage) throws InterruptedException {
+    // Input validation
+    Objects.requireNonNull(dockerImage);
+    if (closed) {
+      throw new IllegalStateException("Container pool is closed");
+    }
+
+    Deque<IdleContainer> idle = getIdleContainers(dockerImage);
+    IdleContainer idleContainer;
+    ManagedContainer managedContainer = null;
+    while (managedContainer == null && (idleContainer = idle.pollFirst()) != null) {
+      String containerName = idleContainer.managedContainer.getContainerName();
+      if (dockerUtility.doesContainerExist(containerName, false)) {
+        managedContainer = idleContainer.managedContainer;
+      } else {
+        logger.warn("Discarding idle container '" + containerName
+            + "' as it is no longer running");
+        recycle(containerName);
+      }
+    }
+    if (managedContainer == null) {
+      managedContainer = startContainer(dockerImage);
+    }
+    replenish(dockerImage);
+    logger.info("Leased container '" + managedContainer.getContainerName() + "'");
+    return new ContainerLease(this, managedContainer);
+  }
+
+  /**
+   * Releases a leased container. It is reset and returned to the pool in the background, or
+   * recycled if there is no reset handler, the reset fails or the pool has enough idle containers.
+   *
+   * @param containerLease Lease of the container to release.
+   */
+  void release(ContainerLease containerLease) {
+    Objects.requireNonNull(containerLease);
+    logger.info("Released container '" + containerLease.getContainerName() + "'");
+    if (closed) {
+      recycle(containerLease.getContainerName());
+      return;
+    }
+    try {
+      backgroundExecutor.execute(() -> resetOrRecycle(containerLease));
+    } catch (RejectedExecutionException e) {
+      // The pool was closed concurrently
+      recycle(containerLease.getContainerName());
+    }
+  }
+
+  /**
+   * Resets a released container and returns it to the pool, or recycles it.
+   *
+   * @param containerLease Lease of the released container.
+   */
+  private void resetOrRecycle(ContainerLease containerLease) {
+    boolean reusable = false;
+    if (resetHandler != null && !closed) {
+      try {
+        reusable = resetHandler.reset(containerLease);
+      } catch (Exception e) {
+        logger.warn("Unable to reset container '" + containerLease.getContainerName()
+            + "', recycling it", e);
+      }
+    }
+    Deque<IdleContainer> idle = getIdleContainers(containerLease.getDockerImage());
+    if (reusable && !closed && idle.size() < maxIdle) {
+      idle.offerFirst(new IdleContainer(containerLease.getManagedContainer()));
+    } else {
+      recycle(containerLease.getContainerName());
+      replenish(containerLease.getDockerImage());
+    }
+  }
+
+  /**
+   * Returns the number of idle containers for the specified docker image.
+   *
+   * @param dockerImage Docker image to check.
+   * @return Number of idle containers.
+   */
+  public int getIdleCount(DockerImage dockerImage) {
+    return getIdleContainers(Objects.requireNonNull(dockerImage)).size();
+  }
+
+  /**
+   * Stops background work and removes all idle containers. Containers that are still leased are
+   * removed when they are released.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    evictionExecutor.shutdownNow();
+    backgroundExecutor.shutdown();
+    try {
+      backgroundExecutor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    idleContainers.values()
+        .forEach(idle -> {
+          IdleContainer idleContainer;
+          while ((idleContainer = idle.pollFirst()) != null) {
+            recycle(idleContainer.managedContainer.getContainerName());
+          }
+        });
+  }
+
+  private Deque<IdleContainer> getIdleContainers(DockerImage dockerImage) {
+    return idleContainers.computeIfAbsent(dockerImage, key -> new ConcurrentLinkedDeque<>());
+  }
+
+  /**
+   * Starts containers in the background until the docker image has minIdle idle or starting
+   * containers.
+   *
+   * @param dockerImage Docker image to replenish containers for.
+   */
+  private void replenish(DockerImage dockerImage) {
+    AtomicInteger pending = pendingContainers.computeIfAbsent(
+        dockerImage, key -> new AtomicInteger());
+    while (!closed) {
+      int pendingCount = pending.get();
+      if (getIdleContainers(dockerImage).size() + pendingCount >= minIdle) {
+        return;
+      }
+      if (pending.compareAndSet(pendingCount, pendingCount + 1)) {
+        try {
+          backgroundExecutor.execute(() -> {
+            try {
+              ManagedContainer managedContainer = startContainer(dockerImage);
+              if (closed) {
+                recycle(managedContainer.getContainerName());
+              } else {
+                getIdleContainers(dockerImage).offerLast(new IdleContainer(managedContainer));
+              }
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+              logger.error("Unable to start pooled container for '" + dockerImage + "'", e);
+            } finally {
+              pending.decrementAndGet();
+            }
+          });
+        } catch (RejectedExecutionException e) {
+          // The pool was closed concurrently
+          pending.decrementAndGet();
+          return;
+        }
+      }
+    }
+  }
+
+  private ManagedContainer startContainer(DockerImage dockerImage) throws InterruptedException {
+    String containerName = String.format(
+        "adya_pool_%s_%s_%d",
+        dockerImage.name().toLowerCase(),
+        poolId,
+        containerSequence.incrementAndGet()
+    );
+    return dockerUtility.createAndRunContainer(
+        new ContainerSpec(dockerImage, containerName)
+            .withRemoveContainerIfExists(true)
+            .withEphemeralPorts(true)
+    );
+  }
+
+  private void recycle(String containerName) {
+    try {
+      dockerUtility.removeContainerIfExists(containerName);
+    } catch (RuntimeException e) {
+      logger.error("Unable to remove pooled container '" + containerName + "'", e);
+    }
+  }
+
+  /**
+   * Removes containers that have been idle for longer than the maximum idle time, while keeping at
+   * least minIdle idle containers per docker image.
+   */
+  private void evictIdleContainers() {
+    Instant evictBefore = Instant.now().minus(maxIdleTime);
+    idleContainers.values()
+        .forEach(idle -> {
+          List<IdleContainer> evicted = new ArrayList<>();
+          for (IdleContainer idleContainer : idle) {
+            if (idle.size() - evicted.size() <= minIdle) {
+              break;
+            }
+            if (idleContainer.idleSince.isBefore(evictBefore)) {
+              evicted.add(idleContainer);
+            }
+          }
+          evicted.stream()
+              .filter(idle::remove)
+              .forEach(idleContainer -> {
+                String containerName = idleContainer.managedContainer.getContainerName();
+                logger.info("Evicting idle container '" + containerName + "'");
+                recycle(containerName);
+              });
+        });
+  }
+}
@@ -0,0 +1,188 @@
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Background queue removing containers with bounded concurrency, so that tearing down many
+ * containers doesn't block the caller. At JVM exit, the queue is drained for a bounded time, and
+ * containers still queued after it are logged so they can be swept later.
+ */
+public class ContainerReaper implements AutoCloseable {
+
+  /**
+   * Default maximum number of containers removed at a time.
+   */
+  public static final int defaultMaxConcurrentRemovals = 4;
+  /**
+   * Default maximum time to wait for queued removals at JVM exit.
+   */
+  public static final Duration defaultShutdownDrainTimeout = Duration.ofSeconds(30);
+  private static final Logger logger = LogManager.getLogger(ContainerReaper.class);
+
+  private final Consumer<String> removal;
+  private final Duration shutdownDrainTimeout;
+  private final ThreadPoolExecutor executor;
+  private final Map<String, CompletableFuture<Void>> pendingRemovals = new ConcurrentHashMap<>();
+  private final Thread shutdownHook;
+  private volatile boolean closed = false;
+
+  /**
+   * Creates a container reaper.
+   *
+   * @param removal               Removes the container with the name it's passed.
+   * @param maxConcurrentRemovals Maximum number of containers removed at a time.
+   * @param shutdownDrainTimeout  Maximum time to wait for queued removals at JVM exit.
+   */
+  public ContainerReaper(Consumer<String> removal, int maxConcurrentRemovals,
+      Duration shutdownDrainTimeout) {
+    this.removal = Objects.requireNonNull(removal);
+    this.shutdownDrainTimeout = Objects.requireNonNull(shutdownDrainTimeout);
+    if (maxConcurrentRemovals < 1) {
+      throw new IllegalArgumentException(
+          "Maximum concurrent removals should be at least 1, but is " + maxConcurrentRemovals);
+    }
+    this.executor = new ThreadPoolExecutor(
+        maxConcurrentRemovals,
+        maxConcurrentRemovals,
+        30,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(),
+        runnable -> {
+          Thread thread = new Thread(runnable, "adya-container-reaper");
+          thread.setDaemon(true);
+          return thread;
+        }
+    );
+    this.executor.allowCoreThreadTimeOut(true);
+    this.shutdownHook = new Thread(this::drainAtShutdown, "adya-container-reaper-shutdown");
+    try {
+      Runtime.getRuntime()
+          .addShutdownHook(shutdownHook);
+    } catch (IllegalStateException e) {
+      // Created by another shutdown hook, which waits for the removals it queues
+    }
+  }
+
+  /**
+   * Queues the removal of the specified container.
+   *
+   * @param containerName Name of the container to remove.
+   * @return A future completed once the container is removed, or exceptionally if its removal
+   *     failed.
+   * @throws IllegalStateException When the reaper is closed.
+   */
+  public CompletableFuture<Void> reap(String containerName) {
+    // Input validation
+    Objects.requireNonNull(containerName);
+    if (closed) {
+      throw new IllegalStateException("Container reaper is closed");
+    }
+
+    CompletableFuture<Void> pendingRemoval = new CompletableFuture<>();
+    CompletableFuture<Void> existingRemoval = pendingRemovals.putIfAbsent(containerName,
+        pendingRemoval);
+    if (existingRemoval != null) {
+      return existingRemoval;
+    }
+    try {
+      executor.execute(() -> {
+        try {
+          removal.accept(containerName);
+        } catch (RuntimeException e) {
+          logger.warn("Unable to reap container '" + containerName + "'", e);
+          pendingRemovals.remove(containerName, pendingRemoval);
+          pendingRemoval.completeExceptionally(e);
+          return;
+        }
+        // Removed before completing, so that the container isn't pending once drained
+        pendingRemovals.remove(containerName, pendingRemoval);
+        pendingRemoval.complete(null);
+      });
+    } catch (RejectedExecutionException e) {
+      // The reaper was closed concurrently
+      pendingRemovals.remove(containerName, pendingRemoval);
+      IllegalStateException closedException = new IllegalStateException(
+          "Container reaper is closed", e);
+      pendingRemoval.completeExceptionally(closedException);
+      throw closedException;
+    }
+    return pendingRemoval;
+  }
+
+  /**
+   * Returns the names of the containers queued or being removed.
+   *
+   * @return Names of the containers pending removal.
+   */
+  public List<String> getPendingContainerNames() {
+    return List.copyOf(pendingRemovals.keySet());
+  }
+
+  /**
+   * Blocks until all containers queued so far are removed, or their removal failed.
+   *
+   * @param timeout Maximum time to wait for.
+   * @return true if all queued containers were processed, false if the timeout elapsed first.
+   * @throws InterruptedException When the wait is interrupted.
+   */
+  public boolean drain(Duration timeout) throws InterruptedException {
+    // Input validation
+    Objects.requireNonNull(timeout);
+
+    try {
+      CompletableFuture.allOf(pendingRemovals.values()
+          .toArray(CompletableFuture[]::new))
+          .get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (ExecutionException e) {
+      // Failed removals are logged and count as processed
+    } catch (TimeoutException e) {
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Drains the queue for at most the shutdown drain timeout, and stops the reaper threads. Later
+   * removals are rejected.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    try {
+      Runtime.getRuntime()
+          .removeShutdownHook(shutdownHook);
+    } catch (IllegalStateException e) {
+      // The JVM is already shutting down
+    }
+    drainAtShutdown();
+    executor.shutdownNow();
+  }
+
+  private void drainAtShutdown() {
+    if (pendingRemovals.isEmpty()) {
+      return;
+    }
+    logger.info("Waiting up to " + shutdownDrainTimeout + " for " + pendingRemovals.size()
+        + " containers to be reaped");
+    try {
+      if (!drain(shutdownDrainTimeout)) {
+        logger.warn("Containers left to be swept: " + getPendingContainerNames());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread()
+          .interrupt();
+    }
+  }
+}
@@ -0,0 +1,261 @@
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Describes a container to be created from a docker image: its name, how its ports are published
+ * and how to determine when it is ready.
+ */
+public class ContainerSpec {
+
+  private final DockerImage dockerImage;
+  private final String containerName;
+  private boolean removeContainerIfExists = false;
+  private boolean ephemeralPorts = false;
+  private WaitStrategy waitStrategy;
+  private boolean waitStrategySpecified = false;
+  private SnapshotCache snapshotCache;
+  private PerformanceProfile performanceProfile;
+  private int logBufferCapacityInLines = ContainerLogStream.defaultCapacityInLines;
+  private boolean reuse = false;
+  private boolean collectStats = false;
+
+  /**
+   * Creates a spec for a container with the docker image's fixed port bindings and default wait
+   * strategy.
+   *
+   * @param dockerImage   Image to create the container from.
+   * @param containerName Name of the container.
+   */
+  public ContainerSpec(DockerImage dockerImage, String containerName) {
+    this.dockerImage = Objects.requireNonNull(dockerImage);
+    this.containerName = Objects.requireNonNull(containerName);
+    this.waitStrategy = dockerImage.getWaitStrategy();
+    this.performanceProfile = dockerImage.getPerformanceProfile();
+  }
+
+  /**
+   * Sets whether any container with the same name is removed before creating this one.
+   *
+   * @param removeContainerIfExists If true, an existing container with the same name is removed.
+   * @return This spec.
+   */
+  public ContainerSpec withRemoveContainerIfExists(boolean removeContainerIfExists) {
+    this.removeContainerIfExists = removeContainerIfExists;
+    return this;
+  }
+
+  /**
+   * Sets whether each exposed port is published on a free host port picked by docker, instead of
+   * the docker image's fixed host port. This allows several containers of the same image to run
+   * side by side, use {@link ManagedContainer#getMappedPort(int)} to find the picked ports.
+   *
+   * @param ephemeralPorts If true, exposed ports are published on free host ports.
+   * @return This spec.
+   */
+  public ContainerSpec withEphemeralPorts(boolean ephemeralPorts) {
+    this.ephemeralPorts = ephemeralPorts;
+    return this;
+  }
+
+  /**
+   * Sets the strategy used to determine when the container is ready.
+   *
+   * @param waitStrategy Wait strategy.
+   * @return This spec.
+   */
+  public ContainerSpec withWaitStrategy(WaitStrategy waitStrategy) {
+    this.waitStrategy = Objects.requireNonNull(waitStrategy);
+    this.waitStrategySpecified = true;
+    return this;
+  }
+
+  /**
+   * Sets the snapshot cache to start the container from. If the cache has a snapshot of the docker
+   * image, the container is started from it. Else the container is started from the docker image
+   * and, once ready, snapshotted into the cache.
+   *
+   * @param snapshotCache Snapshot cache, or null to always start from the docker image.
+   * @return This spec.
+   */
+  public ContainerSpec withSnapshotCache(SnapshotCache snapshotCache) {
+    this.snapshotCache = snapshotCache;
+    return this;
+  }
+
+  /**
+   * Sets the performance profile applied to the container, replacing the docker image's default
+   * profile.
+   *
+   * @param performanceProfile Performance profile, or null to create the container unchanged.
+   * @return This spec.
+   */
+  public ContainerSpec withPerformanceProfile(PerformanceProfile performanceProfile) {
+    this.performanceProfile = performanceProfile;
+    return this;
+  }
+
+  /**
+   * Sets the number of most recent output lines kept by the container's log stream.
+   *
+   * @param logBufferCapacityInLines Number of lines, at least 1.
+   * @return This spec.
+   */
+  public ContainerSpec withLogBufferCapacity(int logBufferCapacityInLines) {
+    if (logBufferCapacityInLines < 1) {
+      throw new IllegalArgumentException("Log buffer capacity should be at least 1 line, but is "
+          + logBufferCapacityInLines);
+    }
+    this.logBufferCapacityInLines = logBufferCapacityInLines;
+    return this;
+  }
+
+  /**
+   * Sets whether a running container with the same configuration is reused instead of creating
+   * one, including containers created by other JVMs. Reusable containers aren't labelled with
+   * the session that created them, so they outlive it and aren't pruned with it.
+   *
+   * @param reuse If true, a running container with the same configuration hash is reused.
+   * @return This spec.
+   */
+  public ContainerSpec withReuse(boolean reuse) {
+    this.reuse = reuse;
+    return this;
+  }
+
+  /**
+   * Sets whether the container's CPU, memory, block I/O and network usage is collected while it
+   * runs. The summary is logged and recorded in the metrics registry when the container is
+   * removed.
+   *
+   * @param collectStats If true, the container's resource usage is collected.
+   * @return This spec.
+   */
+  public ContainerSpec withCollectStats(boolean collectStats) {
+    this.collectStats = collectStats;
+    return this;
+  }
+
+  /**
+   * Returns the docker image to create the container from.
+   *
+   * @return Docker image of the container.
+   */
+  public DockerImage getDockerImage() {
+    return this.dockerImage;
+  }
+
+  /**
+   * Returns the name of the container.
+   *
+   * @return Name of the container.
+   */
+  public String getContainerName() {
+    return this.containerName;
+  }
+
+  /**
+   * Returns whether any container with the same name is removed before creating this one.
+   *
+   * @return true if an existing container with the same name is removed, else false.
+   */
+  public boolean isRemoveContainerIfExists() {
+    return this.removeContainerIfExists;
+  }
+
+  /**
+   * Returns whether exposed ports are published on free host ports.
+   *
+   * @return true if exposed ports are published on free host ports, else false.
+   */
+  public boolean isEphemeralPorts() {
+    return this.ephemeralPorts;
+  }
+
+  /**
+   * Returns the strategy used to determine when the container is ready.
+   *
+   * @return Wait strategy.
+   */
+  public WaitStrategy getWaitStrategy() {
+    return this.waitStrategy;
+  }
+
+  /**
+   * Returns the strategy used to determine when the container is ready, when it starts from
+   * already initialized state. This is the explicitly specified wait strategy if any, else the
+   * docker image's restart wait strategy.
+   *
+   * @return Wait strategy for already initialized containers.
+   */
+  public WaitStrategy getRestartWaitStrategy() {
+    return waitStrategySpecified ? this.waitStrategy : dockerImage.getRestartWaitStrategy();
+  }
+
+  /**
+   * Returns the snapshot cache to start the container from.
+   *
+   * @return Snapshot cache, null if the container is always started from the docker image.
+   */
+  public SnapshotCache getSnapshotCache() {
+    return this.snapshotCache;
+  }
+
+  /**
+   * Returns the number of most recent output lines kept by the container's log stream.
+   *
+   * @return Number of lines.
+   */
+  public int getLogBufferCapacity() {
+    return this.logBufferCapacityInLines;
+  }
+
+  /**
+   * Returns the performance profile applied to the container.
+   *
+   * @return Performance profile, null if the container is created unchanged.
+   */
+  public PerformanceProfile getPerformanceProfile() {
+    return this.performanceProfile;
+  }
+
+  /**
+   * Returns whether a running container with the same configuration is reused.
+   *
+   * @return true if a running container with the same configuration hash is reused, else false.
+   */
+  public boolean isReuse() {
+    return this.reuse;
+  }
+
+  /**
+   * Returns whether the container's resource usage is collected while it runs.
+   *
+   * @return true if the container's resource usage is collected, else false.
+   */
+  public boolean isCollectStats() {
+    return this.collectStats;
+  }
+
+  /**
+   * Returns a hash of the configuration that the created container depends on: the docker
+   * image, its environment, how its ports are published and the performance profile. The
+   * container name isn't part of it, so a container can be reused under another name.
+   *
+   * @return Hex encoded configuration hash.
+   */
+  public String getConfigurationHash() {
+    return ConfigurationHashes.hash(Stream.of(
+        Stream.of(dockerImage.getRepository() + ":" + dockerImage.getImageTag(),
+            String.valueOf(ephemeralPorts), String.valueOf(performanceProfile)),
+        Arrays.stream(dockerImage.getEnvironmentVariables())
+            .sorted(),
+        dockerImage.getPortBindings()
+            .entrySet()
+            .stream()
+            .map(portBinding -> portBinding.getKey() + ":" + portBinding.getValue())
+            .sorted()
+    )
+        .flatMap(configuration -> configuration));
+  }
+}
@@ -0,0 +1,190 @@
+/**
+ * Summary of the resource usage samples of a container collected by a
+ * {@link ContainerStatsCollector}. CPU usage is a percentage of a single CPU, so a container
+ * saturating 2 CPUs uses 200%. Block I/O and network traffic are the totals since the container
+ * started, as of the last sample.
+ */
+public class ContainerStats {
+
+  private final String containerName;
+  private final long sampleCount;
+  private final double minCpuPercent;
+  private final double maxCpuPercent;
+  private final double meanCpuPercent;
+  private final long minMemoryUsageInBytes;
+  private final long maxMemoryUsageInBytes;
+  private final long meanMemoryUsageInBytes;
+  private final long p95MemoryUsageInBytes;
+  private final long memoryLimitInBytes;
+  private final long blockReadBytes;
+  private final long blockWrittenBytes;
+  private final long networkReceivedBytes;
+  private final long networkTransmittedBytes;
+
+  ContainerStats(String containerName, long sampleCount, double minCpuPercent,
+      double maxCpuPercent, double meanCpuPercent, long minMemoryUsageInBytes,
+      long maxMemoryUsageInBytes, long meanMemoryUsageInBytes, long p95MemoryUsageInBytes,
+      long memoryLimitInBytes, long blockReadBytes, long blockWrittenBytes,
+      long networkReceivedBytes, long networkTransmittedBytes) {
+    this.containerName = containerName;
+    this.sampleCount = sampleCount;
+    this.minCpuPercent = minCpuPercent;
+    this.maxCpuPercent = maxCpuPercent;
+    this.meanCpuPercent = meanCpuPercent;
+    this.minMemoryUsageInBytes = minMemoryUsageInBytes;
+    this.maxMemoryUsageInBytes = maxMemoryUsageInBytes;
+    this.meanMemoryUsageInBytes = meanMemoryUsageInBytes;
+    this.p95MemoryUsageInBytes = p95MemoryUsageInBytes;
+    this.memoryLimitInBytes = memoryLimitInBytes;
+    this.blockReadBytes = blockReadBytes;
+    this.blockWrittenBytes = blockWrittenBytes;
+    this.networkReceivedBytes = networkReceivedBytes;
+    this.networkTransmittedBytes = networkTransmittedBytes;
+  }
+
+  /**
+   * Returns the name of the container.
+   *
+   * @return Name of the container.
+   */
+  public String getContainerName() {
+    return this.containerName;
+  }
+
+  /**
+   * Returns the number of samples summarized.
+   *
+   * @return Number of samples.
+   */
+  public long getSampleCount() {
+    return this.sampleCount;
+  }
+
+  /**
+   * Returns the lowest CPU usage sampled.
+   *
+   * @return CPU usage in percent of a single CPU, zero if nothing was sampled.
+   */
+  public double getMinCpuPercent() {
+    return this.minCpuPercent;
+  }
+
+  /**
+   * Returns the highest CPU usage sampled.
+   *
+   * @return CPU usage in percent of a single CPU, zero if nothing was sampled.
+   */
+  public double getMaxCpuPercent() {
+    return this.maxCpuPercent;
+  }
+
+  /**
+   * Returns the mean CPU usage sampled.
+   *
+   * @return CPU usage in percent of a single CPU, zero if nothing was sampled.
+   */
+  public double getMeanCpuPercent() {
+    return this.meanCpuPercent;
+  }
+
+  /**
+   * Returns the lowest memory usage sampled, excluding the page cache that can be reclaimed.
+   *
+   * @return Memory usage in bytes, zero if nothing was sampled.
+   */
+  public long getMinMemoryUsageInBytes() {
+    return this.minMemoryUsageInBytes;
+  }
+
+  /**
+   * Returns the highest memory usage sampled, excluding the page cache that can be reclaimed.
+   *
+   * @return Memory usage in bytes, zero if nothing was sampled.
+   */
+  public long getMaxMemoryUsageInBytes() {
+    return this.maxMemoryUsageInBytes;
+  }
+
+  /**
+   * Returns the mean memory usage sampled, excluding the page cache that can be reclaimed.
+   *
+   * @return Memory usage in bytes, zero if nothing was sampled.
+   */
+  public long getMeanMemoryUsageInBytes() {
+    return this.meanMemoryUsageInBytes;
+  }
+
+  /**
+   * Returns an upper bound of the 95th percentile of the memory usage sampled, within 12.5% of
+   * the exact percentile. This is the figure to size memory limits by.
+   *
+   * @return Memory usage in bytes, zero if nothing was sampled.
+   */
+  public long getP95MemoryUsageInBytes() {
+    return this.p95MemoryUsageInBytes;
+  }
+
+  /**
+   * Returns the memory limit of the container, as of the last sample.
+   *
+   * @return Memory limit in bytes, the docker host's memory if the container isn't limited, or
+   *     zero if nothing was sampled.
+   */
+  public long getMemoryLimitInBytes() {
+    return this.memoryLimitInBytes;
+  }
+
+  /**
+   * Returns the number of bytes the container read from block devices.
+   *
+   * @return Number of bytes read.
+   */
+  public long getBlockReadBytes() {
+    return this.blockReadBytes;
+  }
+
+  /**
+   * Returns the number of bytes the container wrote to block devices.
+   *
+   * @return Number of bytes written.
+   */
+  public long getBlockWrittenBytes() {
+    return this.blockWrittenBytes;
+  }
+
+  /**
+   * Returns the number of bytes the container received over all its networks.
+   *
+   * @return Number of bytes received.
+   */
+  public long getNetworkReceivedBytes() {
+    return this.networkReceivedBytes;
+  }
+
+  /**
+   * Returns the number of bytes the container transmitted over all its networks.
+   *
+   * @return Number of bytes transmitted.
+   */
+  public long getNetworkTransmittedBytes() {
+    return this.networkTransmittedBytes;
+  }
+
+  @Override
+  public String toString() {
+    return "ContainerStats{"
+        + "containerName='" + containerName + '\''
+        + ", sampleCount=" + sampleCount
+        + ", cpuPercent=" + String.format("%.1f/%.1f/%.1f", minCpuPercent, meanCpuPercent,
+        maxCpuPercent)
+        + ", memoryUsageInBytes=" + minMemoryUsageInBytes + "/" + meanMemoryUsageInBytes + "/"
+        + maxMemoryUsageInBytes
+        + ", p95MemoryUsageInBytes=" + p95MemoryUsageInBytes
+        + ", memoryLimitInBytes=" + memoryLimitInBytes
+        + ", blockReadBytes=" + blockReadBytes
+        + ", blockWrittenBytes=" + blockWrittenBytes
+        + ", networkReceivedBytes=" + networkReceivedBytes
+        + ", networkTransmittedBytes=" + networkTransmittedBytes
+        + '}';
+  }
+}
@@ -0,0 +1,316 @@
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.BlkioStatEntry;
+import com.github.dockerjava.api.model.BlkioStatsConfig;
+import com.github.dockerjava.api.model.CpuStatsConfig;
+import com.github.dockerjava.api.model.MemoryStatsConfig;
+import com.github.dockerjava.api.model.StatisticNetworksConfig;
+import com.github.dockerjava.api.model.Statistics;
+import com.github.dockerjava.api.model.StatsConfig;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Follows the resource usage samples the docker daemon streams for a container, about one per
+ * second, on a background reader. Samples are folded into fixed size aggregates as they arrive:
+ * minimum, maximum and sum of the CPU and memory usage, and a log-linear histogram of the memory
+ * usage for its 95th percentile. So the collector's footprint doesn't grow with the container's
+ * lifetime, and aggregating a sample doesn't allocate. The stream ends when the container stops
+ * or is removed, or when it's closed.
+ */
+public class ContainerStatsCollector implements AutoCloseable {
+
+  private static final Logger logger = LogManager.getLogger(ContainerStatsCollector.class);
+  // Every power of 2 is split into 8 sub-buckets, bounding the percentile error to 12.5%
+  private static final int subBucketBits = 3;
+  private static final int subBucketCount = 1 << subBucketBits;
+  private static final int bucketCount = (Long.SIZE - subBucketBits) * subBucketCount;
+
+  private final DockerClient dockerClient;
+  private final String containerName;
+  private final String imageReference;
+  private final long[] memoryBucketCounts = new long[bucketCount];
+  private final CompletableFuture<Void> completion = new CompletableFuture<>();
+  private ResultCallback.Adapter<Statistics> callback;
+  private long sampleCount = 0;
+  private long cpuSampleCount = 0;
+  private double minCpuPercent = Double.MAX_VALUE;
+  private double maxCpuPercent = 0;
+  private double totalCpuPercent = 0;
+  private long minMemoryUsageInBytes = Long.MAX_VALUE;
+  private long maxMemoryUsageInBytes = 0;
+  private long totalMemoryUsageInBytes = 0;
+  private long memoryLimitInBytes = 0;
+  private long blockReadBytes = 0;
+  private long blockWrittenBytes = 0;
+  private long networkReceivedBytes = 0;
+  private long networkTransmittedBytes = 0;
+
+  /**
+   * Creates a stats collector for the specified container. Collection starts when
+   * {@link #start()} is called.
+   *
+   * @param dockerClient   Docker client of the daemon running the container.
+   * @param containerName  Name of the container.
+   * @param imageReference Reference of the container's image, i.e. "repository:tag", or null if
+   *                       it isn't known.
+   */
+  public ContainerStatsCollector(DockerClient dockerClient, String containerName,
+      String imageReference) {
+    this.dockerClient = Objects.requireNonNull(dockerClient);
+    this.containerName = Objects.requireNonNull(containerName);
+    this.imageReference = imageReference;
+  }
+
+  /**
+   * Starts following the container's resource usage.
+   *
+   * @return This stats collector.
+   */
+  public synchronized ContainerStatsCollector start() {
+    if (callback != null) {
+      throw new IllegalStateException(
+          "Stats collector of container '" + containerName + "' is already started");
+    }
+    callback = dockerClient.statsCmd(containerName)
+        .exec(new ResultCallback.Adapter<>() {
+          @Override
+          public void onNext(Statistics statistics) {
+            onSample(statistics);
+          }
+
+          @Override
+          public void onError(Throwable throwable) {
+            logger.debug("Stats stream of container '" + containerName + "' failed", throwable);
+            completion.complete(null);
+          }
+
+          @Override
+          public void onComplete() {
+            completion.complete(null);
+          }
+        });
+    return this;
+  }
+
+  /**
+   * Returns the name of the followed container.
+   *
+   * @return Name of the container.
+   */
+  public String getContainerName() {
+    return this.containerName;
+  }
+
+  /**
+   * Returns the reference of the followed container's image.
+   *
+   * @return Image reference, i.e. "repository:tag", or null if it isn't known.
+   */
+  public String getImageReference() {
+    return this.imageReference;
+  }
+
+  /**
+   * Checks if the stream has ended, i.e. the container stopped or the collector was closed.
+   *
+   * @return true if the stream has ended, else false.
+   */
+  public boolean isEnded() {
+    return completion.isDone();
+  }
+
+  /**
+   * Summarizes the samples collected so far.
+   *
+   * @return Summary of the container's resource usage.
+   */
+  public synchronized ContainerStats getStats() {
+    return new ContainerStats(
+        containerName,
+        sampleCount,
+        (cpuSampleCount == 0) ? 0 : minCpuPercent,
+        maxCpuPercent,
+        (cpuSampleCount == 0) ? 0 : totalCpuPercent / cpuSampleCount,
+        (sampleCount == 0) ? 0 : minMemoryUsageInBytes,
+        maxMemoryUsageInBytes,
+        (sampleCount == 0) ? 0 : totalMemoryUsageInBytes / sampleCount,
+        getMemoryUsagePercentile(95),
+        memoryLimitInBytes,
+        blockReadBytes,
+        blockWrittenBytes,
+        networkReceivedBytes,
+        networkTransmittedBytes
+    );
+  }
+
+  /**
+   * Stops following the container's resource usage. The samples collected so far are kept.
+   */
+  @Override
+  public void close() {
+    ResultCallback.Adapter<Statistics> startedCallback;
+    synchronized (this) {
+      startedCallback = callback;
+    }
+    if (startedCallback != null) {
+      try {
+        startedCallback.close();
+      } catch (IOException e) {
+        logger.debug("Unable to close stats stream of container '" + containerName + "'", e);
+      }
+    }
+    completion.complete(null);
+  }
+
+  private synchronized void onSample(Statistics statistics) {
+    MemoryStatsConfig memoryStats = statistics.getMemoryStats();
+    if (memoryStats == null || memoryStats.getUsage() == null) {
+      // Stopped containers are reported without usage
+      return;
+    }
+    sampleCount++;
+
+    long memoryUsageInBytes = Math.max(0, memoryStats.getUsage() - getInactiveFileBytes(
+        memoryStats.getStats()));
+    minMemoryUsageInBytes = Math.min(minMemoryUsageInBytes, memoryUsageInBytes);
+    maxMemoryUsageInBytes = Math.max(maxMemoryUsageInBytes, memoryUsageInBytes);
+    totalMemoryUsageInBytes += memoryUsageInBytes;
+    memoryBucketCounts[getBucketIndex(memoryUsageInBytes)]++;
+    if (memoryStats.getLimit() != null) {
+      memoryLimitInBytes = memoryStats.getLimit();
+    }
+
+    double cpuPercent = getCpuPercent(statistics.getCpuStats(), statistics.getPreCpuStats());
+    if (cpuPercent >= 0) {
+      cpuSampleCount++;
+      minCpuPercent = Math.min(minCpuPercent, cpuPercent);
+      maxCpuPercent = Math.max(maxCpuPercent, cpuPercent);
+      totalCpuPercent += cpuPercent;
+    }
+
+    BlkioStatsConfig blkioStats = statistics.getBlkioStats();
+    List<BlkioStatEntry> ioServiceBytes = (blkioStats == null) ? null
+        : blkioStats.getIoServiceBytesRecursive();
+    if (ioServiceBytes != null) {
+      long readBytes = 0;
+      long writtenBytes = 0;
+      for (int index = 0; index < ioServiceBytes.size(); index++) {
+        BlkioStatEntry entry = ioServiceBytes.get(index);
+        if (entry.getValue() == null) {
+          continue;
+        }
+        if ("read".equalsIgnoreCase(entry.getOp())) {
+          readBytes += entry.getValue();
+        } else if ("write".equalsIgnoreCase(entry.getOp())) {
+          writtenBytes += entry.getValue();
+        }
+      }
+      blockReadBytes = readBytes;
+      blockWrittenBytes = writtenBytes;
+    }
+
+    Map<String, StatisticNetworksConfig> networks = statistics.getNetworks();
+    if (networks != null) {
+      long receivedBytes = 0;
+      long transmittedBytes = 0;
+      for (StatisticNetworksConfig network : networks.values()) {
+        receivedBytes += Objects.requireNonNullElse(network.getRxBytes(), 0L);
+        transmittedBytes += Objects.requireNonNullElse(network.getTxBytes(), 0L);
+      }
+      networkReceivedBytes = receivedBytes;
+      networkTransmittedBytes = transmittedBytes;
+    }
+  }
+
+  /**
+   * Returns the page cache bytes that can be reclaimed, which docker counts as memory usage.
+   */
+  private static long getInactiveFileBytes(StatsConfig stats) {
+    if (stats == null) {
+      return 0;
+    }
+    // cgroup v2 and v1 respectively
+    if (stats.getInactiveFile() != null) {
+      return stats.getInactiveFile();
+    }
+    return Objects.requireNonNullElse(stats.getTotalInactiveFile(), 0L);
+  }
+
+  /**
+   * Computes the CPU usage between a sample and the previous one, like docker stats does.
+   *
+   * @return CPU usage in percent of a single CPU, or -1 if there's no previous sample.
+   */
+  private static double getCpuPercent(CpuStatsConfig cpuStats, CpuStatsConfig preCpuStats) {
+    if (cpuStats == null || preCpuStats == null || cpuStats.getCpuUsage() == null
+        || preCpuStats.getCpuUsage() == null || cpuStats.getSystemCpuUsage() == null
+        || preCpuStats.getSystemCpuUsage() == null || preCpuStats.getSystemCpuUsage() == 0) {
+      return -1;
+    }
+    long cpuDelta = Objects.requireNonNullElse(cpuStats.getCpuUsage().getTotalUsage(), 0L)
+        - Objects.requireNonNullElse(preCpuStats.getCpuUsage().getTotalUsage(), 0L);
+    long systemDelta = cpuStats.getSystemCpuUsage() - preCpuStats.getSystemCpuUsage();
+    if (systemDelta <= 0 || cpuDelta < 0) {
+      return -1;
+    }
+    long onlineCpus;
+    if (cpuStats.getOnlineCpus() != null) {
+      onlineCpus = cpuStats.getOnlineCpus();
+    } else {
+      List<Long> perCpuUsage = cpuStats.getCpuUsage().getPercpuUsage();
+      onlineCpus = (perCpuUsage == null) ? 1 : perCpuUsage.size();
+    }
+    return 100.0 * cpuDelta / systemDelta * onlineCpus;
+  }
+
+  /**
+   * Returns an upper bound of the specified percentile of the memory usage. Called with the lock
+   * held.
+   */
+  private long getMemoryUsagePercentile(double percentile) {
+    if (sampleCount == 0) {
+      return 0;
+    }
+    long rank = Math.max((long) Math.ceil(sampleCount * percentile / 100), 1);
+    long cumulativeCount = 0;
+    for (int index = 0; index < memoryBucketCounts.length; index++) {
+      cumulativeCount += memoryBucketCounts[index];
+      if (cumulativeCount >= rank) {
+        return Math.min(getBucketUpperBound(index), maxMemoryUsageInBytes);
+      }
+    }
+    return maxMemoryUsageInBytes;
+  }
+
+  /**
+   * Returns the index of the log-linear histogram bucket counting the specified value. Values
+   * below the sub-bucket count have a bucket each, larger values share a bucket with the values
+   * having the same most significant bits.
+   */
+  static int getBucketIndex(long value) {
+    if (value < subBucketCount) {
+      return (int) value;
+    }
+    int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) ((value >>> (exponent - subBucketBits)) & (subBucketCount - 1));
+    return (exponent - subBucketBits + 1) * subBucketCount + subBucket;
+  }
+
+  /**
+   * Returns the inclusive upper bound of the values counted by the specified bucket.
+   */
+  static long getBucketUpperBound(int index) {
+    if (index < subBucketCount) {
+      return index;
+    }
+    int shift = index / subBucketCount - 1;
+    long lowerBound = (long) (subBucketCount + index % subBucketCount) << shift;
+    return lowerBound + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,166 @@
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Strategy to bring the databases in a running container back to a captured state, so that the
+ * same warm container can be reused between tests instead of being recreated. The state is
+ * captured with {@link #prepare(DockerUtility, ManagedContainer)}, e.g. once the schema and
+ * fixtures are set up, and restored with {@link #reset(DockerUtility, ManagedContainer)}.
+ */
+public interface DatabaseResetStrategy {
+
+  /**
+   * Captures the current state of the databases in the container, for later resets.
+   *
+   * @param dockerUtility    Docker utility managing the container.
+   * @param managedContainer Running container.
+   * @throws InterruptedException When the wait is interrupted.
+   * @throws TimeoutException     When the state isn't captured within the strategy's timeout.
+   */
+  void prepare(DockerUtility dockerUtility, ManagedContainer managedContainer)
+      throws InterruptedException, TimeoutException;
+
+  /**
+   * Restores the databases in the container to the captured state.
+   *
+   * @param dockerUtility    Docker utility managing the container.
+   * @param managedContainer Running container.
+   * @throws InterruptedException When the wait is interrupted.
+   * @throws TimeoutException     When the state isn't restored within the strategy's timeout.
+   */
+  void reset(DockerUtility dockerUtility, ManagedContainer managedContainer)
+      throws InterruptedException, TimeoutException;
+
+  /**
+   * Returns a strategy that clones every postgres database into a template database, and resets
+   * by recreating the databases from their templates. Databases created after the state was
+   * captured are dropped.
+   *
+   * @param timeout Maximum time to capture or restore the state.
+   * @return Postgres reset strategy.
+   */
+  static DatabaseResetStrategy forPostgres(Duration timeout) {
+    String prelude = DatabaseShellScripts.postgresPrelude
+        + "databases() { query \"SELECT datname FROM pg_database WHERE NOT datistemplate"
+        + " AND datname NOT LIKE 'adya_reset_%'\"; }\n"
+        + "templates() { query \"SELECT datname FROM pg_database"
+        + " WHERE datname LIKE 'adya_reset_%'\"; }\n";
+    return new ExecDatabaseResetStrategy(
+        prelude
+            + "for template in $(templates); do query \"DROP DATABASE \\\"$template\\\"\"; done\n"
+            + "for database in $(databases); do\n"
+            + "  disconnect \"$database\"\n"
+            + "  query \"CREATE DATABASE \\\"adya_reset_$database\\\""
+            + " TEMPLATE \\\"$database\\\"\"\n"
+            + "done\n",
+        prelude
+            + "for database in $(databases); do\n"
+            + "  disconnect \"$database\"\n"
+            + "  query \"DROP DATABASE \\\"$database\\\"\"\n"
+            + "done\n"
+            + "for template in $(templates); do\n"
+            + "  query \"CREATE DATABASE \\\"${template#adya_reset_}\\\""
+            + " TEMPLATE \\\"$template\\\"\"\n"
+            + "done\n",
+        timeout
+    );
+  }
+
+  /**
+   * Returns a strategy that dumps every non-system MySQL schema, and resets by dropping the
+   * schemas and loading the dump.
+   *
+   * @param timeout Maximum time to capture or restore the state.
+   * @return MySQL reset strategy.
+   */
+  static DatabaseResetStrategy forMySql(Duration timeout) {
+    String prelude = DatabaseShellScripts.mySqlPrelude
+        + "schemas() { query \"SELECT schema_name FROM information_schema.schemata"
+        + " WHERE schema_name NOT IN ('mysql', 'information_schema', 'performance_schema',"
+        + " 'sys')\"; }\n";
+    return new ExecDatabaseResetStrategy(
+        prelude
+            + "schemas=$(schemas)\n"
+            + "if [ -n \"$schemas\" ]; then\n"
+            + "  mysqldump -uroot --single-transaction --routines --triggers --events"
+            + " --databases $schemas > /tmp/adya_reset.sql\n"
+            + "else\n"
+            + "  : > /tmp/adya_reset.sql\n"
+            + "fi\n",
+        prelude
+            + "for schema in $(schemas); do query \"DROP DATABASE \\`$schema\\`\"; done\n"
+            + "mysql -uroot < /tmp/adya_reset.sql\n",
+        timeout
+    );
+  }
+
+  /**
+   * Returns a strategy that backs up every user database of SQL Server, and resets by restoring
+   * the backups. Databases created after the state was captured are dropped.
+   *
+   * @param timeout Maximum time to capture or restore the state.
+   * @return SQL Server reset strategy.
+   */
+  static DatabaseResetStrategy forSqlServer(Duration timeout) {
+    String prelude = DatabaseShellScripts.sqlServerPrelude
+        + "databases() { query \"SELECT name FROM sys.databases WHERE database_id > 4\"; }\n"
+        + "backups=/var/opt/mssql/data/adya_reset\n";
+    return new ExecDatabaseResetStrategy(
+        prelude
+            + "rm -rf \"$backups\"\n"
+            + "mkdir -p \"$backups\"\n"
+            + "for database in $(databases); do\n"
+            + "  query \"BACKUP DATABASE [$database] TO DISK = N'$backups/$database.bak'"
+            + " WITH INIT, COPY_ONLY\" > /dev/null\n"
+            + "done\n",
+        prelude
+            + "for database in $(databases); do\n"
+            + "  [ -f \"$backups/$database.bak\" ] || query \"ALTER DATABASE [$database]"
+            + " SET SINGLE_USER WITH ROLLBACK IMMEDIATE; DROP DATABASE [$database]\"\n"
+            + "done\n"
+            + "for backup in \"$backups\"/*.bak; do\n"
+            + "  [ -f \"$backup\" ] || continue\n"
+            + "  database=$(basename \"$backup\" .bak)\n"
+            + "  query \"IF DB_ID(N'$database') IS NOT NULL ALTER DATABASE [$database]"
+            + " SET SINGLE_USER WITH ROLLBACK IMMEDIATE;"
+            + " RESTORE DATABASE [$database] FROM DISK = N'$backup' WITH REPLACE;"
+            + " ALTER DATABASE [$database] SET MULTI_USER\" > /dev/null\n"
+            + "done\n",
+        timeout
+    );
+  }
+
+  /**
+   * Returns a strategy that drops every non-system MongoDB database. It needs no captured
+   * state.
+   *
+   * @param timeout Maximum time to drop the databases.
+   * @return MongoDB reset strategy.
+   */
+  static DatabaseResetStrategy forMongoDb(Duration timeout) {
+    return new ExecDatabaseResetStrategy(
+        null,
+        DatabaseShellScripts.mongoDbPrelude
+            + "evaluate \"db.getMongo().getDBNames()"
+            + ".filter(function (name) { return ['admin', 'config', 'local'].indexOf(name) < 0; })"
+            + ".forEach(function (name) { db.getSiblingDB(name).dropDatabase(); })\"\n",
+        timeout
+    );
+  }
+
+  /**
+   * Returns a strategy that deletes every non-hidden Elasticsearch index. It needs no captured
+   * state.
+   *
+   * @param timeout Maximum time to delete the indices.
+   * @return Elasticsearch reset strategy.
+   */
+  static DatabaseResetStrategy forElasticsearch(Duration timeout) {
+    return new ExecDatabaseResetStrategy(
+        null,
+        DatabaseShellScripts.elasticsearchPrelude
+            + "request DELETE '*,-.*?expand_wildcards=open,closed'\n",
+        timeout
+    );
+  }
+}
@@ -0,0 +1,58 @@
+/**
+ * Preludes of the shell scripts that manage databases inside containers. Each prelude makes the
+ * script exit on the first failing command and defines a function running a query or command as
+ * the service's admin user, whose credentials are taken from the docker image's environment
+ * variables.
+ */
+final class DatabaseShellScripts {
+
+  /**
+   * Defines query, which runs SQL in the postgres template1 database, and disconnect, which
+   * terminates the connections to a database.
+   */
+  static final String postgresPrelude = "set -e\n"
+      + "export PGUSER=\"${POSTGRES_USER:-postgres}\" PGDATABASE=template1\n"
+      + "query() { psql -v ON_ERROR_STOP=1 -At -c \"$1\"; }\n"
+      + "disconnect() { query \"SELECT pg_terminate_backend(pid) FROM pg_stat_activity"
+      + " WHERE datname = '$1' AND pid <> pg_backend_pid()\" > /dev/null; }\n";
+
+  /**
+   * Defines query, which runs SQL in MySQL as root.
+   */
+  static final String mySqlPrelude = "set -e\n"
+      + "export MYSQL_PWD=\"$MYSQL_ROOT_PASSWORD\"\n"
+      + "query() { mysql -uroot -N -e \"$1\"; }\n";
+
+  /**
+   * Defines query, which runs T-SQL in SQL Server as sa, with either version of the bundled
+   * sqlcmd.
+   */
+  static final String sqlServerPrelude = "set -e\n"
+      + "export SQLCMDPASSWORD=\"$SA_PASSWORD\"\n"
+      + "if [ -x /opt/mssql-tools18/bin/sqlcmd ]; then\n"
+      + "  sqlcmd=\"/opt/mssql-tools18/bin/sqlcmd -C\"\n"
+      + "else\n"
+      + "  sqlcmd=/opt/mssql-tools/bin/sqlcmd\n"
+      + "fi\n"
+      + "query() { $sqlcmd -S localhost -U sa -b -h -1 -W -Q \"SET NOCOUNT ON; $1\"; }\n";
+
+  /**
+   * Defines evaluate, which runs JavaScript in the MongoDB shell as the root user, with either
+   * the current or the legacy shell.
+   */
+  static final String mongoDbPrelude = "set -e\n"
+      + "if command -v mongosh > /dev/null; then shell=mongosh; else shell=mongo; fi\n"
+      + "evaluate() { $shell --quiet -u \"$MONGO_INITDB_ROOT_USERNAME\""
+      + " -p \"$MONGO_INITDB_ROOT_PASSWORD\" --authenticationDatabase admin --eval \"$1\"; }\n";
+
+  /**
+   * Defines request, which sends an HTTP request with the specified method to the specified
+   * Elasticsearch path.
+   */
+  static final String elasticsearchPrelude = "set -e\n"
+      + "request() { curl -fsS -u \"$ELASTIC_USERNAME:$ELASTIC_PASSWORD\" -X \"$1\""
+      + " \"http://localhost:9200/$2\" > /dev/null; }\n";
+
+  private DatabaseShellScripts() {
+  }
+}
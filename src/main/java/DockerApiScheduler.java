@@ -0,0 +1,305 @@
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Puts the calls to a docker daemon behind concurrency limits, so that starting dozens of
+ * containers at once doesn't overwhelm the daemon into timing out. Every call belongs to a
+ * {@link DockerOperationClass} with its own limit, e.g. few pulls and more inspects, and all
+ * calls share an overall limit. Calls beyond the limits wait in a queue per class. Queued teardown
+ * calls are admitted first, since they free daemon resources, and calls of the other classes in
+ * the order they were queued. Once the configured number of calls is queued, further calls are
+ * rejected.
+ */
+public class DockerApiScheduler {
+
+  /**
+   * Default maximum number of concurrent calls to the docker daemon.
+   */
+  public static final int defaultMaxConcurrentOperations = 32;
+
+  private static final Map<DockerOperationClass, Integer> defaultOperationLimits = Map.of(
+      DockerOperationClass.PULL, 4,
+      DockerOperationClass.CREATE, 8,
+      DockerOperationClass.START, 8,
+      DockerOperationClass.INSPECT, 16,
+      DockerOperationClass.EXEC, 8,
+      DockerOperationClass.TEARDOWN, 16
+  );
+
+  /**
+   * A call waiting in the queue of its class.
+   */
+  private static class QueuedOperation {
+
+    private final long sequenceNumber;
+    private final Condition admission;
+    private boolean admitted = false;
+
+    QueuedOperation(long sequenceNumber, Condition admission) {
+      this.sequenceNumber = sequenceNumber;
+      this.admission = admission;
+    }
+  }
+
+  private final int maxConcurrentOperations;
+  private final int maxQueuedOperations;
+  private final Map<DockerOperationClass, Integer> operationLimits =
+      new EnumMap<>(DockerOperationClass.class);
+  private final Map<DockerOperationClass, Deque<QueuedOperation>> queues =
+      new EnumMap<>(DockerOperationClass.class);
+  private final int[] activeCounts = new int[DockerOperationClass.values().length];
+  private final int[] peakQueueDepths = new int[DockerOperationClass.values().length];
+  private final ReentrantLock lock = new ReentrantLock();
+  private int activeCount = 0;
+  private int queuedCount = 0;
+  private long nextSequenceNumber = 0;
+
+  /**
+   * Creates a scheduler with the default limits and an unbounded queue.
+   */
+  public DockerApiScheduler() {
+    this(defaultMaxConcurrentOperations, Map.of(), Integer.MAX_VALUE);
+  }
+
+  /**
+   * Creates a scheduler with the specified limits.
+   *
+   * @param maxConcurrentOperations Maximum number of concurrent calls of all classes.
+   * @param operationLimits         Maximum number of concurrent calls per class. Classes without
+   *                                a limit get the default one: 4 pulls, 8 creates, 8 starts, 16
+   *                                inspects, 8 execs and 16 teardowns.
+   * @param maxQueuedOperations     Maximum number of calls waiting for admission, across classes.
+   */
+  public DockerApiScheduler(int maxConcurrentOperations,
+      Map<DockerOperationClass, Integer> operationLimits, int maxQueuedOperations) {
+    // Input validation
+    Objects.requireNonNull(operationLimits);
+    if (maxConcurrentOperations < 1) {
+      throw new IllegalArgumentException("Maximum concurrent operations should be at least 1, but"
+          + " is " + maxConcurrentOperations);
+    }
+    operationLimits.forEach((operationClass, operationLimit) -> {
+      if (operationLimit == null || operationLimit < 1) {
+        throw new IllegalArgumentException("Limit of " + operationClass
+            + " operations should be at least 1, but is " + operationLimit);
+      }
+    });
+    if (maxQueuedOperations < 0) {
+      throw new IllegalArgumentException("Maximum queued operations should not be negative, but"
+          + " is " + maxQueuedOperations);
+    }
+
+    this.maxConcurrentOperations = maxConcurrentOperations;
+    this.maxQueuedOperations = maxQueuedOperations;
+    for (DockerOperationClass operationClass : DockerOperationClass.values()) {
+      this.operationLimits.put(operationClass, operationLimits.getOrDefault(
+          operationClass, defaultOperationLimits.get(operationClass)));
+      this.queues.put(operationClass, new ArrayDeque<>());
+    }
+  }
+
+  /**
+   * Runs a call to the docker daemon once it is admitted by the limits.
+   *
+   * @param operationClass Class of the call.
+   * @param operation      Call to run.
+   * @param <T>            Type of the call's result.
+   * @return Result of the call.
+   * @throws InterruptedException       When the wait for admission is interrupted.
+   * @throws RejectedExecutionException When the queue is full.
+   */
+  public <T> T execute(DockerOperationClass operationClass, Supplier<T> operation)
+      throws InterruptedException {
+    // Input validation
+    Objects.requireNonNull(operation);
+
+    acquire(operationClass);
+    try {
+      return operation.get();
+    } finally {
+      release(operationClass);
+    }
+  }
+
+  /**
+   * Waits until a call of the specified class is admitted. Every admission has to be followed by
+   * a {@link #release(DockerOperationClass)} once the call completes.
+   *
+   * @param operationClass Class of the call.
+   * @return Time spent waiting in the queue.
+   * @throws InterruptedException       When the wait is interrupted.
+   * @throws RejectedExecutionException When the queue is full.
+   */
+  Duration acquire(DockerOperationClass operationClass) throws InterruptedException {
+    // Input validation
+    Objects.requireNonNull(operationClass);
+
+    long queuedAtInNs = System.nanoTime();
+    lock.lock();
+    try {
+      Deque<QueuedOperation> queue = queues.get(operationClass);
+      if (queue.isEmpty() && hasCapacity(operationClass)) {
+        admit(operationClass);
+        return Duration.ZERO;
+      }
+      if (queuedCount >= maxQueuedOperations) {
+        throw new RejectedExecutionException("Docker API queue is full with " + queuedCount
+            + " operations, rejecting " + operationClass + " operation");
+      }
+      QueuedOperation queuedOperation = new QueuedOperation(nextSequenceNumber++,
+          lock.newCondition());
+      queue.addLast(queuedOperation);
+      queuedCount++;
+      peakQueueDepths[operationClass.ordinal()] = Math.max(
+          peakQueueDepths[operationClass.ordinal()], queue.size());
+      try {
+        while (!queuedOperation.admitted) {
+          queuedOperation.admission.await();
+        }
+      } catch (InterruptedException e) {
+        if (queuedOperation.admitted) {
+          // Pass the admission on
+          releaseLocked(operationClass);
+        } else {
+          queue.remove(queuedOperation);
+          queuedCount--;
+        }
+        throw e;
+      }
+      return Duration.ofNanos(System.nanoTime() - queuedAtInNs);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Marks a call of the specified class as completed, admitting queued calls.
+   *
+   * @param operationClass Class of the completed call.
+   */
+  void release(DockerOperationClass operationClass) {
+    lock.lock();
+    try {
+      releaseLocked(operationClass);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of calls of the specified class waiting for admission.
+   *
+   * @param operationClass Class of the calls.
+   * @return Number of queued calls.
+   */
+  public int getQueueDepth(DockerOperationClass operationClass) {
+    lock.lock();
+    try {
+      return queues.get(Objects.requireNonNull(operationClass))
+          .size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the highest number of calls of the specified class that waited for admission at the
+   * same time.
+   *
+   * @param operationClass Class of the calls.
+   * @return Peak number of queued calls.
+   */
+  public int getPeakQueueDepth(DockerOperationClass operationClass) {
+    lock.lock();
+    try {
+      return peakQueueDepths[operationClass.ordinal()];
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of running calls of the specified class.
+   *
+   * @param operationClass Class of the calls.
+   * @return Number of running calls.
+   */
+  public int getActiveCount(DockerOperationClass operationClass) {
+    lock.lock();
+    try {
+      return activeCounts[operationClass.ordinal()];
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the maximum number of concurrent calls of the specified class.
+   *
+   * @param operationClass Class of the calls.
+   * @return Limit of the class.
+   */
+  public int getOperationLimit(DockerOperationClass operationClass) {
+    return operationLimits.get(Objects.requireNonNull(operationClass));
+  }
+
+  /**
+   * Returns the maximum number of concurrent calls of all classes.
+   *
+   * @return Overall limit.
+   */
+  public int getMaxConcurrentOperations() {
+    return this.maxConcurrentOperations;
+  }
+
+  private boolean hasCapacity(DockerOperationClass operationClass) {
+    return activeCount < maxConcurrentOperations
+        && activeCounts[operationClass.ordinal()] < operationLimits.get(operationClass);
+  }
+
+  private void admit(DockerOperationClass operationClass) {
+    activeCount++;
+    activeCounts[operationClass.ordinal()]++;
+  }
+
+  private void releaseLocked(DockerOperationClass operationClass) {
+    activeCount--;
+    activeCounts[operationClass.ordinal()]--;
+    // Admit queued calls while there is capacity, teardowns first, then in queueing order
+    while (activeCount < maxConcurrentOperations) {
+      DockerOperationClass nextOperationClass = null;
+      for (DockerOperationClass candidate : DockerOperationClass.values()) {
+        QueuedOperation head = queues.get(candidate)
+            .peekFirst();
+        if (head == null || !hasCapacity(candidate)) {
+          continue;
+        }
+        if (candidate == DockerOperationClass.TEARDOWN) {
+          nextOperationClass = candidate;
+          break;
+        }
+        if (nextOperationClass == null || head.sequenceNumber < queues.get(nextOperationClass)
+            .peekFirst().sequenceNumber) {
+          nextOperationClass = candidate;
+        }
+      }
+      if (nextOperationClass == null) {
+        return;
+      }
+      QueuedOperation queuedOperation = queues.get(nextOperationClass)
+          .pollFirst();
+      queuedCount--;
+      admit(nextOperationClass);
+      queuedOperation.admitted = true;
+      queuedOperation.admission.signal();
+    }
+  }
+}
@@ -1,13 +1,34 @@
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.command.CreateContainerCmd;
+import com.github.dockerjava.api.command.WaitContainerResultCallback;
+import com.github.dockerjava.api.model.HostConfig;
+import com.github.dockerjava.api.model.PortBinding;
+import com.github.dockerjava.api.model.Ports;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.Reader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.YAMLException;
 import utilities.Response;
 import utilities.ShellUtility;
 
@@ -15,6 +36,29 @@ public class DockerComposeUtility {
 
   private static final Logger logger = LogManager.getLogger(DockerComposeUtility.class);
   private static final List<String> supportedDockerComposeCommands = List.of("up", "down");
+  private static final String projectLabel = "com.docker.compose.project";
+  private static final String serviceLabel = "com.docker.compose.service";
+  private static final int maxParallelism = 16;
+
+  private final DockerUtility dockerUtility;
+
+  /**
+   * Creates a compose utility whose native engine manages services through a default docker
+   * utility.
+   */
+  public DockerComposeUtility() {
+    this(new DockerUtility());
+  }
+
+  /**
+   * Creates a compose utility whose native engine manages services through the specified docker
+   * utility.
+   *
+   * @param dockerUtility Docker utility to manage the services' containers with.
+   */
+  public DockerComposeUtility(DockerUtility dockerUtility) {
+    this.dockerUtility = Objects.requireNonNull(dockerUtility);
+  }
 
   /**
    * Wrapper for the docker-compose command.
@@ -46,19 +90,8 @@ public class DockerComposeUtility {
       throw new IllegalArgumentException(
           "Unsupported docker compose command - " + dockerComposeCommand
               + "\nSupported commands are: " + supportedDockerComposeCommands);
-    } else if (
-        !composeFilePath.toAbsolutePath()
-            .toString()
-            .endsWith(".yml")
-    ) {
-      throw new IllegalArgumentException(
-          "Only a .yml file is considered a valid compose file. Specified file is not one - "
-              + composeFilePath
-      );
-    } else if (!Files.exists(composeFilePath)) {
-      throw new FileNotFoundException(
-          "Compose file not found in specified path - " + composeFilePath);
     }
+    validateComposeFilePath(composeFilePath);
 
     String dockerComposeCommandString = String.format(
         "docker-compose -f %s %s %s",
@@ -76,4 +109,382 @@ public class DockerComposeUtility {
 
   }
 
+  /**
+   * Natively brings up the services defined in a compose yaml file through the docker API, without
+   * the docker-compose binary. The services are started as soon as the services they depend on
+   * satisfy their depends_on conditions, so independent services are started concurrently. All
+   * services are attached to a "&lt;project&gt;_default" network under their service name, where
+   * the project name is the name of the directory containing the compose file.
+   *
+   * @param composeFilePath Path to the compose yaml file.
+   * @param timeoutDuration Timeout duration for bringing up all services.
+   * @return Result of each service, keyed by service name, in dependency order.
+   * @throws IOException          When the compose yaml file is not found or can't be parsed.
+   * @throws InterruptedException When the method is interrupted at runtime.
+   * @throws TimeoutException     When bringing up the services takes more time than the specified
+   *                              timeout duration.
+   */
+  public Map<String, ComposeServiceResult> up(Path composeFilePath, Duration timeoutDuration)
+      throws IOException, InterruptedException, TimeoutException {
+    // Input validation
+    Objects.requireNonNull(composeFilePath);
+    Objects.requireNonNull(timeoutDuration);
+    validateComposeFilePath(composeFilePath);
+
+    Map<String, ComposeService> services = parseComposeFile(composeFilePath);
+    String projectName = getProjectName(composeFilePath);
+    String networkName = projectName + "_default";
+    long deadline = System.nanoTime() + timeoutDuration.toNanos();
+    DockerClient dockerClient = dockerUtility.getDockerClient();
+
+    if (dockerUtility.schedule(DockerOperationClass.INSPECT, () -> dockerClient.listNetworksCmd()
+        .withNameFilter(networkName)
+        .exec())
+        .stream()
+        .noneMatch(network -> network.getName().equals(networkName))) {
+      logger.info("Creating network '" + networkName + "'");
+      dockerUtility.schedule(DockerOperationClass.CREATE, () -> dockerClient.createNetworkCmd()
+          .withName(networkName)
+          .withLabels(AdyaLabels.withSessionLabels(Map.of(
+              projectLabel, projectName,
+              "com.docker.compose.network", "default"
+          )))
+          .exec());
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(services.size(), maxParallelism),
+        runnable -> {
+          Thread thread = new Thread(runnable, "adya-compose-" + projectName);
+          thread.setDaemon(true);
+          return thread;
+        }
+    );
+    // Services are in dependency order, so a service's dependencies are scheduled before it
+    Map<String, CompletableFuture<ComposeServiceResult>> startedServices = new LinkedHashMap<>();
+    try {
+      for (ComposeService service : services.values()) {
+        CompletableFuture<?>[] prerequisites = service.getDependencies()
+            .entrySet()
+            .stream()
+            .map(dependency -> startedServices.get(dependency.getKey())
+                .thenApplyAsync(dependencyResult -> awaitDependencyCondition(
+                    dependencyResult, dependency.getValue(), deadline), executor))
+            .toArray(CompletableFuture[]::new);
+        startedServices.put(
+            service.getName(),
+            CompletableFuture.allOf(prerequisites)
+                .handleAsync((ignored, dependencyError) -> (dependencyError != null)
+                        ? new ComposeServiceResult(service.getName(), null, Duration.ZERO,
+                        (dependencyError instanceof CompletionException)
+                            ? dependencyError.getCause() : dependencyError)
+                        : startService(service, projectName, networkName),
+                    executor)
+        );
+      }
+
+      long remainingInNs = deadline - System.nanoTime();
+      CompletableFuture.allOf(startedServices.values().toArray(CompletableFuture[]::new))
+          .get(Math.max(0, remainingInNs), TimeUnit.NANOSECONDS);
+    } catch (ExecutionException e) {
+      // Service failures are reported as results, so this is unexpected
+      throw new RuntimeException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Map<String, ComposeServiceResult> results = new LinkedHashMap<>();
+    startedServices.forEach((serviceName, result) -> results.put(serviceName, result.join()));
+    logger.info("Brought up compose project '" + projectName + "' - " + results.values());
+    return results;
+  }
+
+  /**
+   * Natively stops and removes the containers and the default network of the project defined by a
+   * compose yaml file, without the docker-compose binary. Containers are removed concurrently.
+   *
+   * @param composeFilePath Path to the compose yaml file.
+   * @param timeoutDuration Timeout duration for removing all containers.
+   * @throws IOException          When the compose yaml file is not found.
+   * @throws InterruptedException When the method is interrupted at runtime.
+   * @throws TimeoutException     When removing the containers takes more time than the specified
+   *                              timeout duration.
+   */
+  public void down(Path composeFilePath, Duration timeoutDuration)
+      throws IOException, InterruptedException, TimeoutException {
+    // Input validation
+    Objects.requireNonNull(composeFilePath);
+    Objects.requireNonNull(timeoutDuration);
+    validateComposeFilePath(composeFilePath);
+
+    String projectName = getProjectName(composeFilePath);
+    String networkName = projectName + "_default";
+    DockerClient dockerClient = dockerUtility.getDockerClient();
+
+    List<String> containerNames = dockerUtility.schedule(DockerOperationClass.INSPECT,
+        () -> dockerClient.listContainersCmd()
+            .withShowAll(true)
+            .withLabelFilter(Map.of(projectLabel, projectName))
+            .exec())
+        .stream()
+        .map(container -> container.getNames()[0].substring(1))
+        .collect(Collectors.toList());
+    if (!containerNames.isEmpty()) {
+      ExecutorService executor = Executors.newFixedThreadPool(
+          Math.min(containerNames.size(), maxParallelism));
+      try {
+        CompletableFuture.allOf(
+            containerNames.stream()
+                .map(containerName -> CompletableFuture.runAsync(
+                    () -> dockerUtility.removeContainerIfExists(containerName), executor))
+                .toArray(CompletableFuture[]::new)
+        ).get(timeoutDuration.toNanos(), TimeUnit.NANOSECONDS);
+      } catch (ExecutionException e) {
+        throw new RuntimeException(e.getCause());
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+
+    dockerUtility.schedule(DockerOperationClass.INSPECT, () -> dockerClient.listNetworksCmd()
+        .withNameFilter(networkName)
+        .exec())
+        .stream()
+        .filter(network -> network.getName().equals(networkName))
+        .forEach(network -> {
+          logger.info("Removing network '" + networkName + "'");
+          dockerUtility.schedule(DockerOperationClass.TEARDOWN,
+              () -> dockerClient.removeNetworkCmd(network.getId())
+                  .exec());
+        });
+  }
+
+  /**
+   * Parses the services defined in a compose yaml file.
+   *
+   * @param composeFilePath Path to the compose yaml file.
+   * @return Services keyed by name, ordered such that every service comes after the services it
+   *     depends on.
+   * @throws IOException When the compose yaml file can't be read.
+   * @throws IllegalArgumentException When the compose file is invalid, refers to undefined
+   *                                  services or has cyclic dependencies.
+   */
+  public static Map<String, ComposeService> parseComposeFile(Path composeFilePath)
+      throws IOException {
+    Objects.requireNonNull(composeFilePath);
+
+    Object composeDefinition;
+    try (Reader reader = Files.newBufferedReader(composeFilePath)) {
+      composeDefinition = new Yaml(new SafeConstructor()).load(reader);
+    } catch (YAMLException e) {
+      throw new IllegalArgumentException("Invalid compose file - " + composeFilePath, e);
+    }
+    Object servicesDefinition = (composeDefinition instanceof Map)
+        ? ((Map<?, ?>) composeDefinition).get("services") : null;
+    if (!(servicesDefinition instanceof Map) || ((Map<?, ?>) servicesDefinition).isEmpty()) {
+      throw new IllegalArgumentException("No services defined in compose file - "
+          + composeFilePath);
+    }
+
+    Map<String, ComposeService> services = new LinkedHashMap<>();
+    ((Map<?, ?>) servicesDefinition).forEach((name, definition) -> {
+      if (!(definition instanceof Map)) {
+        throw new IllegalArgumentException("Invalid definition of service '" + name + "'");
+      }
+      services.put(String.valueOf(name),
+          ComposeService.parse(String.valueOf(name), (Map<?, ?>) definition));
+    });
+
+    // Order the services topologically, so that dependencies come first
+    Map<String, ComposeService> orderedServices = new LinkedHashMap<>();
+    Set<String> visiting = new HashSet<>();
+    services.keySet()
+        .forEach(name -> orderService(name, services, orderedServices, visiting));
+    return orderedServices;
+  }
+
+  private static void orderService(String name, Map<String, ComposeService> services,
+      Map<String, ComposeService> orderedServices, Set<String> visiting) {
+    if (orderedServices.containsKey(name)) {
+      return;
+    }
+    ComposeService service = services.get(name);
+    if (service == null) {
+      throw new IllegalArgumentException("Dependency on undefined service '" + name + "'");
+    }
+    if (!visiting.add(name)) {
+      throw new IllegalArgumentException("Cyclic dependency involving service '" + name + "'");
+    }
+    service.getDependencies()
+        .keySet()
+        .forEach(dependency -> orderService(dependency, services, orderedServices, visiting));
+    visiting.remove(name);
+    orderedServices.put(name, service);
+  }
+
+  private static void validateComposeFilePath(Path composeFilePath)
+      throws FileNotFoundException {
+    if (
+        !composeFilePath.toAbsolutePath()
+            .toString()
+            .endsWith(".yml")
+    ) {
+      throw new IllegalArgumentException(
+          "Only a .yml file is considered a valid compose file. Specified file is not one - "
+              + composeFilePath
+      );
+    } else if (!Files.exists(composeFilePath)) {
+      throw new FileNotFoundException(
+          "Compose file not found in specified path - " + composeFilePath);
+    }
+  }
+
+  /**
+   * Returns the compose project name, which like docker-compose is the name of the directory
+   * containing the compose file.
+   *
+   * @param composeFilePath Path to the compose yaml file.
+   * @return Project name.
+   */
+  private static String getProjectName(Path composeFilePath) {
+    Path directory = composeFilePath.toAbsolutePath()
+        .getParent();
+    String directoryName = (directory == null || directory.getFileName() == null) ? "default"
+        : directory.getFileName().toString();
+    return directoryName.toLowerCase()
+        .replaceAll("[^a-z0-9_-]", "");
+  }
+
+  /**
+   * Creates and starts the container of a service.
+   *
+   * @param service     Service to start.
+   * @param projectName Compose project name.
+   * @param networkName Network to attach the container to.
+   * @return Result of starting the service.
+   */
+  private ComposeServiceResult startService(ComposeService service, String projectName,
+      String networkName) {
+    long startTime = System.nanoTime();
+    String containerName = (service.getContainerName() != null) ? service.getContainerName()
+        : projectName + "_" + service.getName() + "_1";
+    try {
+      DockerClient dockerClient = dockerUtility.getDockerClient();
+      String[] imageReferenceParts = parseImageReference(service.getImage());
+      String repository = imageReferenceParts[0];
+      String imageTag = imageReferenceParts[1];
+      String imageReference = repository + (imageTag.contains(":") ? "@" : ":") + imageTag;
+      if (!dockerUtility.doesImageExist(imageReference)) {
+        dockerUtility.pullImage(repository, imageTag);
+      }
+
+      dockerUtility.removeContainerIfExists(containerName);
+      Ports portBindings = new Ports();
+      service.getPortBindings()
+          .forEach(portBindings::add);
+      logger.info("Creating container '" + containerName + "' for service '"
+          + service.getName() + "'");
+      CreateContainerCmd createContainerCmd = dockerClient.createContainerCmd(imageReference)
+          .withImage(imageReference)
+          .withName(containerName)
+          .withEnv(service.getEnvironment())
+          .withLabels(AdyaLabels.withSessionLabels(Map.of(
+              projectLabel, projectName,
+              serviceLabel, service.getName(),
+              "com.docker.compose.container-number", "1",
+              "com.docker.compose.oneoff", "False"
+          )))
+          .withExposedPorts(service.getPortBindings()
+              .stream()
+              .map(PortBinding::getExposedPort)
+              .collect(Collectors.toList()))
+          .withHostConfig(new HostConfig()
+              .withPortBindings(portBindings)
+              .withNetworkMode(networkName))
+          .withAliases(service.getName());
+      if (service.getCommand() != null) {
+        createContainerCmd.withCmd(service.getCommand());
+      }
+      if (service.getHealthCheck() != null) {
+        createContainerCmd.withHealthcheck(service.getHealthCheck());
+      }
+      dockerUtility.createContainer(createContainerCmd, imageReference);
+      dockerUtility.startContainer(containerName);
+      return new ComposeServiceResult(service.getName(), containerName,
+          Duration.ofNanos(System.nanoTime() - startTime), null);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return new ComposeServiceResult(service.getName(), containerName,
+          Duration.ofNanos(System.nanoTime() - startTime), e);
+    } catch (RuntimeException e) {
+      logger.error("Unable to start service '" + service.getName() + "'", e);
+      return new ComposeServiceResult(service.getName(), containerName,
+          Duration.ofNanos(System.nanoTime() - startTime), e);
+    }
+  }
+
+  /**
+   * Splits an image reference into its repository and its tag or digest, e.g. "postgres:13" into
+   * "postgres" and "13", and "postgres@sha256:&lt;hex&gt;" into "postgres" and
+   * "sha256:&lt;hex&gt;". A tag alongside a digest is ignored, like docker does.
+   *
+   * @param image Image reference.
+   * @return Repository, and tag or digest, which is "latest" if neither is specified.
+   */
+  static String[] parseImageReference(String image) {
+    int digestSeparator = image.indexOf('@');
+    String name = (digestSeparator >= 0) ? image.substring(0, digestSeparator) : image;
+    // A colon before the last slash separates a registry's port, not a tag
+    int tagSeparator = name.lastIndexOf(':');
+    boolean tagged = tagSeparator > name.lastIndexOf('/');
+    String repository = tagged ? name.substring(0, tagSeparator) : name;
+    if (digestSeparator >= 0) {
+      return new String[]{repository, image.substring(digestSeparator + 1)};
+    }
+    return new String[]{repository, tagged ? name.substring(tagSeparator + 1) : "latest"};
+  }
+
+  /**
+   * Blocks until a started dependency satisfies the specified condition.
+   *
+   * @param dependencyResult Result of starting the dependency.
+   * @param condition        Condition to satisfy.
+   * @param deadline         System.nanoTime() value by which the condition has to be satisfied.
+   * @return The dependency's result.
+   * @throws CompletionException When the dependency failed or doesn't satisfy the condition.
+   */
+  private ComposeServiceResult awaitDependencyCondition(ComposeServiceResult dependencyResult,
+      ComposeService.DependencyCondition condition, long deadline) {
+    if (!dependencyResult.isSuccessful()) {
+      throw new CompletionException(new IllegalStateException(
+          "Dependency '" + dependencyResult.getServiceName() + "' failed to start",
+          dependencyResult.getError()));
+    }
+    Duration remaining = Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+    try {
+      switch (condition) {
+        case SERVICE_HEALTHY -> dockerUtility.waitUntilReady(
+            dependencyResult.getContainerName(), WaitStrategy.forHealthcheck(remaining));
+        case SERVICE_COMPLETED_SUCCESSFULLY -> {
+          // Not scheduled, as it would hold a slot until the dependency exits
+          int statusCode = dockerUtility.getDockerClient()
+              .waitContainerCmd(dependencyResult.getContainerName())
+              .exec(new WaitContainerResultCallback())
+              .awaitStatusCode(remaining.toNanos(), TimeUnit.NANOSECONDS);
+          if (statusCode != 0) {
+            throw new IllegalStateException("Dependency '" + dependencyResult.getServiceName()
+                + "' exited with status code " + statusCode);
+          }
+        }
+        default -> {
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CompletionException(e);
+    } catch (TimeoutException | RuntimeException e) {
+      throw new CompletionException(e);
+    }
+    return dependencyResult;
+  }
 }
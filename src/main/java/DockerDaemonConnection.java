@@ -0,0 +1,195 @@
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientBuilder;
+import com.github.dockerjava.core.DockerClientConfig;
+import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Connection to a docker daemon, shared by the docker utilities managing that daemon with the
+ * same connection settings, along with the daemon's API scheduler, event stream, state cache,
+ * container event dispatcher and in-flight image pulls. The docker client is only created on
+ * first use, and closed once every docker utility sharing the connection has been closed.
+ */
+final class DockerDaemonConnection {
+
+  private static final Logger logger = LogManager.getLogger(DockerDaemonConnection.class);
+  private static final Map<List<Object>, DockerDaemonConnection> connections = new HashMap<>();
+
+  private final List<Object> key;
+  private final DockerClientConfig dockerClientConfig;
+  private final int maxConnections;
+  private final Duration connectionTimeout;
+  private final Duration responseTimeout;
+  private final DockerApiScheduler dockerApiScheduler;
+  private final Map<String, CompletableFuture<Void>> inFlightPulls = new ConcurrentHashMap<>();
+  private final AtomicBoolean sessionPruneHookRegistered = new AtomicBoolean();
+  private int referenceCount = 0;
+  private volatile DockerClient dockerClient;
+  private volatile DockerStateCache dockerStateCache;
+  private DockerEventStream dockerEventStream;
+  private ContainerEventDispatcher containerEventDispatcher;
+  private boolean closed = false;
+
+  private DockerDaemonConnection(List<Object> key, DockerClientConfig dockerClientConfig,
+      int maxConnections, Duration connectionTimeout, Duration responseTimeout,
+      DockerApiScheduler dockerApiScheduler) {
+    this.key = key;
+    this.dockerClientConfig = dockerClientConfig;
+    this.maxConnections = maxConnections;
+    this.connectionTimeout = connectionTimeout;
+    this.responseTimeout = responseTimeout;
+    this.dockerApiScheduler = dockerApiScheduler;
+  }
+
+  /**
+   * Returns the connection to the specified docker daemon with the specified settings, and
+   * registers a new user of it. Every call has to be matched by a {@link #release()}.
+   *
+   * @param dockerHost              Docker daemon endpoint, e.g. tcp://ci-node-1:2375, or null for
+   *                                the daemon configured through DOCKER_HOST and the docker-java
+   *                                properties.
+   * @param maxConnections          Maximum number of pooled HTTP connections to the daemon.
+   * @param connectionTimeout       Maximum time to establish an HTTP connection.
+   * @param responseTimeout         Maximum time to wait for a response.
+   * @param maxConcurrentOperations Maximum number of concurrent calls to the daemon.
+   * @param operationLimits         Maximum number of concurrent calls per operation class.
+   * @param maxQueuedOperations     Maximum number of calls waiting for admission.
+   * @return Connection to the docker daemon.
+   */
+  static DockerDaemonConnection acquire(String dockerHost, int maxConnections,
+      Duration connectionTimeout, Duration responseTimeout, int maxConcurrentOperations,
+      Map<DockerOperationClass, Integer> operationLimits, int maxQueuedOperations) {
+    DefaultDockerClientConfig.Builder dockerClientConfigBuilder = DefaultDockerClientConfig
+        .createDefaultConfigBuilder();
+    if (dockerHost != null) {
+      dockerClientConfigBuilder.withDockerHost(dockerHost);
+    }
+    DockerClientConfig dockerClientConfig = dockerClientConfigBuilder.build();
+    List<Object> key = List.of(dockerClientConfig.getDockerHost(), maxConnections,
+        connectionTimeout, responseTimeout, maxConcurrentOperations, Map.copyOf(operationLimits),
+        maxQueuedOperations);
+    synchronized (connections) {
+      DockerDaemonConnection dockerDaemonConnection = connections.computeIfAbsent(
+          key,
+          absentKey -> new DockerDaemonConnection(absentKey, dockerClientConfig, maxConnections,
+              connectionTimeout, responseTimeout, new DockerApiScheduler(maxConcurrentOperations,
+              operationLimits, maxQueuedOperations))
+      );
+      dockerDaemonConnection.referenceCount++;
+      return dockerDaemonConnection;
+    }
+  }
+
+  /**
+   * Unregisters a user of this connection, closing it if it was the last one.
+   */
+  void release() {
+    synchronized (connections) {
+      if (--referenceCount > 0) {
+        return;
+      }
+      connections.remove(key, this);
+    }
+    close();
+  }
+
+  private synchronized void close() {
+    closed = true;
+    if (dockerClient == null) {
+      return;
+    }
+    logger.info("Closing connection to docker host '" + dockerClientConfig.getDockerHost() + "'");
+    // Closed separately, so that failing to close the event stream doesn't leak the client
+    try {
+      dockerEventStream.close();
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Unable to close event stream of docker host '"
+          + dockerClientConfig.getDockerHost() + "'", e);
+    }
+    try {
+      dockerClient.close();
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Unable to close connection to docker host '"
+          + dockerClientConfig.getDockerHost() + "'", e);
+    }
+  }
+
+  /**
+   * Creates the docker client, event stream, state cache and container event dispatcher on first
+   * use.
+   */
+  private synchronized void connect() {
+    if (closed) {
+      throw new IllegalStateException("Connection to docker host '"
+          + dockerClientConfig.getDockerHost() + "' is closed");
+    }
+    if (dockerClient == null) {
+      logger.info("Connecting to docker host '" + dockerClientConfig.getDockerHost() + "'");
+      dockerClient = DockerClientBuilder.getInstance()
+          .withDockerHttpClient(new ApacheDockerHttpClient.Builder()
+              .dockerHost(dockerClientConfig.getDockerHost())
+              .sslConfig(dockerClientConfig.getSSLConfig())
+              .maxConnections(maxConnections)
+              .connectionTimeout(connectionTimeout)
+              .responseTimeout(responseTimeout)
+              .build())
+          .build();
+      dockerEventStream = new DockerEventStream(dockerClient);
+      dockerStateCache = new DockerStateCache(dockerClient, dockerEventStream);
+      containerEventDispatcher = new ContainerEventDispatcher();
+      dockerEventStream.addListener(containerEventDispatcher);
+    }
+  }
+
+  DockerClientConfig getDockerClientConfig() {
+    return this.dockerClientConfig;
+  }
+
+  DockerClient getDockerClient() {
+    if (dockerClient == null) {
+      connect();
+    }
+    return this.dockerClient;
+  }
+
+  DockerStateCache getDockerStateCache() {
+    if (dockerStateCache == null) {
+      connect();
+    }
+    return this.dockerStateCache;
+  }
+
+  /**
+   * Returns the container event dispatcher, starting the event stream feeding it if it isn't
+   * started yet.
+   *
+   * @return Container event dispatcher.
+   */
+  synchronized ContainerEventDispatcher getContainerEventDispatcher() {
+    connect();
+    dockerEventStream.start();
+    return this.containerEventDispatcher;
+  }
+
+  DockerApiScheduler getDockerApiScheduler() {
+    return this.dockerApiScheduler;
+  }
+
+  Map<String, CompletableFuture<Void>> getInFlightPulls() {
+    return this.inFlightPulls;
+  }
+
+  AtomicBoolean getSessionPruneHookRegistered() {
+    return this.sessionPruneHookRegistered;
+  }
+}
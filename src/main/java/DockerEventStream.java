@@ -0,0 +1,191 @@
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.Event;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A single long-lived subscription to the docker daemon's event stream, multiplexed to any number
+ * of listeners. The subscription is opened lazily on {@link #start()} and re-opened whenever it
+ * breaks.
+ */
+public class DockerEventStream implements Closeable {
+
+  /**
+   * Receives docker events along with the connection state of the stream.
+   */
+  public interface Listener {
+
+    /**
+     * Invoked on the stream's thread for every docker event received.
+     *
+     * @param event Docker event.
+     */
+    void onEvent(Event event);
+
+    /**
+     * Invoked once the stream is connected, before any events received over this connection are
+     * dispatched. Events may have been missed since the previous connection.
+     */
+    default void onConnected() {
+    }
+
+    /**
+     * Invoked when the stream breaks. No events are received until it is connected again.
+     */
+    default void onDisconnected() {
+    }
+  }
+
+  private static final Logger logger = LogManager.getLogger(DockerEventStream.class);
+  private static final long reconnectDelayInMs = 1_000;
+
+  private final DockerClient dockerClient;
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+  private final ScheduledExecutorService reconnectExecutor =
+      Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "adya-docker-event-stream");
+        thread.setDaemon(true);
+        return thread;
+      });
+  private ResultCallback.Adapter<Event> callback;
+  private boolean started = false;
+  private volatile boolean closed = false;
+
+  /**
+   * Creates an event stream for the specified docker client. It isn't connected until
+   * {@link #start()} is invoked.
+   *
+   * @param dockerClient Docker client to receive events with.
+   */
+  public DockerEventStream(DockerClient dockerClient) {
+    this.dockerClient = Objects.requireNonNull(dockerClient);
+  }
+
+  /**
+   * Registers a listener. If the stream is already connected, {@link Listener#onConnected()} is
+   * not invoked for the current connection.
+   *
+   * @param listener Listener to register.
+   */
+  public void addListener(Listener listener) {
+    listeners.add(Objects.requireNonNull(listener));
+  }
+
+  /**
+   * Unregisters a listener.
+   *
+   * @param listener Listener to unregister.
+   */
+  public void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Connects the stream if it isn't connected yet. Subsequent calls have no effect.
+   */
+  public synchronized void start() {
+    if (closed) {
+      throw new IllegalStateException("Docker event stream is closed");
+    }
+    if (!started) {
+      started = true;
+      connect();
+    }
+  }
+
+  /**
+   * Checks if the stream has been started.
+   *
+   * @return true if the stream has been started, else false.
+   */
+  public synchronized boolean isStarted() {
+    return started;
+  }
+
+  private synchronized void connect() {
+    if (closed) {
+      return;
+    }
+    logger.info("Subscribing to docker events");
+    try {
+      callback = subscribe();
+    } catch (RuntimeException e) {
+      logger.warn("Unable to subscribe to docker events - " + e.getMessage());
+      reconnectExecutor.schedule(this::connect, reconnectDelayInMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private ResultCallback.Adapter<Event> subscribe() {
+    return dockerClient.eventsCmd()
+        .exec(new ResultCallback.Adapter<>() {
+          // A broken stream may be reported via both onError and onComplete
+          private final AtomicBoolean disconnected = new AtomicBoolean(false);
+
+          @Override
+          public void onStart(Closeable stream) {
+            super.onStart(stream);
+            listeners.forEach(Listener::onConnected);
+          }
+
+          @Override
+          public void onNext(Event event) {
+            for (Listener listener : listeners) {
+              try {
+                listener.onEvent(event);
+              } catch (RuntimeException e) {
+                logger.error("Docker event listener failed on event " + event, e);
+              }
+            }
+          }
+
+          @Override
+          public void onError(Throwable throwable) {
+            super.onError(throwable);
+            if (!closed && !disconnected.get()) {
+              logger.warn("Docker event stream broke - " + throwable.getMessage());
+            }
+            if (disconnected.compareAndSet(false, true)) {
+              reconnect();
+            }
+          }
+
+          @Override
+          public void onComplete() {
+            super.onComplete();
+            if (disconnected.compareAndSet(false, true)) {
+              reconnect();
+            }
+          }
+        });
+  }
+
+  private void reconnect() {
+    if (closed) {
+      return;
+    }
+    listeners.forEach(Listener::onDisconnected);
+    reconnectExecutor.schedule(this::connect, reconnectDelayInMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Disconnects the stream. It can't be started again.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    closed = true;
+    reconnectExecutor.shutdownNow();
+    if (callback != null) {
+      callback.close();
+    }
+  }
+}
@@ -0,0 +1,214 @@
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Spreads containers across several docker daemons, e.g. a small fleet of CI nodes, so that the
+ * number of containers isn't capped by the memory of a single host. Each container is created on
+ * the daemon chosen by the pool's {@link PlacementPolicy}, and later operations on it are routed
+ * to that daemon through {@link #getDockerUtility(String)}.
+ */
+public class DockerHostPool implements AutoCloseable {
+
+  private static final Logger logger = LogManager.getLogger(DockerHostPool.class);
+
+  private final List<DockerUtility> dockerUtilities;
+  private final PlacementPolicy placementPolicy;
+  private final boolean closeDockerUtilities;
+  private final Map<String, DockerUtility> containerHosts = new ConcurrentHashMap<>();
+  private final Map<DockerUtility, Integer> pendingContainerCounts = new HashMap<>();
+  private final Map<DockerUtility, Long> pendingMemoryInBytes = new HashMap<>();
+  private final Map<DockerUtility, Map<String, Long>> containerMemoryLimits =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Creates a pool of the docker daemons managed by the specified docker utilities. The docker
+   * utilities are owned by the caller, and aren't closed when the pool is closed.
+   *
+   * @param dockerUtilities Docker utilities managing distinct docker daemons.
+   * @param placementPolicy Policy to choose the daemon a container is created on.
+   */
+  public DockerHostPool(List<DockerUtility> dockerUtilities, PlacementPolicy placementPolicy) {
+    this(dockerUtilities, placementPolicy, false);
+  }
+
+  private DockerHostPool(List<DockerUtility> dockerUtilities, PlacementPolicy placementPolicy,
+      boolean closeDockerUtilities) {
+    // Input validation
+    Objects.requireNonNull(dockerUtilities);
+    Objects.requireNonNull(placementPolicy);
+    if (dockerUtilities.isEmpty()) {
+      throw new IllegalArgumentException("At least one docker host is required");
+    }
+    if (dockerUtilities.stream()
+        .map(DockerUtility::getDockerHost)
+        .distinct()
+        .count() != dockerUtilities.size()) {
+      throw new IllegalArgumentException("Docker hosts should be distinct");
+    }
+
+    this.dockerUtilities = List.copyOf(dockerUtilities);
+    this.placementPolicy = placementPolicy;
+    this.closeDockerUtilities = closeDockerUtilities;
+  }
+
+  /**
+   * Creates a pool of the specified docker daemons, managed by docker utilities with the default
+   * settings. The docker utilities are closed when the pool is closed.
+   *
+   * @param dockerHosts     Docker daemon endpoints, e.g. tcp://ci-node-1:2375.
+   * @param placementPolicy Policy to choose the daemon a container is created on.
+   * @return Docker host pool.
+   */
+  public static DockerHostPool forDockerHosts(List<String> dockerHosts,
+      PlacementPolicy placementPolicy) {
+    // Input validation
+    Objects.requireNonNull(dockerHosts);
+    dockerHosts.forEach(Objects::requireNonNull);
+
+    List<DockerUtility> dockerUtilities = dockerHosts.stream()
+        .map(dockerHost -> DockerUtility.builder()
+            .withDockerHost(dockerHost)
+            .build())
+        .collect(Collectors.toList());
+    try {
+      return new DockerHostPool(dockerUtilities, placementPolicy, true);
+    } catch (RuntimeException e) {
+      dockerUtilities.forEach(DockerUtility::close);
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the docker utilities managing the docker daemons of this pool.
+   *
+   * @return Docker utilities, in the order they were specified.
+   */
+  public List<DockerUtility> getDockerUtilities() {
+    return this.dockerUtilities;
+  }
+
+  /**
+   * Creates and starts a container on the docker daemon chosen by the placement policy, and waits
+   * until it is ready. The daemons are queried concurrently, but placements are decided one at a
+   * time, counting the containers still being created by this pool, so that concurrent calls
+   * don't all pick the same daemon.
+   *
+   * @param containerSpec Specification of the container.
+   * @return The running container, with its ports reachable on the chosen daemon's host.
+   * @throws InterruptedException When the wait is interrupted.
+   */
+  public ManagedContainer createAndRunContainer(ContainerSpec containerSpec)
+      throws InterruptedException {
+    // Input validation
+    Objects.requireNonNull(containerSpec);
+
+    String containerName = containerSpec.getContainerName();
+    Long memoryLimitInBytes = (containerSpec.getPerformanceProfile() == null) ? null
+        : containerSpec.getPerformanceProfile()
+            .getMemoryLimitInBytes();
+    long memoryInBytes = (memoryLimitInBytes == null) ? 0 : memoryLimitInBytes;
+    List<DockerHostState> queriedDockerHostStates = dockerUtilities.stream()
+        .map(candidate -> new DockerHostState(
+            candidate,
+            containerMemoryLimits.computeIfAbsent(candidate, key -> new ConcurrentHashMap<>())
+        ))
+        .collect(Collectors.toList());
+    // Query the daemons outside the lock, so that it only guards the pending containers
+    queriedDockerHostStates.forEach(
+        dockerHostState -> dockerHostState.query(containerSpec.getDockerImage()));
+    DockerUtility dockerUtility;
+    synchronized (this) {
+      List<DockerHostState> dockerHostStates = queriedDockerHostStates.stream()
+          .map(dockerHostState -> dockerHostState.withPending(
+              pendingContainerCounts.getOrDefault(dockerHostState.getDockerUtility(), 0),
+              pendingMemoryInBytes.getOrDefault(dockerHostState.getDockerUtility(), 0L)
+          ))
+          .collect(Collectors.toList());
+      dockerUtility = Objects.requireNonNull(
+          placementPolicy.place(containerSpec, dockerHostStates),
+          "Placement policy didn't choose a docker host"
+      )
+          .getDockerUtility();
+      pendingContainerCounts.merge(dockerUtility, 1, Integer::sum);
+      pendingMemoryInBytes.merge(dockerUtility, memoryInBytes, Long::sum);
+    }
+    logger.info("Placing container '" + containerName + "' on docker host '"
+        + dockerUtility.getDockerHost() + "'");
+
+    try {
+      DockerUtility previousDockerUtility = containerHosts.put(containerName, dockerUtility);
+      if (previousDockerUtility != null && previousDockerUtility != dockerUtility
+          && containerSpec.isRemoveContainerIfExists()) {
+        previousDockerUtility.removeContainerIfExists(containerName);
+      }
+      return dockerUtility.createAndRunContainer(containerSpec);
+    } catch (RuntimeException | InterruptedException e) {
+      containerHosts.remove(containerName, dockerUtility);
+      throw e;
+    } finally {
+      synchronized (this) {
+        pendingContainerCounts.merge(dockerUtility, -1, Integer::sum);
+        pendingMemoryInBytes.merge(dockerUtility, -memoryInBytes, Long::sum);
+      }
+    }
+  }
+
+  /**
+   * Returns the docker utility managing the docker daemon the specified container is on, to run
+   * further operations on the container with. Containers not created through this pool are
+   * looked up on every daemon.
+   *
+   * @param containerName Name of the container.
+   * @return Docker utility managing the container's daemon, null if no daemon has the container.
+   */
+  public DockerUtility getDockerUtility(String containerName) {
+    // Input validation
+    Objects.requireNonNull(containerName);
+
+    DockerUtility dockerUtility = containerHosts.get(containerName);
+    if (dockerUtility == null) {
+      dockerUtility = dockerUtilities.stream()
+          .filter(candidate -> candidate.doesContainerExist(containerName, true))
+          .findFirst()
+          .orElse(null);
+      if (dockerUtility != null) {
+        containerHosts.putIfAbsent(containerName, dockerUtility);
+      }
+    }
+    return dockerUtility;
+  }
+
+  /**
+   * Removes the specified container from the docker daemon it is on, if it exists.
+   *
+   * @param containerName  Name of the container to remove.
+   * @param teardownPolicy Policy that determines how the container is stopped.
+   */
+  public void removeContainerIfExists(String containerName, TeardownPolicy teardownPolicy) {
+    // Input validation
+    Objects.requireNonNull(teardownPolicy);
+
+    DockerUtility dockerUtility = getDockerUtility(containerName);
+    if (dockerUtility != null) {
+      dockerUtility.removeContainerIfExists(containerName, teardownPolicy);
+      containerHosts.remove(containerName, dockerUtility);
+    }
+  }
+
+  /**
+   * Closes the docker utilities created by {@link #forDockerHosts(List, PlacementPolicy)}, along
+   * with their connections. Containers placed by the pool aren't removed.
+   */
+  @Override
+  public void close() {
+    if (closeDockerUtilities) {
+      dockerUtilities.forEach(DockerUtility::close);
+    }
+  }
+}
@@ -0,0 +1,169 @@
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.HostConfig;
+import com.github.dockerjava.api.model.Info;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Snapshot of a docker daemon's load, handed to a {@link PlacementPolicy} to place a container.
+ * The daemon is queried for each figure at most once per snapshot, before the pool decides the
+ * placement. Containers being created on the daemon by the {@link DockerHostPool} count as
+ * running, along with their memory limits. The memory limits of running containers are inspected
+ * once per container ID.
+ */
+public class DockerHostState {
+
+  private final DockerUtility dockerUtility;
+  private final Map<String, Long> containerMemoryLimits;
+  private final int pendingContainerCount;
+  private final long pendingMemoryInBytes;
+  private final Map<DockerImage, Boolean> imagePresence;
+  private Info info;
+  private Long reservedMemoryInBytes;
+
+  /**
+   * Creates a snapshot of the specified docker daemon, without any pending containers.
+   *
+   * @param dockerUtility         Docker utility managing the docker daemon.
+   * @param containerMemoryLimits Memory limits of the daemon's containers by container ID, 0 for
+   *                              containers without a limit, shared across snapshots.
+   */
+  DockerHostState(DockerUtility dockerUtility, Map<String, Long> containerMemoryLimits) {
+    this.dockerUtility = Objects.requireNonNull(dockerUtility);
+    this.containerMemoryLimits = Objects.requireNonNull(containerMemoryLimits);
+    this.pendingContainerCount = 0;
+    this.pendingMemoryInBytes = 0;
+    this.imagePresence = new HashMap<>();
+  }
+
+  private DockerHostState(DockerHostState dockerHostState, int pendingContainerCount,
+      long pendingMemoryInBytes) {
+    this.dockerUtility = dockerHostState.dockerUtility;
+    this.containerMemoryLimits = dockerHostState.containerMemoryLimits;
+    this.pendingContainerCount = pendingContainerCount;
+    this.pendingMemoryInBytes = pendingMemoryInBytes;
+    this.imagePresence = new HashMap<>(dockerHostState.imagePresence);
+    this.info = dockerHostState.info;
+    this.reservedMemoryInBytes = dockerHostState.reservedMemoryInBytes;
+  }
+
+  /**
+   * Queries the docker daemon for the figures of this snapshot, and whether the specified image
+   * is present, so that later calls don't query it again.
+   *
+   * @param dockerImage Docker image to check.
+   */
+  void query(DockerImage dockerImage) {
+    getInfo();
+    getReservedMemoryInBytes();
+    isImagePresent(dockerImage);
+  }
+
+  /**
+   * Returns a copy of this snapshot, reusing the figures already queried, that counts the
+   * specified containers being created on the docker daemon as running.
+   *
+   * @param pendingContainerCount Number of containers being created on the daemon.
+   * @param pendingMemoryInBytes  Sum of the memory limits of the containers being created.
+   * @return Docker host state.
+   */
+  DockerHostState withPending(int pendingContainerCount, long pendingMemoryInBytes) {
+    return new DockerHostState(this, pendingContainerCount, pendingMemoryInBytes);
+  }
+
+  /**
+   * Returns the docker utility managing the docker daemon.
+   *
+   * @return Docker utility.
+   */
+  public DockerUtility getDockerUtility() {
+    return this.dockerUtility;
+  }
+
+  /**
+   * Returns the number of running containers on the docker daemon.
+   *
+   * @return Number of running containers.
+   */
+  public int getRunningContainerCount() {
+    Integer runningContainerCount = getInfo().getContainersRunning();
+    return ((runningContainerCount == null) ? 0 : runningContainerCount)
+        + pendingContainerCount;
+  }
+
+  /**
+   * Returns the memory of the docker daemon's host that isn't reserved by the memory limits of
+   * running containers. Containers without a memory limit don't reserve any memory.
+   *
+   * @return Available memory in bytes, negative if the host's memory is overcommitted.
+   */
+  public long getAvailableMemoryInBytes() {
+    Long totalMemoryInBytes = getInfo().getMemTotal();
+    return ((totalMemoryInBytes == null) ? 0 : totalMemoryInBytes) - getReservedMemoryInBytes()
+        - pendingMemoryInBytes;
+  }
+
+  /**
+   * Checks if the specified docker image is present on the docker daemon.
+   *
+   * @param dockerImage Docker image to check.
+   * @return true if the image is present, else false.
+   */
+  public boolean isImagePresent(DockerImage dockerImage) {
+    return imagePresence.computeIfAbsent(Objects.requireNonNull(dockerImage),
+        dockerUtility::doesImageExist);
+  }
+
+  private long getReservedMemoryInBytes() {
+    if (reservedMemoryInBytes == null) {
+      List<String> containerIds = dockerUtility.schedule(DockerOperationClass.INSPECT,
+          () -> dockerUtility.getDockerClient()
+              .listContainersCmd()
+              .exec())
+          .stream()
+          .map(Container::getId)
+          .collect(Collectors.toList());
+      long memoryInBytes = 0;
+      for (String containerId : containerIds) {
+        Long memoryLimitInBytes = containerMemoryLimits.get(containerId);
+        if (memoryLimitInBytes == null) {
+          HostConfig hostConfig = dockerUtility.schedule(DockerOperationClass.INSPECT,
+              () -> dockerUtility.getDockerClient()
+                  .inspectContainerCmd(containerId)
+                  .exec())
+              .getHostConfig();
+          memoryLimitInBytes = (hostConfig == null || hostConfig.getMemory() == null) ? 0
+              : hostConfig.getMemory();
+          containerMemoryLimits.put(containerId, memoryLimitInBytes);
+        }
+        memoryInBytes += memoryLimitInBytes;
+      }
+      // Forget the containers that are no longer running
+      containerMemoryLimits.keySet()
+          .retainAll(containerIds);
+      reservedMemoryInBytes = memoryInBytes;
+    }
+    return reservedMemoryInBytes;
+  }
+
+  private Info getInfo() {
+    if (info == null) {
+      info = dockerUtility.schedule(DockerOperationClass.INSPECT,
+          () -> dockerUtility.getDockerClient()
+              .infoCmd()
+              .exec());
+    }
+    return info;
+  }
+
+  @Override
+  public String toString() {
+    return "DockerHostState{"
+        + "dockerHost=" + dockerUtility.getDockerHost()
+        + ", pendingContainerCount=" + pendingContainerCount
+        + '}';
+  }
+}
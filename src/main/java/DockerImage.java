@@ -1,3 +1,4 @@
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Objects;
@@ -9,64 +10,111 @@ public enum DockerImage {
       "mcr.microsoft.com/mssql/server",
       "2017-CU21-ubuntu-16.04",
       "1433:1433",
-      "ACCEPT_EULA=Y;SA_PASSWORD=initialPassword12345!"
+      "ACCEPT_EULA=Y;SA_PASSWORD=initialPassword12345!",
+      WaitStrategy.forLogMessage(
+          ".*SQL Server is now ready for client connections.*", 1, Duration.ofMinutes(2))
   ),
   MICROSOFT_SQL_SERVER_2017_LATEST(
       "mcr.microsoft.com/mssql/server",
       "2017-latest",
       "1433:1433",
-      "ACCEPT_EULA=Y;SA_PASSWORD=initialPassword12345!"
+      "ACCEPT_EULA=Y;SA_PASSWORD=initialPassword12345!",
+      WaitStrategy.forLogMessage(
+          ".*SQL Server is now ready for client connections.*", 1, Duration.ofMinutes(2))
   ),
   MICROSOFT_SQL_SERVER_2019_CU6_UBUNTU_16_04(
       "mcr.microsoft.com/mssql/server",
       "2019-CU6-ubuntu-16.04",
       "1433:1433",
-      "ACCEPT_EULA=Y;SA_PASSWORD=initialPassword12345!"
+      "ACCEPT_EULA=Y;SA_PASSWORD=initialPassword12345!",
+      WaitStrategy.forLogMessage(
+          ".*SQL Server is now ready for client connections.*", 1, Duration.ofMinutes(2))
   ),
   MICROSOFT_SQL_SERVER_2019_LATEST(
       "mcr.microsoft.com/mssql/server",
       "2019-latest",
       "1433:1433",
-      "ACCEPT_EULA=Y;SA_PASSWORD=initialPassword12345!"
+      "ACCEPT_EULA=Y;SA_PASSWORD=initialPassword12345!",
+      WaitStrategy.forLogMessage(
+          ".*SQL Server is now ready for client connections.*", 1, Duration.ofMinutes(2))
   ),
   MYSQL_LATEST(
       "mysql",
       "latest",
       "3306:3306",
-      "MYSQL_ROOT_PASSWORD=initialPassword12345!"
+      "MYSQL_ROOT_PASSWORD=initialPassword12345!",
+      WaitStrategy.forLogMessage(
+          ".*ready for connections.*port: 3306.*", 1, Duration.ofMinutes(2)),
+      new PerformanceProfile()
+          .withTmpfs("/var/lib/mysql")
+          .withCommandArguments("--innodb-flush-log-at-trx-commit=0", "--sync-binlog=0")
   ),
   MONGODB_LATEST(
       "mongo",
       "latest",
       "27017:27017",
-      "MONGO_INITDB_ROOT_USERNAME=root;MONGO_INITDB_ROOT_PASSWORD=example"
+      "MONGO_INITDB_ROOT_USERNAME=root;MONGO_INITDB_ROOT_PASSWORD=example",
+      // The first match is logged by the temporary server used to create the root user
+      WaitStrategy.forLogMessage("(?i).*waiting for connections.*", 2, Duration.ofMinutes(2)),
+      WaitStrategy.forLogMessage("(?i).*waiting for connections.*", 1, Duration.ofMinutes(2)),
+      new PerformanceProfile()
+          .withTmpfs("/data/db")
   ),
   SPLUNK_LATEST(
       "splunk/splunk",
       "latest",
       "8000:8000 8089:8089",
-      "SPLUNK_START_ARGS=--accept-license;SPLUNK_PASSWORD=initialPassword12345!"
+      "SPLUNK_START_ARGS=--accept-license;SPLUNK_PASSWORD=initialPassword12345!",
+      WaitStrategy.forHealthcheck(Duration.ofMinutes(5))
   ),
   POSTGRESQL_LATEST(
       "postgres",
       "latest",
       "5432:5432",
-      "POSTGRES_PASSWORD=admin"
+      "POSTGRES_PASSWORD=admin",
+      // The first match is logged by the temporary server used to run the init scripts
+      WaitStrategy.forLogMessage(
+          ".*database system is ready to accept connections.*", 2, Duration.ofMinutes(1)),
+      WaitStrategy.forLogMessage(
+          ".*database system is ready to accept connections.*", 1, Duration.ofMinutes(1)),
+      new PerformanceProfile()
+          .withTmpfs("/var/lib/postgresql/data")
+          .withCommandArguments("-c", "fsync=off", "-c", "synchronous_commit=off", "-c",
+              "full_page_writes=off")
   ),
   ELASTICSEARCH_7_9_2(
       "elasticsearch",
       "7.9.2",
       "9200:9200 9300:9300",
-      "discovery.type=single-node;ELASTIC_USERNAME=elastic;ELASTIC_PASSWORD=SAMPLE_PA$$WORD"
+      "discovery.type=single-node;ELASTIC_USERNAME=elastic;ELASTIC_PASSWORD=SAMPLE_PA$$WORD",
+      WaitStrategy.forHttp(
+          9200, "/_cluster/health?wait_for_status=yellow&timeout=1s", Duration.ofMinutes(3))
   );
 
   private final String repository;
   private final String imageTag;
   private final Map<Integer, Integer> portBindings;
   private final String[] environmentVariables;
+  private final WaitStrategy waitStrategy;
+  private final WaitStrategy restartWaitStrategy;
+  private final PerformanceProfile performanceProfile;
 
   DockerImage(String repository, String imageTag, String portBindingsString,
-      String environmentVariablesString) {
+      String environmentVariablesString, WaitStrategy waitStrategy) {
+    this(repository, imageTag, portBindingsString, environmentVariablesString, waitStrategy,
+        waitStrategy, null);
+  }
+
+  DockerImage(String repository, String imageTag, String portBindingsString,
+      String environmentVariablesString, WaitStrategy waitStrategy,
+      PerformanceProfile performanceProfile) {
+    this(repository, imageTag, portBindingsString, environmentVariablesString, waitStrategy,
+        waitStrategy, performanceProfile);
+  }
+
+  DockerImage(String repository, String imageTag, String portBindingsString,
+      String environmentVariablesString, WaitStrategy waitStrategy,
+      WaitStrategy restartWaitStrategy, PerformanceProfile performanceProfile) {
     this.repository = repository;
     this.imageTag = imageTag;
     this.portBindings = Arrays.stream(portBindingsString.split(" "))
@@ -75,6 +123,9 @@ public enum DockerImage {
         .collect(Collectors.toUnmodifiableMap(portBinding -> Integer.parseInt(portBinding[0]),
             portBinding -> Integer.parseInt(portBinding[1])));
     this.environmentVariables = environmentVariablesString.split(";");
+    this.waitStrategy = waitStrategy;
+    this.restartWaitStrategy = restartWaitStrategy;
+    this.performanceProfile = performanceProfile;
   }
 
   /**
@@ -113,6 +164,75 @@ public enum DockerImage {
     return this.environmentVariables;
   }
 
+  /**
+   * Returns the strategy used to determine when the service in a container created from this
+   * docker image is ready.
+   *
+   * @return Wait strategy for the docker image
+   */
+  public WaitStrategy getWaitStrategy() {
+    return this.waitStrategy;
+  }
+
+  /**
+   * Returns the strategy used to determine when the service in a container is ready, when the
+   * container starts from already initialized state, e.g. from a snapshot. Services which log
+   * readiness more than once on first boot only do so once then.
+   *
+   * @return Wait strategy for already initialized containers of the docker image
+   */
+  public WaitStrategy getRestartWaitStrategy() {
+    return this.restartWaitStrategy;
+  }
+
+  /**
+   * Returns the performance profile applied by default to containers created from this docker
+   * image, e.g. keeping the data directory in memory and turning off durability settings.
+   *
+   * @return Performance profile for the docker image, null if there's none
+   */
+  public PerformanceProfile getPerformanceProfile() {
+    return this.performanceProfile;
+  }
+
+  /**
+   * Returns the strategy to reset the databases in containers created from this docker image, so
+   * that they can be reused between tests.
+   *
+   * @return Database reset strategy for the docker image, null if there's none
+   */
+  public DatabaseResetStrategy getDatabaseResetStrategy() {
+    return switch (this) {
+      case MICROSOFT_SQL_SERVER_2017_CU21_UBUNTU_16_04, MICROSOFT_SQL_SERVER_2017_LATEST,
+          MICROSOFT_SQL_SERVER_2019_CU6_UBUNTU_16_04, MICROSOFT_SQL_SERVER_2019_LATEST ->
+          DatabaseResetStrategy.forSqlServer(Duration.ofMinutes(1));
+      case MYSQL_LATEST -> DatabaseResetStrategy.forMySql(Duration.ofMinutes(1));
+      case MONGODB_LATEST -> DatabaseResetStrategy.forMongoDb(Duration.ofMinutes(1));
+      case POSTGRESQL_LATEST -> DatabaseResetStrategy.forPostgres(Duration.ofMinutes(1));
+      case ELASTICSEARCH_7_9_2 -> DatabaseResetStrategy.forElasticsearch(Duration.ofMinutes(1));
+      case SPLUNK_LATEST -> null;
+    };
+  }
+
+  /**
+   * Returns the provisioner of isolated tenants in a container created from this docker image,
+   * so that the container can be shared by concurrent tests.
+   *
+   * @return Tenant provisioner for the docker image, null if there's none
+   */
+  public TenantProvisioner getTenantProvisioner() {
+    return switch (this) {
+      case MICROSOFT_SQL_SERVER_2017_CU21_UBUNTU_16_04, MICROSOFT_SQL_SERVER_2017_LATEST,
+          MICROSOFT_SQL_SERVER_2019_CU6_UBUNTU_16_04, MICROSOFT_SQL_SERVER_2019_LATEST ->
+          TenantProvisioner.forSqlServer(Duration.ofMinutes(1));
+      case MYSQL_LATEST -> TenantProvisioner.forMySql(Duration.ofMinutes(1));
+      case MONGODB_LATEST -> TenantProvisioner.forMongoDb(Duration.ofMinutes(1));
+      case POSTGRESQL_LATEST -> TenantProvisioner.forPostgres(Duration.ofMinutes(1));
+      case ELASTICSEARCH_7_9_2 -> TenantProvisioner.forElasticsearch(Duration.ofMinutes(1));
+      case SPLUNK_LATEST -> null;
+    };
+  }
+
   /**
    * Returns the value of the specified environment variable if it is configured for this Docker
    * image, else returns a null.
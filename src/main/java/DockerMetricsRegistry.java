@@ -0,0 +1,52 @@
+import java.time.Duration;
+
+/**
+ * Receives the timings of the docker operations performed by {@link DockerUtility}, so that they
+ * can be exposed as counters and histograms per image and phase.
+ */
+@FunctionalInterface
+public interface DockerMetricsRegistry {
+
+  /**
+   * Records a completed docker operation. Implementations must be thread safe and should not block.
+   *
+   * @param imageReference Reference of the image the operation relates to, i.e. "repository:tag",
+   *                       or null if it isn't known, e.g. when removing a container by name.
+   * @param phase          Lifecycle phase of the operation.
+   * @param duration       Time taken by the operation.
+   * @param successful     true if the operation succeeded, false if it threw.
+   */
+  void recordOperation(String imageReference, DockerOperationPhase phase, Duration duration,
+      boolean successful);
+
+  /**
+   * Records the time a docker daemon call waited for admission by the {@link DockerApiScheduler}.
+   * Implementations must be thread safe and should not block.
+   *
+   * @param operationClass Class of the call.
+   * @param waitTime       Time spent in the queue, zero if the call was admitted right away.
+   */
+  default void recordQueueWait(DockerOperationClass operationClass, Duration waitTime) {
+  }
+
+  /**
+   * Records the resource usage of a container whose stats were collected, when it's removed.
+   * Implementations must be thread safe and should not block.
+   *
+   * @param imageReference Reference of the container's image, i.e. "repository:tag", or null if it
+   *                       isn't known.
+   * @param containerStats Summary of the container's resource usage.
+   */
+  default void recordContainerStats(String imageReference, ContainerStats containerStats) {
+  }
+
+  /**
+   * Returns a registry that discards all recorded operations.
+   *
+   * @return A no-op metrics registry.
+   */
+  static DockerMetricsRegistry noop() {
+    return (imageReference, phase, duration, successful) -> {
+    };
+  }
+}
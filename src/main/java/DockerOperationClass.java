@@ -0,0 +1,31 @@
+/**
+ * Classes of docker daemon calls, each with its own concurrency limit in the
+ * {@link DockerApiScheduler}.
+ */
+public enum DockerOperationClass {
+  /**
+   * Pulling, loading and saving images, and copying archives into and out of containers.
+   */
+  PULL,
+  /**
+   * Creating containers and networks, and committing containers into images.
+   */
+  CREATE,
+  /**
+   * Starting, pausing and unpausing containers.
+   */
+  START,
+  /**
+   * Listing and inspecting images, containers and networks, and reading container logs.
+   */
+  INSPECT,
+  /**
+   * Running commands in containers.
+   */
+  EXEC,
+  /**
+   * Stopping, killing, renaming and removing containers, networks and images. Teardown calls are
+   * admitted before the calls of other classes, since they free daemon resources.
+   */
+  TEARDOWN
+}
@@ -0,0 +1,31 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event emitted for every timed docker operation, so that container heavy test
+ * suites can be profiled with standard JFR tooling. Enable it with the default or profile settings,
+ * or explicitly via "-XX:StartFlightRecording:adya.DockerOperation#enabled=true".
+ */
+@Name("adya.DockerOperation")
+@Label("Docker Operation")
+@Category({"Adya", "Docker"})
+@Description("A docker operation performed while managing a container")
+@StackTrace(false)
+class DockerOperationEvent extends Event {
+
+  @Label("Phase")
+  String phase;
+
+  @Label("Image")
+  String imageReference;
+
+  @Label("Container Name")
+  String containerName;
+
+  @Label("Successful")
+  boolean successful;
+}
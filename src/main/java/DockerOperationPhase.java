@@ -0,0 +1,29 @@
+/**
+ * Phases of a container's lifecycle whose docker operations are timed.
+ */
+public enum DockerOperationPhase {
+  /**
+   * Pulling an image from a registry.
+   */
+  PULL,
+  /**
+   * Creating a container from an image.
+   */
+  CREATE,
+  /**
+   * Starting a created container.
+   */
+  START,
+  /**
+   * Waiting for the service in a started container to be ready.
+   */
+  READY,
+  /**
+   * Stopping a running container.
+   */
+  STOP,
+  /**
+   * Removing a container.
+   */
+  REMOVE
+}
@@ -0,0 +1,307 @@
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
+import com.github.dockerjava.api.model.Image;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * In-memory view of the images and containers on a docker host. It is seeded with one list call
+ * each and then kept current from the docker event stream, so that existence checks don't need a
+ * daemon round trip. While the event stream is disconnected, the cache reports itself as
+ * unavailable and callers are expected to query the daemon directly.
+ */
+public class DockerStateCache implements DockerEventStream.Listener {
+
+  /**
+   * Cached state of a container.
+   */
+  private static class ContainerState {
+
+    private final String containerId;
+    private final boolean running;
+
+    ContainerState(String containerId, boolean running) {
+      this.containerId = containerId;
+      this.running = running;
+    }
+  }
+
+  private static final Logger logger = LogManager.getLogger(DockerStateCache.class);
+  private static final int maxRemovedContainerIds = 1_024;
+  private static final long seedTimeoutInMs = 5_000;
+
+  private final DockerClient dockerClient;
+  private final DockerEventStream dockerEventStream;
+  private final Set<String> imageReferences = ConcurrentHashMap.newKeySet();
+  private final Map<String, ContainerState> containers = new ConcurrentHashMap<>();
+  // IDs of removed containers, to ignore events about them that arrive after the removal
+  private final Set<String> removedContainerIds = Collections.newSetFromMap(
+      Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+          return size() > maxRemovedContainerIds;
+        }
+      })
+  );
+  private final CountDownLatch seeded = new CountDownLatch(1);
+  private volatile boolean valid = false;
+  private volatile boolean imagesStale = false;
+
+  /**
+   * Creates a state cache that is kept current from the specified event stream.
+   *
+   * @param dockerClient      Docker client to seed the cache with.
+   * @param dockerEventStream Event stream to keep the cache current with.
+   */
+  public DockerStateCache(DockerClient dockerClient, DockerEventStream dockerEventStream) {
+    this.dockerClient = Objects.requireNonNull(dockerClient);
+    this.dockerEventStream = Objects.requireNonNull(dockerEventStream);
+    this.dockerEventStream.addListener(this);
+  }
+
+  /**
+   * Checks if an image with the specified repository:tag or repository@digest reference is
+   * present.
+   *
+   * @param imageReference Image reference in the repository:tag or repository@digest format.
+   * @return true if the image is present, false if it isn't and null if the cache is unavailable.
+   */
+  public Boolean isImagePresent(String imageReference) {
+    Objects.requireNonNull(imageReference);
+    if (!awaitValid()) {
+      return null;
+    }
+    if (imagesStale) {
+      seedImages();
+    }
+    return imageReferences.contains(imageReference);
+  }
+
+  /**
+   * Checks if a container with the specified name is present.
+   *
+   * @param containerName Name of the container.
+   * @param includeStopped If true, containers that aren't running are considered as well.
+   * @return true if the container is present, false if it isn't and null if the cache is
+   *     unavailable.
+   */
+  public Boolean isContainerPresent(String containerName, boolean includeStopped) {
+    Objects.requireNonNull(containerName);
+    if (!awaitValid()) {
+      return null;
+    }
+    ContainerState containerState = containers.get(containerName);
+    return containerState != null && (includeStopped || containerState.running);
+  }
+
+  /**
+   * Records an image that has been pulled, ahead of the corresponding event.
+   *
+   * @param imageReference Image reference in the repository:tag or repository@digest format.
+   */
+  public void imagePulled(String imageReference) {
+    imageReferences.add(Objects.requireNonNull(imageReference));
+  }
+
+  /**
+   * Records a container that has been created, ahead of the corresponding event.
+   *
+   * @param containerName Name of the container.
+   * @param containerId   ID of the container.
+   */
+  public void containerCreated(String containerName, String containerId) {
+    updateContainer(containerName, containerId, false, false);
+  }
+
+  /**
+   * Records a container that has been started or stopped, ahead of the corresponding event.
+   *
+   * @param containerName Name of the container.
+   * @param running       true if the container has been started, false if it has been stopped.
+   */
+  public void containerRunning(String containerName, boolean running) {
+    ContainerState containerState = containers.get(Objects.requireNonNull(containerName));
+    if (containerState != null) {
+      updateContainer(containerName, containerState.containerId, running, true);
+    }
+  }
+
+  /**
+   * Records a container that has been removed, ahead of the corresponding event.
+   *
+   * @param containerName Name of the container.
+   */
+  public void containerRemoved(String containerName) {
+    ContainerState containerState = containers.remove(Objects.requireNonNull(containerName));
+    if (containerState != null) {
+      removedContainerIds.add(containerState.containerId);
+    }
+  }
+
+  @Override
+  public void onConnected() {
+    // Events may have been missed while disconnected, so start over from a fresh listing
+    containers.clear();
+    seedImages();
+    dockerClient.listContainersCmd()
+        .withShowAll(true)
+        .exec()
+        .stream()
+        .filter(container -> !removedContainerIds.contains(container.getId()))
+        .forEach(container -> Arrays.stream(container.getNames())
+            .map(name -> name.substring(1))
+            .forEach(name -> containers.putIfAbsent(
+                name, new ContainerState(container.getId(), isRunning(container)))
+            )
+        );
+    valid = true;
+    seeded.countDown();
+    logger.info("Seeded docker state cache with " + imageReferences.size() + " images and "
+        + containers.size() + " containers");
+  }
+
+  @Override
+  public void onDisconnected() {
+    valid = false;
+  }
+
+  @Override
+  public void onEvent(Event event) {
+    if (event.getType() == EventType.CONTAINER) {
+      onContainerEvent(event);
+    } else if (event.getType() == EventType.IMAGE) {
+      onImageEvent(event);
+    }
+  }
+
+  private void onContainerEvent(Event event) {
+    String containerId = event.getId();
+    Map<String, String> attributes = (event.getActor() == null) ? null
+        : event.getActor().getAttributes();
+    String containerName = (attributes == null) ? null : attributes.get("name");
+    if (containerId == null || containerName == null || event.getAction() == null
+        || removedContainerIds.contains(containerId)) {
+      return;
+    }
+    switch (event.getAction()) {
+      case "create" -> updateContainer(containerName, containerId, false, false);
+      case "start", "unpause" -> updateContainer(containerName, containerId, true, true);
+      case "die" -> updateContainer(containerName, containerId, false, true);
+      case "destroy" -> {
+        removedContainerIds.add(containerId);
+        containers.computeIfPresent(containerName,
+            (name, containerState) -> containerState.containerId.equals(containerId)
+                ? null : containerState);
+      }
+      case "rename" -> {
+        String oldName = attributes.get("oldName");
+        ContainerState containerState = (oldName == null) ? null
+            : containers.remove(oldName.startsWith("/") ? oldName.substring(1) : oldName);
+        containers.put(containerName, (containerState == null)
+            ? new ContainerState(containerId, false) : containerState);
+      }
+      default -> {
+      }
+    }
+  }
+
+  private void onImageEvent(Event event) {
+    if (event.getAction() == null) {
+      return;
+    }
+    switch (event.getAction()) {
+      case "pull" -> {
+        if (event.getId() != null && event.getId().contains(":")) {
+          imageReferences.add(event.getId());
+        } else {
+          imagesStale = true;
+        }
+      }
+      case "tag" -> {
+        String name = (event.getActor() == null || event.getActor().getAttributes() == null)
+            ? null : event.getActor().getAttributes().get("name");
+        if (name != null) {
+          imageReferences.add(name);
+        } else {
+          imagesStale = true;
+        }
+      }
+      // These events only carry the image ID, so the image list has to be refreshed
+      case "untag", "delete", "load", "import" -> imagesStale = true;
+      default -> {
+      }
+    }
+  }
+
+  /**
+   * Updates the cached state of a container.
+   *
+   * @param containerName Name of the container.
+   * @param containerId   ID of the container.
+   * @param running       Whether the container is running.
+   * @param stateChange   If true, the event reflects a state change of an existing container, so
+   *                      it overrides the cached state. Else it only creates a missing entry.
+   */
+  private void updateContainer(String containerName, String containerId, boolean running,
+      boolean stateChange) {
+    Objects.requireNonNull(containerName);
+    Objects.requireNonNull(containerId);
+    containers.compute(containerName, (name, containerState) -> {
+      if (containerState == null || !containerState.containerId.equals(containerId)) {
+        return new ContainerState(containerId, running);
+      }
+      return stateChange ? new ContainerState(containerId, running) : containerState;
+    });
+  }
+
+  private synchronized void seedImages() {
+    imagesStale = false;
+    Set<String> listedImageReferences = ConcurrentHashMap.newKeySet();
+    dockerClient.listImagesCmd()
+        .exec()
+        .stream()
+        .flatMap(image -> Stream.of(image.getRepoTags(), image.getRepoDigests()))
+        .filter(Objects::nonNull)
+        .flatMap(Arrays::stream)
+        .forEach(listedImageReferences::add);
+    imageReferences.retainAll(listedImageReferences);
+    imageReferences.addAll(listedImageReferences);
+  }
+
+  private static boolean isRunning(Container container) {
+    String state = container.getState();
+    return "running".equals(state) || "paused".equals(state) || "restarting".equals(state);
+  }
+
+  /**
+   * Starts the event stream on first use and waits for the cache to be seeded.
+   *
+   * @return true if the cache is available, else false.
+   */
+  private boolean awaitValid() {
+    if (valid) {
+      return true;
+    }
+    if (!dockerEventStream.isStarted()) {
+      dockerEventStream.start();
+      try {
+        seeded.await(seedTimeoutInMs, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    return valid;
+  }
+}
@@ -1,36 +1,388 @@
 import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.CreateContainerCmd;
+import com.github.dockerjava.api.command.HealthState;
+import com.github.dockerjava.api.exception.ConflictException;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.model.Container;
 import com.github.dockerjava.api.model.ExposedPort;
+import com.github.dockerjava.api.model.Frame;
 import com.github.dockerjava.api.model.HostConfig;
 import com.github.dockerjava.api.model.Image;
+import com.github.dockerjava.api.model.InternetProtocol;
+import com.github.dockerjava.api.model.Network;
 import com.github.dockerjava.api.model.Ports;
-import com.github.dockerjava.core.DefaultDockerClientConfig;
-import com.github.dockerjava.core.DockerClientBuilder;
-import com.github.dockerjava.core.DockerClientConfig;
-import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
-import com.github.dockerjava.transport.DockerHttpClient;
+import com.github.dockerjava.api.model.StreamType;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-public class DockerUtility {
+public class DockerUtility implements AutoCloseable {
+
+  /**
+   * Default maximum number of pooled HTTP connections to the docker daemon.
+   */
+  public static final int defaultMaxConnections = 100;
+  /**
+   * Default maximum time to establish an HTTP connection to the docker daemon.
+   */
+  public static final Duration defaultConnectionTimeout = Duration.ofSeconds(30);
+  /**
+   * Default maximum time to wait for a response from the docker daemon.
+   */
+  public static final Duration defaultResponseTimeout = Duration.ofSeconds(45);
 
   private static final Logger logger = LogManager.getLogger(DockerUtility.class);
-  private static DockerClientConfig defaultDockerClientConfig = DefaultDockerClientConfig
-      .createDefaultConfigBuilder()
-      .build();
-  private static DockerHttpClient dockerHttpClient = new ApacheDockerHttpClient.Builder()
-      .dockerHost(defaultDockerClientConfig.getDockerHost())
-      .sslConfig(defaultDockerClientConfig.getSSLConfig())
-      .maxConnections(100)
-      .connectionTimeout(Duration.ofSeconds(30))
-      .responseTimeout(Duration.ofSeconds(45))
-      .build();
-  private static final DockerClient dockerClient = DockerClientBuilder.getInstance()
-      .withDockerHttpClient(dockerHttpClient)
-      .build();
+  private static final int defaultPullParallelism = 4;
+  private static final RegistryDigestResolver defaultRegistryDigestResolver =
+      new RegistryDigestResolver(Duration.ofMinutes(10));
+
+  private final DockerDaemonConnection dockerDaemonConnection;
+  private final PullPolicy pullPolicy;
+  private final DockerMetricsRegistry metricsRegistry;
+  private final ImageTarballCache imageTarballCache;
+  private final RegistryDigestResolver registryDigestResolver;
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+  private final Map<String, ContainerStatsCollector> statsCollectors = new ConcurrentHashMap<>();
+  // Log streams of the reused containers, handed out again when a container is reused again
+  private final Map<String, ContainerLogStream> reusedLogStreams = new ConcurrentHashMap<>();
+  // Image references of the containers created or reused, to record teardown metrics per image
+  private final Map<String, String> containerImageReferences = new ConcurrentHashMap<>();
+  private ContainerReaper containerReaper;
+
+  /**
+   * Builds docker utilities. The docker client of a built utility is only created when it's first
+   * used, and utilities with the same docker host and connection settings share it.
+   */
+  public static final class Builder {
+
+    private String dockerHost = null;
+    private PullPolicy pullPolicy = PullPolicy.IF_NOT_PRESENT;
+    private DockerMetricsRegistry metricsRegistry = DockerMetricsRegistry.noop();
+    private ImageTarballCache imageTarballCache = null;
+    private RegistryDigestResolver registryDigestResolver = defaultRegistryDigestResolver;
+    private int maxConnections = defaultMaxConnections;
+    private Duration connectionTimeout = defaultConnectionTimeout;
+    private Duration responseTimeout = defaultResponseTimeout;
+    private int maxConcurrentOperations = DockerApiScheduler.defaultMaxConcurrentOperations;
+    private final Map<DockerOperationClass, Integer> operationLimits =
+        new EnumMap<>(DockerOperationClass.class);
+    private int maxQueuedOperations = Integer.MAX_VALUE;
+
+    private Builder() {
+    }
+
+    /**
+     * Sets the docker daemon to manage.
+     *
+     * @param dockerHost Docker daemon endpoint, e.g. tcp://ci-node-1:2375, or null for the daemon
+     *                   configured through DOCKER_HOST, the default
+     * @return This builder
+     */
+    public Builder withDockerHost(String dockerHost) {
+      this.dockerHost = dockerHost;
+      return this;
+    }
+
+    /**
+     * Sets the policy that determines when images are pulled before creating containers,
+     * {@link PullPolicy#IF_NOT_PRESENT} by default.
+     *
+     * @param pullPolicy Pull policy
+     * @return This builder
+     */
+    public Builder withPullPolicy(PullPolicy pullPolicy) {
+      this.pullPolicy = Objects.requireNonNull(pullPolicy);
+      return this;
+    }
+
+    /**
+     * Sets the registry to record the timings of docker operations in, a no-op registry by
+     * default.
+     *
+     * @param metricsRegistry Metrics registry
+     * @return This builder
+     */
+    public Builder withMetricsRegistry(DockerMetricsRegistry metricsRegistry) {
+      this.metricsRegistry = Objects.requireNonNull(metricsRegistry);
+      return this;
+    }
+
+    /**
+     * Sets the cache to pull images from before going to the registry. Images pulled from the
+     * registry are saved into the cache.
+     *
+     * @param imageTarballCache Image tarball cache, or null to always pull from the registry, the
+     *                          default
+     * @return This builder
+     */
+    public Builder withImageTarballCache(ImageTarballCache imageTarballCache) {
+      this.imageTarballCache = imageTarballCache;
+      return this;
+    }
+
+    /**
+     * Sets the resolver of the digests that registries serve for image tags, used by the
+     * {@link PullPolicy#IF_DIGEST_CHANGED} pull policy. By default, a resolver shared by all
+     * docker utilities caches the resolved digests for 10 minutes.
+     *
+     * @param registryDigestResolver Registry digest resolver
+     * @return This builder
+     */
+    public Builder withRegistryDigestResolver(RegistryDigestResolver registryDigestResolver) {
+      this.registryDigestResolver = Objects.requireNonNull(registryDigestResolver);
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of pooled HTTP connections to the docker daemon, which caps the
+     * number of concurrent docker operations. Log streams and event subscriptions hold a
+     * connection each while open.
+     *
+     * @param maxConnections Maximum number of connections, 100 by default
+     * @return This builder
+     */
+    public Builder withMaxConnections(int maxConnections) {
+      if (maxConnections < 1) {
+        throw new IllegalArgumentException(
+            "Maximum connections should be at least 1, but is " + maxConnections);
+      }
+      this.maxConnections = maxConnections;
+      return this;
+    }
+
+    /**
+     * Sets the maximum time to establish an HTTP connection to the docker daemon, 30 seconds by
+     * default.
+     *
+     * @param connectionTimeout Connection timeout
+     * @return This builder
+     */
+    public Builder withConnectionTimeout(Duration connectionTimeout) {
+      this.connectionTimeout = requirePositive(connectionTimeout, "Connection timeout");
+      return this;
+    }
+
+    /**
+     * Sets the maximum time to wait for a response from the docker daemon, 45 seconds by default.
+     * Long running operations such as pulls stream their progress, so they aren't cut short by
+     * it.
+     *
+     * @param responseTimeout Response timeout
+     * @return This builder
+     */
+    public Builder withResponseTimeout(Duration responseTimeout) {
+      this.responseTimeout = requirePositive(responseTimeout, "Response timeout");
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of concurrent calls to the docker daemon, across operation
+     * classes, 32 by default. See {@link DockerApiScheduler}.
+     *
+     * @param maxConcurrentOperations Maximum number of concurrent calls
+     * @return This builder
+     */
+    public Builder withMaxConcurrentOperations(int maxConcurrentOperations) {
+      if (maxConcurrentOperations < 1) {
+        throw new IllegalArgumentException("Maximum concurrent operations should be at least 1,"
+            + " but is " + maxConcurrentOperations);
+      }
+      this.maxConcurrentOperations = maxConcurrentOperations;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of concurrent calls of an operation class to the docker daemon.
+     * See {@link DockerApiScheduler} for the defaults.
+     *
+     * @param operationClass Class of the calls
+     * @param operationLimit Maximum number of concurrent calls of the class
+     * @return This builder
+     */
+    public Builder withOperationLimit(DockerOperationClass operationClass, int operationLimit) {
+      Objects.requireNonNull(operationClass);
+      if (operationLimit < 1) {
+        throw new IllegalArgumentException("Limit of " + operationClass
+            + " operations should be at least 1, but is " + operationLimit);
+      }
+      this.operationLimits.put(operationClass, operationLimit);
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of calls waiting for admission to the docker daemon, beyond which
+     * calls are rejected with a {@link java.util.concurrent.RejectedExecutionException}. The
+     * queue is unbounded by default.
+     *
+     * @param maxQueuedOperations Maximum number of queued calls
+     * @return This builder
+     */
+    public Builder withMaxQueuedOperations(int maxQueuedOperations) {
+      if (maxQueuedOperations < 0) {
+        throw new IllegalArgumentException("Maximum queued operations should not be negative,"
+            + " but is " + maxQueuedOperations);
+      }
+      this.maxQueuedOperations = maxQueuedOperations;
+      return this;
+    }
+
+    /**
+     * Builds a docker utility with the settings of this builder.
+     *
+     * @return Docker utility
+     */
+    public DockerUtility build() {
+      return new DockerUtility(this);
+    }
+
+    private static Duration requirePositive(Duration duration, String name) {
+      Objects.requireNonNull(duration);
+      if (duration.isZero() || duration.isNegative()) {
+        throw new IllegalArgumentException(name + " should be positive, but is " + duration);
+      }
+      return duration;
+    }
+  }
+
+  /**
+   * Creates a docker utility that only pulls images which aren't present locally.
+   */
+  public DockerUtility() {
+    this(builder());
+  }
+
+  /**
+   * Creates a docker utility with the specified pull policy.
+   *
+   * @param pullPolicy Policy that determines when images are pulled before creating containers
+   */
+  public DockerUtility(PullPolicy pullPolicy) {
+    this(builder().withPullPolicy(pullPolicy));
+  }
+
+  /**
+   * Creates a docker utility with the specified pull policy, which records the timings of its
+   * docker operations in the specified metrics registry.
+   *
+   * @param pullPolicy      Policy that determines when images are pulled before creating
+   *                        containers
+   * @param metricsRegistry Registry to record the timings of docker operations in
+   */
+  public DockerUtility(PullPolicy pullPolicy, DockerMetricsRegistry metricsRegistry) {
+    this(builder().withPullPolicy(pullPolicy)
+        .withMetricsRegistry(metricsRegistry));
+  }
+
+  /**
+   * Creates a docker utility with the specified pull policy, which records the timings of its
+   * docker operations in the specified metrics registry, and pulls images from the specified
+   * image tarball cache before going to the registry. Images pulled from the registry are saved
+   * into the cache.
+   *
+   * @param pullPolicy        Policy that determines when images are pulled before creating
+   *                          containers
+   * @param metricsRegistry   Registry to record the timings of docker operations in
+   * @param imageTarballCache Cache to pull images from, or null to always pull from the registry
+   */
+  public DockerUtility(PullPolicy pullPolicy, DockerMetricsRegistry metricsRegistry,
+      ImageTarballCache imageTarballCache) {
+    this(builder().withPullPolicy(pullPolicy)
+        .withMetricsRegistry(metricsRegistry)
+        .withImageTarballCache(imageTarballCache));
+  }
+
+  /**
+   * Creates a docker utility managing the specified docker daemon, with the specified pull
+   * policy, which records the timings of its docker operations in the specified metrics registry,
+   * and pulls images from the specified image tarball cache before going to the registry.
+   *
+   * @param dockerHost        Docker daemon endpoint, e.g. tcp://ci-node-1:2375, or null for the
+   *                          daemon configured through DOCKER_HOST
+   * @param pullPolicy        Policy that determines when images are pulled before creating
+   *                          containers
+   * @param metricsRegistry   Registry to record the timings of docker operations in
+   * @param imageTarballCache Cache to pull images from, or null to always pull from the registry
+   */
+  public DockerUtility(String dockerHost, PullPolicy pullPolicy,
+      DockerMetricsRegistry metricsRegistry, ImageTarballCache imageTarballCache) {
+    this(builder().withDockerHost(dockerHost)
+        .withPullPolicy(pullPolicy)
+        .withMetricsRegistry(metricsRegistry)
+        .withImageTarballCache(imageTarballCache));
+  }
+
+  private DockerUtility(Builder builder) {
+    this.pullPolicy = builder.pullPolicy;
+    this.metricsRegistry = builder.metricsRegistry;
+    this.imageTarballCache = builder.imageTarballCache;
+    this.registryDigestResolver = builder.registryDigestResolver;
+    this.dockerDaemonConnection = DockerDaemonConnection.acquire(builder.dockerHost,
+        builder.maxConnections, builder.connectionTimeout, builder.responseTimeout,
+        builder.maxConcurrentOperations, builder.operationLimits, builder.maxQueuedOperations);
+  }
+
+  /**
+   * Returns a builder of docker utilities with the default settings.
+   *
+   * @return Docker utility builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns the policy that determines when images are pulled before creating containers.
+   *
+   * @return Pull policy
+   */
+  public PullPolicy getPullPolicy() {
+    return this.pullPolicy;
+  }
+
+  /**
+   * Returns the registry in which the timings of docker operations are recorded.
+   *
+   * @return Metrics registry
+   */
+  public DockerMetricsRegistry getMetricsRegistry() {
+    return this.metricsRegistry;
+  }
+
+  /**
+   * Returns the cache images are pulled from before going to the registry.
+   *
+   * @return Image tarball cache, null if images are always pulled from the registry
+   */
+  public ImageTarballCache getImageTarballCache() {
+    return this.imageTarballCache;
+  }
 
   /**
    * Checks if a specified docker image exists.
@@ -42,14 +394,33 @@ public class DockerUtility {
     logger.info("Checking if docker image '" + dockerImage + "' exists");
     boolean result = false;
     if (dockerImage != null) {
-      result = dockerClient.listImagesCmd()
-          .exec()
+      result = doesImageExist(dockerImage.getRepository() + ":" + dockerImage.getImageTag());
+    }
+    return result;
+  }
+
+  /**
+   * Checks if a docker image with the specified reference exists.
+   *
+   * @param imageReference Reference of the image to check, in the repository:tag or
+   *                       repository@digest format
+   * @return true if image exists, else false
+   */
+  public boolean doesImageExist(String imageReference) {
+    boolean result = false;
+    if (imageReference != null) {
+      // Fall back to listing the images if the state cache is unavailable
+      Boolean cachedResult = getDockerStateCache().isImagePresent(imageReference);
+      result = (cachedResult != null) ? cachedResult : schedule(
+          DockerOperationClass.INSPECT,
+          () -> getDockerClient().listImagesCmd()
+              .exec()
+      )
           .stream()
-          .map(Image::getRepoTags)
+          .flatMap(image -> Stream.of(image.getRepoTags(), image.getRepoDigests()))
           .filter(Objects::nonNull)
           .map(Arrays::asList)
-          .anyMatch(repoTags -> repoTags
-              .contains(dockerImage.getRepository() + ":" + dockerImage.getImageTag()));
+          .anyMatch(references -> references.contains(imageReference));
     }
     return result;
   }
@@ -66,9 +437,15 @@ public class DockerUtility {
     logger.info("Checking if docker container '" + containerName + "' exists");
     boolean result = false;
     if (containerName != null) {
-      result = dockerClient.listContainersCmd()
-          .withShowAll(checkAllContainers)
-          .exec()
+      // Fall back to listing the containers if the state cache is unavailable
+      Boolean cachedResult = getDockerStateCache().isContainerPresent(
+          containerName, checkAllContainers);
+      result = (cachedResult != null) ? cachedResult : schedule(
+          DockerOperationClass.INSPECT,
+          () -> getDockerClient().listContainersCmd()
+              .withShowAll(checkAllContainers)
+              .exec()
+      )
           .stream()
           .anyMatch(container -> Arrays.asList(container.getNames()).contains("/" + containerName));
     }
@@ -76,35 +453,258 @@ public class DockerUtility {
   }
 
   /**
-   * Removes a specified container if it exists.
+   * Removes a specified container if it exists, stopping it gracefully first.
    *
    * @param containerName Name of container to remove
    */
   public void removeContainerIfExists(String containerName) {
+    removeContainerIfExists(containerName, TeardownPolicy.GRACEFUL);
+  }
+
+  /**
+   * Removes a specified container if it exists, as determined by the specified teardown policy.
+   * With {@link TeardownPolicy#KILL_AND_REAP}, it returns as soon as the container is killed and
+   * its name is free for reuse, and the container is removed in the background.
+   *
+   * @param containerName  Name of container to remove
+   * @param teardownPolicy Policy that determines how the container is stopped and removed
+   */
+  public void removeContainerIfExists(String containerName, TeardownPolicy teardownPolicy) {
     // Input validation
     Objects.requireNonNull(containerName);
+    Objects.requireNonNull(teardownPolicy);
+
+    finishStatsCollection(containerName);
+    closeReusedLogStream(containerName);
 
     //Check if container exists
     if (doesContainerExist(containerName, true)) {
 
       // If the container is running, stop it.
       if (doesContainerExist(containerName, false)) {
-        logger.info("Stopping container '" + containerName + "'");
-        dockerClient.stopContainerCmd(containerName)
-            .exec();
+        stopContainer(containerName, teardownPolicy != TeardownPolicy.GRACEFUL);
       }
 
       // Remove container.
-      logger.info("Removing container '" + containerName + "'");
-      dockerClient.removeContainerCmd(containerName)
+      if (teardownPolicy == TeardownPolicy.KILL_AND_REAP) {
+        // Renaming frees the name right away, so that it can be reused before the removal
+        String reapedContainerName = containerName + "_reaped_" + UUID.randomUUID()
+            .toString()
+            .substring(0, 8);
+        schedule(DockerOperationClass.TEARDOWN, () -> getDockerClient()
+            .renameContainerCmd(containerName)
+            .withName(reapedContainerName)
+            .exec());
+        String imageReference = containerImageReferences.remove(containerName);
+        if (imageReference != null) {
+          containerImageReferences.put(reapedContainerName, imageReference);
+        }
+        getDockerStateCache().containerRemoved(containerName);
+        logger.info("Queueing removal of container '" + containerName + "' as '"
+            + reapedContainerName + "'");
+        getContainerReaper().reap(reapedContainerName);
+      } else {
+        removeContainer(containerName, teardownPolicy == TeardownPolicy.KILL);
+        logger.info("Removed pre-existing container '" + containerName + "'");
+      }
+    }
+  }
+
+  /**
+   * Returns the reaper that removes containers torn down with
+   * {@link TeardownPolicy#KILL_AND_REAP} in the background. It's created on first use.
+   *
+   * @return Container reaper
+   */
+  public synchronized ContainerReaper getContainerReaper() {
+    ensureOpen();
+    if (containerReaper == null) {
+      containerReaper = new ContainerReaper(
+          reapedContainerName -> {
+            try {
+              removeContainer(reapedContainerName, true);
+            } catch (NotFoundException e) {
+              // Already removed
+              containerImageReferences.remove(reapedContainerName);
+            }
+          },
+          ContainerReaper.defaultMaxConcurrentRemovals,
+          ContainerReaper.defaultShutdownDrainTimeout
+      );
+    }
+    return containerReaper;
+  }
+
+  /**
+   * Removes all containers and networks created by adya in the specified session, or in any
+   * session. Matching resources are found with a single label filtered query per resource type,
+   * and the containers are removed in parallel by the container reaper, along with their
+   * anonymous volumes.
+   *
+   * @param sessionFilter ID of the session whose resources to remove, or null to remove the
+   *                      resources of all sessions
+   * @return Number of removed resources
+   */
+  public int prune(String sessionFilter) {
+    List<String> labelFilter = List.of((sessionFilter == null) ? AdyaLabels.sessionLabel
+        : AdyaLabels.sessionLabel + "=" + sessionFilter);
+    logger.info("Pruning resources matching label filter " + labelFilter);
+
+    List<CompletableFuture<Boolean>> containerRemovals = schedule(
+        DockerOperationClass.INSPECT,
+        () -> getDockerClient().listContainersCmd()
+            .withShowAll(true)
+            .withLabelFilter(labelFilter)
+            .exec()
+    )
+        .stream()
+        .map(container -> {
+          String containerName = container.getNames()[0].substring(1);
+          finishStatsCollection(containerName);
+          closeReusedLogStream(containerName);
+          getDockerStateCache().containerRemoved(containerName);
+          return getContainerReaper().reap(containerName)
+              .handle((removal, throwable) -> throwable == null);
+        })
+        .collect(Collectors.toList());
+    int removedResourceCount = (int) containerRemovals.stream()
+        .map(CompletableFuture::join)
+        .filter(removed -> removed)
+        .count();
+
+    // Networks can only be removed once their containers are
+    for (Network network : schedule(
+        DockerOperationClass.INSPECT,
+        () -> getDockerClient().listNetworksCmd()
+            .withFilter("label", labelFilter)
+            .exec()
+    )) {
+      logger.info("Removing network '" + network.getName() + "'");
+      try {
+        schedule(DockerOperationClass.TEARDOWN, () -> getDockerClient()
+            .removeNetworkCmd(network.getId())
+            .exec());
+        removedResourceCount++;
+      } catch (NotFoundException e) {
+        // Already removed
+      } catch (RuntimeException e) {
+        logger.warn("Unable to remove network '" + network.getName() + "'", e);
+      }
+    }
+    logger.info("Pruned " + removedResourceCount + " resources matching label filter "
+        + labelFilter);
+    return removedResourceCount;
+  }
+
+  /**
+   * Removes the containers and networks of sessions whose JVM has exited without removing them,
+   * e.g. because it crashed. Only sessions started on this host are swept, as the liveness of
+   * JVMs on other hosts can't be checked.
+   *
+   * @return Number of removed resources
+   */
+  public int sweepOrphanedSessions() {
+    Set<String> orphanedSessionIds = new HashSet<>();
+    List<String> labelFilter = List.of(AdyaLabels.ownerLabel);
+    Stream.concat(
+        schedule(
+            DockerOperationClass.INSPECT,
+            () -> getDockerClient().listContainersCmd()
+                .withShowAll(true)
+                .withLabelFilter(labelFilter)
+                .exec()
+        )
+            .stream()
+            .map(Container::getLabels),
+        schedule(
+            DockerOperationClass.INSPECT,
+            () -> getDockerClient().listNetworksCmd()
+                .withFilter("label", labelFilter)
+                .exec()
+        )
+            .stream()
+            .map(Network::getLabels)
+    )
+        .filter(labels -> labels != null && labels.containsKey(AdyaLabels.sessionLabel)
+            && AdyaLabels.isOwnerDead(labels.get(AdyaLabels.ownerLabel)))
+        .forEach(labels -> orphanedSessionIds.add(labels.get(AdyaLabels.sessionLabel)));
+    if (!orphanedSessionIds.isEmpty()) {
+      logger.info("Sweeping orphaned sessions " + orphanedSessionIds);
+    }
+    return orphanedSessionIds.stream()
+        .mapToInt(this::prune)
+        .sum();
+  }
+
+  /**
+   * Removes the containers and networks created in this JVM's session when the JVM exits. It
+   * has no effect if already called for the same docker daemon.
+   */
+  public void pruneSessionAtShutdown() {
+    if (dockerDaemonConnection.getSessionPruneHookRegistered()
+        .compareAndSet(false, true)) {
+      Runtime.getRuntime()
+          .addShutdownHook(new Thread(
+              () -> prune(AdyaLabels.getSessionId()),
+              "adya-session-prune"
+          ));
+    }
+  }
+
+  /**
+   * Stops a running container.
+   *
+   * @param containerName Name of the container to stop
+   * @param kill          If true, the container is killed, else its service is given the default
+   *                      grace period to shut down
+   */
+  private void stopContainer(String containerName, boolean kill) {
+    logger.info((kill ? "Killing" : "Stopping") + " container '" + containerName + "'");
+    try (OperationTimer timer = new OperationTimer(DockerOperationPhase.STOP,
+        containerImageReferences.get(containerName), containerName)) {
+      if (kill) {
+        try {
+          schedule(DockerOperationClass.TEARDOWN, () -> getDockerClient()
+              .killContainerCmd(containerName)
+              .exec());
+        } catch (ConflictException e) {
+          // The container stopped in the meantime
+        }
+      } else {
+        schedule(DockerOperationClass.TEARDOWN, () -> getDockerClient()
+            .stopContainerCmd(containerName)
+            .exec());
+      }
+      timer.succeeded();
+    }
+    getDockerStateCache().containerRunning(containerName, false);
+  }
+
+  /**
+   * Force removes a container.
+   *
+   * @param containerName Name of the container to remove
+   * @param removeVolumes If true, the anonymous volumes of the container are removed too
+   */
+  private void removeContainer(String containerName, boolean removeVolumes) {
+    logger.info("Removing container '" + containerName + "'");
+    try (OperationTimer timer = new OperationTimer(DockerOperationPhase.REMOVE,
+        containerImageReferences.get(containerName), containerName)) {
+      schedule(DockerOperationClass.TEARDOWN, () -> getDockerClient()
+          .removeContainerCmd(containerName)
           .withForce(true)
-          .exec();
-      logger.info("Removed pre-existing container '" + containerName + "'");
+          .withRemoveVolumes(removeVolumes)
+          .exec());
+      timer.succeeded();
     }
+    containerImageReferences.remove(containerName);
+    getDockerStateCache().containerRemoved(containerName);
   }
 
   /**
-   * Pulls the specified docker image from the configured sources.
+   * Pulls the specified docker image from the image tarball cache if it's cached there, else from
+   * the configured sources. If a pull of the same image is already in progress, it waits for that
+   * pull instead of starting another one.
    *
    * @param dockerImage Docker image to pull
    * @throws InterruptedException When the image pull task is interrupted
@@ -113,13 +713,219 @@ public class DockerUtility {
     // Input validation
     Objects.requireNonNull(dockerImage);
 
-    // Pull the docker image from a pre-configured source
-    logger.info("Pulling docker image '" + dockerImage.name() + "'");
-    dockerClient.pullImageCmd("")
-        .withRepository(dockerImage.getRepository())
-        .withTag(dockerImage.getImageTag())
-        .start()
-        .awaitCompletion();
+    pullImage(dockerImage.getRepository(), dockerImage.getImageTag());
+  }
+
+  /**
+   * Pulls the docker image with the specified repository and tag from the image tarball cache if
+   * it's cached there, else from the configured sources. If a pull of the same image is already in
+   * progress, it waits for that pull instead of starting another one.
+   *
+   * @param repository Repository of the docker image to pull
+   * @param imageTag   Tag of the docker image to pull, or its digest, e.g. sha256:&lt;hex&gt;
+   * @throws InterruptedException When the image pull task is interrupted
+   */
+  public void pullImage(String repository, String imageTag) throws InterruptedException {
+    pullImage(repository, imageTag, true);
+  }
+
+  /**
+   * Pulls the docker image with the specified repository and tag. Images pulled from the
+   * configured sources are saved into the image tarball cache, if there's one.
+   *
+   * @param repository      Repository of the docker image to pull
+   * @param imageTag        Tag of the docker image to pull, or its digest
+   * @param useTarballCache If true, the image is loaded from the image tarball cache if it's
+   *                        cached there, instead of being pulled from the configured sources
+   * @throws InterruptedException When the image pull task is interrupted
+   */
+  private void pullImage(String repository, String imageTag, boolean useTarballCache)
+      throws InterruptedException {
+    // Input validation
+    Objects.requireNonNull(repository);
+    Objects.requireNonNull(imageTag);
+
+    // A digest, e.g. sha256:<hex>, can be pulled in place of a tag
+    String imageReference = repository + (imageTag.contains(":") ? "@" : ":") + imageTag;
+    CompletableFuture<Void> pull = new CompletableFuture<>();
+    CompletableFuture<Void> inFlightPull = dockerDaemonConnection.getInFlightPulls()
+        .putIfAbsent(imageReference, pull);
+    if (inFlightPull != null) {
+      logger.info("Waiting for in-flight pull of docker image '" + imageReference + "'");
+      try {
+        inFlightPull.get();
+      } catch (ExecutionException e) {
+        throw new RuntimeException(e.getCause());
+      }
+      return;
+    }
+
+    boolean admitted = false;
+    try {
+      admit(DockerOperationClass.PULL);
+      admitted = true;
+      try (OperationTimer timer = new OperationTimer(DockerOperationPhase.PULL, imageReference,
+          null)) {
+        if (imageTarballCache != null && useTarballCache
+            && imageTarballCache.load(getDockerClient(), imageReference)) {
+          timer.succeeded();
+          getDockerStateCache().imagePulled(imageReference);
+          pull.complete(null);
+          return;
+        }
+
+        // Pull the docker image from a pre-configured source
+        logger.info("Pulling docker image '" + imageReference + "'");
+        getDockerClient().pullImageCmd("")
+            .withRepository(repository)
+            .withTag(imageTag)
+            .start()
+            .awaitCompletion();
+        timer.succeeded();
+        if (imageTarballCache != null) {
+          try {
+            imageTarballCache.save(getDockerClient(), imageReference);
+          } catch (RuntimeException e) {
+            // The pulled image is usable regardless
+            logger.warn("Unable to save docker image '" + imageReference + "' to the cache", e);
+          }
+        }
+        getDockerStateCache().imagePulled(imageReference);
+        pull.complete(null);
+      }
+    } catch (Throwable t) {
+      // Waiters of the in-flight pull fail along, instead of waiting for a pull that won't happen
+      pull.completeExceptionally(t);
+      throw t;
+    } finally {
+      if (admitted) {
+        getDockerApiScheduler().release(DockerOperationClass.PULL);
+      }
+      dockerDaemonConnection.getInFlightPulls()
+          .remove(imageReference, pull);
+    }
+  }
+
+  /**
+   * Pulls the specified docker image if the pull policy requires it.
+   *
+   * @param dockerImage Docker image to pull
+   * @throws InterruptedException When the image pull task is interrupted
+   */
+  private void pullImageIfRequired(DockerImage dockerImage) throws InterruptedException {
+    switch (pullPolicy) {
+      // A cached tarball may be older than the registry's image
+      case ALWAYS -> pullImage(dockerImage.getRepository(), dockerImage.getImageTag(), false);
+      case IF_NOT_PRESENT -> {
+        if (!doesImageExist(dockerImage)) {
+          pullImage(dockerImage);
+        }
+      }
+      case NEVER -> {
+        if (!doesImageExist(dockerImage)) {
+          throw new IllegalStateException("Docker image '" + dockerImage.name()
+              + "' isn't present locally and the pull policy is " + pullPolicy);
+        }
+      }
+      case IF_DIGEST_CHANGED -> {
+        if (!doesImageExist(dockerImage)) {
+          pullImage(dockerImage);
+        } else if (isLocalDigestStale(dockerImage)) {
+          pullImage(dockerImage.getRepository(), dockerImage.getImageTag(), false);
+        }
+      }
+      default -> throw new IllegalStateException("Unsupported pull policy - " + pullPolicy);
+    }
+  }
+
+  /**
+   * Checks if the local copy of a docker image differs from the one the registry currently serves
+   * for its tag. If the registry can't be reached, the local copy is considered up to date.
+   *
+   * @param dockerImage Docker image to check
+   * @return true if the registry serves a different digest, else false
+   */
+  private boolean isLocalDigestStale(DockerImage dockerImage) {
+    String remoteDigest;
+    try {
+      remoteDigest = registryDigestResolver.resolveDigest(dockerImage);
+    } catch (IOException e) {
+      logger.warn("Unable to resolve the registry digest of docker image '" + dockerImage.name()
+          + "', using the local copy - " + e.getMessage());
+      return false;
+    }
+    List<String> localDigests = schedule(
+        DockerOperationClass.INSPECT,
+        () -> getDockerClient().inspectImageCmd(
+            dockerImage.getRepository() + ":" + dockerImage.getImageTag())
+            .exec()
+    )
+        .getRepoDigests();
+    boolean stale = localDigests == null || localDigests.stream()
+        .noneMatch(localDigest -> localDigest.endsWith("@" + remoteDigest));
+    if (stale) {
+      logger.info("Local copy of docker image '" + dockerImage.name() + "' is stale");
+    }
+    return stale;
+  }
+
+  /**
+   * Pulls the specified docker images concurrently, with at most 4 pulls in progress at a time.
+   *
+   * @param dockerImages Docker images to pull
+   * @return A future per docker image, completed when its pull completes
+   */
+  public Map<DockerImage, CompletableFuture<Void>> pullImages(
+      Collection<DockerImage> dockerImages) {
+    return pullImages(dockerImages, defaultPullParallelism);
+  }
+
+  /**
+   * Pulls the specified docker images concurrently. Requests for an image that is already being
+   * pulled, by this or a concurrent call, are coalesced into the in-flight pull.
+   *
+   * @param dockerImages Docker images to pull
+   * @param parallelism  Maximum number of pulls in progress at a time
+   * @return A future per docker image, completed when its pull completes
+   */
+  public Map<DockerImage, CompletableFuture<Void>> pullImages(
+      Collection<DockerImage> dockerImages, int parallelism) {
+    // Input validation
+    Objects.requireNonNull(dockerImages);
+    dockerImages.forEach(Objects::requireNonNull);
+    if (parallelism < 1) {
+      throw new IllegalArgumentException(
+          "Parallelism should be at least 1, but is " + parallelism);
+    }
+
+    Map<DockerImage, CompletableFuture<Void>> pulls = new LinkedHashMap<>();
+    if (dockerImages.isEmpty()) {
+      return pulls;
+    }
+    ExecutorService pullExecutor = Executors.newFixedThreadPool(
+        Math.min(parallelism, dockerImages.size()),
+        runnable -> {
+          Thread thread = new Thread(runnable, "adya-image-pull");
+          thread.setDaemon(true);
+          return thread;
+        }
+    );
+    try {
+      for (DockerImage dockerImage : dockerImages) {
+        pulls.computeIfAbsent(dockerImage, key -> CompletableFuture.runAsync(() -> {
+          try {
+            pullImage(key);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+          }
+        }, pullExecutor));
+      }
+    } finally {
+      // Already submitted pulls run to completion
+      pullExecutor.shutdown();
+    }
+    return pulls;
   }
 
   /**
@@ -132,42 +938,146 @@ public class DockerUtility {
    */
   public void createContainer(DockerImage dockerImage, String containerName,
       boolean removeContainerIfExists) {
+    createContainer(
+        new ContainerSpec(dockerImage, containerName)
+            .withRemoveContainerIfExists(removeContainerIfExists)
+    );
+  }
+
+  /**
+   * Creates a docker container as described by the specified container spec.
+   *
+   * @param containerSpec Spec of the container to create
+   */
+  public void createContainer(ContainerSpec containerSpec) {
     // Input validation
-    Objects.requireNonNull(dockerImage);
-    Objects.requireNonNull(containerName);
+    Objects.requireNonNull(containerSpec);
+    DockerImage dockerImage = containerSpec.getDockerImage();
 
-    if (removeContainerIfExists) {
+    createContainer(containerSpec,
+        dockerImage.getRepository() + ":" + dockerImage.getImageTag());
+  }
+
+  /**
+   * Creates a docker container as described by the specified container spec, from the specified
+   * image, which is either the spec's docker image or a snapshot of it.
+   *
+   * @param containerSpec  Spec of the container to create
+   * @param imageReference Reference of the image to create the container from
+   */
+  private void createContainer(ContainerSpec containerSpec, String imageReference) {
+    DockerImage dockerImage = containerSpec.getDockerImage();
+    String containerName = containerSpec.getContainerName();
+
+    if (containerSpec.isRemoveContainerIfExists()) {
       removeContainerIfExists(containerName);
     }
 
     // Create host config with all required port bindings
     logger.info(
         "Retrieving port bindings '" + dockerImage.getPortBindings() + "' to add to container '"
-            + containerName + "'");
+            + containerName + "'"
+            + (containerSpec.isEphemeralPorts() ? " as ephemeral ports" : ""));
     Ports portBindings = new Ports();
     dockerImage.getPortBindings()
         .forEach(
             (containerPort, hostPort) -> portBindings.bind(
                 ExposedPort.tcp(containerPort),
-                Ports.Binding.bindPort(hostPort)
+                // An empty binding lets docker pick a free host port
+                containerSpec.isEphemeralPorts() ? Ports.Binding.empty()
+                    : Ports.Binding.bindPort(hostPort)
             )
         );
     HostConfig hostConfig = new HostConfig()
         .withPortBindings(portBindings);
+    PerformanceProfile performanceProfile = containerSpec.getPerformanceProfile();
+    List<String> commandArguments = List.of();
+    if (performanceProfile != null) {
+      logger.info("Applying " + performanceProfile + " to container '" + containerName + "'");
+      // Snapshots can only capture data on disk
+      if (containerSpec.getSnapshotCache() == null) {
+        hostConfig.withTmpFs(performanceProfile.getTmpfsMounts());
+      }
+      hostConfig.withMemory(performanceProfile.getMemoryLimitInBytes())
+          .withCpusetCpus(performanceProfile.getCpusetCpus());
+      if (performanceProfile.getCpus() != null) {
+        hostConfig.withNanoCPUs((long) (performanceProfile.getCpus() * 1_000_000_000L));
+      }
+      commandArguments = performanceProfile.getCommandArguments();
+    }
+    String sourceImageReference = dockerImage.getRepository() + ":" + dockerImage.getImageTag();
+    if (commandArguments.isEmpty() && !imageReference.equals(sourceImageReference)) {
+      // A snapshot has the command of the container it was committed from baked in, so the
+      // docker image's own command is restored explicitly
+      String[] sourceCommand = schedule(DockerOperationClass.INSPECT, () -> getDockerClient()
+          .inspectImageCmd(sourceImageReference)
+          .exec()
+          .getConfig()
+          .getCmd());
+      commandArguments = (sourceCommand == null) ? List.of() : List.of(sourceCommand);
+    }
 
     // Create a docker container from the pulled image
-    logger.info("Creating container '" + containerName + "' from image '" + dockerImage + "'");
-    dockerClient.createContainerCmd(containerName)
-        .withImage(dockerImage.getRepository() + ":" + dockerImage.getImageTag())
+    logger.info("Creating container '" + containerName + "' from image '" + imageReference + "'");
+    CreateContainerCmd createContainerCmd = getDockerClient().createContainerCmd(containerName)
+        .withImage(imageReference)
         .withName(containerName)
         .withHostConfig(hostConfig)
         .withEnv(dockerImage.getEnvironmentVariables())
-        .exec();
+        // Reusable containers outlive their session, so they aren't pruned with it
+        .withLabels(containerSpec.isReuse()
+            ? Map.of(AdyaLabels.configurationHashLabel, containerSpec.getConfigurationHash())
+            : AdyaLabels.getSessionLabels());
+    if (!commandArguments.isEmpty()) {
+      createContainerCmd.withCmd(commandArguments);
+    }
+    createContainer(createContainerCmd, sourceImageReference);
+  }
+
+  /**
+   * Runs a prepared container creation command through the docker API scheduler, recording its
+   * metrics and the created container in the docker state cache. Used for containers that can't
+   * be described by a container spec, e.g. compose services.
+   *
+   * @param createContainerCmd Container creation command, with the container name set
+   * @param imageReference     Reference of the container's image, under which the metrics are
+   *                           recorded
+   */
+  void createContainer(CreateContainerCmd createContainerCmd, String imageReference) {
+    String containerName = Objects.requireNonNull(createContainerCmd.getName());
+    String containerId;
+    try (OperationTimer timer = new OperationTimer(DockerOperationPhase.CREATE, imageReference,
+        containerName)) {
+      containerId = schedule(DockerOperationClass.CREATE, createContainerCmd::exec)
+          .getId();
+      timer.succeeded();
+    }
+    containerImageReferences.put(containerName, imageReference);
+    getDockerStateCache().containerCreated(containerName, containerId);
+  }
+
+  /**
+   * Starts a created container through the docker API scheduler, recording its metrics and the
+   * running container in the docker state cache.
+   *
+   * @param containerName Name of the container to start
+   */
+  void startContainer(String containerName) {
+    logger.info("Starting container '" + containerName + "'");
+    try (OperationTimer timer = new OperationTimer(DockerOperationPhase.START,
+        containerImageReferences.get(containerName), containerName)) {
+      schedule(DockerOperationClass.START, () -> getDockerClient()
+          .startContainerCmd(containerName)
+          .exec());
+      timer.succeeded();
+    }
+    getDockerStateCache().containerRunning(containerName, true);
   }
 
   /**
    * Creates and run a docker container from a specified Docker image name with a specified
-   * container name. If the image is not present locally, it tries to pull it.
+   * container name. The image is pulled as required by the pull policy. It returns once the
+   * image's default wait strategy deems the service in the container ready.
    *
    * @param dockerImage             Image to create a container from
    * @param containerName           Name of container to create
@@ -178,32 +1088,772 @@ public class DockerUtility {
       boolean removeContainerIfExists) throws InterruptedException {
     // Input validation
     Objects.requireNonNull(dockerImage);
-    Objects.requireNonNull(containerName);
 
-    // Pull the docker image from a pre-configured source
-    pullImage(dockerImage);
+    createAndRunContainer(dockerImage, containerName, removeContainerIfExists,
+        dockerImage.getWaitStrategy());
+  }
 
-    // Create docker container
-    createContainer(dockerImage, containerName, removeContainerIfExists);
+  /**
+   * Creates and run a docker container from a specified Docker image name with a specified
+   * container name. The image is pulled as required by the pull policy. It returns once the
+   * specified wait strategy deems the service in the container ready.
+   *
+   * @param dockerImage             Image to create a container from
+   * @param containerName           Name of container to create
+   * @param removeContainerIfExists If true, it removes any container with the same name before
+   *                                creating a new one
+   * @param waitStrategy            Strategy to determine when the container is ready
+   */
+  public void createAndRunContainer(DockerImage dockerImage, String containerName,
+      boolean removeContainerIfExists, WaitStrategy waitStrategy) throws InterruptedException {
+    createAndRunContainer(
+        new ContainerSpec(dockerImage, containerName)
+            .withRemoveContainerIfExists(removeContainerIfExists)
+            .withWaitStrategy(waitStrategy)
+    );
+  }
+
+  /**
+   * Creates and runs a docker container as described by the specified container spec. The image
+   * is pulled as required by the pull policy. It returns once the spec's wait strategy deems the
+   * service in the container ready.
+   *
+   * @param containerSpec Spec of the container to create and run
+   * @return The running container
+   */
+  public ManagedContainer createAndRunContainer(ContainerSpec containerSpec)
+      throws InterruptedException {
+    // Input validation
+    Objects.requireNonNull(containerSpec);
+    String containerName = containerSpec.getContainerName();
 
+    // Attach to a running container with the same configuration if there's one
+    if (containerSpec.isReuse()) {
+      ManagedContainer reusedContainer = reuseContainer(containerSpec);
+      if (reusedContainer != null) {
+        return reusedContainer;
+      }
+    }
+
+    // Pull the docker image from a pre-configured source if required
+    pullImageIfRequired(containerSpec.getDockerImage());
+
+    // Create docker container, from an initialized snapshot if there's one
+    SnapshotCache snapshotCache = containerSpec.getSnapshotCache();
+    String snapshotReference = (snapshotCache == null) ? null
+        : snapshotCache.getSnapshotReference(containerSpec.getDockerImage(),
+            containerSpec.getPerformanceProfile());
+    boolean fromSnapshot = snapshotReference != null && doesImageExist(snapshotReference);
+    if (fromSnapshot) {
+      createContainer(containerSpec, snapshotReference);
+    } else {
+      createContainer(containerSpec);
+    }
+
+    ContainerLogStream logStream = null;
     try {
+      if (fromSnapshot) {
+        snapshotCache.restoreVolumes(snapshotReference, containerName);
+      }
+
       // Start the container
-      logger.info("Starting container '" + containerName + "'");
-      dockerClient.startContainerCmd(containerName)
-          .exec();
-
-      // Attach standard input, output and error streams to container
-      logger.info("Attaching STDIO to container '" + containerName + "'");
-      dockerClient.attachContainerCmd(containerName)
-          .withFollowStream(true)
+      DockerImage dockerImage = containerSpec.getDockerImage();
+      startContainer(containerName);
+      logStream = streamLogs(containerName, containerSpec.getLogBufferCapacity());
+      ManagedContainer managedContainer = new ManagedContainer(
+          containerSpec.getDockerImage(),
+          containerName,
+          getDockerHostAddress(),
+          getMappedPorts(containerName),
+          logStream,
+          containerSpec.isCollectStats() ? collectStats(containerName,
+              dockerImage.getRepository() + ":" + dockerImage.getImageTag()) : null
+      );
+      logger.info("Started container " + managedContainer);
+
+      // Wait for the service in the container to be ready
+      waitUntilReady(managedContainer, fromSnapshot ? containerSpec.getRestartWaitStrategy()
+          : containerSpec.getWaitStrategy());
+      if (snapshotCache != null && !fromSnapshot) {
+        try {
+          snapshotCache.snapshot(managedContainer, containerSpec.getPerformanceProfile());
+        } catch (RuntimeException e) {
+          // The container is usable regardless, it'll be snapshotted on a later run
+          logger.warn("Unable to snapshot container '" + containerName + "'", e);
+        }
+      }
+      return managedContainer;
+    } catch (InterruptedException e) {
+      discardUnreadyContainer(containerName, logStream);
+      throw e;
+    } catch (RuntimeException | TimeoutException e) {
+      discardUnreadyContainer(containerName, logStream);
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Removes a created container that didn't become ready, logging its last output.
+   *
+   * @param containerName Name of the container
+   * @param logStream     Log stream of the container, null if it wasn't started
+   */
+  private void discardUnreadyContainer(String containerName, ContainerLogStream logStream) {
+    if (logStream != null) {
+      logger.info("Last output of container '" + containerName + "':\n"
+          + logStream.getLogs());
+      logStream.close();
+    }
+    removeContainerIfExists(containerName);
+  }
+
+  /**
+   * Attaches to a running container with the same configuration hash as the specified spec,
+   * possibly created by another JVM. It waits for the container to be ready, in case its creator
+   * is still waiting for it too.
+   *
+   * @param containerSpec Spec of the container to reuse
+   * @return The reused container, null if there's no running container to reuse
+   */
+  private ManagedContainer reuseContainer(ContainerSpec containerSpec)
+      throws InterruptedException {
+    String configurationHash = containerSpec.getConfigurationHash();
+    List<Container> reusableContainers = schedule(
+        DockerOperationClass.INSPECT,
+        () -> getDockerClient().listContainersCmd()
+            .withLabelFilter(Map.of(AdyaLabels.configurationHashLabel, configurationHash))
+            .exec()
+    );
+    if (reusableContainers.isEmpty()) {
+      logger.info("No running container with configuration hash '" + configurationHash
+          + "' to reuse");
+      return null;
+    }
+    String containerName = reusableContainers.get(0)
+        .getNames()[0].substring(1);
+    ContainerLogStream logStream = reusedLogStreams.compute(containerName,
+        (presentContainerName, presentLogStream) ->
+            (presentLogStream != null && !presentLogStream.isEnded()) ? presentLogStream
+                : streamLogs(containerName, containerSpec.getLogBufferCapacity()));
+    DockerImage dockerImage = containerSpec.getDockerImage();
+    containerImageReferences.put(containerName,
+        dockerImage.getRepository() + ":" + dockerImage.getImageTag());
+    ManagedContainer managedContainer = new ManagedContainer(
+        dockerImage,
+        containerName,
+        getDockerHostAddress(),
+        getMappedPorts(containerName),
+        logStream,
+        containerSpec.isCollectStats() ? collectStats(containerName,
+            dockerImage.getRepository() + ":" + dockerImage.getImageTag()) : null
+    );
+    logger.info("Reusing container " + managedContainer);
+    try {
+      // The log stream replays the container's output from its first line
+      waitUntilReady(managedContainer, (containerSpec.getSnapshotCache() == null)
+          ? containerSpec.getWaitStrategy() : containerSpec.getRestartWaitStrategy());
+    } catch (InterruptedException e) {
+      detachUnreadyContainer(containerName, logStream);
+      throw e;
+    } catch (RuntimeException | TimeoutException e) {
+      detachUnreadyContainer(containerName, logStream);
+      throw new RuntimeException(e);
+    }
+    return managedContainer;
+  }
+
+  /**
+   * Stops following a reused container that didn't become ready. The container may be in use by
+   * other JVMs, so it's left running.
+   *
+   * @param containerName Name of the container
+   * @param logStream     Log stream of the container
+   */
+  private void detachUnreadyContainer(String containerName, ContainerLogStream logStream) {
+    reusedLogStreams.remove(containerName, logStream);
+    logStream.close();
+    ContainerStatsCollector statsCollector = statsCollectors.remove(containerName);
+    if (statsCollector != null) {
+      statsCollector.close();
+    }
+  }
+
+  /**
+   * Stops following the output of a reused container.
+   *
+   * @param containerName Name of the container
+   */
+  private void closeReusedLogStream(String containerName) {
+    ContainerLogStream logStream = reusedLogStreams.remove(containerName);
+    if (logStream != null) {
+      logStream.close();
+    }
+  }
+
+  /**
+   * Registers a listener for the start, die, OOM, health status and destroy events of a container.
+   * All listeners of a docker host share a single connection to its event stream, which is opened
+   * on the first registration. Events that occurred before the registration aren't delivered.
+   *
+   * @param containerName Name of the container
+   * @param listener      Listener to register
+   */
+  public void addContainerEventListener(String containerName, ContainerEventListener listener) {
+    // Input validation
+    Objects.requireNonNull(containerName);
+    Objects.requireNonNull(listener);
+
+    getContainerEventDispatcher().addListener(containerName, listener);
+  }
+
+  /**
+   * Unregisters a listener for the events of a container.
+   *
+   * @param containerName Name of the container
+   * @param listener      Listener to unregister
+   */
+  public void removeContainerEventListener(String containerName,
+      ContainerEventListener listener) {
+    // Input validation
+    Objects.requireNonNull(containerName);
+    Objects.requireNonNull(listener);
+
+    getContainerEventDispatcher().removeListener(containerName, listener);
+  }
+
+  /**
+   * Starts following the STDOUT and STDERR output of a container, from its very first line.
+   *
+   * @param containerName   Name of the container
+   * @param capacityInLines Number of most recent lines to keep
+   * @return The started log stream, which ends when the container stops or is removed
+   */
+  public ContainerLogStream streamLogs(String containerName, int capacityInLines) {
+    // Input validation
+    Objects.requireNonNull(containerName);
+
+    return new ContainerLogStream(getDockerClient(), containerName, capacityInLines).start();
+  }
+
+  /**
+   * Starts collecting the CPU, memory, block I/O and network usage of a running container, unless
+   * it's already collected. When the container is removed through this utility, the summary is
+   * logged and recorded in the metrics registry.
+   *
+   * @param containerName Name of the container
+   * @return The started stats collector, which ends when the container stops or is removed
+   */
+  public ContainerStatsCollector collectStats(String containerName) {
+    // Input validation
+    Objects.requireNonNull(containerName);
+
+    return collectStats(containerName, null);
+  }
+
+  /**
+   * Summarizes the resource usage collected so far for a container.
+   *
+   * @param containerName Name of the container
+   * @return Summary of the container's resource usage, null if it isn't collected
+   */
+  public ContainerStats getContainerStats(String containerName) {
+    // Input validation
+    Objects.requireNonNull(containerName);
+
+    ContainerStatsCollector statsCollector = statsCollectors.get(containerName);
+    return (statsCollector == null) ? null : statsCollector.getStats();
+  }
+
+  private ContainerStatsCollector collectStats(String containerName, String imageReference) {
+    return statsCollectors.compute(containerName, (presentContainerName, statsCollector) -> {
+      if (statsCollector != null && !statsCollector.isEnded()) {
+        return statsCollector;
+      }
+      logger.info("Collecting resource usage of container '" + containerName + "'");
+      return new ContainerStatsCollector(getDockerClient(), containerName, imageReference)
+          .start();
+    });
+  }
+
+  /**
+   * Stops collecting the resource usage of a container, logging the summary and recording it in
+   * the metrics registry.
+   *
+   * @param containerName Name of the container
+   */
+  private void finishStatsCollection(String containerName) {
+    ContainerStatsCollector statsCollector = statsCollectors.remove(containerName);
+    if (statsCollector == null) {
+      return;
+    }
+    statsCollector.close();
+    ContainerStats containerStats = statsCollector.getStats();
+    logger.info("Resource usage of container '" + containerName + "': " + containerStats);
+    try {
+      metricsRegistry.recordContainerStats(statsCollector.getImageReference(), containerStats);
+    } catch (RuntimeException e) {
+      logger.warn("Unable to record resource usage metrics of container '" + containerName + "'",
+          e);
+    }
+  }
+
+  /**
+   * Blocks until the specified wait strategy deems the service in a running container ready.
+   *
+   * @param containerName Name of the container to wait for
+   * @param waitStrategy  Strategy to determine when the container is ready
+   * @throws InterruptedException When the wait is interrupted
+   * @throws TimeoutException     When the container isn't ready within the strategy's timeout
+   */
+  public void waitUntilReady(String containerName, WaitStrategy waitStrategy)
+      throws InterruptedException, TimeoutException {
+    // Input validation
+    Objects.requireNonNull(containerName);
+    Objects.requireNonNull(waitStrategy);
+
+    try (OperationTimer timer = new OperationTimer(DockerOperationPhase.READY, null,
+        containerName)) {
+      waitUntilReady(waitStrategy, new ContainerWaitStrategyTarget(containerName) {
+        private Map<Integer, Integer> mappedPorts;
+
+        @Override
+        public int getMappedPort(int containerPort) {
+          if (mappedPorts == null) {
+            mappedPorts = getMappedPorts(containerName);
+          }
+          Integer mappedPort = mappedPorts.get(containerPort);
+          if (mappedPort == null) {
+            throw new IllegalArgumentException(
+                "Port " + containerPort + " of container '" + containerName
+                    + "' isn't published");
+          }
+          return mappedPort;
+        }
+      });
+      timer.succeeded();
+    }
+  }
+
+  /**
+   * Blocks until the specified wait strategy deems the service in a running container ready.
+   *
+   * @param managedContainer Container to wait for
+   * @param waitStrategy     Strategy to determine when the container is ready
+   * @throws InterruptedException When the wait is interrupted
+   * @throws TimeoutException     When the container isn't ready within the strategy's timeout
+   */
+  public void waitUntilReady(ManagedContainer managedContainer, WaitStrategy waitStrategy)
+      throws InterruptedException, TimeoutException {
+    // Input validation
+    Objects.requireNonNull(managedContainer);
+    Objects.requireNonNull(waitStrategy);
+
+    DockerImage dockerImage = managedContainer.getDockerImage();
+    try (OperationTimer timer = new OperationTimer(DockerOperationPhase.READY,
+        dockerImage.getRepository() + ":" + dockerImage.getImageTag(),
+        managedContainer.getContainerName())) {
+      waitUntilReady(waitStrategy,
+          new ContainerWaitStrategyTarget(managedContainer.getContainerName()) {
+            @Override
+            public int getMappedPort(int containerPort) {
+              return managedContainer.getMappedPort(containerPort);
+            }
+
+            @Override
+            public ContainerLogStream getLogStream() {
+              return managedContainer.getLogStream();
+            }
+          });
+      timer.succeeded();
+    }
+  }
+
+  /**
+   * Blocks until the specified wait strategy deems the target ready, reporting whether a container
+   * that stopped while waiting ran out of memory.
+   */
+  private void waitUntilReady(WaitStrategy waitStrategy, ContainerWaitStrategyTarget target)
+      throws InterruptedException, TimeoutException {
+    String containerName = target.getContainerName();
+    ContainerEventDispatcher containerEventDispatcher = getContainerEventDispatcher();
+    containerEventDispatcher.addListener(containerName, target);
+    try {
+      waitStrategy.waitUntilReady(target);
+    } catch (IllegalStateException e) {
+      if (target.outOfMemory) {
+        throw new IllegalStateException("Container '" + containerName
+            + "' ran out of memory before it was ready", e);
+      }
+      throw e;
+    } finally {
+      containerEventDispatcher.removeListener(containerName, target);
+    }
+  }
+
+  /**
+   * Times a docker operation, recording it in the metrics registry and emitting a JFR event when
+   * closed. The operation is considered failed unless {@link #succeeded()} is called before.
+   */
+  private final class OperationTimer implements AutoCloseable {
+
+    private final DockerOperationEvent event = new DockerOperationEvent();
+    private final DockerOperationPhase phase;
+    private final String imageReference;
+    private final String containerName;
+    private final long startTime;
+    private boolean successful = false;
+
+    OperationTimer(DockerOperationPhase phase, String imageReference, String containerName) {
+      this.phase = phase;
+      this.imageReference = imageReference;
+      this.containerName = containerName;
+      this.event.begin();
+      this.startTime = System.nanoTime();
+    }
+
+    void succeeded() {
+      this.successful = true;
+    }
+
+    @Override
+    public void close() {
+      Duration duration = Duration.ofNanos(System.nanoTime() - startTime);
+      event.end();
+      if (event.shouldCommit()) {
+        event.phase = phase.name();
+        event.imageReference = imageReference;
+        event.containerName = containerName;
+        event.successful = successful;
+        event.commit();
+      }
+      try {
+        metricsRegistry.recordOperation(imageReference, phase, duration, successful);
+      } catch (RuntimeException e) {
+        logger.warn("Unable to record " + phase + " operation metrics", e);
+      }
+      logger.debug(phase + " of '" + Objects.requireNonNullElse(containerName, imageReference)
+          + "' took " + duration.toMillis() + " ms" + (successful ? "" : " and failed"));
+    }
+  }
+
+  /**
+   * Wait strategy target backed by a container on the docker host.
+   */
+  private abstract class ContainerWaitStrategyTarget implements WaitStrategyTarget,
+      ContainerEventListener {
+
+    private final String containerName;
+    private volatile boolean outOfMemory = false;
+
+    ContainerWaitStrategyTarget(String containerName) {
+      this.containerName = containerName;
+    }
+
+    @Override
+    public String getContainerName() {
+      return containerName;
+    }
+
+    @Override
+    public String getHost() {
+      return getDockerHostAddress();
+    }
+
+    @Override
+    public String getLogs() {
+      return getContainerLogs(containerName);
+    }
+
+    @Override
+    public String getHealthStatus() {
+      HealthState health = schedule(
+          DockerOperationClass.INSPECT,
+          () -> getDockerClient().inspectContainerCmd(containerName)
+              .exec()
+      )
+          .getState()
+          .getHealth();
+      return (health == null) ? null : health.getStatus();
+    }
+
+    @Override
+    public boolean isRunning() {
+      return doesContainerExist(containerName, false);
+    }
+
+    @Override
+    public void onOom(String containerName) {
+      outOfMemory = true;
+    }
+  }
+
+  /**
+   * Returns the endpoint of the docker daemon managed by this utility.
+   *
+   * @return Docker daemon endpoint, e.g. unix:///var/run/docker.sock
+   */
+  public URI getDockerHost() {
+    return dockerDaemonConnection.getDockerClientConfig()
+        .getDockerHost();
+  }
+
+  /**
+   * Returns the host name/IP address on which published container ports are reachable.
+   *
+   * @return The docker host's name/IP address, "localhost" for a local docker socket
+   */
+  public String getDockerHostAddress() {
+    URI dockerHost = getDockerHost();
+    if ("tcp".equals(dockerHost.getScheme()) && dockerHost.getHost() != null) {
+      return dockerHost.getHost();
+    }
+    return "localhost";
+  }
+
+  /**
+   * Returns the host port the specified container port is published on.
+   *
+   * @param containerName Name of the container
+   * @param containerPort Port exposed by the container
+   * @return The host port mapped to the container port
+   */
+  public int getMappedPort(String containerName, int containerPort) {
+    Integer mappedPort = getMappedPorts(containerName).get(containerPort);
+    if (mappedPort == null) {
+      throw new IllegalArgumentException(
+          "Port " + containerPort + " of container '" + containerName + "' isn't published");
+    }
+    return mappedPort;
+  }
+
+  /**
+   * Returns the host ports a container's TCP ports are published on.
+   *
+   * @param containerName Name of the container
+   * @return Mapping of container ports to host ports
+   */
+  public Map<Integer, Integer> getMappedPorts(String containerName) {
+    // Input validation
+    Objects.requireNonNull(containerName);
+
+    Map<Integer, Integer> mappedPorts = new HashMap<>();
+    schedule(
+        DockerOperationClass.INSPECT,
+        () -> getDockerClient().inspectContainerCmd(containerName)
+            .exec()
+    )
+        .getNetworkSettings()
+        .getPorts()
+        .getBindings()
+        .forEach((exposedPort, bindings) -> {
+          if (exposedPort.getProtocol() == InternetProtocol.TCP && bindings != null
+              && bindings.length > 0 && bindings[0].getHostPortSpec() != null) {
+            mappedPorts.put(
+                exposedPort.getPort(), Integer.parseInt(bindings[0].getHostPortSpec()));
+          }
+        });
+    return mappedPorts;
+  }
+
+  /**
+   * Returns the STDOUT and STDERR output logged by a container so far.
+   *
+   * @param containerName Name of the container
+   * @return Container logs
+   */
+  private String getContainerLogs(String containerName) {
+    StringBuilder logs = new StringBuilder();
+    try {
+      getDockerClient().logContainerCmd(containerName)
           .withStdOut(true)
           .withStdErr(true)
-          .start()
-          .awaitCompletion(5, TimeUnit.SECONDS);
-    } catch (RuntimeException e) {
-      removeContainerIfExists(containerName);
+          .exec(new ResultCallback.Adapter<Frame>() {
+            @Override
+            public void onNext(Frame frame) {
+              logs.append(new String(frame.getPayload(), StandardCharsets.UTF_8));
+            }
+          })
+          .awaitCompletion();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return logs.toString();
+  }
+
+  /**
+   * Executes a command in a running container and waits for it to exit.
+   *
+   * @param containerName        Name of the container
+   * @param environmentVariables Environment variables set for the command, in the NAME=value
+   *                             format
+   * @param timeout              Maximum time to wait for the command to exit
+   * @param command              Command and its arguments
+   * @return Exit code and output of the command
+   * @throws InterruptedException When the wait is interrupted
+   * @throws TimeoutException     When the command doesn't exit within the timeout
+   */
+  public ExecResult execInContainer(String containerName, String[] environmentVariables,
+      Duration timeout, String... command) throws InterruptedException, TimeoutException {
+    // Input validation
+    Objects.requireNonNull(containerName);
+    Objects.requireNonNull(environmentVariables);
+    Objects.requireNonNull(timeout);
+    Objects.requireNonNull(command);
+    if (command.length == 0) {
+      throw new IllegalArgumentException("Command to execute in container '" + containerName
+          + "' is empty");
+    }
+
+    logger.info("Executing " + Arrays.toString(command) + " in container '" + containerName
+        + "'");
+    admit(DockerOperationClass.EXEC);
+    try {
+      return execAdmittedInContainer(containerName, environmentVariables, timeout, command);
+    } finally {
+      getDockerApiScheduler().release(DockerOperationClass.EXEC);
+    }
+  }
+
+  private ExecResult execAdmittedInContainer(String containerName, String[] environmentVariables,
+      Duration timeout, String... command) throws InterruptedException, TimeoutException {
+    String execId = getDockerClient().execCreateCmd(containerName)
+        .withCmd(command)
+        .withEnv(Arrays.asList(environmentVariables))
+        .withAttachStdout(true)
+        .withAttachStderr(true)
+        .exec()
+        .getId();
+    StringBuilder stdout = new StringBuilder();
+    StringBuilder stderr = new StringBuilder();
+    ResultCallback.Adapter<Frame> callback = getDockerClient().execStartCmd(execId)
+        .exec(new ResultCallback.Adapter<>() {
+          @Override
+          public void onNext(Frame frame) {
+            String payload = new String(frame.getPayload(), StandardCharsets.UTF_8);
+            synchronized (stdout) {
+              (frame.getStreamType() == StreamType.STDERR ? stderr : stdout).append(payload);
+            }
+          }
+        });
+    try {
+      if (!callback.awaitCompletion(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+        throw new TimeoutException(Arrays.toString(command) + " didn't exit in container '"
+            + containerName + "' within " + timeout);
+      }
+    } finally {
+      try {
+        callback.close();
+      } catch (IOException e) {
+        logger.debug("Unable to close exec output stream of container '" + containerName
+            + "'", e);
+      }
+    }
+    Long exitCode = getDockerClient().inspectExecCmd(execId)
+        .exec()
+        .getExitCodeLong();
+    synchronized (stdout) {
+      return new ExecResult((exitCode == null) ? -1 : exitCode, stdout.toString(),
+          stderr.toString());
+    }
+  }
+
+  /**
+   * Finishes the collection of container stats, closes the log streams of reused containers,
+   * drains the container reaper and releases the connection to the docker daemon, which is closed
+   * along with its event stream once no other docker utility shares it. Subsequent calls have no
+   * effect.
+   */
+  @Override
+  public void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    statsCollectors.keySet()
+        .forEach(this::finishStatsCollection);
+    reusedLogStreams.keySet()
+        .forEach(this::closeReusedLogStream);
+    ContainerReaper containerReaperToClose;
+    synchronized (this) {
+      containerReaperToClose = containerReaper;
+    }
+    if (containerReaperToClose != null) {
+      containerReaperToClose.close();
+    }
+    dockerDaemonConnection.release();
+  }
+
+  private void ensureOpen() {
+    if (closed.get()) {
+      throw new IllegalStateException("Docker utility is closed");
+    }
+  }
+
+  /**
+   * Returns the scheduler that puts the calls to the docker daemon behind concurrency limits. It's
+   * shared by the docker utilities sharing this utility's connection.
+   *
+   * @return Docker API scheduler
+   */
+  public DockerApiScheduler getDockerApiScheduler() {
+    return dockerDaemonConnection.getDockerApiScheduler();
+  }
+
+  /**
+   * Runs a call to the docker daemon once it is admitted by the docker API scheduler, recording
+   * the time it waited for admission. Used by the utilities sharing this docker utility's
+   * connection as well, so that all their calls are subject to the same limits.
+   *
+   * @param operationClass Class of the call
+   * @param operation      Call to run
+   * @param <T>            Type of the call's result
+   * @return Result of the call
+   */
+  <T> T schedule(DockerOperationClass operationClass, Supplier<T> operation) {
+    try {
+      admit(operationClass);
+    } catch (InterruptedException e) {
+      Thread.currentThread()
+          .interrupt();
       throw new RuntimeException(e);
     }
+    try {
+      return operation.get();
+    } finally {
+      getDockerApiScheduler().release(operationClass);
+    }
+  }
+
+  void schedule(DockerOperationClass operationClass, Runnable operation) {
+    schedule(operationClass, () -> {
+      operation.run();
+      return null;
+    });
+  }
+
+  /**
+   * Waits until the docker API scheduler admits a call, recording the time it waited. Every
+   * admission has to be followed by a release once the call completes.
+   *
+   * @param operationClass Class of the call
+   * @throws InterruptedException When the wait is interrupted
+   */
+  private void admit(DockerOperationClass operationClass) throws InterruptedException {
+    Duration waitTime = getDockerApiScheduler().acquire(operationClass);
+    try {
+      metricsRegistry.recordQueueWait(operationClass, waitTime);
+    } catch (RuntimeException e) {
+      logger.warn("Unable to record " + operationClass + " queue wait metrics", e);
+    }
+  }
+
+  private DockerStateCache getDockerStateCache() {
+    ensureOpen();
+    return dockerDaemonConnection.getDockerStateCache();
+  }
+
+  private ContainerEventDispatcher getContainerEventDispatcher() {
+    ensureOpen();
+    return dockerDaemonConnection.getContainerEventDispatcher();
   }
 
   /**
@@ -213,6 +1863,7 @@ public class DockerUtility {
    */
   @SuppressWarnings("unused")
   public DockerClient getDockerClient() {
-    return dockerClient;
+    ensureOpen();
+    return dockerDaemonConnection.getDockerClient();
   }
 }
@@ -0,0 +1,71 @@
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Database reset strategy that runs shell scripts in the container, with the docker image's
+ * environment variables, e.g. its credentials, exported to them. Resets are refused until the
+ * state has been captured, so that a missed prepare can't wipe the databases.
+ */
+public class ExecDatabaseResetStrategy implements DatabaseResetStrategy {
+
+  private static final String preparedMarkerPath = "/tmp/adya_reset_prepared";
+
+  private final String prepareScript;
+  private final String resetScript;
+  private final Duration timeout;
+
+  /**
+   * Creates a reset strategy running the specified scripts.
+   *
+   * @param prepareScript Script capturing the state, or null if resets need no captured state.
+   * @param resetScript   Script restoring the state.
+   * @param timeout       Maximum time for a script to run.
+   */
+  public ExecDatabaseResetStrategy(String prepareScript, String resetScript, Duration timeout) {
+    this.prepareScript = prepareScript;
+    this.resetScript = Objects.requireNonNull(resetScript);
+    this.timeout = Objects.requireNonNull(timeout);
+  }
+
+  @Override
+  public void prepare(DockerUtility dockerUtility, ManagedContainer managedContainer)
+      throws InterruptedException, TimeoutException {
+    if (prepareScript != null) {
+      run(dockerUtility, managedContainer, "rm -f " + preparedMarkerPath + "\n"
+          + prepareScript
+          + "touch " + preparedMarkerPath + "\n");
+    }
+  }
+
+  @Override
+  public void reset(DockerUtility dockerUtility, ManagedContainer managedContainer)
+      throws InterruptedException, TimeoutException {
+    run(dockerUtility, managedContainer, (prepareScript == null) ? resetScript
+        : "if [ ! -f " + preparedMarkerPath + " ]; then\n"
+            + "  echo 'The database state to reset to has not been captured' >&2\n"
+            + "  exit 1\n"
+            + "fi\n"
+            + resetScript);
+  }
+
+  private void run(DockerUtility dockerUtility, ManagedContainer managedContainer,
+      String script) throws InterruptedException, TimeoutException {
+    // Input validation
+    Objects.requireNonNull(dockerUtility);
+    Objects.requireNonNull(managedContainer);
+
+    ExecResult execResult = dockerUtility.execInContainer(
+        managedContainer.getContainerName(),
+        managedContainer.getDockerImage()
+            .getEnvironmentVariables(),
+        timeout,
+        "sh", "-c", script
+    );
+    if (execResult.getExitCode() != 0) {
+      throw new IllegalStateException("Database reset script failed in container '"
+          + managedContainer.getContainerName() + "' with exit code "
+          + execResult.getExitCode() + ": " + execResult.getStderr());
+    }
+  }
+}
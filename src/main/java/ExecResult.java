@@ -0,0 +1,59 @@
+/**
+ * Outcome of a command executed in a running container, see
+ * {@link DockerUtility#execInContainer(String, String[], java.time.Duration, String...)}.
+ */
+public class ExecResult {
+
+  private final long exitCode;
+  private final String stdout;
+  private final String stderr;
+
+  /**
+   * Creates the outcome of an executed command.
+   *
+   * @param exitCode Exit code of the command.
+   * @param stdout   Output written by the command to STDOUT.
+   * @param stderr   Output written by the command to STDERR.
+   */
+  public ExecResult(long exitCode, String stdout, String stderr) {
+    this.exitCode = exitCode;
+    this.stdout = stdout;
+    this.stderr = stderr;
+  }
+
+  /**
+   * Returns the exit code of the command.
+   *
+   * @return Exit code, 0 if the command succeeded.
+   */
+  public long getExitCode() {
+    return this.exitCode;
+  }
+
+  /**
+   * Returns the output written by the command to STDOUT.
+   *
+   * @return STDOUT output.
+   */
+  public String getStdout() {
+    return this.stdout;
+  }
+
+  /**
+   * Returns the output written by the command to STDERR.
+   *
+   * @return STDERR output.
+   */
+  public String getStderr() {
+    return this.stderr;
+  }
+
+  @Override
+  public String toString() {
+    return "ExecResult{"
+        + "exitCode=" + exitCode
+        + ", stdout='" + stdout + '\''
+        + ", stderr='" + stderr + '\''
+        + '}';
+  }
+}
@@ -0,0 +1,87 @@
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * Tenant provisioner that runs shell scripts in the container, with the docker image's
+ * environment variables exported to them, along with ADYA_TENANT holding the tenant's name and
+ * ADYA_TENANT_PASSWORD holding its password.
+ */
+public class ExecTenantProvisioner implements TenantProvisioner {
+
+  private final String createScript;
+  private final String dropScript;
+  private final boolean credentials;
+  private final Duration timeout;
+
+  /**
+   * Creates a tenant provisioner running the specified scripts.
+   *
+   * @param createScript Script creating a tenant, or null if tenants need no creation.
+   * @param dropScript   Script dropping a tenant.
+   * @param credentials  Whether the create script creates a user for the tenant.
+   * @param timeout      Maximum time for a script to run.
+   */
+  public ExecTenantProvisioner(String createScript, String dropScript, boolean credentials,
+      Duration timeout) {
+    this.createScript = createScript;
+    this.dropScript = Objects.requireNonNull(dropScript);
+    this.credentials = credentials;
+    this.timeout = Objects.requireNonNull(timeout);
+  }
+
+  @Override
+  public void createTenant(DockerUtility dockerUtility, ManagedContainer managedContainer,
+      String tenantName, String password) throws InterruptedException, TimeoutException {
+    // Input validation
+    Objects.requireNonNull(password);
+
+    if (createScript != null) {
+      run(dockerUtility, managedContainer, tenantName, password, createScript);
+    }
+  }
+
+  @Override
+  public void dropTenant(DockerUtility dockerUtility, ManagedContainer managedContainer,
+      String tenantName) throws InterruptedException, TimeoutException {
+    run(dockerUtility, managedContainer, tenantName, "", dropScript);
+  }
+
+  @Override
+  public boolean hasCredentials() {
+    return this.credentials;
+  }
+
+  private void run(DockerUtility dockerUtility, ManagedContainer managedContainer,
+      String tenantName, String password, String script)
+      throws InterruptedException, TimeoutException {
+    // Input validation
+    Objects.requireNonNull(dockerUtility);
+    Objects.requireNonNull(managedContainer);
+    Objects.requireNonNull(tenantName);
+    // Tenant names are interpolated into the scripts' statements
+    if (!tenantName.matches("[a-z][a-z0-9_]*")) {
+      throw new IllegalArgumentException("Tenant name should be a lower case identifier, but is '"
+          + tenantName + "'");
+    }
+
+    ExecResult execResult = dockerUtility.execInContainer(
+        managedContainer.getContainerName(),
+        Stream.concat(
+            Arrays.stream(managedContainer.getDockerImage()
+                .getEnvironmentVariables()),
+            Stream.of("ADYA_TENANT=" + tenantName, "ADYA_TENANT_PASSWORD=" + password)
+        )
+            .toArray(String[]::new),
+        timeout,
+        "sh", "-c", script
+    );
+    if (execResult.getExitCode() != 0) {
+      throw new IllegalStateException("Tenant script failed for tenant '" + tenantName
+          + "' in container '" + managedContainer.getContainerName() + "' with exit code "
+          + execResult.getExitCode() + ": " + execResult.getStderr());
+    }
+  }
+}
@@ -0,0 +1,26 @@
+import java.time.Duration;
+
+/**
+ * Waits until the HEALTHCHECK defined by the container's image reports "healthy".
+ */
+public class HealthcheckWaitStrategy extends AWaitStrategy {
+
+  public HealthcheckWaitStrategy(Duration startupTimeout) {
+    super(startupTimeout, Duration.ofSeconds(1));
+  }
+
+  @Override
+  protected boolean isReady(WaitStrategyTarget target) {
+    String healthStatus = target.getHealthStatus();
+    if (healthStatus == null) {
+      throw new IllegalStateException(
+          "Container '" + target.getContainerName() + "' doesn't define a HEALTHCHECK");
+    }
+    return "healthy".equals(healthStatus);
+  }
+
+  @Override
+  public String toString() {
+    return "HEALTHCHECK status healthy";
+  }
+}
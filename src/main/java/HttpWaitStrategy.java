@@ -0,0 +1,46 @@
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Waits until an HTTP GET request to a published container port returns a 200 status code.
+ */
+public class HttpWaitStrategy extends AWaitStrategy {
+
+  private static final int requestTimeoutInMs = 1_000;
+
+  private final int containerPort;
+  private final String path;
+
+  public HttpWaitStrategy(int containerPort, String path, Duration startupTimeout) {
+    super(startupTimeout);
+    this.containerPort = containerPort;
+    this.path = Objects.requireNonNull(path);
+  }
+
+  @Override
+  protected boolean isReady(WaitStrategyTarget target) {
+    HttpURLConnection connection = null;
+    try {
+      URL url = new URL(
+          "http", target.getHost(), target.getMappedPort(containerPort), path);
+      connection = (HttpURLConnection) url.openConnection();
+      connection.setConnectTimeout(requestTimeoutInMs);
+      connection.setReadTimeout(requestTimeoutInMs);
+      return connection.getResponseCode() == HttpURLConnection.HTTP_OK;
+    } catch (IOException e) {
+      return false;
+    } finally {
+      if (connection != null) {
+        connection.disconnect();
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "HTTP 200 on port " + containerPort + path;
+  }
+}
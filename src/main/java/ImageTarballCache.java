@@ -0,0 +1,175 @@
+import com.github.dockerjava.api.DockerClient;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Local directory of compressed docker image tarballs, exported with the docker save API and
+ * imported with the load API. Images are streamed between the daemon and the disk through file
+ * channels, so they're never buffered in memory as a whole. Lets images be brought onto air gapped
+ * or rate limited build agents without a registry.
+ */
+public class ImageTarballCache {
+
+  private static final String tarballExtension = ".tar.gz";
+  private static final int streamBufferSize = 1024 * 1024;
+  private static final Logger logger = LogManager.getLogger(ImageTarballCache.class);
+
+  private final Path cacheDirectory;
+
+  /**
+   * Creates an image tarball cache in the specified directory. The directory is created when the
+   * first image is saved.
+   *
+   * @param cacheDirectory Directory holding the image tarballs.
+   */
+  public ImageTarballCache(Path cacheDirectory) {
+    this.cacheDirectory = Objects.requireNonNull(cacheDirectory);
+  }
+
+  /**
+   * Returns the directory holding the image tarballs.
+   *
+   * @return Cache directory.
+   */
+  public Path getCacheDirectory() {
+    return this.cacheDirectory;
+  }
+
+  /**
+   * Returns the path of the tarball of the specified image, whether it's cached or not.
+   *
+   * @param imageReference Image in the repository:tag format.
+   * @return Tarball path.
+   */
+  public Path getTarballPath(String imageReference) {
+    // Input validation
+    Objects.requireNonNull(imageReference);
+
+    return cacheDirectory.resolve(imageReference.replaceAll("[^A-Za-z0-9._-]", "_")
+        + tarballExtension);
+  }
+
+  /**
+   * Checks if the specified image is cached.
+   *
+   * @param imageReference Image in the repository:tag format.
+   * @return true if the image is cached, else false.
+   */
+  public boolean contains(String imageReference) {
+    return Files.isRegularFile(getTarballPath(imageReference));
+  }
+
+  /**
+   * Exports the specified image from the docker daemon into the cache, replacing any cached
+   * tarball of it. The tarball is written to a temporary file first, so that concurrent loads
+   * never see a partially written tarball.
+   *
+   * @param dockerClient   Docker client of the daemon to export the image from.
+   * @param imageReference Image in the repository:tag format.
+   */
+  public void save(DockerClient dockerClient, String imageReference) {
+    // Input validation
+    Objects.requireNonNull(dockerClient);
+    Path tarballPath = getTarballPath(imageReference);
+
+    logger.info("Saving docker image '" + imageReference + "' to '" + tarballPath + "'");
+    try {
+      Files.createDirectories(cacheDirectory);
+      Path temporaryTarballPath = Files.createTempFile(cacheDirectory,
+          tarballPath.getFileName()
+              .toString(), ".tmp");
+      try {
+        try (InputStream imageArchive = dockerClient.saveImageCmd(imageReference)
+            .exec();
+            FileChannel tarballChannel = FileChannel.open(temporaryTarballPath,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            OutputStream tarball = new GZIPOutputStream(
+                Channels.newOutputStream(tarballChannel), streamBufferSize)) {
+          imageArchive.transferTo(tarball);
+        }
+        Files.move(temporaryTarballPath, tarballPath, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(temporaryTarballPath);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Imports the specified image from the cache into the docker daemon.
+   *
+   * @param dockerClient   Docker client of the daemon to import the image into.
+   * @param imageReference Image in the repository:tag format.
+   * @return true if the image was imported, false if it isn't cached.
+   */
+  public boolean load(DockerClient dockerClient, String imageReference) {
+    // Input validation
+    Objects.requireNonNull(dockerClient);
+    Path tarballPath = getTarballPath(imageReference);
+
+    if (!Files.isRegularFile(tarballPath)) {
+      return false;
+    }
+    logger.info("Loading docker image '" + imageReference + "' from '" + tarballPath + "'");
+    try (FileChannel tarballChannel = FileChannel.open(tarballPath, StandardOpenOption.READ);
+        InputStream tarball = new GZIPInputStream(Channels.newInputStream(tarballChannel),
+            streamBufferSize)) {
+      dockerClient.loadImageCmd(tarball)
+          .exec();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return true;
+  }
+
+  /**
+   * Removes the tarball of the specified image from the cache, if it's cached.
+   *
+   * @param imageReference Image in the repository:tag format.
+   */
+  public void remove(String imageReference) {
+    try {
+      Files.deleteIfExists(getTarballPath(imageReference));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns the paths of all cached tarballs.
+   *
+   * @return Tarball paths.
+   */
+  public List<Path> getTarballPaths() {
+    if (!Files.isDirectory(cacheDirectory)) {
+      return List.of();
+    }
+    try (Stream<Path> paths = Files.list(cacheDirectory)) {
+      return paths.filter(path -> path.getFileName()
+          .toString()
+          .endsWith(tarballExtension))
+          .sorted()
+          .collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,303 @@
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Metrics registry that keeps, per image and phase, an operation counter, a failure counter and a
+ * histogram of operation durations with fixed millisecond buckets. Queue waits are kept the same
+ * way per operation class, and the resource usage of removed containers per image and container
+ * name.
+ */
+public class InMemoryDockerMetricsRegistry implements DockerMetricsRegistry {
+
+  /**
+   * Image reference under which operations on an unknown image are recorded.
+   */
+  public static final String unknownImageReference = "unknown";
+
+  /**
+   * Inclusive upper bounds of the histogram buckets, in milliseconds. Operations taking longer
+   * than the last bound are counted in an overflow bucket.
+   */
+  private static final long[] bucketUpperBoundsInMs = {
+      10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000, 120_000, 300_000
+  };
+
+  private final Map<String, Map<DockerOperationPhase, PhaseRecorder>> recorders =
+      new ConcurrentHashMap<>();
+  private final Map<DockerOperationClass, PhaseRecorder> queueWaitRecorders =
+      new ConcurrentHashMap<>();
+  private final Map<String, Map<String, ContainerStats>> containerStats =
+      new ConcurrentHashMap<>();
+
+  @Override
+  public void recordOperation(String imageReference, DockerOperationPhase phase,
+      Duration duration, boolean successful) {
+    // Input validation
+    Objects.requireNonNull(phase);
+    Objects.requireNonNull(duration);
+
+    recorders.computeIfAbsent(
+        Objects.requireNonNullElse(imageReference, unknownImageReference),
+        key -> new ConcurrentHashMap<>()
+    )
+        .computeIfAbsent(phase, key -> new PhaseRecorder())
+        .record(duration, successful);
+  }
+
+  @Override
+  public void recordQueueWait(DockerOperationClass operationClass, Duration waitTime) {
+    // Input validation
+    Objects.requireNonNull(operationClass);
+    Objects.requireNonNull(waitTime);
+
+    queueWaitRecorders.computeIfAbsent(operationClass, key -> new PhaseRecorder())
+        .record(waitTime, true);
+  }
+
+  @Override
+  public void recordContainerStats(String imageReference, ContainerStats containerStats) {
+    // Input validation
+    Objects.requireNonNull(containerStats);
+
+    // A container recreated under the same name replaces its previous summary
+    this.containerStats.computeIfAbsent(
+        Objects.requireNonNullElse(imageReference, unknownImageReference),
+        key -> new ConcurrentHashMap<>()
+    )
+        .put(containerStats.getContainerName(), containerStats);
+  }
+
+  /**
+   * Returns the resource usage recorded for the removed containers of an image.
+   *
+   * @param imageReference Reference of the image, i.e. "repository:tag", or null for containers
+   *                       of unknown images.
+   * @return Summaries of the containers' resource usage by container name, empty if nothing was
+   *     recorded.
+   */
+  public Map<String, ContainerStats> getContainerStats(String imageReference) {
+    return Map.copyOf(containerStats.getOrDefault(
+        Objects.requireNonNullElse(imageReference, unknownImageReference),
+        Map.of()
+    ));
+  }
+
+  /**
+   * Returns a snapshot of the queue waits recorded for an operation class.
+   *
+   * @param operationClass Class of the docker daemon calls.
+   * @return Snapshot of the recorded queue waits, all zero if nothing was recorded.
+   */
+  public PhaseMetrics getQueueWaitMetrics(DockerOperationClass operationClass) {
+    PhaseRecorder recorder = queueWaitRecorders.get(Objects.requireNonNull(operationClass));
+    return (recorder == null) ? new PhaseRecorder().snapshot() : recorder.snapshot();
+  }
+
+  /**
+   * Returns a snapshot of the metrics recorded for an image and phase.
+   *
+   * @param imageReference Reference of the image, i.e. "repository:tag", or null for operations
+   *                       on unknown images.
+   * @param phase          Lifecycle phase.
+   * @return Snapshot of the recorded metrics, all zero if nothing was recorded.
+   */
+  public PhaseMetrics getMetrics(String imageReference, DockerOperationPhase phase) {
+    // Input validation
+    Objects.requireNonNull(phase);
+
+    PhaseRecorder recorder = recorders.getOrDefault(
+        Objects.requireNonNullElse(imageReference, unknownImageReference),
+        Map.of()
+    )
+        .get(phase);
+    return (recorder == null) ? new PhaseRecorder().snapshot() : recorder.snapshot();
+  }
+
+  /**
+   * Returns the references of all images for which metrics were recorded.
+   *
+   * @return Image references.
+   */
+  public List<String> getImageReferences() {
+    return List.copyOf(recorders.keySet());
+  }
+
+  /**
+   * Discards all recorded metrics.
+   */
+  public void reset() {
+    recorders.clear();
+    queueWaitRecorders.clear();
+    containerStats.clear();
+  }
+
+  /**
+   * Returns the inclusive upper bounds of the histogram buckets.
+   *
+   * @return Upper bounds of the buckets, excluding the overflow bucket.
+   */
+  public static List<Duration> getBucketUpperBounds() {
+    return Arrays.stream(bucketUpperBoundsInMs)
+        .mapToObj(Duration::ofMillis)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Lock free recorder of the operations of a single image and phase.
+   */
+  private static class PhaseRecorder {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final LongAdder totalDurationInNs = new LongAdder();
+    private final LongAccumulator maxDurationInNs = new LongAccumulator(Math::max, 0);
+    private final AtomicLongArray bucketCounts =
+        new AtomicLongArray(bucketUpperBoundsInMs.length + 1);
+
+    void record(Duration duration, boolean successful) {
+      long durationInNs = duration.toNanos();
+      count.increment();
+      if (!successful) {
+        failureCount.increment();
+      }
+      totalDurationInNs.add(durationInNs);
+      maxDurationInNs.accumulate(durationInNs);
+      bucketCounts.incrementAndGet(getBucketIndex(duration.toMillis()));
+    }
+
+    PhaseMetrics snapshot() {
+      long[] buckets = new long[bucketCounts.length()];
+      for (int index = 0; index < buckets.length; index++) {
+        buckets[index] = bucketCounts.get(index);
+      }
+      return new PhaseMetrics(count.sum(), failureCount.sum(), totalDurationInNs.sum(),
+          maxDurationInNs.get(), buckets);
+    }
+
+    private static int getBucketIndex(long durationInMs) {
+      int index = Arrays.binarySearch(bucketUpperBoundsInMs, durationInMs);
+      return (index >= 0) ? index : -index - 1;
+    }
+  }
+
+  /**
+   * Snapshot of the metrics recorded for a single image and phase.
+   */
+  public static class PhaseMetrics {
+
+    private final long count;
+    private final long failureCount;
+    private final long totalDurationInNs;
+    private final long maxDurationInNs;
+    private final long[] bucketCounts;
+
+    PhaseMetrics(long count, long failureCount, long totalDurationInNs, long maxDurationInNs,
+        long[] bucketCounts) {
+      this.count = count;
+      this.failureCount = failureCount;
+      this.totalDurationInNs = totalDurationInNs;
+      this.maxDurationInNs = maxDurationInNs;
+      this.bucketCounts = bucketCounts;
+    }
+
+    /**
+     * Returns the number of recorded operations.
+     *
+     * @return Number of operations.
+     */
+    public long getCount() {
+      return this.count;
+    }
+
+    /**
+     * Returns the number of recorded operations that failed.
+     *
+     * @return Number of failed operations.
+     */
+    public long getFailureCount() {
+      return this.failureCount;
+    }
+
+    /**
+     * Returns the total time taken by the recorded operations.
+     *
+     * @return Total duration.
+     */
+    public Duration getTotalDuration() {
+      return Duration.ofNanos(this.totalDurationInNs);
+    }
+
+    /**
+     * Returns the mean time taken by the recorded operations.
+     *
+     * @return Mean duration, zero if nothing was recorded.
+     */
+    public Duration getMeanDuration() {
+      return (count == 0) ? Duration.ZERO : Duration.ofNanos(totalDurationInNs / count);
+    }
+
+    /**
+     * Returns the longest time taken by a recorded operation.
+     *
+     * @return Maximum duration.
+     */
+    public Duration getMaxDuration() {
+      return Duration.ofNanos(this.maxDurationInNs);
+    }
+
+    /**
+     * Returns the number of operations per histogram bucket. The bucket at index i counts the
+     * operations that took at most the i-th bound of
+     * {@link InMemoryDockerMetricsRegistry#getBucketUpperBounds()}, and more than the previous
+     * bound. The last bucket counts operations that took longer than all bounds.
+     *
+     * @return Operation count per bucket.
+     */
+    public long[] getBucketCounts() {
+      return this.bucketCounts.clone();
+    }
+
+    /**
+     * Returns an upper bound of the specified percentile of the operation durations, as resolved
+     * by the histogram buckets.
+     *
+     * @param percentile Percentile to return, between 0 and 100.
+     * @return Upper bound of the bucket containing the percentile, the maximum duration if it's in
+     *     the overflow bucket, or zero if nothing was recorded.
+     */
+    public Duration getPercentile(double percentile) {
+      if (percentile < 0 || percentile > 100) {
+        throw new IllegalArgumentException(
+            "Percentile should be between 0 and 100, but is " + percentile);
+      }
+      long rank = (long) Math.ceil(count * percentile / 100);
+      long cumulativeCount = 0;
+      for (int index = 0; index < bucketUpperBoundsInMs.length; index++) {
+        cumulativeCount += bucketCounts[index];
+        if (cumulativeCount >= Math.max(rank, 1)) {
+          return Duration.ofMillis(bucketUpperBoundsInMs[index]);
+        }
+      }
+      return getMaxDuration();
+    }
+
+    @Override
+    public String toString() {
+      return "PhaseMetrics{"
+          + "count=" + count
+          + ", failureCount=" + failureCount
+          + ", meanDuration=" + getMeanDuration()
+          + ", maxDuration=" + getMaxDuration()
+          + ", bucketCounts=" + Arrays.toString(bucketCounts)
+          + '}';
+    }
+  }
+}
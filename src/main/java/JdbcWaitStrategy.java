@@ -0,0 +1,49 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Waits until a "SELECT 1" query succeeds over JDBC. The JDBC driver for the database has to be on
+ * the classpath.
+ */
+public class JdbcWaitStrategy extends AWaitStrategy {
+
+  private final int containerPort;
+  private final String urlFormat;
+  private final String username;
+  private final String password;
+
+  public JdbcWaitStrategy(int containerPort, String urlFormat, String username, String password,
+      Duration startupTimeout) {
+    super(startupTimeout);
+    this.containerPort = containerPort;
+    this.urlFormat = Objects.requireNonNull(urlFormat);
+    this.username = username;
+    this.password = password;
+  }
+
+  @Override
+  protected boolean isReady(WaitStrategyTarget target) {
+    String connectionUrl = String.format(
+        urlFormat, target.getHost(), target.getMappedPort(containerPort));
+    try (
+        Connection connection = (username == null)
+            ? DriverManager.getConnection(connectionUrl)
+            : DriverManager.getConnection(connectionUrl, username, password);
+        Statement statement = connection.createStatement()
+    ) {
+      statement.execute("SELECT 1");
+      return true;
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "JDBC SELECT 1 on port " + containerPort;
+  }
+}
@@ -0,0 +1,89 @@
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Waits until the container has logged a line matching a regex a specified number of times. If the
+ * container's output is followed by a {@link ContainerLogStream}, it's notified of the matching
+ * line, else it polls the container's logs.
+ */
+public class LogMessageWaitStrategy extends AWaitStrategy {
+
+  private static final Logger logger = LogManager.getLogger(LogMessageWaitStrategy.class);
+
+  private final Pattern pattern;
+  private final int times;
+
+  public LogMessageWaitStrategy(String regex, int times, Duration startupTimeout) {
+    super(startupTimeout);
+    Objects.requireNonNull(regex);
+    if (times < 1) {
+      throw new IllegalArgumentException("times should be at least 1, but is " + times);
+    }
+    this.pattern = Pattern.compile(regex, Pattern.MULTILINE);
+    this.times = times;
+  }
+
+  @Override
+  public void waitUntilReady(WaitStrategyTarget target)
+      throws InterruptedException, TimeoutException {
+    Objects.requireNonNull(target);
+    ContainerLogStream logStream = target.getLogStream();
+    if (logStream == null) {
+      super.waitUntilReady(target);
+      return;
+    }
+
+    logger.info("Waiting up to " + getStartupTimeout() + " for container '"
+        + target.getContainerName() + "' to be ready (" + this + ")");
+    long startTime = System.nanoTime();
+    CompletableFuture<String> match = logStream.awaitMatch(pattern, times);
+    try {
+      match.get(getStartupTimeout().toNanos(), TimeUnit.NANOSECONDS);
+      logger.info("Container '" + target.getContainerName() + "' is ready after "
+          + Duration.ofNanos(System.nanoTime() - startTime).toMillis() + " ms");
+    } catch (ExecutionException e) {
+      if (!target.isRunning()) {
+        throw new IllegalStateException(
+            "Container '" + target.getContainerName() + "' stopped before it was ready");
+      }
+      // The stream ended for another reason, e.g. a dropped connection, poll for the time left
+      logger.debug("Log stream of container '" + target.getContainerName()
+          + "' ended, polling its logs instead");
+      Duration remainingTimeout = getStartupTimeout().minusNanos(System.nanoTime() - startTime);
+      pollUntilReady(target, remainingTimeout.isNegative() ? Duration.ZERO : remainingTimeout);
+    } catch (TimeoutException e) {
+      throw new TimeoutException(
+          "Container '" + target.getContainerName() + "' wasn't ready within "
+              + getStartupTimeout() + " (" + this + ")");
+    } finally {
+      match.cancel(false);
+    }
+  }
+
+  @Override
+  protected boolean isReady(WaitStrategyTarget target) {
+    String logs = target.getLogs();
+    if (logs == null) {
+      return false;
+    }
+    Matcher matcher = pattern.matcher(logs);
+    int matches = 0;
+    while (matches < times && matcher.find()) {
+      matches++;
+    }
+    return matches >= times;
+  }
+
+  @Override
+  public String toString() {
+    return "log message '" + pattern + "' x" + times;
+  }
+}
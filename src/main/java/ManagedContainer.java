@@ -0,0 +1,102 @@
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A running container created by {@link DockerUtility}, along with the information needed to
+ * connect to it.
+ */
+public class ManagedContainer {
+
+  private final DockerImage dockerImage;
+  private final String containerName;
+  private final String host;
+  private final Map<Integer, Integer> mappedPorts;
+  private final ContainerLogStream logStream;
+  private final ContainerStatsCollector statsCollector;
+
+  ManagedContainer(DockerImage dockerImage, String containerName, String host,
+      Map<Integer, Integer> mappedPorts, ContainerLogStream logStream,
+      ContainerStatsCollector statsCollector) {
+    this.dockerImage = Objects.requireNonNull(dockerImage);
+    this.containerName = Objects.requireNonNull(containerName);
+    this.host = Objects.requireNonNull(host);
+    this.mappedPorts = Map.copyOf(mappedPorts);
+    this.logStream = logStream;
+    this.statsCollector = statsCollector;
+  }
+
+  /**
+   * Returns the docker image the container was created from.
+   *
+   * @return Docker image of the container.
+   */
+  public DockerImage getDockerImage() {
+    return this.dockerImage;
+  }
+
+  /**
+   * Returns the name of the container.
+   *
+   * @return Name of the container.
+   */
+  public String getContainerName() {
+    return this.containerName;
+  }
+
+  /**
+   * Returns the host name/IP address on which the container's ports are published.
+   *
+   * @return Host name/IP address of the docker host.
+   */
+  public String getHost() {
+    return this.host;
+  }
+
+  /**
+   * Returns the host port that the specified container port is published on.
+   *
+   * @param containerPort Port exposed by the container.
+   * @return The host port mapped to the container port.
+   */
+  public int getMappedPort(int containerPort) {
+    Integer mappedPort = mappedPorts.get(containerPort);
+    if (mappedPort == null) {
+      throw new IllegalArgumentException(
+          "Port " + containerPort + " of container '" + containerName + "' isn't published");
+    }
+    return mappedPort;
+  }
+
+  /**
+   * Returns the host ports the container's ports are published on, keyed by container port.
+   *
+   * @return Mapping of container ports to host ports.
+   */
+  public Map<Integer, Integer> getMappedPorts() {
+    return this.mappedPorts;
+  }
+
+  /**
+   * Returns the stream following the container's output, which keeps its most recent lines for
+   * diagnostics and notifies subscribers of new ones.
+   *
+   * @return Log stream of the container, null if its output isn't followed.
+   */
+  public ContainerLogStream getLogStream() {
+    return this.logStream;
+  }
+
+  /**
+   * Returns the collector of the container's resource usage.
+   *
+   * @return Stats collector of the container, null if its resource usage isn't collected.
+   */
+  public ContainerStatsCollector getStatsCollector() {
+    return this.statsCollector;
+  }
+
+  @Override
+  public String toString() {
+    return this.containerName + " (" + this.dockerImage.name() + ") " + this.mappedPorts;
+  }
+}
@@ -0,0 +1,197 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Trades durability for speed in containers that are thrown away after use: data directories kept
+ * in memory, durability settings turned off through the service's command line arguments, and
+ * resource limits so that more containers can be packed on a host. Profiles are immutable, every
+ * with method returns a modified copy.
+ */
+public class PerformanceProfile {
+
+  /**
+   * Default tmpfs mount options.
+   */
+  public static final String defaultTmpfsOptions = "rw";
+
+  private final Map<String, String> tmpfsMounts;
+  private final List<String> commandArguments;
+  private final Long memoryLimitInBytes;
+  private final Double cpus;
+  private final String cpusetCpus;
+
+  /**
+   * Creates an empty profile, which leaves containers unchanged.
+   */
+  public PerformanceProfile() {
+    this(Map.of(), List.of(), null, null, null);
+  }
+
+  private PerformanceProfile(Map<String, String> tmpfsMounts, List<String> commandArguments,
+      Long memoryLimitInBytes, Double cpus, String cpusetCpus) {
+    this.tmpfsMounts = Collections.unmodifiableMap(new LinkedHashMap<>(tmpfsMounts));
+    this.commandArguments = List.copyOf(commandArguments);
+    this.memoryLimitInBytes = memoryLimitInBytes;
+    this.cpus = cpus;
+    this.cpusetCpus = cpusetCpus;
+  }
+
+  /**
+   * Returns a copy of this profile that mounts an in memory filesystem at the specified path,
+   * with the default options.
+   *
+   * @param containerPath Absolute path in the container, e.g. the service's data directory.
+   * @return Modified copy of this profile.
+   */
+  public PerformanceProfile withTmpfs(String containerPath) {
+    return withTmpfs(containerPath, defaultTmpfsOptions);
+  }
+
+  /**
+   * Returns a copy of this profile that mounts an in memory filesystem at the specified path.
+   *
+   * @param containerPath Absolute path in the container, e.g. the service's data directory.
+   * @param options       Mount options, e.g. "rw,size=512m".
+   * @return Modified copy of this profile.
+   */
+  public PerformanceProfile withTmpfs(String containerPath, String options) {
+    // Input validation
+    Objects.requireNonNull(containerPath);
+    Objects.requireNonNull(options);
+    if (!containerPath.startsWith("/")) {
+      throw new IllegalArgumentException(
+          "tmpfs mount path should be absolute, but is '" + containerPath + "'");
+    }
+
+    Map<String, String> modifiedTmpfsMounts = new LinkedHashMap<>(tmpfsMounts);
+    modifiedTmpfsMounts.put(containerPath, options);
+    return new PerformanceProfile(modifiedTmpfsMounts, commandArguments, memoryLimitInBytes,
+        cpus, cpusetCpus);
+  }
+
+  /**
+   * Returns a copy of this profile that passes the specified arguments to the image's entrypoint,
+   * in addition to the arguments already in this profile. The official database images start
+   * their service with the arguments when the first one is an option, e.g. "-c fsync=off" for
+   * postgres.
+   *
+   * @param commandArguments Arguments to add.
+   * @return Modified copy of this profile.
+   */
+  public PerformanceProfile withCommandArguments(String... commandArguments) {
+    // Input validation
+    Objects.requireNonNull(commandArguments);
+    Arrays.stream(commandArguments)
+        .forEach(Objects::requireNonNull);
+
+    List<String> modifiedCommandArguments = new ArrayList<>(this.commandArguments);
+    modifiedCommandArguments.addAll(Arrays.asList(commandArguments));
+    return new PerformanceProfile(tmpfsMounts, modifiedCommandArguments, memoryLimitInBytes,
+        cpus, cpusetCpus);
+  }
+
+  /**
+   * Returns a copy of this profile that limits the memory of the container. Memory used by tmpfs
+   * mounts counts towards the limit.
+   *
+   * @param memoryLimitInBytes Memory limit in bytes.
+   * @return Modified copy of this profile.
+   */
+  public PerformanceProfile withMemoryLimit(long memoryLimitInBytes) {
+    if (memoryLimitInBytes <= 0) {
+      throw new IllegalArgumentException(
+          "Memory limit should be positive, but is " + memoryLimitInBytes);
+    }
+    return new PerformanceProfile(tmpfsMounts, commandArguments, memoryLimitInBytes, cpus,
+        cpusetCpus);
+  }
+
+  /**
+   * Returns a copy of this profile that limits the CPU time of the container.
+   *
+   * @param cpus Number of CPUs worth of time the container may use, e.g. 0.5.
+   * @return Modified copy of this profile.
+   */
+  public PerformanceProfile withCpus(double cpus) {
+    if (cpus <= 0) {
+      throw new IllegalArgumentException("Number of CPUs should be positive, but is " + cpus);
+    }
+    return new PerformanceProfile(tmpfsMounts, commandArguments, memoryLimitInBytes, cpus,
+        cpusetCpus);
+  }
+
+  /**
+   * Returns a copy of this profile that pins the container to the specified CPUs.
+   *
+   * @param cpusetCpus CPUs the container may run on, e.g. "0-3" or "0,2".
+   * @return Modified copy of this profile.
+   */
+  public PerformanceProfile withCpusetCpus(String cpusetCpus) {
+    // Input validation
+    Objects.requireNonNull(cpusetCpus);
+
+    return new PerformanceProfile(tmpfsMounts, commandArguments, memoryLimitInBytes, cpus,
+        cpusetCpus);
+  }
+
+  /**
+   * Returns the tmpfs mounts.
+   *
+   * @return Mount options per container path.
+   */
+  public Map<String, String> getTmpfsMounts() {
+    return this.tmpfsMounts;
+  }
+
+  /**
+   * Returns the arguments passed to the image's entrypoint.
+   *
+   * @return Command arguments, empty if the image's default command is kept.
+   */
+  public List<String> getCommandArguments() {
+    return this.commandArguments;
+  }
+
+  /**
+   * Returns the memory limit.
+   *
+   * @return Memory limit in bytes, null if the memory isn't limited.
+   */
+  public Long getMemoryLimitInBytes() {
+    return this.memoryLimitInBytes;
+  }
+
+  /**
+   * Returns the CPU time limit.
+   *
+   * @return Number of CPUs worth of time, null if the CPU time isn't limited.
+   */
+  public Double getCpus() {
+    return this.cpus;
+  }
+
+  /**
+   * Returns the CPUs the container is pinned to.
+   *
+   * @return CPUs the container may run on, null if it isn't pinned.
+   */
+  public String getCpusetCpus() {
+    return this.cpusetCpus;
+  }
+
+  @Override
+  public String toString() {
+    return "PerformanceProfile{"
+        + "tmpfsMounts=" + tmpfsMounts
+        + ", commandArguments=" + commandArguments
+        + ", memoryLimitInBytes=" + memoryLimitInBytes
+        + ", cpus=" + cpus
+        + ", cpusetCpus='" + cpusetCpus + '\''
+        + '}';
+  }
+}
@@ -0,0 +1,66 @@
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Policy to choose the docker daemon a {@link DockerHostPool} creates a container on.
+ */
+@FunctionalInterface
+public interface PlacementPolicy {
+
+  /**
+   * Chooses the docker daemon to create the specified container on.
+   *
+   * @param containerSpec    Container to place.
+   * @param dockerHostStates States of the candidate docker daemons, never empty.
+   * @return State of the chosen docker daemon.
+   */
+  DockerHostState place(ContainerSpec containerSpec, List<DockerHostState> dockerHostStates);
+
+  /**
+   * Returns a policy that places containers on the docker daemon running the fewest containers.
+   * Ties go to the earlier daemon.
+   *
+   * @return Least running containers placement policy.
+   */
+  static PlacementPolicy leastRunningContainers() {
+    return (containerSpec, dockerHostStates) -> dockerHostStates.stream()
+        .min(Comparator.comparingInt(DockerHostState::getRunningContainerCount))
+        .orElseThrow();
+  }
+
+  /**
+   * Returns a policy that places containers on the docker daemon with the most memory not
+   * reserved by the memory limits of running containers. Ties go to the earlier daemon.
+   *
+   * @return Most available memory placement policy.
+   */
+  static PlacementPolicy mostAvailableMemory() {
+    return (containerSpec, dockerHostStates) -> dockerHostStates.stream()
+        .max(Comparator.comparingLong(DockerHostState::getAvailableMemoryInBytes))
+        .orElseThrow();
+  }
+
+  /**
+   * Returns a policy that places containers on the docker daemons already having the container's
+   * image, to skip the pull, choosing among them with the specified policy. If no daemon has the
+   * image, the specified policy chooses among all of them.
+   *
+   * @param placementPolicy Policy choosing among the daemons having the image.
+   * @return Image present placement policy.
+   */
+  static PlacementPolicy preferImagePresent(PlacementPolicy placementPolicy) {
+    Objects.requireNonNull(placementPolicy);
+    return (containerSpec, dockerHostStates) -> {
+      List<DockerHostState> dockerHostStatesWithImage = dockerHostStates.stream()
+          .filter(dockerHostState -> dockerHostState.isImagePresent(
+              containerSpec.getDockerImage()))
+          .collect(Collectors.toList());
+      return placementPolicy.place(
+          containerSpec,
+          dockerHostStatesWithImage.isEmpty() ? dockerHostStates : dockerHostStatesWithImage
+      );
+    };
+  }
+}
@@ -0,0 +1,23 @@
+/**
+ * Determines when an image is pulled before a container is created from it.
+ */
+public enum PullPolicy {
+  /**
+   * Always pull the image, even if it is present locally.
+   */
+  ALWAYS,
+  /**
+   * Pull the image only if it isn't present locally.
+   */
+  IF_NOT_PRESENT,
+  /**
+   * Never pull the image, fail if it isn't present locally. Lets containers be started fully
+   * offline.
+   */
+  NEVER,
+  /**
+   * Pull the image if it isn't present locally, or if the registry's digest for its tag differs
+   * from the local one. If the registry can't be reached, a local image is used as is.
+   */
+  IF_DIGEST_CHANGED
+}
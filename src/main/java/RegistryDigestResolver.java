@@ -0,0 +1,173 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves the manifest digest that a registry currently serves for an image tag, using an HTTP
+ * HEAD request against the registry's V2 API. Anonymous bearer tokens are fetched when the
+ * registry asks for them. Resolved digests are cached for a configurable time to limit registry
+ * round trips.
+ */
+public class RegistryDigestResolver {
+
+  private static final String dockerHubRegistry = "registry-1.docker.io";
+  private static final String manifestMediaTypes = String.join(", ",
+      "application/vnd.docker.distribution.manifest.list.v2+json",
+      "application/vnd.docker.distribution.manifest.v2+json",
+      "application/vnd.oci.image.index.v1+json",
+      "application/vnd.oci.image.manifest.v1+json"
+  );
+  private static final Pattern authenticateParameterPattern = Pattern.compile(
+      "(\\w+)=\"([^\"]*)\"");
+  private static final Pattern tokenPattern = Pattern.compile(
+      "\"(?:token|access_token)\"\\s*:\\s*\"([^\"]+)\"");
+  private static final int requestTimeoutInMs = 5_000;
+
+  /**
+   * A resolved digest along with the time at which it was resolved.
+   */
+  private static class ResolvedDigest {
+
+    private final String digest;
+    private final long resolvedAtInNs;
+
+    ResolvedDigest(String digest) {
+      this.digest = digest;
+      this.resolvedAtInNs = System.nanoTime();
+    }
+  }
+
+  private final Duration cacheDuration;
+  private final Map<String, ResolvedDigest> resolvedDigests = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a resolver.
+   *
+   * @param cacheDuration Time for which a resolved digest is reused.
+   */
+  public RegistryDigestResolver(Duration cacheDuration) {
+    this.cacheDuration = Objects.requireNonNull(cacheDuration);
+  }
+
+  /**
+   * Returns the digest that the registry currently serves for the specified docker image.
+   *
+   * @param dockerImage Docker image whose digest is to be resolved.
+   * @return Manifest digest, e.g. "sha256:...".
+   * @throws IOException When the registry can't be reached or doesn't return a digest.
+   */
+  public String resolveDigest(DockerImage dockerImage) throws IOException {
+    // Input validation
+    Objects.requireNonNull(dockerImage);
+
+    String imageReference = dockerImage.getRepository() + ":" + dockerImage.getImageTag();
+    ResolvedDigest resolvedDigest = resolvedDigests.get(imageReference);
+    if (resolvedDigest != null
+        && System.nanoTime() - resolvedDigest.resolvedAtInNs < cacheDuration.toNanos()) {
+      return resolvedDigest.digest;
+    }
+
+    String registry = dockerHubRegistry;
+    String repositoryPath = dockerImage.getRepository();
+    int firstSlash = repositoryPath.indexOf('/');
+    if (firstSlash > 0) {
+      String firstComponent = repositoryPath.substring(0, firstSlash);
+      if (firstComponent.contains(".") || firstComponent.contains(":")
+          || firstComponent.equals("localhost")) {
+        registry = firstComponent;
+        repositoryPath = repositoryPath.substring(firstSlash + 1);
+      }
+    } else {
+      // Official docker hub images live under the "library" namespace
+      repositoryPath = "library/" + repositoryPath;
+    }
+    URL manifestUrl = new URL(String.format(
+        "https://%s/v2/%s/manifests/%s", registry, repositoryPath, dockerImage.getImageTag()));
+
+    HttpURLConnection connection = openManifestConnection(manifestUrl, null);
+    if (connection.getResponseCode() == HttpURLConnection.HTTP_UNAUTHORIZED) {
+      String token = fetchAnonymousToken(connection.getHeaderField("WWW-Authenticate"));
+      connection.disconnect();
+      connection = openManifestConnection(manifestUrl, token);
+    }
+    try {
+      int responseCode = connection.getResponseCode();
+      String digest = connection.getHeaderField("Docker-Content-Digest");
+      if (responseCode != HttpURLConnection.HTTP_OK || digest == null) {
+        throw new IOException("Unable to resolve digest of '" + imageReference + "' from "
+            + manifestUrl + ", response code - " + responseCode);
+      }
+      resolvedDigests.put(imageReference, new ResolvedDigest(digest));
+      return digest;
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  private static HttpURLConnection openManifestConnection(URL manifestUrl, String token)
+      throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) manifestUrl.openConnection();
+    connection.setRequestMethod("HEAD");
+    connection.setConnectTimeout(requestTimeoutInMs);
+    connection.setReadTimeout(requestTimeoutInMs);
+    connection.setRequestProperty("Accept", manifestMediaTypes);
+    if (token != null) {
+      connection.setRequestProperty("Authorization", "Bearer " + token);
+    }
+    return connection;
+  }
+
+  /**
+   * Fetches an anonymous pull token from the realm specified in a bearer challenge.
+   *
+   * @param authenticateHeader Value of the WWW-Authenticate response header.
+   * @return Bearer token.
+   * @throws IOException When the challenge isn't a bearer challenge or the token request fails.
+   */
+  private static String fetchAnonymousToken(String authenticateHeader) throws IOException {
+    if (authenticateHeader == null || !authenticateHeader.startsWith("Bearer ")) {
+      throw new IOException("Unsupported registry authentication challenge - "
+          + authenticateHeader);
+    }
+    String realm = null;
+    StringBuilder query = new StringBuilder();
+    Matcher matcher = authenticateParameterPattern.matcher(authenticateHeader);
+    while (matcher.find()) {
+      if (matcher.group(1).equals("realm")) {
+        realm = matcher.group(2);
+      } else {
+        query.append(query.length() == 0 ? "?" : "&")
+            .append(matcher.group(1))
+            .append('=')
+            .append(URLEncoder.encode(matcher.group(2), StandardCharsets.UTF_8));
+      }
+    }
+    if (realm == null) {
+      throw new IOException("No realm in registry authentication challenge - "
+          + authenticateHeader);
+    }
+
+    HttpURLConnection connection = (HttpURLConnection) new URL(realm + query).openConnection();
+    connection.setConnectTimeout(requestTimeoutInMs);
+    connection.setReadTimeout(requestTimeoutInMs);
+    try (InputStream inputStream = connection.getInputStream()) {
+      String response = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+      Matcher tokenMatcher = tokenPattern.matcher(response);
+      if (!tokenMatcher.find()) {
+        throw new IOException("No token in registry token response from " + realm);
+      }
+      return tokenMatcher.group(1);
+    } finally {
+      connection.disconnect();
+    }
+  }
+}
@@ -0,0 +1,434 @@
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.model.Image;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Caches snapshots of initialized containers as locally tagged images, so that containers of slow
+ * booting images, which spend most of their startup on first boot initialization, can be started
+ * from already initialized state. A snapshot is keyed by its docker image and a hash of the
+ * image's configuration, the container's performance profile and the local image ID, so pulling a
+ * newer image invalidates its snapshots. The profile is part of the key as the container's command,
+ * e.g. durability flags, is committed into the snapshot.
+ * Data in the volumes declared by an image isn't part of a committed image, so it is archived
+ * alongside the snapshot and copied into containers started from it. At most the configured
+ * number of snapshots is kept, the least recently used ones are evicted first.
+ */
+public class SnapshotCache {
+
+  /**
+   * Repository prefix of snapshot images.
+   */
+  public static final String snapshotRepositoryPrefix = "adya-snapshot/";
+  private static final String snapshotLabel = "io.github.padaiyal.adya.snapshot";
+  private static final String sourceImageLabel = "io.github.padaiyal.adya.snapshot.source";
+  private static final String sourceImageIdLabel = "io.github.padaiyal.adya.snapshot.source.id";
+  private static final Logger logger = LogManager.getLogger(SnapshotCache.class);
+
+  private final DockerUtility dockerUtility;
+  private final DockerClient dockerClient;
+  private final int maxSnapshots;
+  private final Path volumeArchiveDirectory;
+  private final Map<String, Long> lastUsedTimes = new ConcurrentHashMap<>();
+  private final Set<String> inFlightSnapshots = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Creates a snapshot cache that archives volume data in the temporary directory.
+   *
+   * @param dockerUtility Docker utility to manage snapshots with.
+   * @param maxSnapshots  Maximum number of snapshots to keep.
+   */
+  public SnapshotCache(DockerUtility dockerUtility, int maxSnapshots) {
+    this(dockerUtility, maxSnapshots,
+        Paths.get(System.getProperty("java.io.tmpdir"), "adya-snapshots"));
+  }
+
+  /**
+   * Creates a snapshot cache.
+   *
+   * @param dockerUtility          Docker utility to manage snapshots with.
+   * @param maxSnapshots           Maximum number of snapshots to keep.
+   * @param volumeArchiveDirectory Directory in which the data of declared volumes is archived.
+   */
+  public SnapshotCache(DockerUtility dockerUtility, int maxSnapshots,
+      Path volumeArchiveDirectory) {
+    this.dockerUtility = Objects.requireNonNull(dockerUtility);
+    this.dockerClient = dockerUtility.getDockerClient();
+    this.volumeArchiveDirectory = Objects.requireNonNull(volumeArchiveDirectory);
+    if (maxSnapshots < 1) {
+      throw new IllegalArgumentException(
+          "Maximum number of snapshots should be at least 1, but is " + maxSnapshots);
+    }
+    this.maxSnapshots = maxSnapshots;
+  }
+
+  /**
+   * Returns the reference of the snapshot image for the current configuration and local copy of
+   * the specified docker image, for containers created without a performance profile.
+   *
+   * @param dockerImage Docker image.
+   * @return Snapshot image reference, in the repository:tag format, or null if the docker image
+   *     isn't present locally.
+   */
+  public String getSnapshotReference(DockerImage dockerImage) {
+    return getSnapshotReference(dockerImage, null);
+  }
+
+  /**
+   * Returns the reference of the snapshot image for the current configuration and local copy of
+   * the specified docker image, for containers created with the specified performance profile.
+   *
+   * @param dockerImage        Docker image.
+   * @param performanceProfile Performance profile of the containers, or null if they have none.
+   * @return Snapshot image reference, in the repository:tag format, or null if the docker image
+   *     isn't present locally.
+   */
+  public String getSnapshotReference(DockerImage dockerImage,
+      PerformanceProfile performanceProfile) {
+    // Input validation
+    Objects.requireNonNull(dockerImage);
+
+    String imageId = getImageId(dockerImage);
+    if (imageId == null) {
+      return null;
+    }
+    String configurationHash = ConfigurationHashes.hash(Stream.of(
+        Stream.of(getImageReference(dockerImage), imageId, String.valueOf(performanceProfile)),
+        Arrays.stream(dockerImage.getEnvironmentVariables())
+            .sorted(),
+        dockerImage.getPortBindings()
+            .keySet()
+            .stream()
+            .sorted()
+            .map(String::valueOf)
+    )
+        .flatMap(configuration -> configuration));
+    return snapshotRepositoryPrefix + dockerImage.name()
+        .toLowerCase() + ":" + configurationHash;
+  }
+
+  /**
+   * Checks if there's a snapshot for the current configuration and local copy of the specified
+   * docker image, for containers created without a performance profile.
+   *
+   * @param dockerImage Docker image.
+   * @return true if there's a snapshot, else false.
+   */
+  public boolean hasSnapshot(DockerImage dockerImage) {
+    return hasSnapshot(dockerImage, null);
+  }
+
+  /**
+   * Checks if there's a snapshot for the current configuration and local copy of the specified
+   * docker image, for containers created with the specified performance profile.
+   *
+   * @param dockerImage        Docker image.
+   * @param performanceProfile Performance profile of the containers, or null if they have none.
+   * @return true if there's a snapshot, else false.
+   */
+  public boolean hasSnapshot(DockerImage dockerImage, PerformanceProfile performanceProfile) {
+    String snapshotReference = getSnapshotReference(dockerImage, performanceProfile);
+    return snapshotReference != null && dockerUtility.doesImageExist(snapshotReference);
+  }
+
+  /**
+   * Snapshots a ready container created without a performance profile into the cache.
+   *
+   * @param managedContainer Ready container to snapshot.
+   * @see #snapshot(ManagedContainer, PerformanceProfile)
+   */
+  public void snapshot(ManagedContainer managedContainer) {
+    snapshot(managedContainer, null);
+  }
+
+  /**
+   * Snapshots a ready container into the cache, unless there already is a snapshot for its docker
+   * image and performance profile. The container is paused while it's snapshotted, so that its
+   * filesystem and volumes are captured consistently. Snapshots of older local copies of the same
+   * docker image are invalidated, and the least recently used snapshots are evicted if the cache
+   * is full.
+   *
+   * @param managedContainer   Ready container to snapshot.
+   * @param performanceProfile Performance profile the container was created with, or null if it
+   *                           has none.
+   */
+  public void snapshot(ManagedContainer managedContainer, PerformanceProfile performanceProfile) {
+    // Input validation
+    Objects.requireNonNull(managedContainer);
+
+    DockerImage dockerImage = managedContainer.getDockerImage();
+    String containerName = managedContainer.getContainerName();
+    String imageId = getImageId(dockerImage);
+    String snapshotReference = getSnapshotReference(dockerImage, performanceProfile);
+    if (imageId == null || snapshotReference == null
+        || dockerUtility.doesImageExist(snapshotReference)
+        || !inFlightSnapshots.add(snapshotReference)) {
+      return;
+    }
+    try {
+      logger.info("Snapshotting container '" + containerName + "' into '" + snapshotReference
+          + "'");
+      List<String> volumePaths = getVolumePaths(dockerImage);
+      dockerUtility.schedule(DockerOperationClass.START,
+          () -> dockerClient.pauseContainerCmd(containerName)
+              .exec());
+      try {
+        archiveVolumes(containerName, snapshotReference, volumePaths);
+        String[] snapshotReferenceParts = snapshotReference.split(":");
+        dockerUtility.schedule(DockerOperationClass.CREATE,
+            () -> dockerClient.commitCmd(containerName)
+                .withRepository(snapshotReferenceParts[0])
+                .withTag(snapshotReferenceParts[1])
+                .withLabels(Map.of(snapshotLabel, "true",
+                    sourceImageLabel, getImageReference(dockerImage),
+                    sourceImageIdLabel, imageId))
+                .withPause(false)
+                .exec());
+      } finally {
+        dockerUtility.schedule(DockerOperationClass.START,
+            () -> dockerClient.unpauseContainerCmd(containerName)
+                .exec());
+      }
+      lastUsedTimes.put(snapshotReference, System.currentTimeMillis());
+
+      // Snapshots of older local copies of the image can't be used anymore
+      listSnapshotImages(dockerImage).stream()
+          .filter(snapshotImage -> snapshotImage.getLabels() == null
+              || !imageId.equals(snapshotImage.getLabels()
+              .get(sourceImageIdLabel)))
+          .map(Image::getRepoTags)
+          .filter(Objects::nonNull)
+          .flatMap(Arrays::stream)
+          .forEach(this::removeSnapshot);
+      evict();
+    } finally {
+      inFlightSnapshots.remove(snapshotReference);
+    }
+  }
+
+  /**
+   * Copies the archived volume data of a snapshot into a container created from it, before it is
+   * started.
+   *
+   * @param snapshotReference Snapshot image reference.
+   * @param containerName     Name of the created container.
+   */
+  void restoreVolumes(String snapshotReference, String containerName) {
+    Path snapshotArchiveDirectory = getArchiveDirectory(snapshotReference);
+    if (Files.isDirectory(snapshotArchiveDirectory)) {
+      try (Stream<Path> archives = Files.list(snapshotArchiveDirectory)) {
+        for (Path archive : archives.sorted().collect(Collectors.toList())) {
+          // Archives are named "<index>.<encoded parent directory of the volume>.tar"
+          String remotePath = new String(
+              Base64.getUrlDecoder()
+                  .decode(archive.getFileName()
+                      .toString()
+                      .split("\\.")[1]),
+              StandardCharsets.UTF_8
+          );
+          dockerUtility.schedule(DockerOperationClass.PULL, () -> {
+            try (InputStream archiveStream = Files.newInputStream(archive)) {
+              dockerClient.copyArchiveToContainerCmd(containerName)
+                  .withTarInputStream(archiveStream)
+                  .withRemotePath(remotePath)
+                  .exec();
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    lastUsedTimes.put(snapshotReference, System.currentTimeMillis());
+  }
+
+  /**
+   * Removes all snapshots of the specified docker image.
+   *
+   * @param dockerImage Docker image whose snapshots are to be removed.
+   */
+  public void invalidate(DockerImage dockerImage) {
+    // Input validation
+    Objects.requireNonNull(dockerImage);
+
+    listSnapshotReferences(dockerImage).forEach(this::removeSnapshot);
+  }
+
+  /**
+   * Removes all snapshots.
+   */
+  public void invalidateAll() {
+    getSnapshotReferences().forEach(this::removeSnapshot);
+  }
+
+  /**
+   * Returns the references of all snapshot images.
+   *
+   * @return Snapshot image references.
+   */
+  public List<String> getSnapshotReferences() {
+    return listSnapshotImages().stream()
+        .map(Image::getRepoTags)
+        .filter(Objects::nonNull)
+        .flatMap(Arrays::stream)
+        .filter(repoTag -> repoTag.startsWith(snapshotRepositoryPrefix))
+        .collect(Collectors.toList());
+  }
+
+  private List<String> listSnapshotReferences(DockerImage dockerImage) {
+    return listSnapshotImages(dockerImage).stream()
+        .map(Image::getRepoTags)
+        .filter(Objects::nonNull)
+        .flatMap(Arrays::stream)
+        .collect(Collectors.toList());
+  }
+
+  private List<Image> listSnapshotImages(DockerImage dockerImage) {
+    String snapshotRepository = snapshotRepositoryPrefix + dockerImage.name()
+        .toLowerCase() + ":";
+    return listSnapshotImages().stream()
+        .filter(snapshotImage -> snapshotImage.getRepoTags() != null
+            && Arrays.stream(snapshotImage.getRepoTags())
+            .anyMatch(repoTag -> repoTag.startsWith(snapshotRepository)))
+        .collect(Collectors.toList());
+  }
+
+  private String getImageId(DockerImage dockerImage) {
+    try {
+      return dockerUtility.schedule(DockerOperationClass.INSPECT,
+          () -> dockerClient.inspectImageCmd(getImageReference(dockerImage))
+              .exec())
+          .getId();
+    } catch (NotFoundException e) {
+      return null;
+    }
+  }
+
+  private List<Image> listSnapshotImages() {
+    return dockerUtility.schedule(DockerOperationClass.INSPECT, () -> dockerClient.listImagesCmd()
+        .withLabelFilter(Map.of(snapshotLabel, "true"))
+        .exec());
+  }
+
+  /**
+   * Removes the least recently used snapshots beyond the maximum number of snapshots. Snapshots
+   * that haven't been used by this cache are ordered by their creation time.
+   */
+  private void evict() {
+    List<Image> snapshotImages = new ArrayList<>(listSnapshotImages());
+    if (snapshotImages.size() <= maxSnapshots) {
+      return;
+    }
+    snapshotImages.sort(Comparator.comparingLong(snapshotImage -> {
+      String[] repoTags = snapshotImage.getRepoTags();
+      Long lastUsedTime = (repoTags == null || repoTags.length == 0) ? null
+          : lastUsedTimes.get(repoTags[0]);
+      return (lastUsedTime != null) ? lastUsedTime : snapshotImage.getCreated() * 1000;
+    }));
+    snapshotImages.subList(0, snapshotImages.size() - maxSnapshots)
+        .stream()
+        .map(Image::getRepoTags)
+        .filter(Objects::nonNull)
+        .flatMap(Arrays::stream)
+        .forEach(this::removeSnapshot);
+  }
+
+  private void removeSnapshot(String snapshotReference) {
+    logger.info("Removing snapshot '" + snapshotReference + "'");
+    try {
+      dockerUtility.schedule(DockerOperationClass.TEARDOWN,
+          () -> dockerClient.removeImageCmd(snapshotReference)
+              .exec());
+    } catch (NotFoundException e) {
+      // Already removed
+    } catch (RuntimeException e) {
+      // E.g. a container still uses the snapshot, it'll be evicted later
+      logger.warn("Unable to remove snapshot '" + snapshotReference + "' - " + e.getMessage());
+      return;
+    }
+    lastUsedTimes.remove(snapshotReference);
+    Path snapshotArchiveDirectory = getArchiveDirectory(snapshotReference);
+    if (Files.isDirectory(snapshotArchiveDirectory)) {
+      try (Stream<Path> archives = Files.list(snapshotArchiveDirectory)) {
+        for (Path archive : archives.collect(Collectors.toList())) {
+          Files.delete(archive);
+        }
+        Files.delete(snapshotArchiveDirectory);
+      } catch (IOException e) {
+        logger.warn("Unable to delete volume archives of snapshot '" + snapshotReference + "'",
+            e);
+      }
+    }
+  }
+
+  private List<String> getVolumePaths(DockerImage dockerImage) {
+    Map<String, ?> volumes = dockerUtility.schedule(DockerOperationClass.INSPECT,
+        () -> dockerClient.inspectImageCmd(getImageReference(dockerImage))
+            .exec())
+        .getConfig()
+        .getVolumes();
+    return (volumes == null) ? List.of() : new ArrayList<>(volumes.keySet());
+  }
+
+  private void archiveVolumes(String containerName, String snapshotReference,
+      List<String> volumePaths) {
+    if (volumePaths.isEmpty()) {
+      return;
+    }
+    Path snapshotArchiveDirectory = getArchiveDirectory(snapshotReference);
+    try {
+      Files.createDirectories(snapshotArchiveDirectory);
+      for (int index = 0; index < volumePaths.size(); index++) {
+        String volumePath = volumePaths.get(index);
+        Path volumeParentPath = Paths.get(volumePath)
+            .getParent();
+        // The archive's root entry is the volume directory, so it's extracted into its parent
+        String remotePath = (volumeParentPath == null) ? "/" : volumeParentPath.toString();
+        Path archive = snapshotArchiveDirectory.resolve(
+            index + "." + Base64.getUrlEncoder()
+                .encodeToString(remotePath.getBytes(StandardCharsets.UTF_8)) + ".tar");
+        dockerUtility.schedule(DockerOperationClass.PULL, () -> {
+          try (InputStream volumeArchive = dockerClient.copyArchiveFromContainerCmd(containerName,
+              volumePath)
+              .exec()) {
+            Files.copy(volumeArchive, archive, StandardCopyOption.REPLACE_EXISTING);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Path getArchiveDirectory(String snapshotReference) {
+    return volumeArchiveDirectory.resolve(snapshotReference.replaceAll("[/:]", "_"));
+  }
+
+  private static String getImageReference(DockerImage dockerImage) {
+    return dockerImage.getRepository() + ":" + dockerImage.getImageTag();
+  }
+}
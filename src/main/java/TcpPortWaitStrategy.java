@@ -0,0 +1,39 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+
+/**
+ * Waits until a TCP connection to a published container port can be established. Note that with
+ * docker's userland proxy the host port may accept connections before the service inside the
+ * container does, prefer a protocol level strategy where one is available.
+ */
+public class TcpPortWaitStrategy extends AWaitStrategy {
+
+  private static final int connectTimeoutInMs = 1_000;
+
+  private final int containerPort;
+
+  public TcpPortWaitStrategy(int containerPort, Duration startupTimeout) {
+    super(startupTimeout);
+    this.containerPort = containerPort;
+  }
+
+  @Override
+  protected boolean isReady(WaitStrategyTarget target) {
+    try (Socket socket = new Socket()) {
+      socket.connect(
+          new InetSocketAddress(target.getHost(), target.getMappedPort(containerPort)),
+          connectTimeoutInMs
+      );
+      return true;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "TCP port " + containerPort;
+  }
+}
@@ -0,0 +1,20 @@
+/**
+ * Determines how a container is stopped and removed.
+ */
+public enum TeardownPolicy {
+  /**
+   * Stop the container, giving its service the default grace period to shut down, then remove
+   * it. Its volumes are kept.
+   */
+  GRACEFUL,
+  /**
+   * Kill the container immediately, then remove it along with its anonymous volumes.
+   */
+  KILL,
+  /**
+   * Kill the container immediately and free its name, then remove it along with its anonymous
+   * volumes on a background {@link ContainerReaper}. Suits disposable containers whose removal
+   * shouldn't hold up the caller.
+   */
+  KILL_AND_REAP
+}
@@ -0,0 +1,208 @@
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Serves many concurrent leases from a single container per docker image, each lease getting its
+ * own freshly created tenant: a database, schema or index prefix with its own credentials, see
+ * {@link DockerImage#getTenantProvisioner()}. This gives test parallelism without the memory of a
+ * container per test. The shared containers are started on their first lease and publish their
+ * ports on free host ports. Released tenants are dropped in the background.
+ */
+public class TenantContainerPool implements AutoCloseable {
+
+  private static final Logger logger = LogManager.getLogger(TenantContainerPool.class);
+
+  private final DockerUtility dockerUtility;
+  private final String poolId = UUID.randomUUID()
+      .toString()
+      .substring(0, 8);
+  private final AtomicInteger tenantSequence = new AtomicInteger();
+  private final Map<DockerImage, CompletableFuture<ManagedContainer>> sharedContainers =
+      new ConcurrentHashMap<>();
+  private final Map<DockerImage, AtomicInteger> leaseCounts = new ConcurrentHashMap<>();
+  private final ExecutorService dropExecutor;
+  private volatile boolean closed = false;
+
+  /**
+   * Creates a tenant container pool.
+   *
+   * @param dockerUtility       Docker utility used to manage the shared containers.
+   * @param maxConcurrentDrops  Maximum number of released tenants dropped at a time.
+   */
+  public TenantContainerPool(DockerUtility dockerUtility, int maxConcurrentDrops) {
+    // Input validation
+    Objects.requireNonNull(dockerUtility);
+    if (maxConcurrentDrops < 1) {
+      throw new IllegalArgumentException(
+          "Maximum concurrent drops should be at least 1, but is " + maxConcurrentDrops);
+    }
+
+    this.dockerUtility = dockerUtility;
+    this.dropExecutor = Executors.newFixedThreadPool(
+        maxConcurrentDrops,
+        runnable -> {
+          Thread thread = new Thread(runnable, "adya-tenant-pool-" + poolId);
+          thread.setDaemon(true);
+          return thread;
+        }
+    );
+  }
+
+  /**
+   * Leases a new tenant in the shared container of the specified docker image, starting the
+   * container if it isn't running yet.
+   *
+   * @param dockerImage Docker image of the shared container.
+   * @return Lease of the created tenant.
+   * @throws InterruptedException When starting the container or creating the tenant is
+   *                              interrupted.
+   */
+  public TenantLease lease(DockerImage dockerImage) throws InterruptedException {
+    // Input validation
+    Objects.requireNonNull(dockerImage);
+    TenantProvisioner tenantProvisioner = dockerImage.getTenantProvisioner();
+    if (tenantProvisioner == null) {
+      throw new IllegalArgumentException("Docker image '" + dockerImage.name()
+          + "' doesn't support tenants");
+    }
+    if (closed) {
+      throw new IllegalStateException("Tenant container pool " + poolId + " is closed");
+    }
+
+    ManagedContainer managedContainer = getSharedContainer(dockerImage);
+    String tenantName = "adya_" + poolId + "_" + tenantSequence.incrementAndGet();
+    // Mixed case letters, digits and a symbol satisfy the default password policies
+    String password = tenantProvisioner.hasCredentials() ? "Adya-" + UUID.randomUUID()
+        .toString()
+        .replace("-", "") : null;
+    try {
+      tenantProvisioner.createTenant(dockerUtility, managedContainer, tenantName,
+          (password == null) ? "" : password);
+    } catch (TimeoutException e) {
+      throw new RuntimeException(e);
+    }
+    leaseCounts.computeIfAbsent(dockerImage, key -> new AtomicInteger())
+        .incrementAndGet();
+    TenantLease tenantLease = new TenantLease(this, managedContainer, tenantName, password);
+    logger.info("Leased " + tenantLease);
+    return tenantLease;
+  }
+
+  /**
+   * Drops a released tenant in the background.
+   *
+   * @param tenantLease Lease of the released tenant.
+   */
+  void release(TenantLease tenantLease) {
+    Objects.requireNonNull(tenantLease);
+    logger.info("Released " + tenantLease);
+    leaseCounts.get(tenantLease.getDockerImage())
+        .decrementAndGet();
+    if (closed) {
+      // The tenant is removed along with the shared container
+      return;
+    }
+    try {
+      dropExecutor.execute(() -> {
+        try {
+          tenantLease.getDockerImage()
+              .getTenantProvisioner()
+              .dropTenant(dockerUtility, tenantLease.getManagedContainer(),
+                  tenantLease.getTenantName());
+        } catch (InterruptedException e) {
+          Thread.currentThread()
+              .interrupt();
+        } catch (RuntimeException | TimeoutException e) {
+          logger.warn("Unable to drop tenant '" + tenantLease.getTenantName() + "'", e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // The pool was closed concurrently, the tenant is removed along with the shared container
+    }
+  }
+
+  /**
+   * Returns the number of leased tenants in the shared container of the specified docker image.
+   *
+   * @param dockerImage Docker image to check.
+   * @return Number of leased tenants.
+   */
+  public int getLeaseCount(DockerImage dockerImage) {
+    return leaseCounts.getOrDefault(Objects.requireNonNull(dockerImage), new AtomicInteger())
+        .get();
+  }
+
+  /**
+   * Waits for the pending tenant drops and removes the shared containers, along with any tenants
+   * still leased.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    dropExecutor.shutdown();
+    try {
+      dropExecutor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    sharedContainers.values()
+        .forEach(sharedContainer -> {
+          try {
+            dockerUtility.removeContainerIfExists(sharedContainer.join()
+                .getContainerName(), TeardownPolicy.KILL);
+          } catch (CompletionException e) {
+            // The container didn't start
+          } catch (RuntimeException e) {
+            logger.error("Unable to remove shared container", e);
+          }
+        });
+  }
+
+  /**
+   * Returns the shared container of the specified docker image, starting it if it isn't running
+   * yet. Concurrent leases wait for the same start.
+   *
+   * @param dockerImage Docker image of the shared container.
+   * @return Running shared container.
+   */
+  private ManagedContainer getSharedContainer(DockerImage dockerImage)
+      throws InterruptedException {
+    CompletableFuture<ManagedContainer> start = new CompletableFuture<>();
+    CompletableFuture<ManagedContainer> sharedContainer = sharedContainers.putIfAbsent(
+        dockerImage, start);
+    if (sharedContainer == null) {
+      String containerName = "adya_tenants_" + dockerImage.name()
+          .toLowerCase() + "_" + poolId;
+      try {
+        start.complete(dockerUtility.createAndRunContainer(
+            new ContainerSpec(dockerImage, containerName)
+                .withRemoveContainerIfExists(true)
+                .withEphemeralPorts(true)
+        ));
+      } catch (RuntimeException | InterruptedException e) {
+        // A later lease retries the start
+        sharedContainers.remove(dockerImage, start);
+        start.completeExceptionally(e);
+        throw e;
+      }
+      sharedContainer = start;
+    }
+    try {
+      return sharedContainer.join();
+    } catch (CompletionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+  }
+}
@@ -0,0 +1,87 @@
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An isolated tenant inside a shared container, handed out by a {@link TenantContainerPool}.
+ * Closing the lease drops the tenant in the background.
+ */
+public class TenantLease implements AutoCloseable {
+
+  private final TenantContainerPool tenantContainerPool;
+  private final ManagedContainer managedContainer;
+  private final String tenantName;
+  private final String password;
+  private final AtomicBoolean released = new AtomicBoolean(false);
+
+  TenantLease(TenantContainerPool tenantContainerPool, ManagedContainer managedContainer,
+      String tenantName, String password) {
+    this.tenantContainerPool = Objects.requireNonNull(tenantContainerPool);
+    this.managedContainer = Objects.requireNonNull(managedContainer);
+    this.tenantName = Objects.requireNonNull(tenantName);
+    this.password = password;
+  }
+
+  /**
+   * Returns the docker image of the shared container.
+   *
+   * @return Docker image of the shared container.
+   */
+  public DockerImage getDockerImage() {
+    return this.managedContainer.getDockerImage();
+  }
+
+  /**
+   * Returns the shared container, along with the information needed to connect to it.
+   *
+   * @return Shared container.
+   */
+  public ManagedContainer getManagedContainer() {
+    return this.managedContainer;
+  }
+
+  /**
+   * Returns the name of the tenant. It's the name of the tenant's database or schema, or the
+   * prefix of its indices.
+   *
+   * @return Name of the tenant.
+   */
+  public String getTenantName() {
+    return this.tenantName;
+  }
+
+  /**
+   * Returns the name of the tenant's user, which is the tenant's name.
+   *
+   * @return Name of the tenant's user, null if the tenant has no credentials.
+   */
+  public String getUsername() {
+    return (password == null) ? null : this.tenantName;
+  }
+
+  /**
+   * Returns the password of the tenant's user.
+   *
+   * @return Password of the tenant's user, null if the tenant has no credentials.
+   */
+  public String getPassword() {
+    return this.password;
+  }
+
+  /**
+   * Releases the tenant, which is dropped in the background. Subsequent calls have no effect.
+   */
+  @Override
+  public void close() {
+    if (released.compareAndSet(false, true)) {
+      tenantContainerPool.release(this);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "TenantLease{"
+        + "containerName='" + managedContainer.getContainerName() + '\''
+        + ", tenantName='" + tenantName + '\''
+        + '}';
+  }
+}
@@ -0,0 +1,148 @@
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Creates and drops isolated tenants, i.e. a database, schema or index prefix along with its own
+ * credentials, inside a container shared by many tests. See {@link TenantContainerPool}.
+ */
+public interface TenantProvisioner {
+
+  /**
+   * Creates a tenant, owned by a user with the tenant's name and the specified password.
+   *
+   * @param dockerUtility    Docker utility managing the container.
+   * @param managedContainer Running container.
+   * @param tenantName       Name of the tenant, a lower case identifier.
+   * @param password         Password of the tenant's user.
+   * @throws InterruptedException When the wait is interrupted.
+   * @throws TimeoutException     When the tenant isn't created within the provisioner's timeout.
+   */
+  void createTenant(DockerUtility dockerUtility, ManagedContainer managedContainer,
+      String tenantName, String password) throws InterruptedException, TimeoutException;
+
+  /**
+   * Drops a tenant along with its data and user.
+   *
+   * @param dockerUtility    Docker utility managing the container.
+   * @param managedContainer Running container.
+   * @param tenantName       Name of the tenant.
+   * @throws InterruptedException When the wait is interrupted.
+   * @throws TimeoutException     When the tenant isn't dropped within the provisioner's timeout.
+   */
+  void dropTenant(DockerUtility dockerUtility, ManagedContainer managedContainer,
+      String tenantName) throws InterruptedException, TimeoutException;
+
+  /**
+   * Returns whether tenants get their own credentials. Tenants of services without users only
+   * get a namespace, e.g. an index prefix.
+   *
+   * @return true if tenants have their own user, else false.
+   */
+  boolean hasCredentials();
+
+  /**
+   * Returns a provisioner creating a postgres database per tenant, owned by the tenant's role.
+   * Other roles can't connect to it.
+   *
+   * @param timeout Maximum time to create or drop a tenant.
+   * @return Postgres tenant provisioner.
+   */
+  static TenantProvisioner forPostgres(Duration timeout) {
+    // Sessions in template1 would block concurrent CREATE DATABASE statements copying it
+    String prelude = DatabaseShellScripts.postgresPrelude + "export PGDATABASE=postgres\n";
+    return new ExecTenantProvisioner(
+        prelude
+            + "query \"CREATE ROLE \\\"$ADYA_TENANT\\\" LOGIN"
+            + " PASSWORD '$ADYA_TENANT_PASSWORD'\"\n"
+            + "query \"CREATE DATABASE \\\"$ADYA_TENANT\\\" OWNER \\\"$ADYA_TENANT\\\"\"\n"
+            + "query \"REVOKE ALL ON DATABASE \\\"$ADYA_TENANT\\\" FROM PUBLIC\"\n",
+        prelude
+            + "disconnect \"$ADYA_TENANT\"\n"
+            + "query \"DROP DATABASE IF EXISTS \\\"$ADYA_TENANT\\\"\"\n"
+            + "query \"DROP ROLE IF EXISTS \\\"$ADYA_TENANT\\\"\"\n",
+        true,
+        timeout
+    );
+  }
+
+  /**
+   * Returns a provisioner creating a MySQL schema per tenant, with a user granted all privileges
+   * on it only.
+   *
+   * @param timeout Maximum time to create or drop a tenant.
+   * @return MySQL tenant provisioner.
+   */
+  static TenantProvisioner forMySql(Duration timeout) {
+    return new ExecTenantProvisioner(
+        DatabaseShellScripts.mySqlPrelude
+            + "query \"CREATE DATABASE \\`$ADYA_TENANT\\`;"
+            + " CREATE USER '$ADYA_TENANT'@'%' IDENTIFIED BY '$ADYA_TENANT_PASSWORD';"
+            + " GRANT ALL PRIVILEGES ON \\`$ADYA_TENANT\\`.* TO '$ADYA_TENANT'@'%'\"\n",
+        DatabaseShellScripts.mySqlPrelude
+            + "query \"DROP DATABASE IF EXISTS \\`$ADYA_TENANT\\`;"
+            + " DROP USER IF EXISTS '$ADYA_TENANT'@'%'\"\n",
+        true,
+        timeout
+    );
+  }
+
+  /**
+   * Returns a provisioner creating a SQL Server database per tenant, owned by the tenant's
+   * login.
+   *
+   * @param timeout Maximum time to create or drop a tenant.
+   * @return SQL Server tenant provisioner.
+   */
+  static TenantProvisioner forSqlServer(Duration timeout) {
+    return new ExecTenantProvisioner(
+        DatabaseShellScripts.sqlServerPrelude
+            + "query \"CREATE LOGIN [$ADYA_TENANT] WITH PASSWORD = N'$ADYA_TENANT_PASSWORD',"
+            + " CHECK_POLICY = OFF; CREATE DATABASE [$ADYA_TENANT]\"\n"
+            + "query \"ALTER AUTHORIZATION ON DATABASE::[$ADYA_TENANT] TO [$ADYA_TENANT]\"\n",
+        DatabaseShellScripts.sqlServerPrelude
+            + "query \"IF DB_ID(N'$ADYA_TENANT') IS NOT NULL BEGIN"
+            + " ALTER DATABASE [$ADYA_TENANT] SET SINGLE_USER WITH ROLLBACK IMMEDIATE;"
+            + " DROP DATABASE [$ADYA_TENANT] END;"
+            + " IF SUSER_ID(N'$ADYA_TENANT') IS NOT NULL DROP LOGIN [$ADYA_TENANT]\"\n",
+        true,
+        timeout
+    );
+  }
+
+  /**
+   * Returns a provisioner creating a MongoDB database per tenant, with a user owning it.
+   *
+   * @param timeout Maximum time to create or drop a tenant.
+   * @return MongoDB tenant provisioner.
+   */
+  static TenantProvisioner forMongoDb(Duration timeout) {
+    return new ExecTenantProvisioner(
+        DatabaseShellScripts.mongoDbPrelude
+            + "evaluate \"db.getSiblingDB('$ADYA_TENANT').createUser({user: '$ADYA_TENANT',"
+            + " pwd: '$ADYA_TENANT_PASSWORD', roles: [{role: 'dbOwner', db: '$ADYA_TENANT'}]})\""
+            + " > /dev/null\n",
+        DatabaseShellScripts.mongoDbPrelude
+            + "evaluate \"var tenant = db.getSiblingDB('$ADYA_TENANT'); tenant.dropAllUsers();"
+            + " tenant.dropDatabase()\" > /dev/null\n",
+        true,
+        timeout
+    );
+  }
+
+  /**
+   * Returns a provisioner giving each tenant an Elasticsearch index prefix, the tenant's name
+   * followed by an underscore. Dropping a tenant deletes the indices with its prefix.
+   *
+   * @param timeout Maximum time to drop a tenant.
+   * @return Elasticsearch tenant provisioner.
+   */
+  static TenantProvisioner forElasticsearch(Duration timeout) {
+    return new ExecTenantProvisioner(
+        null,
+        DatabaseShellScripts.elasticsearchPrelude
+            + "request DELETE \"${ADYA_TENANT}_*?expand_wildcards=open,closed\"\n",
+        false,
+        timeout
+    );
+  }
+}
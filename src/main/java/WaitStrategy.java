@@ -0,0 +1,91 @@
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Strategy to determine when the service running inside a container is ready to accept requests.
+ */
+public interface WaitStrategy {
+
+  /**
+   * Blocks until the service in the specified container is ready.
+   *
+   * @param target Container to probe.
+   * @throws InterruptedException When the wait is interrupted.
+   * @throws TimeoutException     When the service isn't ready within the strategy's timeout.
+   */
+  void waitUntilReady(WaitStrategyTarget target) throws InterruptedException, TimeoutException;
+
+  /**
+   * Returns a strategy that doesn't wait at all.
+   *
+   * @return Strategy that returns immediately.
+   */
+  static WaitStrategy none() {
+    return target -> {
+    };
+  }
+
+  /**
+   * Returns a strategy that waits until a TCP connection to the specified container port can be
+   * established.
+   *
+   * @param containerPort  Container port to connect to.
+   * @param startupTimeout  Maximum time to wait for.
+   * @return TCP port wait strategy.
+   */
+  static WaitStrategy forListeningPort(int containerPort, Duration startupTimeout) {
+    return new TcpPortWaitStrategy(containerPort, startupTimeout);
+  }
+
+  /**
+   * Returns a strategy that waits until a log line matching the specified regex has been logged
+   * the specified number of times.
+   *
+   * @param regex          Regex that a log line has to match.
+   * @param times          Number of matching log lines to wait for.
+   * @param startupTimeout Maximum time to wait for.
+   * @return Log message wait strategy.
+   */
+  static WaitStrategy forLogMessage(String regex, int times, Duration startupTimeout) {
+    return new LogMessageWaitStrategy(regex, times, startupTimeout);
+  }
+
+  /**
+   * Returns a strategy that waits until an HTTP GET on the specified container port and path
+   * returns a 200 status code.
+   *
+   * @param containerPort  Container port serving HTTP.
+   * @param path           Path to request.
+   * @param startupTimeout Maximum time to wait for.
+   * @return HTTP wait strategy.
+   */
+  static WaitStrategy forHttp(int containerPort, String path, Duration startupTimeout) {
+    return new HttpWaitStrategy(containerPort, path, startupTimeout);
+  }
+
+  /**
+   * Returns a strategy that waits until a "SELECT 1" query succeeds over JDBC.
+   *
+   * @param containerPort  Container port the database listens on.
+   * @param urlFormat      JDBC URL format string, with a %s placeholder for the host and a %d
+   *                       placeholder for the mapped port.
+   * @param username       Username to log in with, null if it is part of the URL.
+   * @param password       Password to log in with, null if it is part of the URL.
+   * @param startupTimeout Maximum time to wait for.
+   * @return JDBC wait strategy.
+   */
+  static WaitStrategy forJdbc(int containerPort, String urlFormat, String username,
+      String password, Duration startupTimeout) {
+    return new JdbcWaitStrategy(containerPort, urlFormat, username, password, startupTimeout);
+  }
+
+  /**
+   * Returns a strategy that waits until the container's HEALTHCHECK reports "healthy".
+   *
+   * @param startupTimeout Maximum time to wait for.
+   * @return Docker HEALTHCHECK wait strategy.
+   */
+  static WaitStrategy forHealthcheck(Duration startupTimeout) {
+    return new HealthcheckWaitStrategy(startupTimeout);
+  }
+}
@@ -0,0 +1,60 @@
+/**
+ * View of a started container that a {@link WaitStrategy} probes to decide whether the service
+ * inside it is ready.
+ */
+public interface WaitStrategyTarget {
+
+  /**
+   * Returns the name of the container being waited on.
+   *
+   * @return Name of the container.
+   */
+  String getContainerName();
+
+  /**
+   * Returns the host name/IP address on which the container's published ports are reachable.
+   *
+   * @return Host name/IP address of the docker host.
+   */
+  String getHost();
+
+  /**
+   * Returns the host port that the specified container port is published on.
+   *
+   * @param containerPort Port exposed by the container.
+   * @return The host port mapped to the container port.
+   */
+  int getMappedPort(int containerPort);
+
+  /**
+   * Returns the output (STDOUT and STDERR) logged by the container so far.
+   *
+   * @return Container logs.
+   */
+  String getLogs();
+
+  /**
+   * Returns a stream following the container's output, if one is available. Log based strategies
+   * use it to be notified of matching lines instead of polling the logs.
+   *
+   * @return Log stream of the container, null if it isn't available.
+   */
+  default ContainerLogStream getLogStream() {
+    return null;
+  }
+
+  /**
+   * Returns the status reported by the container's HEALTHCHECK, or null if the image does not
+   * define one.
+   *
+   * @return Health status ("starting", "healthy" or "unhealthy"), null if not available.
+   */
+  String getHealthStatus();
+
+  /**
+   * Checks if the container is still running.
+   *
+   * @return true if the container is running, else false.
+   */
+  boolean isRunning();
+}
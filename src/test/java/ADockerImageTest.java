@@ -1,6 +1,14 @@
+import java.util.UUID;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
 
+/**
+ * Deploys docker images as containers and tests the services in them. Containers get unique names
+ * and ephemeral host ports, so the subclasses run concurrently.
+ */
+@Execution(ExecutionMode.CONCURRENT)
 public abstract class ADockerImageTest {
 
   /**
@@ -11,25 +19,18 @@ public abstract class ADockerImageTest {
   public abstract DockerImage[] getDockerImages();
 
   /**
-   * Returns the name to use for the test container.
+   * Returns the prefix of the name to use for the test container.
    *
-   * @return The name to use for the test container.
+   * @return The prefix of the name to use for the test container.
    */
   public abstract String getContainerName();
 
-  /**
-   * Returns the time to wait for the container to start up in milliseconds.
-   *
-   * @return The time to wait for the container to start up in milliseconds.
-   */
-  public abstract long getStartupWaitTimeInMs();
-
   /**
    * Test the service running in the docker container.
    *
-   * @param dockerImage Docker image that has been deployed to a container.
+   * @param managedContainer Container that the docker image has been deployed to.
    */
-  public abstract void testServiceInDockerContainer(DockerImage dockerImage);
+  public abstract void testServiceInDockerContainer(ManagedContainer managedContainer);
 
   /**
    * Deploy and test the pre-specified list of docker images as containers.
@@ -39,19 +40,22 @@ public abstract class ADockerImageTest {
   @Test
   public void testDockerContainerDeployment() throws InterruptedException {
     DockerImage[] dockerImages = getDockerImages();
-    for (DockerImage dockerImage : dockerImages) {
-      String containerName = getContainerName();
-      long startupWaitTimeInMs = getStartupWaitTimeInMs();
-      DockerUtility dockerUtility = new DockerUtility();
-      try {
-        // Create and run container
-        dockerUtility.createAndRunContainer(dockerImage, containerName, false);
-        // Wait for the container to start up
-        Thread.sleep(startupWaitTimeInMs);
-        // Test the service running in the container
-        Assertions.assertDoesNotThrow(() -> testServiceInDockerContainer(dockerImage));
-      } finally {
-        dockerUtility.removeContainerIfExists(containerName);
+    try (DockerUtility dockerUtility = new DockerUtility()) {
+      for (DockerImage dockerImage : dockerImages) {
+        String containerName = getContainerName() + "_" + UUID.randomUUID()
+            .toString()
+            .substring(0, 8);
+        try {
+          // Create and run container, this returns once the service in it is ready
+          ManagedContainer managedContainer = dockerUtility.createAndRunContainer(
+              new ContainerSpec(dockerImage, containerName)
+                  .withEphemeralPorts(true)
+          );
+          // Test the service running in the container
+          Assertions.assertDoesNotThrow(() -> testServiceInDockerContainer(managedContainer));
+        } finally {
+          dockerUtility.removeContainerIfExists(containerName);
+        }
       }
     }
   }
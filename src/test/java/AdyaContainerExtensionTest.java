@@ -0,0 +1,72 @@
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+@ExtendWith(AdyaContainerExtension.class)
+@Execution(ExecutionMode.CONCURRENT)
+public class AdyaContainerExtensionTest {
+
+  private static final Set<String> classContainerNames = ConcurrentHashMap.newKeySet();
+  private static final Set<String> methodContainerNames = ConcurrentHashMap.newKeySet();
+
+  @AdyaContainer(image = DockerImage.POSTGRESQL_LATEST, scope = AdyaContainer.Scope.SUITE)
+  private static ManagedContainer suiteContainer;
+
+  @AdyaContainer(image = DockerImage.POSTGRESQL_LATEST)
+  private ManagedContainer classContainer;
+
+  @AfterAll
+  public static void tearDown() {
+    // Both test methods shared the class scoped container, but had their own method scoped one
+    Assertions.assertEquals(1, classContainerNames.size());
+    Assertions.assertEquals(2, methodContainerNames.size());
+    DockerUtility dockerUtility = AdyaContainerExtension.getDockerUtility();
+    methodContainerNames.forEach(containerName -> Assertions.assertFalse(
+        dockerUtility.doesContainerExist(containerName, true)));
+    Assertions.assertTrue(dockerUtility.doesContainerExist(
+        suiteContainer.getContainerName(), false));
+  }
+
+  private void testContainers(ManagedContainer methodContainer) {
+    classContainerNames.add(classContainer.getContainerName());
+    methodContainerNames.add(methodContainer.getContainerName());
+    Assertions.assertNotEquals(suiteContainer.getContainerName(),
+        classContainer.getContainerName());
+    Assertions.assertNotEquals(classContainer.getContainerName(),
+        methodContainer.getContainerName());
+    for (ManagedContainer managedContainer : new ManagedContainer[]{suiteContainer,
+        classContainer, methodContainer}) {
+      PostgreSQLDockerImageTest.testPostgresSQLConnection(
+          managedContainer.getHost(),
+          managedContainer.getMappedPort(5432),
+          "postgres",
+          DockerImage.POSTGRESQL_LATEST.getEnvironmentVariable("POSTGRES_PASSWORD")
+      );
+    }
+  }
+
+  /**
+   * Tests that suite, class and method scoped containers are injected and reachable.
+   */
+  @Test
+  public void testInjectedContainers(
+      @AdyaContainer(image = DockerImage.POSTGRESQL_LATEST, scope = AdyaContainer.Scope.METHOD)
+          ManagedContainer methodContainer) {
+    testContainers(methodContainer);
+  }
+
+  /**
+   * Tests that concurrently running test methods share the class scoped container.
+   */
+  @Test
+  public void testInjectedContainersConcurrently(
+      @AdyaContainer(image = DockerImage.POSTGRESQL_LATEST, scope = AdyaContainer.Scope.METHOD)
+          ManagedContainer methodContainer) {
+    testContainers(methodContainer);
+  }
+}
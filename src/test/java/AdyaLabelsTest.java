@@ -0,0 +1,58 @@
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+public class AdyaLabelsTest {
+
+  private static final String hostName = AdyaLabels.getOwner()
+      .split("/")[0];
+
+  /**
+   * Tests that the session labels are added to a resource's labels.
+   */
+  @Test
+  public void testWithSessionLabels() {
+    Map<String, String> labels = AdyaLabels.withSessionLabels(Map.of("tier", "database"));
+    Assertions.assertEquals("database", labels.get("tier"));
+    Assertions.assertEquals(AdyaLabels.getSessionId(), labels.get(AdyaLabels.sessionLabel));
+    Assertions.assertEquals(AdyaLabels.getOwner(), labels.get(AdyaLabels.ownerLabel));
+  }
+
+  /**
+   * Tests that owners that can't be checked aren't considered dead.
+   */
+  @ParameterizedTest
+  @CsvSource({
+      "other-host/1/0",
+      "malformed",
+      "/not-a-pid/0"
+  })
+  public void testUncheckableOwners(String owner) {
+    Assertions.assertFalse(AdyaLabels.isOwnerDead(owner.startsWith("/") ? hostName + owner
+        : owner));
+  }
+
+  /**
+   * Tests that this JVM isn't considered dead.
+   */
+  @Test
+  public void testLiveOwner() {
+    Assertions.assertFalse(AdyaLabels.isOwnerDead(AdyaLabels.getOwner()));
+  }
+
+  /**
+   * Tests that exited processes, and processes that reuse an owner's pid, are considered dead.
+   */
+  @Test
+  public void testDeadOwners() throws Exception {
+    Process process = new ProcessBuilder("java", "-version").start();
+    process.waitFor();
+    Assertions.assertTrue(AdyaLabels.isOwnerDead(hostName + "/" + process.pid() + "/0"));
+
+    long pid = ProcessHandle.current()
+        .pid();
+    Assertions.assertTrue(AdyaLabels.isOwnerDead(hostName + "/" + pid + "/1"));
+  }
+}
@@ -0,0 +1,118 @@
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class AsyncDockerUtilityTest {
+
+  private static AsyncDockerUtility asyncDockerUtility;
+
+  @BeforeAll
+  public static void setUp() {
+    asyncDockerUtility = new AsyncDockerUtility(new DockerUtility());
+  }
+
+  @AfterAll
+  public static void tearDown() {
+    asyncDockerUtility.close();
+  }
+
+  /**
+   * Tests that an async operation fails with the same exception as its synchronous counterpart.
+   */
+  @Test
+  public void testExceptionIsPropagatedUnwrapped() {
+    CompletableFuture<Void> removal = asyncDockerUtility.removeContainerIfExists(null);
+
+    ExecutionException executionException = Assertions.assertThrows(
+        ExecutionException.class,
+        removal::get
+    );
+    Assertions.assertEquals(
+        NullPointerException.class,
+        executionException.getCause()
+            .getClass()
+    );
+  }
+
+  /**
+   * Tests bringing up several containers concurrently.
+   */
+  @Test
+  public void testCreateAndRunContainers() {
+    List<ContainerSpec> containerSpecs = List.of(
+        new ContainerSpec(DockerImage.POSTGRESQL_LATEST, "adya_async_test_1")
+            .withRemoveContainerIfExists(true)
+            .withEphemeralPorts(true),
+        new ContainerSpec(DockerImage.POSTGRESQL_LATEST, "adya_async_test_2")
+            .withRemoveContainerIfExists(true)
+            .withEphemeralPorts(true)
+    );
+
+    try {
+      Map<String, CompletableFuture<ManagedContainer>> containers = asyncDockerUtility
+          .createAndRunContainers(containerSpecs);
+      CompletableFuture.allOf(containers.values().toArray(CompletableFuture[]::new))
+          .join();
+
+      containers.forEach((containerName, container) -> {
+        Assertions.assertEquals(
+            containerName,
+            container.join()
+                .getContainerName()
+        );
+        Assertions.assertTrue(
+            asyncDockerUtility.doesContainerExist(containerName, false)
+                .join()
+        );
+      });
+    } finally {
+      CompletableFuture.allOf(
+          containerSpecs.stream()
+              .map(containerSpec -> asyncDockerUtility.removeContainerIfExists(
+                  containerSpec.getContainerName()))
+              .toArray(CompletableFuture[]::new)
+      ).join();
+    }
+  }
+
+  /**
+   * Tests the async counterparts of the pull, legacy creation and teardown methods against a fake
+   * docker engine.
+   */
+  @Test
+  public void testLegacyOperations() throws IOException {
+    try (FakeDockerEngine fakeDockerEngine = new FakeDockerEngine(Duration.ofMillis(200))
+        .start();
+        AsyncDockerUtility fakeEngineAsyncDockerUtility = new AsyncDockerUtility(
+            DockerUtility.builder()
+                .withDockerHost(fakeDockerEngine.getDockerHost())
+                .build())) {
+      Map<DockerImage, CompletableFuture<Void>> pulls = fakeEngineAsyncDockerUtility.pullImages(
+          List.of(DockerImage.POSTGRESQL_LATEST, DockerImage.POSTGRESQL_LATEST));
+      Assertions.assertEquals(1, pulls.size());
+      pulls.get(DockerImage.POSTGRESQL_LATEST)
+          .join();
+      Assertions.assertEquals(1, fakeDockerEngine.getPullCount());
+
+      fakeEngineAsyncDockerUtility.createAndRunContainer(DockerImage.POSTGRESQL_LATEST,
+          "adya_async_legacy", true, WaitStrategy.none())
+          .join();
+      Assertions.assertTrue(fakeDockerEngine.getContainerNames()
+          .contains("adya_async_legacy"));
+      fakeEngineAsyncDockerUtility.removeContainerIfExists("adya_async_legacy",
+          TeardownPolicy.KILL)
+          .join();
+      Assertions.assertFalse(fakeDockerEngine.getContainerNames()
+          .contains("adya_async_legacy"));
+      fakeEngineAsyncDockerUtility.getDockerUtility()
+          .close();
+    }
+  }
+}
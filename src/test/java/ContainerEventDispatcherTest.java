@@ -0,0 +1,152 @@
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ContainerEventDispatcherTest {
+
+  private FakeDockerEngine fakeDockerEngine;
+  private DockerUtility dockerUtility;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    fakeDockerEngine = new FakeDockerEngine(Duration.ZERO)
+        .withImages("elasticsearch:7.9.2")
+        .start();
+    dockerUtility = DockerUtility.builder()
+        .withDockerHost(fakeDockerEngine.getDockerHost())
+        .build();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    dockerUtility.close();
+    fakeDockerEngine.close();
+  }
+
+  /**
+   * Listener recording the events it receives as strings.
+   */
+  private static class RecordingListener implements ContainerEventListener {
+
+    private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+
+    @Override
+    public void onStart(String containerName) {
+      events.add("start " + containerName);
+    }
+
+    @Override
+    public void onDie(String containerName, Integer exitCode) {
+      events.add("die " + containerName + " " + exitCode);
+    }
+
+    @Override
+    public void onOom(String containerName) {
+      events.add("oom " + containerName);
+    }
+
+    @Override
+    public void onHealthStatus(String containerName, String healthStatus) {
+      events.add("health_status " + containerName + " " + healthStatus);
+    }
+
+    @Override
+    public void onDestroy(String containerName) {
+      events.add("destroy " + containerName);
+    }
+
+    String nextEvent() throws InterruptedException {
+      return events.poll(10, TimeUnit.SECONDS);
+    }
+  }
+
+  private void createAndRunContainer(String containerName) throws InterruptedException {
+    dockerUtility.createAndRunContainer(
+        new ContainerSpec(DockerImage.ELASTICSEARCH_7_9_2, containerName)
+            .withEphemeralPorts(true)
+            .withWaitStrategy(WaitStrategy.none())
+    );
+  }
+
+  /**
+   * Tests that the lifecycle events of a container are delivered to its listeners, and follow the
+   * container when it is renamed.
+   */
+  @Test
+  public void testLifecycleEvents() throws InterruptedException {
+    RecordingListener listener = new RecordingListener();
+    RecordingListener otherListener = new RecordingListener();
+    dockerUtility.addContainerEventListener("events_0", listener);
+    dockerUtility.addContainerEventListener("events_1", otherListener);
+    // Existence checks wait for the event stream to be connected
+    Assertions.assertFalse(dockerUtility.doesContainerExist("events_0", true));
+
+    createAndRunContainer("events_0");
+    Assertions.assertEquals("start events_0", listener.nextEvent());
+    fakeDockerEngine.reportHealthStatus("events_0", "healthy");
+    Assertions.assertEquals("health_status events_0 healthy", listener.nextEvent());
+
+    dockerUtility.getDockerClient()
+        .renameContainerCmd("events_0")
+        .withName("events_renamed")
+        .exec();
+    fakeDockerEngine.runOutOfMemory("events_renamed");
+    Assertions.assertEquals("oom events_renamed", listener.nextEvent());
+    Assertions.assertEquals("die events_renamed 137", listener.nextEvent());
+
+    dockerUtility.removeContainerIfExists("events_renamed", TeardownPolicy.KILL);
+    Assertions.assertEquals("destroy events_renamed", listener.nextEvent());
+    Assertions.assertTrue(otherListener.events.isEmpty());
+  }
+
+  /**
+   * Tests that removed listeners don't receive further events.
+   */
+  @Test
+  public void testRemoveListener() throws InterruptedException {
+    RecordingListener listener = new RecordingListener();
+    RecordingListener removedListener = new RecordingListener();
+    dockerUtility.addContainerEventListener("events_2", listener);
+    dockerUtility.addContainerEventListener("events_2", removedListener);
+    dockerUtility.removeContainerEventListener("events_2", removedListener);
+    Assertions.assertFalse(dockerUtility.doesContainerExist("events_2", true));
+
+    createAndRunContainer("events_2");
+    Assertions.assertEquals("start events_2", listener.nextEvent());
+    Assertions.assertTrue(removedListener.events.isEmpty());
+  }
+
+  /**
+   * Tests that waiting for a container that runs out of memory fails, naming the cause.
+   */
+  @Test
+  public void testWaitUntilReadyOutOfMemory() throws InterruptedException {
+    createAndRunContainer("events_3");
+    WaitStrategy outOfMemoryWaitStrategy = new AWaitStrategy(Duration.ofSeconds(30),
+        Duration.ofMillis(10)) {
+      private boolean outOfMemory = false;
+
+      @Override
+      protected boolean isReady(WaitStrategyTarget target) {
+        if (!outOfMemory) {
+          outOfMemory = true;
+          fakeDockerEngine.runOutOfMemory(target.getContainerName());
+        }
+        return false;
+      }
+    };
+
+    IllegalStateException exception = Assertions.assertThrows(
+        IllegalStateException.class,
+        () -> dockerUtility.waitUntilReady("events_3", outOfMemoryWaitStrategy)
+    );
+    Assertions.assertTrue(exception.getMessage()
+        .contains("ran out of memory"), exception.getMessage());
+  }
+}
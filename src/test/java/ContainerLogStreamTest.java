@@ -0,0 +1,137 @@
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientBuilder;
+import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class ContainerLogStreamTest {
+
+  private static FakeDockerEngine fakeDockerEngine;
+  private static DockerClient dockerClient;
+
+  @BeforeAll
+  public static void setUp() throws IOException {
+    fakeDockerEngine = new FakeDockerEngine(Duration.ZERO)
+        .withImages("postgres:latest")
+        .start();
+    DefaultDockerClientConfig dockerClientConfig = DefaultDockerClientConfig
+        .createDefaultConfigBuilder()
+        .withDockerHost(fakeDockerEngine.getDockerHost())
+        .build();
+    dockerClient = DockerClientBuilder.getInstance(dockerClientConfig)
+        .withDockerHttpClient(new ApacheDockerHttpClient.Builder()
+            .dockerHost(dockerClientConfig.getDockerHost())
+            .build())
+        .build();
+  }
+
+  @AfterAll
+  public static void tearDown() throws IOException {
+    dockerClient.close();
+    fakeDockerEngine.close();
+  }
+
+  private static void startContainer(String containerName) {
+    dockerClient.createContainerCmd("postgres:latest")
+        .withName(containerName)
+        .exec();
+    dockerClient.startContainerCmd(containerName)
+        .exec();
+  }
+
+  /**
+   * Tests that the ring buffer keeps the most recent lines, and that subscribers and triggers are
+   * notified of lines logged after the stream started.
+   */
+  @Test
+  public void testFollowLogs() throws Exception {
+    String containerName = "adya_log_stream_test";
+    startContainer(containerName);
+    fakeDockerEngine.log(containerName, "initializing");
+    fakeDockerEngine.log(containerName, "ready to accept connections");
+
+    try (ContainerLogStream logStream = new ContainerLogStream(dockerClient, containerName, 3)) {
+      List<String> subscribedLines = new CopyOnWriteArrayList<>();
+      logStream.subscribe(subscribedLines::add);
+      logStream.start();
+      CompletableFuture<String> match = logStream.awaitMatch(
+          "ready to accept connections \\(.*\\)", 2);
+
+      fakeDockerEngine.log(containerName, "restarting");
+      fakeDockerEngine.log(containerName, "ready to accept connections (1)");
+      Assertions.assertFalse(match.isDone());
+      fakeDockerEngine.log(containerName, "ready to accept connections (2)");
+      Assertions.assertEquals("ready to accept connections (2)",
+          match.get(10, TimeUnit.SECONDS));
+
+      // Lines logged before the stream started are passed to subscribers too
+      Assertions.assertEquals(5, subscribedLines.size());
+      Assertions.assertEquals(5, logStream.getLineCount());
+      Assertions.assertEquals(
+          List.of("restarting", "ready to accept connections (1)",
+              "ready to accept connections (2)"),
+          logStream.getLines()
+      );
+      Assertions.assertEquals(
+          "restarting\nready to accept connections (1)\nready to accept connections (2)\n",
+          logStream.getLogs()
+      );
+
+      // Matches still in the ring buffer count
+      Assertions.assertEquals("restarting", logStream.awaitMatch("restart", 1)
+          .get(10, TimeUnit.SECONDS));
+    }
+  }
+
+  /**
+   * Tests that pending triggers fail once the container stops.
+   */
+  @Test
+  public void testTriggerFailsWhenContainerStops() throws Exception {
+    String containerName = "adya_log_stream_stop_test";
+    startContainer(containerName);
+
+    try (ContainerLogStream logStream = new ContainerLogStream(dockerClient, containerName,
+        ContainerLogStream.defaultCapacityInLines).start()) {
+      CompletableFuture<String> match = logStream.awaitMatch("never logged", 1);
+      dockerClient.stopContainerCmd(containerName)
+          .exec();
+
+      ExecutionException executionException = Assertions.assertThrows(
+          ExecutionException.class,
+          () -> match.get(10, TimeUnit.SECONDS)
+      );
+      Assertions.assertEquals(IllegalStateException.class, executionException.getCause()
+          .getClass());
+      logStream.getCompletion()
+          .get(10, TimeUnit.SECONDS);
+      Assertions.assertTrue(logStream.isEnded());
+      Assertions.assertThrows(
+          ExecutionException.class,
+          () -> logStream.awaitMatch("never logged", 1)
+              .get()
+      );
+    }
+  }
+
+  /**
+   * Tests that an invalid capacity is rejected.
+   */
+  @Test
+  public void testInvalidCapacity() {
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> new ContainerLogStream(dockerClient, "adya_log_stream_test", 0)
+    );
+  }
+}
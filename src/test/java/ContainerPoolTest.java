@@ -0,0 +1,198 @@
+import java.io.IOException;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+public class ContainerPoolTest {
+
+  private static final DockerUtility dockerUtility = new DockerUtility();
+  private static final String readyLine = "database system is ready to accept connections";
+
+  /**
+   * Starts a fake docker engine whose postgres containers log the lines their wait strategy waits
+   * for.
+   *
+   * @return Started fake docker engine.
+   * @throws IOException When the fake docker engine can't be started.
+   */
+  private static FakeDockerEngine startFakeDockerEngine() throws IOException {
+    return new FakeDockerEngine(Duration.ZERO)
+        .withImages("postgres:latest")
+        .withStartupLog("postgres:latest", readyLine, readyLine)
+        .start();
+  }
+
+  private static DockerUtility createDockerUtility(FakeDockerEngine fakeDockerEngine) {
+    return DockerUtility.builder()
+        .withDockerHost(fakeDockerEngine.getDockerHost())
+        .build();
+  }
+
+  private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+    long deadlineInNs = System.nanoTime() + Duration.ofSeconds(10)
+        .toNanos();
+    while (!condition.getAsBoolean()) {
+      Assertions.assertTrue(System.nanoTime() < deadlineInNs);
+      Thread.sleep(50);
+    }
+  }
+
+  /**
+   * Tests that the container pool rejects invalid idle sizes.
+   *
+   * @param minIdle Minimum number of idle containers.
+   * @param maxIdle Maximum number of idle containers.
+   */
+  @ParameterizedTest
+  @CsvSource({
+      "-1, 1",
+      "0, 0",
+      "2, 1"
+  })
+  public void testInvalidIdleSizes(int minIdle, int maxIdle) {
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> new ContainerPool(dockerUtility, minIdle, maxIdle, Duration.ofMinutes(1))
+    );
+  }
+
+  /**
+   * Tests that a leased container is running, and that it is recycled once released.
+   *
+   * @throws InterruptedException If the container deployment is interrupted.
+   */
+  @Test
+  public void testLeaseAndRelease() throws InterruptedException {
+    try (ContainerPool containerPool = new ContainerPool(
+        dockerUtility, 0, 1, Duration.ofMinutes(1))) {
+      ContainerLease containerLease = containerPool.lease(DockerImage.POSTGRESQL_LATEST);
+      String containerName = containerLease.getContainerName();
+      Assertions.assertTrue(dockerUtility.doesContainerExist(containerName, false));
+      ManagedContainer managedContainer = containerLease.getManagedContainer();
+      PostgreSQLDockerImageTest.testPostgresSQLConnection(
+          managedContainer.getHost(),
+          managedContainer.getMappedPort(5432),
+          "postgres",
+          DockerImage.POSTGRESQL_LATEST.getEnvironmentVariable("POSTGRES_PASSWORD")
+      );
+
+      containerLease.close();
+      long deadline = System.currentTimeMillis() + 30_000;
+      while (dockerUtility.doesContainerExist(containerName, true)
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(500);
+      }
+      Assertions.assertFalse(dockerUtility.doesContainerExist(containerName, true));
+    }
+  }
+
+  /**
+   * Tests that warming up starts minIdle containers, and that leasing one of them starts another
+   * in its place.
+   */
+  @Test
+  public void testMinIdleReplenishment() throws Exception {
+    try (FakeDockerEngine fakeDockerEngine = startFakeDockerEngine();
+        DockerUtility fakeDockerUtility = createDockerUtility(fakeDockerEngine);
+        ContainerPool containerPool = new ContainerPool(
+            fakeDockerUtility, 2, 3, Duration.ofMinutes(1))) {
+      containerPool.warmUp(DockerImage.POSTGRESQL_LATEST);
+      awaitCondition(() -> containerPool.getIdleCount(DockerImage.POSTGRESQL_LATEST) == 2);
+
+      ContainerLease containerLease = containerPool.lease(DockerImage.POSTGRESQL_LATEST);
+      awaitCondition(() -> containerPool.getIdleCount(DockerImage.POSTGRESQL_LATEST) == 2);
+      Assertions.assertEquals(3, fakeDockerEngine.getContainerCount());
+      containerLease.close();
+    }
+  }
+
+  /**
+   * Tests that a container the reset handler resets is leased again, and that one it doesn't
+   * reset is recycled.
+   */
+  @Test
+  public void testResetHandlerReuseAndRecycle() throws Exception {
+    try (FakeDockerEngine fakeDockerEngine = startFakeDockerEngine();
+        DockerUtility fakeDockerUtility = createDockerUtility(fakeDockerEngine);
+        ContainerPool containerPool = new ContainerPool(fakeDockerUtility, 0, 1,
+            Duration.ofMinutes(1),
+            containerLease -> !containerLease.getContainerName().endsWith("_2"))) {
+      ContainerLease containerLease = containerPool.lease(DockerImage.POSTGRESQL_LATEST);
+      String containerName = containerLease.getContainerName();
+      containerLease.close();
+      awaitCondition(() -> containerPool.getIdleCount(DockerImage.POSTGRESQL_LATEST) == 1);
+      containerLease = containerPool.lease(DockerImage.POSTGRESQL_LATEST);
+      Assertions.assertEquals(containerName, containerLease.getContainerName());
+
+      // Containers leased alongside are named with the next sequence number, and not reset
+      ContainerLease otherContainerLease = containerPool.lease(DockerImage.POSTGRESQL_LATEST);
+      String otherContainerName = otherContainerLease.getContainerName();
+      Assertions.assertTrue(otherContainerName.endsWith("_2"));
+      otherContainerLease.close();
+      awaitCondition(() -> !fakeDockerEngine.getContainerNames()
+          .contains(otherContainerName));
+      Assertions.assertEquals(0, containerPool.getIdleCount(DockerImage.POSTGRESQL_LATEST));
+      containerLease.close();
+    }
+  }
+
+  /**
+   * Tests that released containers beyond maxIdle are recycled instead of returned to the pool.
+   */
+  @Test
+  public void testMaxIdleCap() throws Exception {
+    try (FakeDockerEngine fakeDockerEngine = startFakeDockerEngine();
+        DockerUtility fakeDockerUtility = createDockerUtility(fakeDockerEngine);
+        ContainerPool containerPool = new ContainerPool(fakeDockerUtility, 0, 1,
+            Duration.ofMinutes(1), containerLease -> true)) {
+      ContainerLease firstContainerLease = containerPool.lease(DockerImage.POSTGRESQL_LATEST);
+      ContainerLease secondContainerLease = containerPool.lease(DockerImage.POSTGRESQL_LATEST);
+      firstContainerLease.close();
+      awaitCondition(() -> containerPool.getIdleCount(DockerImage.POSTGRESQL_LATEST) == 1);
+      secondContainerLease.close();
+      awaitCondition(() -> fakeDockerEngine.getContainerCount() == 1);
+      Assertions.assertEquals(1, containerPool.getIdleCount(DockerImage.POSTGRESQL_LATEST));
+    }
+  }
+
+  /**
+   * Tests that containers idle for longer than maxIdleTime are evicted, down to minIdle.
+   */
+  @Test
+  public void testIdleContainerEviction() throws Exception {
+    try (FakeDockerEngine fakeDockerEngine = startFakeDockerEngine();
+        DockerUtility fakeDockerUtility = createDockerUtility(fakeDockerEngine);
+        ContainerPool containerPool = new ContainerPool(fakeDockerUtility, 1, 3,
+            Duration.ofMillis(100), containerLease -> true)) {
+      ContainerLease[] containerLeases = new ContainerLease[3];
+      for (int index = 0; index < containerLeases.length; index++) {
+        containerLeases[index] = containerPool.lease(DockerImage.POSTGRESQL_LATEST);
+      }
+      for (ContainerLease containerLease : containerLeases) {
+        containerLease.close();
+      }
+      // The evictions run every second at the earliest
+      awaitCondition(() -> fakeDockerEngine.getContainerCount() == 1);
+      Assertions.assertEquals(1, containerPool.getIdleCount(DockerImage.POSTGRESQL_LATEST));
+    }
+  }
+
+  /**
+   * Tests that a container released after the pool is closed is recycled.
+   */
+  @Test
+  public void testReleaseAfterClose() throws Exception {
+    try (FakeDockerEngine fakeDockerEngine = startFakeDockerEngine();
+        DockerUtility fakeDockerUtility = createDockerUtility(fakeDockerEngine)) {
+      ContainerPool containerPool = new ContainerPool(fakeDockerUtility, 0, 1,
+          Duration.ofMinutes(1), containerLease -> true);
+      ContainerLease containerLease = containerPool.lease(DockerImage.POSTGRESQL_LATEST);
+      containerPool.close();
+      Assertions.assertDoesNotThrow(containerLease::close);
+      Assertions.assertEquals(0, fakeDockerEngine.getContainerCount());
+    }
+  }
+}
@@ -0,0 +1,132 @@
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ContainerReaperTest {
+
+  /**
+   * Tests that removals run in the background with bounded concurrency, and that draining waits
+   * for all of them.
+   */
+  @Test
+  public void testBoundedConcurrentRemovals() throws InterruptedException {
+    AtomicInteger concurrentRemovals = new AtomicInteger();
+    AtomicInteger maxObservedConcurrentRemovals = new AtomicInteger();
+    Set<String> removedContainerNames = ConcurrentHashMap.newKeySet();
+    CountDownLatch release = new CountDownLatch(1);
+
+    try (ContainerReaper containerReaper = new ContainerReaper(
+        containerName -> {
+          maxObservedConcurrentRemovals.accumulateAndGet(concurrentRemovals.incrementAndGet(),
+              Math::max);
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+          removedContainerNames.add(containerName);
+          concurrentRemovals.decrementAndGet();
+        },
+        2,
+        Duration.ofSeconds(10)
+    )) {
+      List<String> containerNames = IntStream.range(0, 6)
+          .mapToObj(index -> "adya_reaper_test_" + index)
+          .collect(Collectors.toList());
+      containerNames.forEach(containerReaper::reap);
+      Assertions.assertEquals(Set.copyOf(containerNames),
+          Set.copyOf(containerReaper.getPendingContainerNames()));
+      Assertions.assertFalse(containerReaper.drain(Duration.ofMillis(100)));
+
+      release.countDown();
+      Assertions.assertTrue(containerReaper.drain(Duration.ofSeconds(10)));
+      Assertions.assertEquals(Set.copyOf(containerNames), removedContainerNames);
+      Assertions.assertTrue(containerReaper.getPendingContainerNames()
+          .isEmpty());
+      Assertions.assertEquals(2, maxObservedConcurrentRemovals.get());
+    }
+  }
+
+  /**
+   * Tests that a container queued twice is removed once, and that failed removals complete their
+   * future exceptionally without stopping the reaper.
+   */
+  @Test
+  public void testDuplicateAndFailedRemovals() throws Exception {
+    AtomicInteger removalCount = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+
+    try (ContainerReaper containerReaper = new ContainerReaper(
+        containerName -> {
+          removalCount.incrementAndGet();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+          if (containerName.endsWith("failing")) {
+            throw new IllegalStateException("Removal of '" + containerName + "' failed");
+          }
+        },
+        ContainerReaper.defaultMaxConcurrentRemovals,
+        ContainerReaper.defaultShutdownDrainTimeout
+    )) {
+      CompletableFuture<Void> removal = containerReaper.reap("adya_reaper_test");
+      Assertions.assertSame(removal, containerReaper.reap("adya_reaper_test"));
+      CompletableFuture<Void> failingRemoval = containerReaper.reap("adya_reaper_test_failing");
+
+      release.countDown();
+      Assertions.assertNull(removal.get(10, TimeUnit.SECONDS));
+      ExecutionException exception = Assertions.assertThrows(
+          ExecutionException.class,
+          () -> failingRemoval.get(10, TimeUnit.SECONDS)
+      );
+      Assertions.assertTrue(exception.getCause() instanceof IllegalStateException);
+      Assertions.assertTrue(containerReaper.drain(Duration.ofSeconds(10)));
+      Assertions.assertEquals(2, removalCount.get());
+    }
+  }
+
+  /**
+   * Tests that removals queued after the reaper is closed are rejected, without being left
+   * pending.
+   */
+  @Test
+  public void testReapAfterClose() {
+    ContainerReaper containerReaper = new ContainerReaper(containerName -> {
+    }, 1, ContainerReaper.defaultShutdownDrainTimeout);
+    containerReaper.close();
+    Assertions.assertThrows(
+        IllegalStateException.class,
+        () -> containerReaper.reap("adya_reaper_test")
+    );
+    Assertions.assertTrue(containerReaper.getPendingContainerNames()
+        .isEmpty());
+  }
+
+  /**
+   * Tests that invalid inputs are rejected.
+   */
+  @Test
+  public void testInvalidInputs() {
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> new ContainerReaper(containerName -> {
+        }, 0, ContainerReaper.defaultShutdownDrainTimeout)
+    );
+    Assertions.assertThrows(
+        NullPointerException.class,
+        () -> new ContainerReaper(null, 1, ContainerReaper.defaultShutdownDrainTimeout)
+    );
+  }
+}
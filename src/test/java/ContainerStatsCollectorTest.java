@@ -0,0 +1,122 @@
+import java.io.IOException;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ContainerStatsCollectorTest {
+
+  private static final long mebibyte = 1024L * 1024;
+
+  private FakeDockerEngine fakeDockerEngine;
+  private InMemoryDockerMetricsRegistry metricsRegistry;
+  private DockerUtility dockerUtility;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    fakeDockerEngine = new FakeDockerEngine(Duration.ZERO)
+        .withImages("elasticsearch:7.9.2")
+        .start();
+    metricsRegistry = new InMemoryDockerMetricsRegistry();
+    dockerUtility = DockerUtility.builder()
+        .withDockerHost(fakeDockerEngine.getDockerHost())
+        .withMetricsRegistry(metricsRegistry)
+        .build();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    dockerUtility.close();
+    fakeDockerEngine.close();
+  }
+
+  /**
+   * Tests that the resource usage samples of a container are aggregated while it runs, and
+   * recorded in the metrics registry when it's removed.
+   */
+  @Test
+  public void testCollectStats() throws InterruptedException {
+    ManagedContainer managedContainer = dockerUtility.createAndRunContainer(
+        new ContainerSpec(DockerImage.ELASTICSEARCH_7_9_2, "stats_0")
+            .withEphemeralPorts(true)
+            .withWaitStrategy(WaitStrategy.none())
+            .withCollectStats(true)
+    );
+    ContainerStatsCollector statsCollector = managedContainer.getStatsCollector();
+    Assertions.assertNotNull(statsCollector);
+    long[] memoryUsagesInBytes = new long[20];
+    for (int index = 0; index < memoryUsagesInBytes.length; index++) {
+      memoryUsagesInBytes[index] = (index + 1) * 100 * mebibyte;
+    }
+    fakeDockerEngine.addStatsSamples("stats_0", memoryUsagesInBytes);
+    long deadlineInNs = System.nanoTime() + Duration.ofSeconds(10)
+        .toNanos();
+    while (dockerUtility.getContainerStats("stats_0")
+        .getSampleCount() < memoryUsagesInBytes.length) {
+      Assertions.assertTrue(System.nanoTime() < deadlineInNs);
+      Thread.sleep(10);
+    }
+
+    ContainerStats containerStats = dockerUtility.getContainerStats("stats_0");
+    Assertions.assertEquals(100 * mebibyte, containerStats.getMinMemoryUsageInBytes());
+    Assertions.assertEquals(2000 * mebibyte, containerStats.getMaxMemoryUsageInBytes());
+    Assertions.assertEquals(1050 * mebibyte, containerStats.getMeanMemoryUsageInBytes());
+    Assertions.assertTrue(containerStats.getP95MemoryUsageInBytes() >= 1900 * mebibyte);
+    Assertions.assertTrue(containerStats.getP95MemoryUsageInBytes() <= 2000 * mebibyte);
+    // The first sample has no previous sample to compute the CPU usage from
+    Assertions.assertEquals(50, containerStats.getMinCpuPercent(), 0.001);
+    Assertions.assertEquals(50, containerStats.getMaxCpuPercent(), 0.001);
+    Assertions.assertEquals(50, containerStats.getMeanCpuPercent(), 0.001);
+    Assertions.assertEquals(16 * 1024 * mebibyte, containerStats.getMemoryLimitInBytes());
+    Assertions.assertEquals(20 * 4096, containerStats.getBlockReadBytes());
+    Assertions.assertEquals(20 * 8192, containerStats.getBlockWrittenBytes());
+    Assertions.assertEquals(20 * 1000, containerStats.getNetworkReceivedBytes());
+    Assertions.assertEquals(20 * 500, containerStats.getNetworkTransmittedBytes());
+
+    dockerUtility.removeContainerIfExists("stats_0", TeardownPolicy.KILL);
+    Assertions.assertTrue(statsCollector.isEnded());
+    Assertions.assertNull(dockerUtility.getContainerStats("stats_0"));
+    ContainerStats recordedContainerStats = metricsRegistry.getContainerStats(
+        "elasticsearch:7.9.2")
+        .get("stats_0");
+    Assertions.assertEquals("stats_0", recordedContainerStats.getContainerName());
+    Assertions.assertEquals(20, recordedContainerStats.getSampleCount());
+  }
+
+  /**
+   * Tests that containers aren't followed unless their stats are collected.
+   */
+  @Test
+  public void testStatsNotCollected() throws InterruptedException {
+    ManagedContainer managedContainer = dockerUtility.createAndRunContainer(
+        new ContainerSpec(DockerImage.ELASTICSEARCH_7_9_2, "stats_1")
+            .withEphemeralPorts(true)
+            .withWaitStrategy(WaitStrategy.none())
+    );
+    Assertions.assertNull(managedContainer.getStatsCollector());
+    Assertions.assertNull(dockerUtility.getContainerStats("stats_1"));
+
+    dockerUtility.removeContainerIfExists("stats_1", TeardownPolicy.KILL);
+    Assertions.assertTrue(metricsRegistry.getContainerStats("elasticsearch:7.9.2")
+        .isEmpty());
+  }
+
+  /**
+   * Tests that the memory histogram buckets bound their values within 12.5%.
+   */
+  @Test
+  public void testBucketBounds() {
+    int previousBucketIndex = -1;
+    for (long value = 0; value < 100_000; value++) {
+      int bucketIndex = ContainerStatsCollector.getBucketIndex(value);
+      long bucketUpperBound = ContainerStatsCollector.getBucketUpperBound(bucketIndex);
+      Assertions.assertTrue(bucketIndex >= previousBucketIndex);
+      Assertions.assertTrue(bucketUpperBound >= value);
+      Assertions.assertTrue(bucketUpperBound <= value + value / 8, "Bucket of " + value);
+      previousBucketIndex = bucketIndex;
+    }
+    Assertions.assertEquals(Long.MAX_VALUE, ContainerStatsCollector.getBucketUpperBound(
+        ContainerStatsCollector.getBucketIndex(Long.MAX_VALUE)));
+  }
+}
@@ -0,0 +1,125 @@
+import com.mongodb.MongoClient;
+import com.mongodb.MongoCredential;
+import com.mongodb.ServerAddress;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class DatabaseResetStrategyTest {
+
+  private static final String containerNamePrefix = "database_reset_test_" + Instant.now()
+      .getEpochSecond();
+  private static DockerUtility dockerUtility;
+
+  @BeforeAll
+  public static void setUp() {
+    dockerUtility = new DockerUtility();
+  }
+
+  @AfterAll
+  public static void tearDown() {
+    dockerUtility.removeContainerIfExists(containerNamePrefix + "_postgres");
+    dockerUtility.removeContainerIfExists(containerNamePrefix + "_mongo");
+  }
+
+  private static List<String> query(Connection connection, String query) throws SQLException {
+    List<String> rows = new ArrayList<>();
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(query)) {
+      while (resultSet.next()) {
+        rows.add(resultSet.getString(1));
+      }
+    }
+    return rows;
+  }
+
+  /**
+   * Tests that postgres databases are restored to the captured state, that databases created
+   * after it are dropped and that resets are refused before the state is captured.
+   */
+  @Test
+  public void testPostgresReset() throws Exception {
+    DockerImage dockerImage = DockerImage.POSTGRESQL_LATEST;
+    DatabaseResetStrategy databaseResetStrategy = dockerImage.getDatabaseResetStrategy();
+    ManagedContainer managedContainer = dockerUtility.createAndRunContainer(
+        new ContainerSpec(dockerImage, containerNamePrefix + "_postgres")
+            .withRemoveContainerIfExists(true)
+            .withEphemeralPorts(true)
+    );
+    Assertions.assertThrows(
+        IllegalStateException.class,
+        () -> databaseResetStrategy.reset(dockerUtility, managedContainer)
+    );
+
+    String connectionUrl = String.format("jdbc:postgresql://%s:%d/postgres",
+        managedContainer.getHost(), managedContainer.getMappedPort(5432));
+    String password = dockerImage.getEnvironmentVariable("POSTGRES_PASSWORD");
+    try (Connection connection = DriverManager.getConnection(connectionUrl, "postgres",
+        password)) {
+      connection.createStatement()
+          .execute("CREATE TABLE fixtures (name TEXT); INSERT INTO fixtures VALUES ('fixture')");
+    }
+    databaseResetStrategy.prepare(dockerUtility, managedContainer);
+    try (Connection connection = DriverManager.getConnection(connectionUrl, "postgres",
+        password)) {
+      connection.createStatement()
+          .execute("INSERT INTO fixtures VALUES ('test data'); CREATE DATABASE test_database");
+    }
+
+    databaseResetStrategy.reset(dockerUtility, managedContainer);
+    try (Connection connection = DriverManager.getConnection(connectionUrl, "postgres",
+        password)) {
+      Assertions.assertEquals(List.of("fixture"), query(connection,
+          "SELECT name FROM fixtures"));
+      Assertions.assertTrue(query(connection, "SELECT datname FROM pg_database")
+          .stream()
+          .noneMatch("test_database"::equals));
+    }
+  }
+
+  /**
+   * Tests that non-system MongoDB databases are dropped.
+   */
+  @Test
+  public void testMongoDbReset() throws Exception {
+    DockerImage dockerImage = DockerImage.MONGODB_LATEST;
+    ManagedContainer managedContainer = dockerUtility.createAndRunContainer(
+        new ContainerSpec(dockerImage, containerNamePrefix + "_mongo")
+            .withRemoveContainerIfExists(true)
+            .withEphemeralPorts(true)
+    );
+    String password = dockerImage.getEnvironmentVariable("MONGO_INITDB_ROOT_PASSWORD");
+    MongoClient mongoClient = new MongoClient(
+        new ServerAddress(managedContainer.getHost(), managedContainer.getMappedPort(27017)),
+        Collections.singletonList(MongoCredential.createCredential("root", "admin",
+            password.toCharArray()))
+    );
+    try {
+      mongoClient.getDatabase("test_database")
+          .getCollection("fixtures")
+          .insertOne(new Document("name", "test data"));
+      Assertions.assertTrue(mongoClient.listDatabaseNames()
+          .into(new ArrayList<>())
+          .contains("test_database"));
+
+      dockerImage.getDatabaseResetStrategy()
+          .reset(dockerUtility, managedContainer);
+      Assertions.assertFalse(mongoClient.listDatabaseNames()
+          .into(new ArrayList<>())
+          .contains("test_database"));
+    } finally {
+      mongoClient.close();
+    }
+  }
+}
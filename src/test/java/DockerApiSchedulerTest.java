@@ -0,0 +1,149 @@
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DockerApiSchedulerTest {
+
+  private ExecutorService executorService;
+
+  @BeforeEach
+  public void setUp() {
+    executorService = Executors.newCachedThreadPool();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    executorService.shutdownNow();
+  }
+
+  /**
+   * Waits until the specified number of calls of the specified class is queued.
+   */
+  private static void awaitQueueDepth(DockerApiScheduler dockerApiScheduler,
+      DockerOperationClass operationClass, int queueDepth) throws InterruptedException {
+    long deadlineInNs = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (dockerApiScheduler.getQueueDepth(operationClass) != queueDepth) {
+      Assertions.assertTrue(System.nanoTime() < deadlineInNs, "Queue depth of " + operationClass
+          + " didn't reach " + queueDepth);
+      Thread.sleep(5);
+    }
+  }
+
+  /**
+   * Tests that the calls of a class beyond its limit wait until a running call completes.
+   */
+  @Test
+  public void testOperationLimit() throws Exception {
+    DockerApiScheduler dockerApiScheduler = new DockerApiScheduler(8,
+        Map.of(DockerOperationClass.PULL, 1), Integer.MAX_VALUE);
+    dockerApiScheduler.acquire(DockerOperationClass.PULL);
+    Future<?> queuedPull = executorService.submit(() -> dockerApiScheduler.execute(
+        DockerOperationClass.PULL, () -> null));
+    awaitQueueDepth(dockerApiScheduler, DockerOperationClass.PULL, 1);
+
+    // Other classes aren't held up by the pull limit
+    Assertions.assertEquals(
+        "inspected",
+        dockerApiScheduler.execute(DockerOperationClass.INSPECT, () -> "inspected")
+    );
+    Assertions.assertThrows(TimeoutException.class,
+        () -> queuedPull.get(100, TimeUnit.MILLISECONDS));
+    Assertions.assertEquals(1, dockerApiScheduler.getActiveCount(DockerOperationClass.PULL));
+
+    dockerApiScheduler.release(DockerOperationClass.PULL);
+    queuedPull.get(10, TimeUnit.SECONDS);
+    Assertions.assertEquals(0, dockerApiScheduler.getActiveCount(DockerOperationClass.PULL));
+    Assertions.assertEquals(0, dockerApiScheduler.getQueueDepth(DockerOperationClass.PULL));
+    Assertions.assertEquals(1, dockerApiScheduler.getPeakQueueDepth(DockerOperationClass.PULL));
+  }
+
+  /**
+   * Tests that queued teardowns are admitted before calls of other classes queued earlier.
+   */
+  @Test
+  public void testTeardownPriority() throws Exception {
+    DockerApiScheduler dockerApiScheduler = new DockerApiScheduler(1, Map.of(),
+        Integer.MAX_VALUE);
+    dockerApiScheduler.acquire(DockerOperationClass.INSPECT);
+    CountDownLatch teardownCompleted = new CountDownLatch(1);
+    Future<Boolean> queuedCreate = executorService.submit(() -> dockerApiScheduler.execute(
+        DockerOperationClass.CREATE, () -> teardownCompleted.getCount() == 0));
+    awaitQueueDepth(dockerApiScheduler, DockerOperationClass.CREATE, 1);
+    Future<?> queuedTeardown = executorService.submit(() -> dockerApiScheduler.execute(
+        DockerOperationClass.TEARDOWN, () -> {
+          teardownCompleted.countDown();
+          return null;
+        }));
+    awaitQueueDepth(dockerApiScheduler, DockerOperationClass.TEARDOWN, 1);
+
+    dockerApiScheduler.release(DockerOperationClass.INSPECT);
+    queuedTeardown.get(10, TimeUnit.SECONDS);
+    Assertions.assertTrue(queuedCreate.get(10, TimeUnit.SECONDS));
+  }
+
+  /**
+   * Tests that calls are rejected once the queue is full.
+   */
+  @Test
+  public void testQueueFull() throws Exception {
+    DockerApiScheduler dockerApiScheduler = new DockerApiScheduler(1, Map.of(), 1);
+    dockerApiScheduler.acquire(DockerOperationClass.START);
+    Future<?> queuedStart = executorService.submit(() -> dockerApiScheduler.execute(
+        DockerOperationClass.START, () -> null));
+    awaitQueueDepth(dockerApiScheduler, DockerOperationClass.START, 1);
+
+    Assertions.assertThrows(
+        RejectedExecutionException.class,
+        () -> dockerApiScheduler.execute(DockerOperationClass.EXEC, () -> null)
+    );
+
+    dockerApiScheduler.release(DockerOperationClass.START);
+    queuedStart.get(10, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Tests that an interrupted call leaves the queue without being admitted.
+   */
+  @Test
+  public void testInterruptedWait() throws Exception {
+    DockerApiScheduler dockerApiScheduler = new DockerApiScheduler(1, Map.of(),
+        Integer.MAX_VALUE);
+    dockerApiScheduler.acquire(DockerOperationClass.EXEC);
+    Future<?> queuedExec = executorService.submit(() -> dockerApiScheduler.execute(
+        DockerOperationClass.EXEC, () -> null));
+    awaitQueueDepth(dockerApiScheduler, DockerOperationClass.EXEC, 1);
+
+    queuedExec.cancel(true);
+    awaitQueueDepth(dockerApiScheduler, DockerOperationClass.EXEC, 0);
+    dockerApiScheduler.release(DockerOperationClass.EXEC);
+    Assertions.assertEquals(0, dockerApiScheduler.getActiveCount(DockerOperationClass.EXEC));
+  }
+
+  /**
+   * Tests that invalid limits are rejected.
+   */
+  @Test
+  public void testInvalidLimits() {
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> new DockerApiScheduler(0, Map.of(), Integer.MAX_VALUE)
+    );
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> new DockerApiScheduler(8, Map.of(DockerOperationClass.CREATE, 0), Integer.MAX_VALUE)
+    );
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> new DockerApiScheduler(8, Map.of(), -1)
+    );
+  }
+}
@@ -1,10 +1,14 @@
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeoutException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -179,4 +183,228 @@ public class DockerComposeUtilityTest {
     }
   }
 
+  /**
+   * Tests that the services of a compose file are ordered such that their dependencies come first.
+   *
+   * @throws URISyntaxException When an invalid compose yaml file path is specified.
+   * @throws IOException        When the compose yaml file can't be read.
+   */
+  @Test
+  public void testParseComposeFile() throws URISyntaxException, IOException {
+    Map<String, ComposeService> services = DockerComposeUtility.parseComposeFile(
+        Paths.get(
+            this.getClass()
+                .getResource("dependency_order_compose.yml")
+                .toURI()
+        )
+    );
+
+    Assertions.assertEquals(
+        List.of("database", "migration", "application"),
+        new ArrayList<>(services.keySet())
+    );
+    Assertions.assertEquals(
+        Map.of(
+            "database", ComposeService.DependencyCondition.SERVICE_HEALTHY,
+            "migration", ComposeService.DependencyCondition.SERVICE_COMPLETED_SUCCESSFULLY
+        ),
+        services.get("application")
+            .getDependencies()
+    );
+    Assertions.assertEquals(
+        List.of("echo", "started"),
+        services.get("application")
+            .getCommand()
+    );
+    Assertions.assertNotNull(
+        services.get("database")
+            .getHealthCheck()
+    );
+  }
+
+  /**
+   * Tests that parsing a compose file with cyclic dependencies fails.
+   *
+   * @throws URISyntaxException When an invalid compose yaml file path is specified.
+   */
+  @Test
+  public void testParseComposeFileWithCyclicDependencies() throws URISyntaxException {
+    Path composeFilePath = Paths.get(
+        this.getClass()
+            .getResource("cyclic_compose.yml")
+            .toURI()
+    );
+
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> DockerComposeUtility.parseComposeFile(composeFilePath)
+    );
+  }
+
+  /**
+   * Test bringing up and down the services of a compose file via the native compose engine.
+   *
+   * @throws InterruptedException When the compose operation is interrupted.
+   * @throws URISyntaxException   When an invalid compose yaml file path is specified.
+   * @throws IOException          When the docker compose yaml file is not found.
+   * @throws TimeoutException     If the compose operation takes more time than the specifed
+   *                              timeout.
+   */
+  @Test
+  public void testNativeComposeUpAndDown()
+      throws InterruptedException, URISyntaxException, IOException, TimeoutException {
+    Path composeFilePath = Paths.get(
+        this.getClass()
+            .getResource("dependency_order_compose.yml")
+            .toURI()
+    );
+    DockerComposeUtility dockerComposeUtility = new DockerComposeUtility();
+
+    try {
+      Map<String, ComposeServiceResult> results = dockerComposeUtility.up(
+          composeFilePath,
+          Duration.of(600, ChronoUnit.SECONDS)
+      );
+
+      Assertions.assertEquals(
+          List.of("database", "migration", "application"),
+          new ArrayList<>(results.keySet())
+      );
+      results.values()
+          .forEach(result -> Assertions.assertTrue(result.isSuccessful(), result.toString()));
+    } finally {
+      dockerComposeUtility.down(
+          composeFilePath,
+          Duration.of(60, ChronoUnit.SECONDS)
+      );
+    }
+  }
+
+  /**
+   * Tests that an image reference is split into its repository and its tag or digest.
+   *
+   * @param image              Image reference.
+   * @param expectedRepository Expected repository.
+   * @param expectedTag        Expected tag or digest.
+   */
+  @ParameterizedTest
+  @CsvSource(
+      {
+          "postgres, postgres, latest",
+          "postgres:13, postgres, 13",
+          "localhost:5000/postgres, localhost:5000/postgres, latest",
+          "localhost:5000/postgres:13, localhost:5000/postgres, 13",
+          "postgres@sha256:0123abcd, postgres, sha256:0123abcd",
+          "postgres:13@sha256:0123abcd, postgres, sha256:0123abcd",
+          "localhost:5000/postgres@sha256:0123abcd, localhost:5000/postgres, sha256:0123abcd"
+      }
+  )
+  public void testParseImageReference(String image, String expectedRepository,
+      String expectedTag) {
+    Assertions.assertArrayEquals(
+        new String[]{expectedRepository, expectedTag},
+        DockerComposeUtility.parseImageReference(image)
+    );
+  }
+
+  /**
+   * Tests that bringing a compose project down right after it was brought up removes its
+   * containers, so that it can be brought up again.
+   *
+   * @throws InterruptedException When the compose operation is interrupted.
+   * @throws IOException          When the compose yaml file can't be written.
+   * @throws TimeoutException     If the compose operation takes more time than the specifed
+   *                              timeout.
+   */
+  @Test
+  public void testNativeComposeUpAndDownAgainstFakeEngine()
+      throws InterruptedException, IOException, TimeoutException {
+    Path composeFilePath = Files.createTempDirectory("adya_compose_test")
+        .resolve("docker-compose.yml");
+    Files.writeString(composeFilePath, String.join("\n",
+        "services:",
+        "  database:",
+        "    image: postgres:latest",
+        "  application:",
+        "    image: alpine:latest",
+        "    depends_on:",
+        "      - database",
+        ""
+    ));
+    try (FakeDockerEngine fakeDockerEngine = new FakeDockerEngine(Duration.ZERO)
+        .withImages("postgres:latest", "alpine:latest")
+        .start();
+        DockerUtility dockerUtility = DockerUtility.builder()
+            .withDockerHost(fakeDockerEngine.getDockerHost())
+            .build()) {
+      DockerComposeUtility dockerComposeUtility = new DockerComposeUtility(dockerUtility);
+      for (int iteration = 0; iteration < 2; iteration++) {
+        dockerComposeUtility.up(composeFilePath, Duration.ofSeconds(30))
+            .values()
+            .forEach(result -> Assertions.assertTrue(result.isSuccessful(), result.toString()));
+        Assertions.assertEquals(2, fakeDockerEngine.getContainerCount());
+        // The started containers are known to the docker utility's state cache
+        fakeDockerEngine.getContainerNames()
+            .forEach(containerName -> Assertions.assertTrue(
+                dockerUtility.doesContainerExist(containerName, false)));
+
+        dockerComposeUtility.down(composeFilePath, Duration.ofSeconds(30));
+        Assertions.assertEquals(0, fakeDockerEngine.getContainerCount());
+      }
+    }
+  }
+
+  /**
+   * Tests that the daemon calls of compose are admitted by the docker API scheduler, and that the
+   * containers of the services are created and started through the docker utility.
+   *
+   * @throws InterruptedException When the compose operation is interrupted.
+   * @throws IOException          When the compose yaml file can't be written.
+   * @throws TimeoutException     If the compose operation takes more time than the specifed
+   *                              timeout.
+   */
+  @Test
+  public void testNativeComposeUpIsScheduled()
+      throws InterruptedException, IOException, TimeoutException {
+    Path composeFilePath = Files.createTempDirectory("adya_compose_test")
+        .resolve("docker-compose.yml");
+    List<String> composeFileLines = new ArrayList<>(List.of("services:"));
+    for (int index = 0; index < 4; index++) {
+      composeFileLines.addAll(List.of("  service_" + index + ":", "    image: alpine:latest"));
+    }
+    Files.writeString(composeFilePath, String.join("\n", composeFileLines) + "\n");
+    InMemoryDockerMetricsRegistry metricsRegistry = new InMemoryDockerMetricsRegistry();
+    try (FakeDockerEngine fakeDockerEngine = new FakeDockerEngine(Duration.ZERO)
+        .withImages("alpine:latest")
+        .start();
+        DockerUtility dockerUtility = DockerUtility.builder()
+            .withDockerHost(fakeDockerEngine.getDockerHost())
+            .withMetricsRegistry(metricsRegistry)
+            .build()) {
+      DockerComposeUtility dockerComposeUtility = new DockerComposeUtility(dockerUtility);
+      dockerComposeUtility.up(composeFilePath, Duration.ofSeconds(30))
+          .values()
+          .forEach(result -> Assertions.assertTrue(result.isSuccessful(), result.toString()));
+
+      Assertions.assertEquals(4, metricsRegistry.getMetrics("alpine:latest",
+          DockerOperationPhase.CREATE)
+          .getCount());
+      Assertions.assertEquals(4, metricsRegistry.getMetrics("alpine:latest",
+          DockerOperationPhase.START)
+          .getCount());
+      // The containers and the project's network
+      Assertions.assertEquals(5, metricsRegistry.getQueueWaitMetrics(DockerOperationClass.CREATE)
+          .getCount());
+      Assertions.assertEquals(4, metricsRegistry.getQueueWaitMetrics(DockerOperationClass.START)
+          .getCount());
+
+      long teardownCount = metricsRegistry.getQueueWaitMetrics(DockerOperationClass.TEARDOWN)
+          .getCount();
+      dockerComposeUtility.down(composeFilePath, Duration.ofSeconds(30));
+      Assertions.assertEquals(0, fakeDockerEngine.getContainerCount());
+      // At least a removal per container and the network's
+      Assertions.assertTrue(metricsRegistry.getQueueWaitMetrics(DockerOperationClass.TEARDOWN)
+          .getCount() >= teardownCount + 5);
+    }
+  }
 }
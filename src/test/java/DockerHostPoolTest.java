@@ -0,0 +1,188 @@
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DockerHostPoolTest {
+
+  private static final long gibibyte = 1024L * 1024 * 1024;
+
+  private FakeDockerEngine firstFakeDockerEngine;
+  private FakeDockerEngine secondFakeDockerEngine;
+  private DockerHostPool createdDockerHostPool;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    firstFakeDockerEngine = new FakeDockerEngine(Duration.ZERO)
+        .withImages("postgres:latest")
+        .withFillerContainers(4)
+        .withMemory(8 * gibibyte)
+        .start();
+    secondFakeDockerEngine = new FakeDockerEngine(Duration.ZERO)
+        .withImages("postgres:latest", "mysql:latest")
+        .withMemory(4 * gibibyte)
+        .start();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    if (createdDockerHostPool != null) {
+      createdDockerHostPool.close();
+    }
+    firstFakeDockerEngine.close();
+    secondFakeDockerEngine.close();
+  }
+
+  private DockerHostPool createDockerHostPool(PlacementPolicy placementPolicy) {
+    createdDockerHostPool = DockerHostPool.forDockerHosts(
+        List.of(firstFakeDockerEngine.getDockerHost(), secondFakeDockerEngine.getDockerHost()),
+        placementPolicy
+    );
+    return createdDockerHostPool;
+  }
+
+  private static ContainerSpec createContainerSpec(DockerImage dockerImage,
+      String containerName) {
+    return new ContainerSpec(dockerImage, containerName)
+        .withEphemeralPorts(true)
+        .withWaitStrategy(WaitStrategy.none());
+  }
+
+  /**
+   * Tests that containers are placed on the docker host running the fewest containers, counting
+   * the containers already placed, and that later operations are routed to their host.
+   */
+  @Test
+  public void testLeastRunningContainersPlacement() throws InterruptedException {
+    DockerHostPool dockerHostPool = createDockerHostPool(
+        PlacementPolicy.leastRunningContainers());
+    // The first host runs 2 filler containers
+    for (int index = 0; index < 3; index++) {
+      dockerHostPool.createAndRunContainer(
+          createContainerSpec(DockerImage.POSTGRESQL_LATEST, "placed_" + index));
+    }
+    Assertions.assertTrue(firstFakeDockerEngine.getContainerNames()
+        .contains("placed_2"));
+    Assertions.assertTrue(secondFakeDockerEngine.getContainerNames()
+        .containsAll(List.of("placed_0", "placed_1")));
+    Assertions.assertSame(
+        dockerHostPool.getDockerUtilities()
+            .get(1),
+        dockerHostPool.getDockerUtility("placed_0")
+    );
+
+    dockerHostPool.removeContainerIfExists("placed_0", TeardownPolicy.KILL);
+    Assertions.assertFalse(secondFakeDockerEngine.getContainerNames()
+        .contains("placed_0"));
+    Assertions.assertNull(dockerHostPool.getDockerUtility("placed_0"));
+  }
+
+  /**
+   * Tests that containers are placed on the docker host with the most memory not reserved by
+   * memory limits.
+   */
+  @Test
+  public void testMostAvailableMemoryPlacement() throws InterruptedException {
+    DockerHostPool dockerHostPool = createDockerHostPool(PlacementPolicy.mostAvailableMemory());
+    for (int index = 0; index < 2; index++) {
+      dockerHostPool.createAndRunContainer(
+          createContainerSpec(DockerImage.POSTGRESQL_LATEST, "memory_" + index)
+              .withPerformanceProfile(new PerformanceProfile().withMemoryLimit(5 * gibibyte)));
+    }
+    Assertions.assertTrue(firstFakeDockerEngine.getContainerNames()
+        .contains("memory_0"));
+    Assertions.assertTrue(secondFakeDockerEngine.getContainerNames()
+        .contains("memory_1"));
+  }
+
+  /**
+   * Tests that the memory limits of running containers are inspected once per container, and
+   * not again on later placements.
+   */
+  @Test
+  public void testMemoryLimitsInspectedOncePerContainer() throws InterruptedException {
+    DockerHostPool dockerHostPool = createDockerHostPool((containerSpec, dockerHostStates) -> {
+      dockerHostStates.forEach(DockerHostState::getAvailableMemoryInBytes);
+      return dockerHostStates.get(1);
+    });
+    int[] placementRequestCounts = new int[2];
+    for (int index = 0; index < 2; index++) {
+      int requestCount = firstFakeDockerEngine.getRequestCount();
+      dockerHostPool.createAndRunContainer(
+          createContainerSpec(DockerImage.POSTGRESQL_LATEST, "inspected_" + index));
+      placementRequestCounts[index] = firstFakeDockerEngine.getRequestCount() - requestCount;
+    }
+    // The first host's 2 running filler containers are only inspected for the first placement
+    Assertions.assertTrue(placementRequestCounts[0] >= 4);
+    // Later placements only query the info and the container list
+    Assertions.assertEquals(2, placementRequestCounts[1]);
+  }
+
+  /**
+   * Tests that containers are placed on the docker hosts already having their image.
+   */
+  @Test
+  public void testPreferImagePresentPlacement() throws InterruptedException {
+    DockerHostPool dockerHostPool = createDockerHostPool(
+        PlacementPolicy.preferImagePresent(PlacementPolicy.mostAvailableMemory()));
+    dockerHostPool.createAndRunContainer(
+        createContainerSpec(DockerImage.MYSQL_LATEST, "image_present"));
+    Assertions.assertTrue(secondFakeDockerEngine.getContainerNames()
+        .contains("image_present"));
+    Assertions.assertEquals(0, firstFakeDockerEngine.getPullCount());
+  }
+
+  /**
+   * Tests that containers not created through the pool are found on their docker host.
+   */
+  @Test
+  public void testRoutingOfUnplacedContainer() {
+    DockerHostPool dockerHostPool = createDockerHostPool(
+        PlacementPolicy.leastRunningContainers());
+    Assertions.assertSame(
+        dockerHostPool.getDockerUtilities()
+            .get(0),
+        dockerHostPool.getDockerUtility("adya_filler_1")
+    );
+    Assertions.assertNull(dockerHostPool.getDockerUtility("adya_missing_container"));
+  }
+
+  /**
+   * Tests that duplicate docker hosts are rejected.
+   */
+  @Test
+  public void testDuplicateDockerHosts() {
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> DockerHostPool.forDockerHosts(
+            List.of(firstFakeDockerEngine.getDockerHost(), firstFakeDockerEngine.getDockerHost()),
+            PlacementPolicy.leastRunningContainers()
+        )
+    );
+  }
+
+  /**
+   * Tests that closing a pool closes the docker utilities it created, but not the ones it was
+   * given.
+   */
+  @Test
+  public void testClose() {
+    DockerHostPool dockerHostPool = createDockerHostPool(
+        PlacementPolicy.leastRunningContainers());
+    dockerHostPool.close();
+    for (DockerUtility dockerUtility : dockerHostPool.getDockerUtilities()) {
+      Assertions.assertThrows(IllegalStateException.class, dockerUtility::getDockerClient);
+    }
+
+    try (DockerUtility dockerUtility = DockerUtility.builder()
+        .withDockerHost(firstFakeDockerEngine.getDockerHost())
+        .build()) {
+      new DockerHostPool(List.of(dockerUtility), PlacementPolicy.leastRunningContainers())
+          .close();
+      Assertions.assertDoesNotThrow(dockerUtility::getDockerClient);
+    }
+  }
+}
@@ -0,0 +1,386 @@
+import com.github.dockerjava.api.DockerClient;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link DockerUtility} that run against a {@link FakeDockerEngine}, so that they don't
+ * need a docker daemon.
+ */
+public class DockerUtilityFakeEngineTest {
+
+  private FakeDockerEngine fakeDockerEngine;
+  private ExecutorService executorService;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    fakeDockerEngine = new FakeDockerEngine(Duration.ZERO)
+        .start();
+    executorService = Executors.newCachedThreadPool();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    executorService.shutdownNow();
+    fakeDockerEngine.close();
+  }
+
+  /**
+   * Tests that a container whose readiness wait is interrupted is removed, along with its log
+   * stream and stats collector.
+   */
+  @Test
+  public void testInterruptedReadinessWait() {
+    fakeDockerEngine.withImages("postgres:latest");
+    try (DockerUtility dockerUtility = DockerUtility.builder()
+        .withDockerHost(fakeDockerEngine.getDockerHost())
+        .build()) {
+      Assertions.assertThrows(
+          InterruptedException.class,
+          () -> dockerUtility.createAndRunContainer(
+              new ContainerSpec(DockerImage.POSTGRESQL_LATEST, "interrupted_0")
+                  .withEphemeralPorts(true)
+                  .withCollectStats(true)
+                  .withWaitStrategy(target -> {
+                    throw new InterruptedException();
+                  })
+          )
+      );
+      Assertions.assertFalse(fakeDockerEngine.getContainerNames()
+          .contains("interrupted_0"));
+      Assertions.assertNull(dockerUtility.getContainerStats("interrupted_0"));
+    }
+  }
+
+  /**
+   * Tests that reusing a container again hands out the same log stream, instead of following the
+   * container's output once more, and that the stream is closed when the container is removed.
+   */
+  @Test
+  public void testReusedContainerLogStream() throws InterruptedException {
+    fakeDockerEngine.withImages("postgres:latest");
+    try (DockerUtility dockerUtility = DockerUtility.builder()
+        .withDockerHost(fakeDockerEngine.getDockerHost())
+        .build()) {
+      ManagedContainer managedContainer = dockerUtility.createAndRunContainer(
+          new ContainerSpec(DockerImage.POSTGRESQL_LATEST, "reused_0")
+              .withEphemeralPorts(true)
+              .withReuse(true)
+              .withWaitStrategy(WaitStrategy.none()));
+      List<ContainerLogStream> logStreams = new ArrayList<>();
+      for (int index = 1; index <= 2; index++) {
+        ManagedContainer reusedContainer = dockerUtility.createAndRunContainer(
+            new ContainerSpec(DockerImage.POSTGRESQL_LATEST, "reused_" + index)
+                .withEphemeralPorts(true)
+                .withReuse(true)
+                .withWaitStrategy(WaitStrategy.none()));
+        Assertions.assertEquals(managedContainer.getContainerName(),
+            reusedContainer.getContainerName());
+        logStreams.add(reusedContainer.getLogStream());
+      }
+      Assertions.assertSame(logStreams.get(0), logStreams.get(1));
+      Assertions.assertNotSame(managedContainer.getLogStream(), logStreams.get(0));
+
+      dockerUtility.removeContainerIfExists("reused_0");
+      Assertions.assertTrue(logStreams.get(0)
+          .isEnded());
+    }
+  }
+
+  /**
+   * Tests that the stops and removals of containers are recorded under their image.
+   */
+  @Test
+  public void testTeardownMetricsPerImage() throws InterruptedException {
+    fakeDockerEngine.withImages("postgres:latest");
+    InMemoryDockerMetricsRegistry metricsRegistry = new InMemoryDockerMetricsRegistry();
+    try (DockerUtility dockerUtility = DockerUtility.builder()
+        .withDockerHost(fakeDockerEngine.getDockerHost())
+        .withMetricsRegistry(metricsRegistry)
+        .build()) {
+      for (String containerName : List.of("teardown_0", "teardown_1")) {
+        dockerUtility.createAndRunContainer(
+            new ContainerSpec(DockerImage.POSTGRESQL_LATEST, containerName)
+                .withEphemeralPorts(true)
+                .withWaitStrategy(WaitStrategy.none())
+        );
+      }
+      dockerUtility.removeContainerIfExists("teardown_0", TeardownPolicy.GRACEFUL);
+      dockerUtility.removeContainerIfExists("teardown_1", TeardownPolicy.KILL_AND_REAP);
+      Assertions.assertTrue(dockerUtility.getContainerReaper()
+          .drain(Duration.ofSeconds(10)));
+
+      Assertions.assertEquals(
+          2,
+          metricsRegistry.getMetrics("postgres:latest", DockerOperationPhase.STOP)
+              .getCount()
+      );
+      Assertions.assertEquals(
+          2,
+          metricsRegistry.getMetrics("postgres:latest", DockerOperationPhase.REMOVE)
+              .getCount()
+      );
+      Assertions.assertEquals(
+          0,
+          metricsRegistry.getMetrics(null, DockerOperationPhase.REMOVE)
+              .getCount()
+      );
+    }
+  }
+
+  /**
+   * Creates and runs a postgres container with a docker utility using the specified pull policy.
+   *
+   * @param pullPolicy             Pull policy of the docker utility.
+   * @param registryDigestResolver Resolver of the registry's digests.
+   * @param imageTarballCache      Image tarball cache of the docker utility, or null.
+   */
+  private void createAndRunContainer(PullPolicy pullPolicy,
+      RegistryDigestResolver registryDigestResolver, ImageTarballCache imageTarballCache)
+      throws InterruptedException {
+    try (DockerUtility dockerUtility = DockerUtility.builder()
+        .withDockerHost(fakeDockerEngine.getDockerHost())
+        .withPullPolicy(pullPolicy)
+        .withRegistryDigestResolver(registryDigestResolver)
+        .withImageTarballCache(imageTarballCache)
+        .build()) {
+      dockerUtility.createAndRunContainer(
+          new ContainerSpec(DockerImage.POSTGRESQL_LATEST, "pull_policy_0")
+              .withRemoveContainerIfExists(true)
+              .withEphemeralPorts(true)
+              .withWaitStrategy(WaitStrategy.none())
+      );
+    }
+  }
+
+  private static RegistryDigestResolver resolveDigestTo(String digest) {
+    return new RegistryDigestResolver(Duration.ZERO) {
+      @Override
+      public String resolveDigest(DockerImage dockerImage) throws IOException {
+        if (digest == null) {
+          throw new IOException("Registry is unreachable");
+        }
+        return digest;
+      }
+    };
+  }
+
+  /**
+   * Tests that the NEVER pull policy fails on a missing image instead of pulling it.
+   */
+  @Test
+  public void testNeverPullPolicy() {
+    Assertions.assertThrows(
+        IllegalStateException.class,
+        () -> createAndRunContainer(PullPolicy.NEVER, resolveDigestTo(null), null)
+    );
+    Assertions.assertEquals(0, fakeDockerEngine.getPullCount());
+    Assertions.assertFalse(fakeDockerEngine.getContainerNames()
+        .contains("pull_policy_0"));
+  }
+
+  /**
+   * Tests that the IF_NOT_PRESENT pull policy only pulls images that aren't present locally.
+   */
+  @Test
+  public void testIfNotPresentPullPolicy() throws InterruptedException {
+    createAndRunContainer(PullPolicy.IF_NOT_PRESENT, resolveDigestTo(null), null);
+    Assertions.assertEquals(1, fakeDockerEngine.getPullCount());
+    createAndRunContainer(PullPolicy.IF_NOT_PRESENT, resolveDigestTo(null), null);
+    Assertions.assertEquals(1, fakeDockerEngine.getPullCount());
+  }
+
+  /**
+   * Tests that the ALWAYS pull policy pulls images even when they're present locally.
+   */
+  @Test
+  public void testAlwaysPullPolicy() throws InterruptedException {
+    fakeDockerEngine.withImages("postgres:latest");
+    createAndRunContainer(PullPolicy.ALWAYS, resolveDigestTo(null), null);
+    Assertions.assertEquals(1, fakeDockerEngine.getPullCount());
+  }
+
+  /**
+   * Tests that the IF_DIGEST_CHANGED pull policy only pulls a present image when the registry
+   * serves another digest, and uses the local copy when the registry can't be reached.
+   */
+  @Test
+  public void testIfDigestChangedPullPolicy() throws InterruptedException {
+    fakeDockerEngine.withImages("postgres:latest");
+    createAndRunContainer(PullPolicy.IF_DIGEST_CHANGED, resolveDigestTo(null), null);
+    Assertions.assertEquals(0, fakeDockerEngine.getPullCount());
+
+    String localDigest;
+    try (DockerUtility dockerUtility = DockerUtility.builder()
+        .withDockerHost(fakeDockerEngine.getDockerHost())
+        .build()) {
+      String repoDigest = dockerUtility.getDockerClient()
+          .inspectImageCmd("postgres:latest")
+          .exec()
+          .getRepoDigests()
+          .get(0);
+      localDigest = repoDigest.substring(repoDigest.indexOf('@') + 1);
+    }
+    createAndRunContainer(PullPolicy.IF_DIGEST_CHANGED, resolveDigestTo(localDigest), null);
+    Assertions.assertEquals(0, fakeDockerEngine.getPullCount());
+
+    createAndRunContainer(PullPolicy.IF_DIGEST_CHANGED, resolveDigestTo("sha256:changed"), null);
+    Assertions.assertEquals(1, fakeDockerEngine.getPullCount());
+  }
+
+  /**
+   * Tests that a pulled image is saved to the image tarball cache and loaded from it by a later
+   * pull instead of pulling it again, and that the ALWAYS and IF_DIGEST_CHANGED pull policies
+   * pull newer images from the registry regardless.
+   */
+  @Test
+  public void testImageTarballCache() throws IOException, InterruptedException {
+    ImageTarballCache imageTarballCache = new ImageTarballCache(
+        Files.createTempDirectory("adya-image-cache"));
+    try (DockerUtility dockerUtility = DockerUtility.builder()
+        .withDockerHost(fakeDockerEngine.getDockerHost())
+        .withImageTarballCache(imageTarballCache)
+        .build()) {
+      dockerUtility.pullImage(DockerImage.POSTGRESQL_LATEST);
+      Assertions.assertEquals(1, fakeDockerEngine.getPullCount());
+      Assertions.assertTrue(imageTarballCache.contains("postgres:latest"));
+
+      dockerUtility.getDockerClient()
+          .removeImageCmd("postgres:latest")
+          .exec();
+      Assertions.assertFalse(fakeDockerEngine.hasImage("postgres:latest"));
+      dockerUtility.pullImage(DockerImage.POSTGRESQL_LATEST);
+      Assertions.assertEquals(1, fakeDockerEngine.getPullCount());
+      Assertions.assertTrue(fakeDockerEngine.hasImage("postgres:latest"));
+    }
+
+    createAndRunContainer(PullPolicy.ALWAYS, resolveDigestTo(null), imageTarballCache);
+    Assertions.assertEquals(2, fakeDockerEngine.getPullCount());
+    createAndRunContainer(PullPolicy.IF_DIGEST_CHANGED, resolveDigestTo("sha256:changed"),
+        imageTarballCache);
+    Assertions.assertEquals(3, fakeDockerEngine.getPullCount());
+  }
+
+  /**
+   * Tests that concurrent pulls of the same image are coalesced into a single pull.
+   */
+  @Test
+  public void testConcurrentPullsCoalesced() throws Exception {
+    // The latency keeps the first pull in flight while the second one starts
+    try (FakeDockerEngine slowFakeDockerEngine = new FakeDockerEngine(Duration.ofMillis(500))
+        .start();
+        DockerUtility dockerUtility = DockerUtility.builder()
+            .withDockerHost(slowFakeDockerEngine.getDockerHost())
+            .build()) {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<?>> pulls = new ArrayList<>();
+      for (int index = 0; index < 2; index++) {
+        pulls.add(executorService.submit(() -> {
+          start.await();
+          dockerUtility.pullImage(DockerImage.POSTGRESQL_LATEST);
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> pull : pulls) {
+        pull.get(30, TimeUnit.SECONDS);
+      }
+      Assertions.assertEquals(1, slowFakeDockerEngine.getPullCount());
+      Assertions.assertTrue(slowFakeDockerEngine.hasImage("postgres:latest"));
+    }
+  }
+
+  /**
+   * Tests that a pull rejected by the docker API scheduler doesn't leave an in-flight pull behind,
+   * on which later pulls of the same image would wait forever.
+   */
+  @Test
+  public void testRejectedPull() throws Exception {
+    try (DockerUtility dockerUtility = DockerUtility.builder()
+        .withDockerHost(fakeDockerEngine.getDockerHost())
+        .withOperationLimit(DockerOperationClass.PULL, 1)
+        .withMaxQueuedOperations(1)
+        .build()) {
+      DockerApiScheduler dockerApiScheduler = dockerUtility.getDockerApiScheduler();
+      // Occupy the only pull slot and fill the queue
+      dockerApiScheduler.acquire(DockerOperationClass.PULL);
+      Future<?> queuedPull = executorService.submit(() -> {
+        dockerApiScheduler.acquire(DockerOperationClass.PULL);
+        dockerApiScheduler.release(DockerOperationClass.PULL);
+        return null;
+      });
+      long deadlineInNs = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (dockerApiScheduler.getQueueDepth(DockerOperationClass.PULL) == 0) {
+        Assertions.assertTrue(System.nanoTime() < deadlineInNs);
+        Thread.sleep(5);
+      }
+
+      Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+        Assertions.assertThrows(RejectedExecutionException.class,
+            () -> dockerUtility.pullImage("postgres", "latest"));
+        Assertions.assertThrows(RejectedExecutionException.class,
+            () -> dockerUtility.pullImage("postgres", "latest"));
+      });
+
+      dockerApiScheduler.release(DockerOperationClass.PULL);
+      queuedPull.get(10, TimeUnit.SECONDS);
+      Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10),
+          () -> dockerUtility.pullImage("postgres", "latest"));
+      Assertions.assertEquals(1, fakeDockerEngine.getPullCount());
+      Assertions.assertTrue(fakeDockerEngine.hasImage("postgres:latest"));
+    }
+  }
+
+  /**
+   * Tests that a built docker utility only connects to its docker host when first used, and that
+   * its connection is closed once every utility sharing it is closed.
+   */
+  @Test
+  public void testBuilderAndClose() {
+    fakeDockerEngine.withImages("postgres:latest");
+    DockerUtility.Builder builder = DockerUtility.builder()
+        .withDockerHost(fakeDockerEngine.getDockerHost())
+        .withMaxConnections(8)
+        .withConnectionTimeout(Duration.ofSeconds(5))
+        .withResponseTimeout(Duration.ofSeconds(10));
+    DockerUtility firstDockerUtility = builder.build();
+    DockerUtility secondDockerUtility = builder.build();
+    Assertions.assertEquals(0, fakeDockerEngine.getRequestCount());
+
+    Assertions.assertTrue(firstDockerUtility.doesImageExist(DockerImage.POSTGRESQL_LATEST));
+    Assertions.assertSame(firstDockerUtility.getDockerClient(),
+        secondDockerUtility.getDockerClient());
+    firstDockerUtility.close();
+    firstDockerUtility.close();
+    Assertions.assertThrows(IllegalStateException.class, firstDockerUtility::getDockerClient);
+    Assertions.assertTrue(secondDockerUtility.doesImageExist(DockerImage.POSTGRESQL_LATEST));
+
+    DockerClient closedDockerClient = secondDockerUtility.getDockerClient();
+    secondDockerUtility.close();
+    try (DockerUtility thirdDockerUtility = builder.build()) {
+      Assertions.assertNotSame(closedDockerClient, thirdDockerUtility.getDockerClient());
+    }
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> DockerUtility.builder()
+            .withMaxConnections(0)
+    );
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> DockerUtility.builder()
+            .withResponseTimeout(Duration.ZERO)
+    );
+  }
+}
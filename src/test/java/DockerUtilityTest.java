@@ -1,3 +1,4 @@
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -5,6 +6,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.AfterAll;
@@ -60,9 +63,11 @@ public class DockerUtilityTest {
     );
 
     dockerUtility = new DockerUtility();
-    for (DockerImage imageToPull : imagesToPull) {
-      dockerUtility.pullImage(imageToPull);
-    }
+    CompletableFuture.allOf(
+        dockerUtility.pullImages(imagesToPull)
+            .values()
+            .toArray(CompletableFuture[]::new)
+    ).join();
     for (DockerImage containerToCreate : containersToCreate) {
       String containerName =
           containerToCreate.name() + "_" + containerToCreate.toString() + "_" + Instant.now()
@@ -91,6 +96,193 @@ public class DockerUtilityTest {
         .forEach(dockerUtility::removeContainerIfExists);
   }
 
+  @Test
+  /**
+   * Tests that images listed more than once are pulled once and that invalid inputs are rejected.
+   * The coalescing of concurrent pulls is tested in {@link DockerUtilityFakeEngineTest}.
+   */
+  public void testPullImages() {
+    Map<DockerImage, CompletableFuture<Void>> pulls = dockerUtility.pullImages(
+        Arrays.asList(
+            DockerImage.POSTGRESQL_LATEST,
+            DockerImage.POSTGRESQL_LATEST,
+            DockerImage.MYSQL_LATEST
+        ),
+        2
+    );
+    Assertions.assertEquals(2, pulls.size());
+    Assertions.assertDoesNotThrow(
+        () -> CompletableFuture.allOf(pulls.values().toArray(CompletableFuture[]::new)).join()
+    );
+    Assertions.assertTrue(dockerUtility.pullImages(List.of()).isEmpty());
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> dockerUtility.pullImages(List.of(DockerImage.MYSQL_LATEST), 0)
+    );
+    Assertions.assertThrows(
+        NullPointerException.class,
+        () -> dockerUtility.pullImages(null)
+    );
+  }
+
+  @Test
+  /**
+   * Tests that container existence checks reflect creation and removal immediately.
+   */
+  public void testContainerExistenceAfterCreateAndRemove() {
+    String containerName = "state_cache_test_" + Instant.now().getEpochSecond();
+    try {
+      Assertions.assertFalse(dockerUtility.doesContainerExist(containerName, true));
+      dockerUtility.createContainer(DockerImage.POSTGRESQL_LATEST, containerName, true);
+      Assertions.assertTrue(dockerUtility.doesContainerExist(containerName, true));
+      Assertions.assertFalse(dockerUtility.doesContainerExist(containerName, false));
+    } finally {
+      dockerUtility.removeContainerIfExists(containerName);
+    }
+    Assertions.assertFalse(dockerUtility.doesContainerExist(containerName, true));
+  }
+
+  @Test
+  /**
+   * Tests that a killed and reaped container's name can be reused right away, and that the
+   * container is removed in the background.
+   */
+  public void testKillAndReapTeardown() throws InterruptedException {
+    String containerName = "kill_and_reap_test_" + Instant.now().getEpochSecond();
+    try {
+      dockerUtility.createAndRunContainer(DockerImage.POSTGRESQL_LATEST, containerName, true);
+      dockerUtility.removeContainerIfExists(containerName, TeardownPolicy.KILL_AND_REAP);
+      Assertions.assertFalse(dockerUtility.doesContainerExist(containerName, true));
+      dockerUtility.createContainer(DockerImage.POSTGRESQL_LATEST, containerName, true);
+      Assertions.assertTrue(dockerUtility.doesContainerExist(containerName, true));
+
+      Assertions.assertTrue(dockerUtility.getContainerReaper()
+          .drain(Duration.ofMinutes(1)));
+      Assertions.assertTrue(dockerUtility.getContainerReaper()
+          .getPendingContainerNames()
+          .isEmpty());
+    } finally {
+      dockerUtility.removeContainerIfExists(containerName, TeardownPolicy.KILL);
+    }
+    Assertions.assertFalse(dockerUtility.doesContainerExist(containerName, true));
+  }
+
+  @Test
+  /**
+   * Tests that containers are labelled with this JVM's session, and that pruning a session only
+   * removes its containers.
+   */
+  public void testPruneSession() {
+    String containerName = "prune_session_test_" + Instant.now().getEpochSecond();
+    String prunedContainerName = containerName + "_pruned";
+    // Pruning this JVM's session would remove the other tests' containers
+    String prunedSessionId = UUID.randomUUID().toString();
+    try {
+      dockerUtility.createContainer(DockerImage.POSTGRESQL_LATEST, containerName, true);
+      Assertions.assertEquals(
+          AdyaLabels.getSessionLabels(),
+          dockerUtility.getDockerClient()
+              .inspectContainerCmd(containerName)
+              .exec()
+              .getConfig()
+              .getLabels()
+      );
+      dockerUtility.getDockerClient()
+          .createContainerCmd(prunedContainerName)
+          .withImage("postgres:latest")
+          .withName(prunedContainerName)
+          .withLabels(Map.of(AdyaLabels.sessionLabel, prunedSessionId))
+          .exec();
+
+      Assertions.assertEquals(1, dockerUtility.prune(prunedSessionId));
+      Assertions.assertFalse(dockerUtility.doesContainerExist(prunedContainerName, true));
+      Assertions.assertTrue(dockerUtility.doesContainerExist(containerName, true));
+      Assertions.assertEquals(0, dockerUtility.prune(prunedSessionId));
+    } finally {
+      dockerUtility.removeContainerIfExists(containerName);
+      dockerUtility.removeContainerIfExists(prunedContainerName);
+    }
+  }
+
+  @Test
+  /**
+   * Tests that a running container with the same configuration is reused instead of creating
+   * one, and that containers with another configuration aren't.
+   */
+  public void testContainerReuse() throws InterruptedException {
+    String containerName = "reuse_test_" + Instant.now().getEpochSecond();
+    ContainerSpec containerSpec = new ContainerSpec(DockerImage.POSTGRESQL_LATEST, containerName)
+        .withRemoveContainerIfExists(true)
+        .withEphemeralPorts(true)
+        .withReuse(true);
+    ContainerSpec otherContainerSpec = new ContainerSpec(DockerImage.POSTGRESQL_LATEST,
+        containerName + "_other")
+        .withEphemeralPorts(true)
+        .withPerformanceProfile(null)
+        .withReuse(true);
+    Assertions.assertEquals(
+        containerSpec.getConfigurationHash(),
+        new ContainerSpec(DockerImage.POSTGRESQL_LATEST, containerName + "_other")
+            .withEphemeralPorts(true)
+            .getConfigurationHash()
+    );
+    Assertions.assertNotEquals(containerSpec.getConfigurationHash(),
+        otherContainerSpec.getConfigurationHash());
+    try {
+      ManagedContainer managedContainer = dockerUtility.createAndRunContainer(containerSpec);
+      Assertions.assertEquals(containerName, managedContainer.getContainerName());
+
+      ManagedContainer reusedContainer = dockerUtility.createAndRunContainer(
+          new ContainerSpec(DockerImage.POSTGRESQL_LATEST, containerName + "_reused")
+              .withEphemeralPorts(true)
+              .withReuse(true)
+      );
+      Assertions.assertEquals(containerName, reusedContainer.getContainerName());
+      Assertions.assertEquals(managedContainer.getMappedPort(5432),
+          reusedContainer.getMappedPort(5432));
+      Assertions.assertFalse(dockerUtility.doesContainerExist(containerName + "_reused", true));
+
+      ManagedContainer otherContainer = dockerUtility.createAndRunContainer(otherContainerSpec);
+      Assertions.assertEquals(containerName + "_other", otherContainer.getContainerName());
+    } finally {
+      dockerUtility.removeContainerIfExists(containerName);
+      dockerUtility.removeContainerIfExists(containerName + "_other");
+    }
+  }
+
+  @Test
+  /**
+   * Tests that containers of the same image with ephemeral ports can run side by side.
+   */
+  public void testEphemeralPorts() throws InterruptedException {
+    DockerImage dockerImage = DockerImage.POSTGRESQL_LATEST;
+    String password = dockerImage.getEnvironmentVariable("POSTGRES_PASSWORD");
+    List<String> containerNames = List.of(
+        "ephemeral_ports_test_1_" + Instant.now().getEpochSecond(),
+        "ephemeral_ports_test_2_" + Instant.now().getEpochSecond()
+    );
+    try {
+      Set<Integer> mappedPorts = new HashSet<>();
+      for (String containerName : containerNames) {
+        ManagedContainer managedContainer = dockerUtility.createAndRunContainer(
+            new ContainerSpec(dockerImage, containerName)
+                .withRemoveContainerIfExists(true)
+                .withEphemeralPorts(true)
+        );
+        int mappedPort = managedContainer.getMappedPort(5432);
+        Assertions.assertEquals(mappedPort, dockerUtility.getMappedPort(containerName, 5432));
+        mappedPorts.add(mappedPort);
+      }
+      Assertions.assertEquals(containerNames.size(), mappedPorts.size());
+      for (int mappedPort : mappedPorts) {
+        PostgreSQLDockerImageTest.testPostgresSQLConnection(
+            dockerUtility.getDockerHostAddress(), mappedPort, "postgres", password);
+      }
+    } finally {
+      containerNames.forEach(dockerUtility::removeContainerIfExists);
+    }
+  }
+
   @Test
   /**
    * Test if the docker service is up and running.
@@ -145,4 +337,4 @@ public class DockerUtilityTest {
     }
   }
 
-}
\ No newline at end of file
+}
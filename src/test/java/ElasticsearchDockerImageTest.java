@@ -30,16 +30,12 @@ public class ElasticsearchDockerImageTest extends ADockerImageTest {
   }
 
   @Override
-  public long getStartupWaitTimeInMs() {
-    return 30_000;
-  }
-
-  @Override
-  public void testServiceInDockerContainer(DockerImage dockerImage) {
+  public void testServiceInDockerContainer(ManagedContainer managedContainer) {
+    DockerImage dockerImage = managedContainer.getDockerImage();
     final RequestOptions COMMON_OPTIONS;
     RestClient restClient = RestClient.builder(
-        new HttpHost("localhost", 9200, "http"),
-        new HttpHost("localhost", 9300, "http")
+        new HttpHost(managedContainer.getHost(), managedContainer.getMappedPort(9200), "http"),
+        new HttpHost(managedContainer.getHost(), managedContainer.getMappedPort(9300), "http")
     ).build();
     RequestOptions.Builder builder = RequestOptions.DEFAULT.toBuilder();
     Base64 base64 = new Base64();
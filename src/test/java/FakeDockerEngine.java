@@ -0,0 +1,916 @@
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-process stand-in for the Docker Engine API, implementing the endpoints docker-java uses for
+ * images, containers, networks and events. No containers are actually run: created containers
+ * only exist in memory, pulls complete instantly and every published port is mapped to a unique
+ * fake host port. Every request is delayed by a configurable latency, and the inventory can be
+ * pre-filled with any number of images and containers, so that the client side overhead and
+ * scaling of docker operations can be measured without docker installed.
+ *
+ * <p>Point docker-java at it by setting the DOCKER_HOST system property to
+ * {@link #getDockerHost()} before the first docker client is created.
+ */
+public class FakeDockerEngine implements AutoCloseable {
+
+  private static final Pattern apiVersionPrefix = Pattern.compile("^/v[0-9.]+(/.*)$");
+  private static final Pattern containerPath = Pattern.compile(
+      "^/containers/([^/]+)(?:/(json|start|stop|restart|kill|wait|logs|rename|stats))?$");
+  private static final Pattern imagePath = Pattern.compile("^/images/(.+)/json$");
+  private static final Pattern imageArchivePath = Pattern.compile("^/images/(.+)/get$");
+  private static final Pattern imageRemovalPath = Pattern.compile("^/images/(.+)$");
+  private static final String imageArchiveHeader = "fake image archive\n";
+  private static final int imageArchivePaddingSize = 1024 * 1024;
+  private static final Pattern networkPath = Pattern.compile("^/networks/([^/]+)$");
+  private static final Object endOfEvents = new Object();
+
+  /**
+   * In memory state of a fake container.
+   */
+  private static class FakeContainer {
+
+    private final String id;
+    private volatile String name;
+    private final String image;
+    private final Map<String, String> labels;
+    private final Map<String, List<Map<String, String>>> portBindings;
+    private final long memory;
+    private final long created = Instant.now()
+        .getEpochSecond();
+    private final List<String> logLines = new CopyOnWriteArrayList<>();
+    private final List<Long> memoryUsageSamples = new CopyOnWriteArrayList<>();
+    private volatile String state = "created";
+
+    FakeContainer(String id, String name, String image, Map<String, String> labels,
+        Map<String, List<Map<String, String>>> portBindings, long memory) {
+      this.id = id;
+      this.name = name;
+      this.image = image;
+      this.labels = labels;
+      this.portBindings = portBindings;
+      this.memory = memory;
+    }
+  }
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final Duration latency;
+  private final boolean eventsEnabled;
+  private final Set<String> imageReferences = ConcurrentHashMap.newKeySet();
+  private final Map<String, FakeContainer> containers = new ConcurrentHashMap<>();
+  private final Map<String, String> networks = new ConcurrentHashMap<>();
+  private final Map<String, Map<String, String>> networkLabels = new ConcurrentHashMap<>();
+  private final Map<String, List<String>> startupLogLines = new ConcurrentHashMap<>();
+  private final Set<BlockingQueue<Object>> eventSubscribers = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger nextHostPort = new AtomicInteger(32768);
+  private final AtomicInteger requestCount = new AtomicInteger();
+  private final AtomicInteger pullCount = new AtomicInteger();
+  private volatile long memory = 16L * 1024 * 1024 * 1024;
+  private final ExecutorService requestExecutor = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "fake-docker-engine");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private HttpServer httpServer;
+
+  /**
+   * Creates a fake docker engine that streams events.
+   *
+   * @param latency Time to delay every request by, to simulate a remote or busy daemon.
+   */
+  public FakeDockerEngine(Duration latency) {
+    this(latency, true);
+  }
+
+  /**
+   * Creates a fake docker engine.
+   *
+   * @param latency       Time to delay every request by, to simulate a remote or busy daemon.
+   * @param eventsEnabled If false, the events endpoint fails, so that clients have to fall back to
+   *                      listing images and containers.
+   */
+  public FakeDockerEngine(Duration latency, boolean eventsEnabled) {
+    this.latency = Objects.requireNonNull(latency);
+    this.eventsEnabled = eventsEnabled;
+  }
+
+  /**
+   * Adds the specified images to the inventory.
+   *
+   * @param imageReferences Images to add, in the repository:tag format.
+   * @return This fake docker engine.
+   */
+  public FakeDockerEngine withImages(String... imageReferences) {
+    this.imageReferences.addAll(Arrays.asList(imageReferences));
+    return this;
+  }
+
+  /**
+   * Makes the containers of the specified image log the specified lines whenever they start, e.g.
+   * the lines their wait strategy waits for.
+   *
+   * @param imageReference Image in the repository:tag format.
+   * @param lines          Lines to log, without line separators.
+   * @return This fake docker engine.
+   */
+  public FakeDockerEngine withStartupLog(String imageReference, String... lines) {
+    this.startupLogLines.put(imageReference, List.of(lines));
+    return this;
+  }
+
+  /**
+   * Sets the total memory the engine reports, 16 GiB by default.
+   *
+   * @param memoryInBytes Total memory in bytes.
+   * @return This fake docker engine.
+   */
+  public FakeDockerEngine withMemory(long memoryInBytes) {
+    this.memory = memoryInBytes;
+    return this;
+  }
+
+  /**
+   * Adds the specified number of filler images to the inventory.
+   *
+   * @param imageCount Number of images to add.
+   * @return This fake docker engine.
+   */
+  public FakeDockerEngine withFillerImages(int imageCount) {
+    for (int index = 0; index < imageCount; index++) {
+      imageReferences.add("adya-filler-" + index + ":latest");
+    }
+    return this;
+  }
+
+  /**
+   * Adds the specified number of filler containers to the inventory, half of them running.
+   *
+   * @param containerCount Number of containers to add.
+   * @return This fake docker engine.
+   */
+  public FakeDockerEngine withFillerContainers(int containerCount) {
+    for (int index = 0; index < containerCount; index++) {
+      FakeContainer container = new FakeContainer(newId(), "adya_filler_" + index,
+          "adya-filler:latest", Map.of(), Map.of(), 0);
+      container.state = (index % 2 == 0) ? "running" : "exited";
+      containers.put(container.id, container);
+    }
+    return this;
+  }
+
+  /**
+   * Starts serving the docker engine API on an ephemeral port of the loopback interface.
+   *
+   * @return This fake docker engine.
+   * @throws IOException When the server can't be started.
+   */
+  public FakeDockerEngine start() throws IOException {
+    httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    httpServer.createContext("/", this::handle);
+    httpServer.setExecutor(requestExecutor);
+    httpServer.start();
+    return this;
+  }
+
+  /**
+   * Returns the docker host URI to connect to this fake docker engine with.
+   *
+   * @return Docker host URI, e.g. "tcp://127.0.0.1:38213".
+   */
+  public String getDockerHost() {
+    InetSocketAddress address = httpServer.getAddress();
+    return "tcp://" + address.getAddress()
+        .getHostAddress() + ":" + address.getPort();
+  }
+
+  /**
+   * Returns the number of requests served so far.
+   *
+   * @return Number of requests.
+   */
+  public int getRequestCount() {
+    return requestCount.get();
+  }
+
+  /**
+   * Returns the number of image pulls served so far.
+   *
+   * @return Number of pulls.
+   */
+  public int getPullCount() {
+    return pullCount.get();
+  }
+
+  /**
+   * Returns whether the inventory contains the specified image.
+   *
+   * @param imageReference Image in the repository:tag format.
+   * @return true if the image is in the inventory, else false.
+   */
+  public boolean hasImage(String imageReference) {
+    return imageReferences.contains(imageReference);
+  }
+
+  /**
+   * Appends a line to the STDOUT output of the specified container.
+   *
+   * @param containerName Name of the container.
+   * @param line          Line to log, without a line separator.
+   */
+  public void log(String containerName, String line) {
+    FakeContainer container = findContainer(containerName);
+    if (container == null) {
+      throw new IllegalArgumentException("No such container: " + containerName);
+    }
+    container.logLines.add(line);
+  }
+
+  /**
+   * Appends resource usage samples to the stats of the specified container. Each sample reports
+   * the specified memory usage, 50% CPU usage of a 2 CPU host since the previous sample, and
+   * block I/O and network traffic growing by a fixed amount per sample.
+   *
+   * @param containerName       Name of the container.
+   * @param memoryUsagesInBytes Memory usage of each sample.
+   */
+  public void addStatsSamples(String containerName, long... memoryUsagesInBytes) {
+    FakeContainer container = findContainer(containerName);
+    if (container == null) {
+      throw new IllegalArgumentException("No such container: " + containerName);
+    }
+    for (long memoryUsageInBytes : memoryUsagesInBytes) {
+      container.memoryUsageSamples.add(memoryUsageInBytes);
+    }
+  }
+
+  /**
+   * Stops the specified running container as if the kernel killed it for exceeding its memory
+   * limit, publishing an oom event followed by a die event with exit code 137.
+   *
+   * @param containerName Name of the container.
+   */
+  public void runOutOfMemory(String containerName) {
+    FakeContainer container = findContainer(containerName);
+    if (container == null || !container.state.equals("running")) {
+      throw new IllegalArgumentException("No such running container: " + containerName);
+    }
+    container.state = "exited";
+    publishContainerEvent(container, "oom");
+    publishContainerEvent(container, "die", Map.of("exitCode", "137"));
+  }
+
+  /**
+   * Publishes a health status event for the specified container, as docker does when the status
+   * reported by the container's HEALTHCHECK changes.
+   *
+   * @param containerName Name of the container.
+   * @param healthStatus  Health status, e.g. "healthy".
+   */
+  public void reportHealthStatus(String containerName, String healthStatus) {
+    FakeContainer container = findContainer(containerName);
+    if (container == null) {
+      throw new IllegalArgumentException("No such container: " + containerName);
+    }
+    publishContainerEvent(container, "health_status: " + healthStatus);
+  }
+
+  /**
+   * Returns the number of containers in the inventory.
+   *
+   * @return Number of containers.
+   */
+  public int getContainerCount() {
+    return containers.size();
+  }
+
+  /**
+   * Returns the names of all containers in the inventory.
+   *
+   * @return Container names.
+   */
+  public List<String> getContainerNames() {
+    return containers.values()
+        .stream()
+        .map(container -> container.name)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns the names of all networks in the inventory.
+   *
+   * @return Network names.
+   */
+  public List<String> getNetworkNames() {
+    return List.copyOf(networks.keySet());
+  }
+
+  @Override
+  public void close() {
+    eventSubscribers.forEach(subscriber -> subscriber.offer(endOfEvents));
+    if (httpServer != null) {
+      httpServer.stop(0);
+    }
+    requestExecutor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    requestCount.incrementAndGet();
+    try (exchange) {
+      String path = exchange.getRequestURI()
+          .getPath();
+      Matcher versionMatcher = apiVersionPrefix.matcher(path);
+      if (versionMatcher.matches()) {
+        path = versionMatcher.group(1);
+      }
+      Map<String, String> query = parseQuery(exchange.getRequestURI());
+      String method = exchange.getRequestMethod();
+      // Unread request bodies break the reuse of kept alive connections
+      byte[] body;
+      try (InputStream requestBody = exchange.getRequestBody()) {
+        body = requestBody.readAllBytes();
+      }
+
+      if (path.equals("/events")) {
+        streamEvents(exchange);
+        return;
+      }
+      if (!latency.isZero()) {
+        Thread.sleep(latency.toMillis(), latency.toNanosPart() % 1_000_000);
+      }
+      route(exchange, method, path, query, body);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      sendJson(exchange, 500, Map.of("message", String.valueOf(e)));
+    }
+  }
+
+  private void route(HttpExchange exchange, String method, String path, Map<String, String> query,
+      byte[] body) throws IOException, InterruptedException {
+    Matcher matcher;
+    if (path.equals("/_ping")) {
+      sendText(exchange, 200, "OK");
+    } else if (path.equals("/version")) {
+      sendJson(exchange, 200, Map.of("ApiVersion", "1.41", "Version", "20.10.0-fake"));
+    } else if (path.equals("/info")) {
+      sendJson(exchange, 200, Map.of(
+          "ContainersRunning", containers.values()
+              .stream()
+              .filter(container -> container.state.equals("running"))
+              .count(),
+          "MemTotal", memory
+      ));
+    } else if (path.equals("/images/json")) {
+      sendJson(exchange, 200, imageReferences.stream()
+          .map(this::describeImage)
+          .collect(Collectors.toList()));
+    } else if (path.equals("/images/create") && method.equals("POST")) {
+      pullImage(exchange, query);
+    } else if ((matcher = imagePath.matcher(path)).matches()) {
+      String imageReference = matcher.group(1);
+      if (imageReferences.contains(imageReference)) {
+        sendJson(exchange, 200, describeImage(imageReference));
+      } else {
+        sendNotFound(exchange, "No such image: " + imageReference);
+      }
+    } else if ((matcher = imageArchivePath.matcher(path)).matches()) {
+      saveImage(exchange, matcher.group(1));
+    } else if (path.equals("/images/load") && method.equals("POST")) {
+      loadImage(exchange, body);
+    } else if ((matcher = imageRemovalPath.matcher(path)).matches()
+        && method.equals("DELETE")) {
+      String imageReference = matcher.group(1);
+      if (imageReferences.remove(imageReference)) {
+        sendJson(exchange, 200, List.of(Map.of("Untagged", imageReference)));
+      } else {
+        sendNotFound(exchange, "No such image: " + imageReference);
+      }
+    } else if (path.equals("/containers/json")) {
+      listContainers(exchange, query);
+    } else if (path.equals("/containers/create") && method.equals("POST")) {
+      createContainer(exchange, query, readJson(body));
+    } else if ((matcher = containerPath.matcher(path)).matches()) {
+      handleContainer(exchange, method, matcher.group(1), matcher.group(2), query);
+    } else if (path.equals("/networks") || path.equals("/networks/")) {
+      List<String> labelFilters = readFilters(query).getOrDefault("label", List.of());
+      sendJson(exchange, 200, networks.entrySet()
+          .stream()
+          .filter(network -> matchesLabelFilters(
+              networkLabels.getOrDefault(network.getValue(), Map.of()), labelFilters))
+          .map(network -> Map.of("Name", network.getKey(), "Id", network.getValue(), "Labels",
+              networkLabels.getOrDefault(network.getValue(), Map.of())))
+          .collect(Collectors.toList()));
+    } else if (path.equals("/networks/create") && method.equals("POST")) {
+      String networkId = newId();
+      Map<String, Object> network = readJson(body);
+      @SuppressWarnings("unchecked")
+      Map<String, String> labels = (Map<String, String>) network.get("Labels");
+      networkLabels.put(networkId, (labels == null) ? Map.of() : Map.copyOf(labels));
+      networks.put(String.valueOf(network.get("Name")), networkId);
+      sendJson(exchange, 201, Map.of("Id", networkId, "Warning", ""));
+    } else if ((matcher = networkPath.matcher(path)).matches() && method.equals("DELETE")) {
+      String networkId = matcher.group(1);
+      if (!networks.values()
+          .remove(networkId)) {
+        sendNotFound(exchange, "network " + networkId + " not found");
+        return;
+      }
+      networkLabels.remove(networkId);
+      sendNoContent(exchange);
+    } else {
+      sendNotFound(exchange, "page not found");
+    }
+  }
+
+  /**
+   * Sends an archive of the image, made of a header naming the image and padding standing in for
+   * its layers.
+   */
+  private void saveImage(HttpExchange exchange, String imageReference) throws IOException {
+    if (!imageReferences.contains(imageReference)) {
+      sendNotFound(exchange, "No such image: " + imageReference);
+      return;
+    }
+    byte[] header = (imageArchiveHeader + imageReference + "\n").getBytes(
+        StandardCharsets.UTF_8);
+    exchange.getResponseHeaders()
+        .add("Content-Type", "application/x-tar");
+    exchange.sendResponseHeaders(200, header.length + imageArchivePaddingSize);
+    exchange.getResponseBody()
+        .write(header);
+    exchange.getResponseBody()
+        .write(new byte[imageArchivePaddingSize]);
+  }
+
+  private void loadImage(HttpExchange exchange, byte[] body) throws IOException {
+    String archive = new String(body, 0, Math.min(body.length, 1024), StandardCharsets.UTF_8);
+    if (!archive.startsWith(imageArchiveHeader)
+        || body.length != archive.indexOf('\n', imageArchiveHeader.length()) + 1
+        + imageArchivePaddingSize) {
+      sendJson(exchange, 500, Map.of("message", "invalid image archive"));
+      return;
+    }
+    String imageReference = archive.substring(imageArchiveHeader.length(),
+        archive.indexOf('\n', imageArchiveHeader.length()));
+    imageReferences.add(imageReference);
+    publishEvent("image", "load", imageReference, Map.of("name", imageReference));
+    sendText(exchange, 200, "{\"stream\":\"Loaded image: " + imageReference + "\\n\"}\r\n");
+  }
+
+  private void pullImage(HttpExchange exchange, Map<String, String> query) throws IOException {
+    pullCount.incrementAndGet();
+    String repository = query.getOrDefault("fromImage", "");
+    String tag = query.getOrDefault("tag", "latest");
+    String imageReference = repository + ":" + (tag.isEmpty() ? "latest" : tag);
+    imageReferences.add(imageReference);
+    publishEvent("image", "pull", imageReference, Map.of("name", imageReference));
+    sendText(exchange, 200,
+        "{\"status\":\"Pulling from " + repository + "\",\"id\":\"" + tag + "\"}\r\n"
+            + "{\"status\":\"Status: Downloaded newer image for " + imageReference + "\"}\r\n");
+  }
+
+  private void listContainers(HttpExchange exchange, Map<String, String> query)
+      throws IOException {
+    boolean all = "true".equals(query.get("all")) || "1".equals(query.get("all"));
+    Map<String, List<String>> filters = readFilters(query);
+    List<String> labelFilters = filters.getOrDefault("label", List.of());
+    List<String> nameFilters = filters.getOrDefault("name", List.of());
+    sendJson(exchange, 200, containers.values()
+        .stream()
+        .filter(container -> all || container.state.equals("running"))
+        .filter(container -> matchesLabelFilters(container.labels, labelFilters))
+        .filter(container -> nameFilters.stream()
+            .allMatch(container.name::contains))
+        .map(container -> {
+          Map<String, Object> description = new LinkedHashMap<>();
+          description.put("Id", container.id);
+          description.put("Names", List.of("/" + container.name));
+          description.put("Image", container.image);
+          description.put("Created", container.created);
+          description.put("State", container.state);
+          description.put("Status", container.state);
+          description.put("Labels", container.labels);
+          return description;
+        })
+        .collect(Collectors.toList()));
+  }
+
+  private Map<String, List<String>> readFilters(Map<String, String> query) throws IOException {
+    return (query.get("filters") == null) ? Map.of()
+        : objectMapper.readValue(query.get("filters"),
+            new TypeReference<Map<String, List<String>>>() {
+            });
+  }
+
+  private static boolean matchesLabelFilters(Map<String, String> labels,
+      List<String> labelFilters) {
+    return labelFilters.stream()
+        .allMatch(labelFilter -> {
+          String[] label = labelFilter.split("=", 2);
+          return (label.length == 1) ? labels.containsKey(label[0])
+              : label[1].equals(labels.get(label[0]));
+        });
+  }
+
+  @SuppressWarnings("unchecked")
+  private void createContainer(HttpExchange exchange, Map<String, String> query,
+      Map<String, Object> body) throws IOException {
+    String name = query.getOrDefault("name", newId().substring(0, 12));
+    String image = String.valueOf(body.get("Image"));
+    if (!image.contains(":")) {
+      image += ":latest";
+    }
+    if (!imageReferences.contains(image)) {
+      sendNotFound(exchange, "No such image: " + image);
+      return;
+    }
+    if (containers.values()
+        .stream()
+        .anyMatch(container -> container.name.equals(name))) {
+      sendJson(exchange, 409, Map.of("message",
+          "Conflict. The container name \"/" + name + "\" is already in use"));
+      return;
+    }
+
+    Map<String, Object> hostConfig = (Map<String, Object>) body.getOrDefault("HostConfig",
+        Map.of());
+    Map<String, List<Map<String, String>>> requestedPortBindings =
+        (Map<String, List<Map<String, String>>>) hostConfig.get("PortBindings");
+    Map<String, List<Map<String, String>>> portBindings = new HashMap<>();
+    if (requestedPortBindings != null) {
+      requestedPortBindings.forEach((containerPort, bindings) -> portBindings.put(
+          containerPort,
+          bindings.stream()
+              .map(binding -> {
+                String hostPort = binding.get("HostPort");
+                return Map.of("HostIp", "0.0.0.0", "HostPort",
+                    (hostPort == null || hostPort.isEmpty())
+                        ? String.valueOf(nextHostPort.getAndIncrement()) : hostPort);
+              })
+              .collect(Collectors.toList())
+      ));
+    }
+    Map<String, String> labels = (Map<String, String>) body.get("Labels");
+    Number memory = (Number) hostConfig.get("Memory");
+    FakeContainer container = new FakeContainer(newId(), name, image,
+        (labels == null) ? Map.of() : Map.copyOf(labels), portBindings,
+        (memory == null) ? 0 : memory.longValue());
+    containers.put(container.id, container);
+    publishContainerEvent(container, "create");
+    sendJson(exchange, 201, Map.of("Id", container.id, "Warnings", List.of()));
+  }
+
+  private void handleContainer(HttpExchange exchange, String method, String idOrName,
+      String action, Map<String, String> query) throws IOException, InterruptedException {
+    FakeContainer container = findContainer(idOrName);
+    if (container == null) {
+      sendNotFound(exchange, "No such container: " + idOrName);
+      return;
+    }
+    if (action == null) {
+      if (method.equals("DELETE")) {
+        containers.remove(container.id);
+        if (container.state.equals("running")) {
+          container.state = "exited";
+          publishContainerEvent(container, "die", Map.of("exitCode", "0"));
+        }
+        publishContainerEvent(container, "destroy");
+        sendNoContent(exchange);
+      } else {
+        sendNotFound(exchange, "page not found");
+      }
+      return;
+    }
+    switch (action) {
+      case "json" -> sendJson(exchange, 200, inspectContainer(container));
+      case "start", "restart" -> {
+        if (container.state.equals("running") && action.equals("start")) {
+          sendNotModified(exchange);
+        } else {
+          container.state = "running";
+          container.logLines.addAll(startupLogLines.getOrDefault(container.image, List.of()));
+          publishContainerEvent(container, "start");
+          sendNoContent(exchange);
+        }
+      }
+      case "stop", "kill" -> {
+        if (!container.state.equals("running")) {
+          sendNotModified(exchange);
+        } else {
+          container.state = "exited";
+          publishContainerEvent(container, "die",
+              Map.of("exitCode", action.equals("kill") ? "137" : "0"));
+          publishContainerEvent(container, action);
+          sendNoContent(exchange);
+        }
+      }
+      case "wait" -> sendJson(exchange, 200, Map.of("StatusCode", 0));
+      case "rename" -> {
+        String name = query.getOrDefault("name", "");
+        if (containers.values()
+            .stream()
+            .anyMatch(candidate -> candidate.name.equals(name))) {
+          sendJson(exchange, 409, Map.of("message",
+              "Conflict. The container name \"/" + name + "\" is already in use"));
+        } else {
+          String oldName = container.name;
+          container.name = name;
+          publishEvent("container", "rename", container.id,
+              Map.of("name", name, "oldName", "/" + oldName, "image", container.image));
+          sendNoContent(exchange);
+        }
+      }
+      case "logs" -> streamLogs(exchange, container,
+          "true".equals(query.get("follow")) || "1".equals(query.get("follow")));
+      case "stats" -> streamStats(exchange, container,
+          !"false".equals(query.get("stream")) && !"0".equals(query.get("stream")));
+      default -> sendNotFound(exchange, "page not found");
+    }
+  }
+
+  /**
+   * Sends the container's output as multiplexed STDOUT frames. When following, lines logged later
+   * are sent as they come, until the container stops or is removed.
+   */
+  private void streamLogs(HttpExchange exchange, FakeContainer container, boolean follow)
+      throws IOException, InterruptedException {
+    exchange.getResponseHeaders()
+        .add("Content-Type", "application/vnd.docker.multiplexed-stream");
+    exchange.sendResponseHeaders(200, 0);
+    OutputStream responseBody = exchange.getResponseBody();
+    int sentLineCount = 0;
+    while (true) {
+      boolean streaming = follow && container.state.equals("running")
+          && containers.containsKey(container.id);
+      while (sentLineCount < container.logLines.size()) {
+        byte[] payload = (container.logLines.get(sentLineCount++) + "\n").getBytes(
+            StandardCharsets.UTF_8);
+        responseBody.write(ByteBuffer.allocate(8)
+            .put((byte) 1)
+            .putInt(4, payload.length)
+            .array());
+        responseBody.write(payload);
+      }
+      responseBody.flush();
+      if (!streaming) {
+        return;
+      }
+      Thread.sleep(10);
+    }
+  }
+
+  /**
+   * Sends the container's stats samples as a stream of JSON documents. When streaming, samples
+   * added later are sent as they come, until the container stops or is removed.
+   */
+  private void streamStats(HttpExchange exchange, FakeContainer container, boolean stream)
+      throws IOException, InterruptedException {
+    exchange.getResponseHeaders()
+        .add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(200, 0);
+    OutputStream responseBody = exchange.getResponseBody();
+    int sentSampleCount = 0;
+    while (true) {
+      boolean streaming = stream && container.state.equals("running")
+          && containers.containsKey(container.id);
+      while (sentSampleCount < container.memoryUsageSamples.size()) {
+        responseBody.write(objectMapper.writeValueAsBytes(describeStats(container,
+            sentSampleCount)));
+        responseBody.write('\n');
+        sentSampleCount++;
+      }
+      responseBody.flush();
+      if (!streaming) {
+        return;
+      }
+      Thread.sleep(10);
+    }
+  }
+
+  private Map<String, Object> describeStats(FakeContainer container, int sampleIndex) {
+    long sampleNumber = sampleIndex + 1;
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("read", Instant.now()
+        .toString());
+    stats.put("cpu_stats", Map.of(
+        "cpu_usage", Map.of("total_usage", sampleNumber * 100_000_000L),
+        "system_cpu_usage", sampleNumber * 400_000_000L,
+        "online_cpus", 2
+    ));
+    stats.put("precpu_stats", Map.of(
+        "cpu_usage", Map.of("total_usage", sampleIndex * 100_000_000L),
+        "system_cpu_usage", sampleIndex * 400_000_000L,
+        "online_cpus", 2
+    ));
+    stats.put("memory_stats", Map.of(
+        "usage", container.memoryUsageSamples.get(sampleIndex),
+        "limit", (container.memory == 0) ? memory : container.memory,
+        "stats", Map.of("inactive_file", 0)
+    ));
+    stats.put("blkio_stats", Map.of("io_service_bytes_recursive", List.of(
+        Map.of("major", 8, "minor", 0, "op", "Read", "value", sampleNumber * 4096),
+        Map.of("major", 8, "minor", 0, "op", "Write", "value", sampleNumber * 8192)
+    )));
+    stats.put("networks", Map.of("eth0", Map.of(
+        "rx_bytes", sampleNumber * 1000,
+        "tx_bytes", sampleNumber * 500
+    )));
+    return stats;
+  }
+
+  private Map<String, Object> inspectContainer(FakeContainer container) {
+    boolean running = container.state.equals("running");
+    Map<String, Object> state = new LinkedHashMap<>();
+    state.put("Status", container.state);
+    state.put("Running", running);
+    state.put("Paused", false);
+    state.put("Restarting", false);
+    state.put("ExitCode", 0);
+    Map<String, Object> description = new LinkedHashMap<>();
+    description.put("Id", container.id);
+    description.put("Name", "/" + container.name);
+    description.put("Image", container.image);
+    description.put("Config", Map.of("Image", container.image, "Labels", container.labels));
+    description.put("HostConfig", Map.of("Memory", container.memory));
+    description.put("State", state);
+    description.put("NetworkSettings",
+        Map.of("Ports", running ? container.portBindings : Map.of()));
+    return description;
+  }
+
+  private Map<String, Object> describeImage(String imageReference) {
+    String repository = imageReference.substring(0, imageReference.lastIndexOf(':'));
+    String digest = "sha256:" + UUID.nameUUIDFromBytes(
+        imageReference.getBytes(StandardCharsets.UTF_8))
+        .toString()
+        .replace("-", "");
+    Map<String, Object> description = new LinkedHashMap<>();
+    description.put("Id", digest);
+    description.put("RepoTags", List.of(imageReference));
+    description.put("RepoDigests", List.of(repository + "@" + digest));
+    description.put("Created", 0);
+    description.put("Size", 0);
+    return description;
+  }
+
+  private FakeContainer findContainer(String idOrName) {
+    FakeContainer container = containers.get(idOrName);
+    if (container == null) {
+      // Like docker, names take precedence over ID prefixes
+      container = containers.values()
+          .stream()
+          .filter(candidate -> candidate.name.equals(idOrName))
+          .findFirst()
+          .or(() -> containers.values()
+              .stream()
+              .filter(candidate -> candidate.id.startsWith(idOrName))
+              .findFirst())
+          .orElse(null);
+    }
+    return container;
+  }
+
+  private void publishContainerEvent(FakeContainer container, String action) {
+    publishContainerEvent(container, action, Map.of());
+  }
+
+  private void publishContainerEvent(FakeContainer container, String action,
+      Map<String, String> extraAttributes) {
+    Map<String, String> attributes = new HashMap<>(extraAttributes);
+    attributes.put("name", container.name);
+    attributes.put("image", container.image);
+    publishEvent("container", action, container.id, attributes);
+  }
+
+  private void publishEvent(String type, String action, String id,
+      Map<String, String> attributes) {
+    if (eventSubscribers.isEmpty()) {
+      return;
+    }
+    Instant now = Instant.now();
+    Map<String, Object> event = new LinkedHashMap<>();
+    event.put("Type", type);
+    event.put("Action", action);
+    event.put("status", action);
+    event.put("id", id);
+    event.put("Actor", Map.of("ID", id, "Attributes", attributes));
+    event.put("time", now.getEpochSecond());
+    event.put("timeNano", now.getEpochSecond() * 1_000_000_000L + now.getNano());
+    eventSubscribers.forEach(subscriber -> subscriber.offer(event));
+  }
+
+  private void streamEvents(HttpExchange exchange) throws IOException, InterruptedException {
+    if (!eventsEnabled) {
+      sendJson(exchange, 500, Map.of("message", "events are disabled"));
+      return;
+    }
+    BlockingQueue<Object> subscriber = new LinkedBlockingQueue<>();
+    eventSubscribers.add(subscriber);
+    try {
+      exchange.getResponseHeaders()
+          .add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, 0);
+      OutputStream responseBody = exchange.getResponseBody();
+      responseBody.flush();
+      while (true) {
+        Object event = subscriber.poll(1, TimeUnit.SECONDS);
+        if (event == endOfEvents) {
+          return;
+        } else if (event != null) {
+          responseBody.write(objectMapper.writeValueAsBytes(event));
+          responseBody.write('\n');
+          responseBody.flush();
+        }
+      }
+    } catch (IOException e) {
+      // The client disconnected
+    } finally {
+      eventSubscribers.remove(subscriber);
+    }
+  }
+
+  private Map<String, Object> readJson(byte[] body) throws IOException {
+    return (body.length == 0) ? Map.of() : objectMapper.readValue(body,
+        new TypeReference<Map<String, Object>>() {
+        });
+  }
+
+  private static Map<String, String> parseQuery(URI uri) {
+    Map<String, String> query = new HashMap<>();
+    if (uri.getRawQuery() != null) {
+      for (String parameter : uri.getRawQuery()
+          .split("&")) {
+        String[] keyValue = parameter.split("=", 2);
+        query.put(URLDecoder.decode(keyValue[0], StandardCharsets.UTF_8),
+            (keyValue.length == 1) ? "" : URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8));
+      }
+    }
+    return query;
+  }
+
+  private static String newId() {
+    return (UUID.randomUUID()
+        .toString() + UUID.randomUUID()
+        .toString()).replace("-", "");
+  }
+
+  private void sendJson(HttpExchange exchange, int statusCode, Object body) throws IOException {
+    exchange.getResponseHeaders()
+        .add("Content-Type", "application/json");
+    byte[] response = objectMapper.writeValueAsBytes(body);
+    exchange.sendResponseHeaders(statusCode, response.length);
+    exchange.getResponseBody()
+        .write(response);
+  }
+
+  private void sendText(HttpExchange exchange, int statusCode, String body) throws IOException {
+    byte[] response = body.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(statusCode, response.length);
+    exchange.getResponseBody()
+        .write(response);
+  }
+
+  private void sendNotFound(HttpExchange exchange, String message) throws IOException {
+    sendJson(exchange, 404, Map.of("message", message));
+  }
+
+  private static void sendNoContent(HttpExchange exchange) throws IOException {
+    exchange.sendResponseHeaders(204, -1);
+  }
+
+  private static void sendNotModified(HttpExchange exchange) throws IOException {
+    exchange.sendResponseHeaders(304, -1);
+  }
+}
@@ -0,0 +1,101 @@
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.ExposedPort;
+import com.github.dockerjava.api.model.HostConfig;
+import com.github.dockerjava.api.model.Ports;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientBuilder;
+import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
+import java.io.IOException;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class FakeDockerEngineTest {
+
+  private static FakeDockerEngine fakeDockerEngine;
+  private static DockerClient dockerClient;
+
+  @BeforeAll
+  public static void setUp() throws IOException {
+    fakeDockerEngine = new FakeDockerEngine(Duration.ZERO)
+        .withImages("postgres:latest")
+        .withFillerImages(10)
+        .withFillerContainers(10)
+        .start();
+    DefaultDockerClientConfig dockerClientConfig = DefaultDockerClientConfig
+        .createDefaultConfigBuilder()
+        .withDockerHost(fakeDockerEngine.getDockerHost())
+        .build();
+    dockerClient = DockerClientBuilder.getInstance(dockerClientConfig)
+        .withDockerHttpClient(new ApacheDockerHttpClient.Builder()
+            .dockerHost(dockerClientConfig.getDockerHost())
+            .build())
+        .build();
+  }
+
+  @AfterAll
+  public static void tearDown() throws IOException {
+    dockerClient.close();
+    fakeDockerEngine.close();
+  }
+
+  /**
+   * Tests that the fake engine serves its inventory to docker-java.
+   */
+  @Test
+  public void testInventory() {
+    Assertions.assertEquals(
+        11,
+        dockerClient.listImagesCmd()
+            .exec()
+            .size()
+    );
+    Assertions.assertEquals(
+        5,
+        dockerClient.listContainersCmd()
+            .exec()
+            .size()
+    );
+    Assertions.assertEquals(
+        10,
+        dockerClient.listContainersCmd()
+            .withShowAll(true)
+            .exec()
+            .size()
+    );
+  }
+
+  /**
+   * Tests the container lifecycle against the fake engine, including ephemeral port mapping.
+   */
+  @Test
+  public void testContainerLifecycle() {
+    Ports portBindings = new Ports();
+    portBindings.bind(ExposedPort.tcp(5432), Ports.Binding.empty());
+    dockerClient.createContainerCmd("postgres:latest")
+        .withName("adya_fake_engine_test")
+        .withHostConfig(new HostConfig()
+            .withPortBindings(portBindings))
+        .exec();
+    dockerClient.startContainerCmd("adya_fake_engine_test")
+        .exec();
+
+    Ports.Binding[] bindings = dockerClient.inspectContainerCmd("adya_fake_engine_test")
+        .exec()
+        .getNetworkSettings()
+        .getPorts()
+        .getBindings()
+        .get(ExposedPort.tcp(5432));
+    Assertions.assertNotNull(bindings);
+    Assertions.assertFalse(bindings[0].getHostPortSpec().isEmpty());
+
+    dockerClient.stopContainerCmd("adya_fake_engine_test")
+        .exec();
+    dockerClient.removeContainerCmd("adya_fake_engine_test")
+        .exec();
+    Assertions.assertFalse(fakeDockerEngine.getContainerNames()
+        .contains("adya_fake_engine_test"));
+  }
+}
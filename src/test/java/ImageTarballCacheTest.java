@@ -0,0 +1,81 @@
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientBuilder;
+import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class ImageTarballCacheTest {
+
+  private static FakeDockerEngine fakeDockerEngine;
+  private static DockerClient dockerClient;
+  private static ImageTarballCache imageTarballCache;
+
+  @BeforeAll
+  public static void setUp() throws IOException {
+    fakeDockerEngine = new FakeDockerEngine(Duration.ZERO)
+        .withImages("postgres:latest", "mcr.microsoft.com/mssql/server:2019-latest")
+        .start();
+    DefaultDockerClientConfig dockerClientConfig = DefaultDockerClientConfig
+        .createDefaultConfigBuilder()
+        .withDockerHost(fakeDockerEngine.getDockerHost())
+        .build();
+    dockerClient = DockerClientBuilder.getInstance(dockerClientConfig)
+        .withDockerHttpClient(new ApacheDockerHttpClient.Builder()
+            .dockerHost(dockerClientConfig.getDockerHost())
+            .build())
+        .build();
+    imageTarballCache = new ImageTarballCache(Files.createTempDirectory("adya-image-cache"));
+  }
+
+  @AfterAll
+  public static void tearDown() throws IOException {
+    dockerClient.close();
+    fakeDockerEngine.close();
+  }
+
+  /**
+   * Tests that a saved image is compressed on disk and can be loaded back into a daemon that no
+   * longer has it, without pulling it.
+   */
+  @Test
+  public void testSaveAndLoad() throws IOException {
+    String imageReference = "mcr.microsoft.com/mssql/server:2019-latest";
+    Assertions.assertFalse(imageTarballCache.contains(imageReference));
+
+    imageTarballCache.save(dockerClient, imageReference);
+    Path tarballPath = imageTarballCache.getTarballPath(imageReference);
+    Assertions.assertTrue(imageTarballCache.contains(imageReference));
+    Assertions.assertEquals(List.of(tarballPath), imageTarballCache.getTarballPaths());
+    Assertions.assertTrue(tarballPath.startsWith(imageTarballCache.getCacheDirectory()));
+    // The fake image archive is mostly padding, which compresses well
+    Assertions.assertTrue(Files.size(tarballPath) < 64 * 1024);
+
+    dockerClient.removeImageCmd(imageReference)
+        .exec();
+    Assertions.assertFalse(fakeDockerEngine.hasImage(imageReference));
+    Assertions.assertTrue(imageTarballCache.load(dockerClient, imageReference));
+    Assertions.assertTrue(fakeDockerEngine.hasImage(imageReference));
+    Assertions.assertEquals(0, fakeDockerEngine.getPullCount());
+
+    imageTarballCache.remove(imageReference);
+    Assertions.assertFalse(imageTarballCache.contains(imageReference));
+  }
+
+  /**
+   * Tests that loading an image which isn't cached leaves the daemon untouched.
+   */
+  @Test
+  public void testLoadUncachedImage() {
+    int requestCount = fakeDockerEngine.getRequestCount();
+    Assertions.assertFalse(imageTarballCache.load(dockerClient, "mysql:latest"));
+    Assertions.assertEquals(requestCount, fakeDockerEngine.getRequestCount());
+  }
+}
@@ -0,0 +1,134 @@
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+public class InMemoryDockerMetricsRegistryTest {
+
+  /**
+   * Tests that operations are counted per image and phase.
+   */
+  @Test
+  public void testRecordOperation() {
+    InMemoryDockerMetricsRegistry metricsRegistry = new InMemoryDockerMetricsRegistry();
+    metricsRegistry.recordOperation("postgres:latest", DockerOperationPhase.PULL,
+        Duration.ofMillis(200), true);
+    metricsRegistry.recordOperation("postgres:latest", DockerOperationPhase.PULL,
+        Duration.ofMillis(400), false);
+    metricsRegistry.recordOperation(null, DockerOperationPhase.REMOVE, Duration.ofMillis(5), true);
+
+    InMemoryDockerMetricsRegistry.PhaseMetrics pullMetrics = metricsRegistry.getMetrics(
+        "postgres:latest", DockerOperationPhase.PULL);
+    Assertions.assertEquals(2, pullMetrics.getCount());
+    Assertions.assertEquals(1, pullMetrics.getFailureCount());
+    Assertions.assertEquals(Duration.ofMillis(300), pullMetrics.getMeanDuration());
+    Assertions.assertEquals(Duration.ofMillis(400), pullMetrics.getMaxDuration());
+    Assertions.assertEquals(
+        0,
+        metricsRegistry.getMetrics("postgres:latest", DockerOperationPhase.START)
+            .getCount()
+    );
+    Assertions.assertEquals(
+        1,
+        metricsRegistry.getMetrics(null, DockerOperationPhase.REMOVE)
+            .getCount()
+    );
+  }
+
+  /**
+   * Tests that the resource usage of containers is recorded per image and container name.
+   */
+  @Test
+  public void testRecordContainerStats() {
+    InMemoryDockerMetricsRegistry metricsRegistry = new InMemoryDockerMetricsRegistry();
+    metricsRegistry.recordContainerStats("postgres:latest", createContainerStats("postgres_0", 1));
+    metricsRegistry.recordContainerStats("postgres:latest", createContainerStats("postgres_1", 2));
+    metricsRegistry.recordContainerStats("postgres:latest", createContainerStats("postgres_1", 3));
+    metricsRegistry.recordContainerStats(null, createContainerStats("unknown_0", 4));
+
+    Map<String, ContainerStats> postgresContainerStats = metricsRegistry.getContainerStats(
+        "postgres:latest");
+    Assertions.assertEquals(Set.of("postgres_0", "postgres_1"), postgresContainerStats.keySet());
+    Assertions.assertEquals(1, postgresContainerStats.get("postgres_0")
+        .getSampleCount());
+    Assertions.assertEquals(3, postgresContainerStats.get("postgres_1")
+        .getSampleCount());
+    Assertions.assertEquals(
+        Set.of("unknown_0"),
+        metricsRegistry.getContainerStats(InMemoryDockerMetricsRegistry.unknownImageReference)
+            .keySet()
+    );
+
+    metricsRegistry.reset();
+    Assertions.assertTrue(metricsRegistry.getContainerStats("postgres:latest")
+        .isEmpty());
+  }
+
+  private static ContainerStats createContainerStats(String containerName, long sampleCount) {
+    return new ContainerStats(containerName, sampleCount, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+  }
+
+  /**
+   * Tests that queue waits are recorded per operation class.
+   */
+  @Test
+  public void testRecordQueueWait() {
+    InMemoryDockerMetricsRegistry metricsRegistry = new InMemoryDockerMetricsRegistry();
+    metricsRegistry.recordQueueWait(DockerOperationClass.CREATE, Duration.ZERO);
+    metricsRegistry.recordQueueWait(DockerOperationClass.CREATE, Duration.ofMillis(40));
+
+    InMemoryDockerMetricsRegistry.PhaseMetrics createQueueWaitMetrics =
+        metricsRegistry.getQueueWaitMetrics(DockerOperationClass.CREATE);
+    Assertions.assertEquals(2, createQueueWaitMetrics.getCount());
+    Assertions.assertEquals(Duration.ofMillis(20), createQueueWaitMetrics.getMeanDuration());
+    Assertions.assertEquals(Duration.ofMillis(40), createQueueWaitMetrics.getMaxDuration());
+    Assertions.assertEquals(
+        0,
+        metricsRegistry.getQueueWaitMetrics(DockerOperationClass.PULL)
+            .getCount()
+    );
+
+    metricsRegistry.reset();
+    Assertions.assertEquals(
+        0,
+        metricsRegistry.getQueueWaitMetrics(DockerOperationClass.CREATE)
+            .getCount()
+    );
+  }
+
+  /**
+   * Tests that percentiles are resolved to the upper bound of their histogram bucket.
+   *
+   * @param percentile                 Percentile to get.
+   * @param expectedPercentileInMillis Expected percentile.
+   */
+  @ParameterizedTest
+  @CsvSource(
+      {
+          "0, 10",
+          "50, 10",
+          "90, 1000",
+          "100, 500000"
+      }
+  )
+  public void testGetPercentile(double percentile, long expectedPercentileInMillis) {
+    InMemoryDockerMetricsRegistry metricsRegistry = new InMemoryDockerMetricsRegistry();
+    for (int index = 0; index < 8; index++) {
+      metricsRegistry.recordOperation("postgres:latest", DockerOperationPhase.READY,
+          Duration.ofMillis(5), true);
+    }
+    metricsRegistry.recordOperation("postgres:latest", DockerOperationPhase.READY,
+        Duration.ofMillis(800), true);
+    metricsRegistry.recordOperation("postgres:latest", DockerOperationPhase.READY,
+        Duration.ofMillis(500_000), true);
+
+    Assertions.assertEquals(
+        Duration.ofMillis(expectedPercentileInMillis),
+        metricsRegistry.getMetrics("postgres:latest", DockerOperationPhase.READY)
+            .getPercentile(percentile)
+    );
+  }
+}
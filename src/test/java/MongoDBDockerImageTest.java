@@ -21,18 +21,14 @@ public class MongoDBDockerImageTest extends ADockerImageTest {
   }
 
   @Override
-  public long getStartupWaitTimeInMs() {
-    return 20_000;
-  }
-
-  @Override
-  public void testServiceInDockerContainer(DockerImage dockerImage) {
+  public void testServiceInDockerContainer(ManagedContainer managedContainer) {
+    DockerImage dockerImage = managedContainer.getDockerImage();
     String password = dockerImage.getEnvironmentVariable("MONGO_INITDB_ROOT_PASSWORD");
     Objects.requireNonNull(password);
     MongoCredential credential = MongoCredential
         .createCredential("root", "admin", password.toCharArray());
     MongoClient mongoClient = new MongoClient(
-        new ServerAddress("localhost", 27017),
+        new ServerAddress(managedContainer.getHost(), managedContainer.getMappedPort(27017)),
         Collections.singletonList(credential)
     );
     Assertions.assertEquals(
@@ -25,15 +25,12 @@ public class MySQLDockerImageTest extends ADockerImageTest {
   }
 
   @Override
-  public long getStartupWaitTimeInMs() {
-    return 20_000;
-  }
-
-  @Override
-  public void testServiceInDockerContainer(DockerImage dockerImage) {
+  public void testServiceInDockerContainer(ManagedContainer managedContainer) {
+    DockerImage dockerImage = managedContainer.getDockerImage();
     String password = dockerImage.getEnvironmentVariable("MYSQL_ROOT_PASSWORD");
     Objects.requireNonNull(password);
-    String connectionUrl = "jdbc:mysql://127.0.0.1:3306";
+    String connectionUrl = String.format("jdbc:mysql://%s:%d", managedContainer.getHost(),
+        managedContainer.getMappedPort(3306));
 
     try {
       Connection connection = DriverManager.getConnection(connectionUrl, "root", password);
@@ -0,0 +1,92 @@
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+public class PerformanceProfileTest {
+
+  /**
+   * Tests that with methods return modified copies and leave the original profile unchanged.
+   */
+  @Test
+  public void testProfileIsImmutable() {
+    PerformanceProfile emptyProfile = new PerformanceProfile();
+    PerformanceProfile profile = emptyProfile.withTmpfs("/var/lib/postgresql/data")
+        .withTmpfs("/tmp", "rw,size=64m")
+        .withCommandArguments("-c", "fsync=off")
+        .withMemoryLimit(512L * 1024 * 1024)
+        .withCpus(0.5)
+        .withCpusetCpus("0-1");
+
+    Assertions.assertTrue(emptyProfile.getTmpfsMounts()
+        .isEmpty());
+    Assertions.assertTrue(emptyProfile.getCommandArguments()
+        .isEmpty());
+    Assertions.assertNull(emptyProfile.getMemoryLimitInBytes());
+    Assertions.assertNull(emptyProfile.getCpus());
+    Assertions.assertNull(emptyProfile.getCpusetCpus());
+
+    Assertions.assertEquals(
+        Map.of("/var/lib/postgresql/data", PerformanceProfile.defaultTmpfsOptions, "/tmp",
+            "rw,size=64m"),
+        profile.getTmpfsMounts()
+    );
+    Assertions.assertEquals(List.of("-c", "fsync=off"), profile.getCommandArguments());
+    Assertions.assertEquals(512L * 1024 * 1024, profile.getMemoryLimitInBytes());
+    Assertions.assertEquals(0.5, profile.getCpus());
+    Assertions.assertEquals("0-1", profile.getCpusetCpus());
+    Assertions.assertThrows(
+        UnsupportedOperationException.class,
+        () -> profile.getTmpfsMounts()
+            .put("/data", "rw")
+    );
+  }
+
+  /**
+   * Tests that invalid profile settings are rejected.
+   */
+  @ParameterizedTest
+  @CsvSource({
+      "data, 1, 1",
+      "/data, 0, 1",
+      "/data, 1, 0",
+      "/data, 1, -0.5"
+  })
+  public void testInvalidProfile(String tmpfsPath, long memoryLimitInBytes, double cpus) {
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> new PerformanceProfile().withTmpfs(tmpfsPath)
+            .withMemoryLimit(memoryLimitInBytes)
+            .withCpus(cpus)
+    );
+  }
+
+  /**
+   * Tests that the database images come with a profile keeping their data directory in memory,
+   * and that a container spec applies it unless overridden.
+   */
+  @Test
+  public void testDefaultProfiles() {
+    Assertions.assertTrue(DockerImage.POSTGRESQL_LATEST.getPerformanceProfile()
+        .getTmpfsMounts()
+        .containsKey("/var/lib/postgresql/data"));
+    Assertions.assertTrue(DockerImage.POSTGRESQL_LATEST.getPerformanceProfile()
+        .getCommandArguments()
+        .contains("fsync=off"));
+    Assertions.assertTrue(DockerImage.MYSQL_LATEST.getPerformanceProfile()
+        .getCommandArguments()
+        .contains("--innodb-flush-log-at-trx-commit=0"));
+    Assertions.assertNull(DockerImage.SPLUNK_LATEST.getPerformanceProfile());
+
+    Assertions.assertSame(
+        DockerImage.POSTGRESQL_LATEST.getPerformanceProfile(),
+        new ContainerSpec(DockerImage.POSTGRESQL_LATEST, "adya_profile_test")
+            .getPerformanceProfile()
+    );
+    Assertions.assertNull(new ContainerSpec(DockerImage.POSTGRESQL_LATEST, "adya_profile_test")
+        .withPerformanceProfile(null)
+        .getPerformanceProfile());
+  }
+}
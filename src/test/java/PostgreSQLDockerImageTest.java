@@ -58,14 +58,11 @@ public class PostgreSQLDockerImageTest extends ADockerImageTest {
   }
 
   @Override
-  public long getStartupWaitTimeInMs() {
-    return 20_000;
-  }
-
-  @Override
-  public void testServiceInDockerContainer(DockerImage dockerImage) {
+  public void testServiceInDockerContainer(ManagedContainer managedContainer) {
+    DockerImage dockerImage = managedContainer.getDockerImage();
     String password = dockerImage.getEnvironmentVariable("POSTGRES_PASSWORD");
     Objects.requireNonNull(password);
-    testPostgresSQLConnection("127.0.0.1", 5432, "postgres", password);
+    testPostgresSQLConnection(managedContainer.getHost(), managedContainer.getMappedPort(5432),
+        "postgres", password);
   }
 }
@@ -0,0 +1,29 @@
+import java.io.IOException;
+import java.time.Duration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+public class RegistryDigestResolverTest {
+
+  private static final RegistryDigestResolver registryDigestResolver =
+      new RegistryDigestResolver(Duration.ofMinutes(1));
+
+  /**
+   * Tests that digests are resolved from docker hub and other registries, and that repeated
+   * resolutions are served from the cache.
+   *
+   * @param dockerImage Docker image whose digest is to be resolved.
+   * @throws IOException If the registry can't be reached.
+   */
+  @ParameterizedTest
+  @EnumSource(
+      value = DockerImage.class,
+      names = {"POSTGRESQL_LATEST", "SPLUNK_LATEST", "MICROSOFT_SQL_SERVER_2019_LATEST"}
+  )
+  public void testResolveDigest(DockerImage dockerImage) throws IOException {
+    String digest = registryDigestResolver.resolveDigest(dockerImage);
+    Assertions.assertTrue(digest.startsWith("sha256:"), digest);
+    Assertions.assertSame(digest, registryDigestResolver.resolveDigest(dockerImage));
+  }
+}
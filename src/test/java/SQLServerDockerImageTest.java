@@ -27,23 +27,21 @@ public class SQLServerDockerImageTest extends ADockerImageTest {
   }
 
   @Override
-  public long getStartupWaitTimeInMs() {
-    return 20_000;
-  }
-
-  @Override
-  public void testServiceInDockerContainer(DockerImage dockerImage) {
+  public void testServiceInDockerContainer(ManagedContainer managedContainer) {
+    DockerImage dockerImage = managedContainer.getDockerImage();
     String password = dockerImage.getEnvironmentVariable("SA_PASSWORD");
     Objects.requireNonNull(password);
 
     String connectionUrl = String.format(
-        "jdbc:sqlserver://127.0.0.1:1433;"
+        "jdbc:sqlserver://%s:%d;"
             + "database=;"
             + "user=sa;"
             + "password=%s;"
             + "encrypt=true;"
             + "trustServerCertificate=true;"
             + "loginTimeout=30;",
+        managedContainer.getHost(),
+        managedContainer.getMappedPort(1433),
         password
     );
 
@@ -0,0 +1,82 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class SnapshotCacheTest {
+
+  private static DockerUtility dockerUtility;
+  private static SnapshotCache snapshotCache;
+  private static Path volumeArchiveDirectory;
+
+  @BeforeAll
+  public static void setUp() throws Exception {
+    dockerUtility = new DockerUtility();
+    volumeArchiveDirectory = Files.createTempDirectory("adya-snapshot-test");
+    snapshotCache = new SnapshotCache(dockerUtility, 2, volumeArchiveDirectory);
+    snapshotCache.invalidate(DockerImage.POSTGRESQL_LATEST);
+  }
+
+  @AfterAll
+  public static void tearDown() {
+    dockerUtility.removeContainerIfExists("adya_snapshot_test");
+    snapshotCache.invalidate(DockerImage.POSTGRESQL_LATEST);
+  }
+
+  /**
+   * Tests that an invalid maximum number of snapshots is rejected.
+   */
+  @Test
+  public void testInvalidMaxSnapshots() {
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> new SnapshotCache(dockerUtility, 0)
+    );
+  }
+
+  /**
+   * Tests that a container is snapshotted after its first start, and that data initialized in it
+   * survives when a container is started from the snapshot.
+   */
+  @Test
+  public void testStartFromSnapshot() throws InterruptedException {
+    ContainerSpec containerSpec = new ContainerSpec(DockerImage.POSTGRESQL_LATEST,
+        "adya_snapshot_test")
+        .withRemoveContainerIfExists(true)
+        .withEphemeralPorts(true)
+        .withSnapshotCache(snapshotCache);
+
+    Assertions.assertFalse(snapshotCache.hasSnapshot(DockerImage.POSTGRESQL_LATEST));
+    dockerUtility.createAndRunContainer(containerSpec);
+    Assertions.assertTrue(snapshotCache.hasSnapshot(DockerImage.POSTGRESQL_LATEST));
+    String snapshotReference = snapshotCache.getSnapshotReference(DockerImage.POSTGRESQL_LATEST);
+    Assertions.assertTrue(snapshotReference.startsWith(SnapshotCache.snapshotRepositoryPrefix));
+    Assertions.assertTrue(snapshotCache.getSnapshotReferences()
+        .contains(snapshotReference));
+    // The command of the snapshotted container is baked into the snapshot
+    PerformanceProfile performanceProfile = new PerformanceProfile()
+        .withCommandArguments("-c", "fsync=off");
+    Assertions.assertNotEquals(snapshotReference,
+        snapshotCache.getSnapshotReference(DockerImage.POSTGRESQL_LATEST, performanceProfile));
+    Assertions.assertFalse(snapshotCache.hasSnapshot(DockerImage.POSTGRESQL_LATEST,
+        performanceProfile));
+
+    // The restarted container only logs readiness once, so this would time out with the first
+    // boot wait strategy
+    ManagedContainer managedContainer = dockerUtility.createAndRunContainer(containerSpec);
+    Assertions.assertTrue(dockerUtility.doesContainerExist(
+        managedContainer.getContainerName(), false));
+    Assertions.assertFalse(dockerUtility.getDockerClient()
+        .inspectContainerCmd(managedContainer.getContainerName())
+        .exec()
+        .getConfig()
+        .getImage()
+        .equals("postgres:latest"));
+
+    dockerUtility.removeContainerIfExists(managedContainer.getContainerName());
+    snapshotCache.invalidate(DockerImage.POSTGRESQL_LATEST);
+    Assertions.assertFalse(snapshotCache.hasSnapshot(DockerImage.POSTGRESQL_LATEST));
+  }
+}
@@ -40,15 +40,12 @@ public class SplunkDockerImageTest extends ADockerImageTest {
   }
 
   @Override
-  public long getStartupWaitTimeInMs() {
-    return 30_000;
-  }
-
-  @Override
-  public void testServiceInDockerContainer(DockerImage dockerImage) {
+  public void testServiceInDockerContainer(ManagedContainer managedContainer) {
+    DockerImage dockerImage = managedContainer.getDockerImage();
     String password = dockerImage.getEnvironmentVariable("SPLUNK_PASSWORD");
     Objects.requireNonNull(password);
 
-    testSplunkConnection("127.0.0.1", 8089, "admin", password);
+    testSplunkConnection(managedContainer.getHost(), managedContainer.getMappedPort(8089), "admin",
+        password);
   }
 }
\ No newline at end of file
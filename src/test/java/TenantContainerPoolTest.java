@@ -0,0 +1,111 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class TenantContainerPoolTest {
+
+  private static TenantContainerPool tenantContainerPool;
+
+  @BeforeAll
+  public static void setUp() {
+    tenantContainerPool = new TenantContainerPool(new DockerUtility(), 2);
+  }
+
+  @AfterAll
+  public static void tearDown() {
+    tenantContainerPool.close();
+  }
+
+  private static String getConnectionUrl(TenantLease tenantLease, String database) {
+    ManagedContainer managedContainer = tenantLease.getManagedContainer();
+    return String.format("jdbc:postgresql://%s:%d/%s", managedContainer.getHost(),
+        managedContainer.getMappedPort(5432), database);
+  }
+
+  private static boolean databaseExists(TenantLease tenantLease, String database)
+      throws SQLException {
+    String password = DockerImage.POSTGRESQL_LATEST.getEnvironmentVariable("POSTGRES_PASSWORD");
+    try (Connection connection = DriverManager.getConnection(
+        getConnectionUrl(tenantLease, "postgres"), "postgres", password);
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(
+            "SELECT 1 FROM pg_database WHERE datname = '" + database + "'")) {
+      return resultSet.next();
+    }
+  }
+
+  /**
+   * Tests that concurrent leases share a container, get their own database and credentials, and
+   * can't connect to each other's databases.
+   */
+  @Test
+  public void testTenantIsolation() throws Exception {
+    try (TenantLease firstTenantLease = tenantContainerPool.lease(DockerImage.POSTGRESQL_LATEST);
+        TenantLease secondTenantLease = tenantContainerPool.lease(
+            DockerImage.POSTGRESQL_LATEST)) {
+      Assertions.assertEquals(
+          firstTenantLease.getManagedContainer()
+              .getContainerName(),
+          secondTenantLease.getManagedContainer()
+              .getContainerName()
+      );
+      Assertions.assertNotEquals(firstTenantLease.getTenantName(),
+          secondTenantLease.getTenantName());
+      Assertions.assertEquals(2, tenantContainerPool.getLeaseCount(DockerImage.POSTGRESQL_LATEST));
+
+      for (TenantLease tenantLease : new TenantLease[]{firstTenantLease, secondTenantLease}) {
+        try (Connection connection = DriverManager.getConnection(
+            getConnectionUrl(tenantLease, tenantLease.getTenantName()),
+            tenantLease.getUsername(), tenantLease.getPassword())) {
+          connection.createStatement()
+              .execute("CREATE TABLE fixtures (name TEXT)");
+        }
+      }
+      Assertions.assertThrows(
+          SQLException.class,
+          () -> DriverManager.getConnection(
+              getConnectionUrl(firstTenantLease, secondTenantLease.getTenantName()),
+              firstTenantLease.getUsername(), firstTenantLease.getPassword())
+      );
+    }
+    Assertions.assertEquals(0, tenantContainerPool.getLeaseCount(DockerImage.POSTGRESQL_LATEST));
+  }
+
+  /**
+   * Tests that the database of a released tenant is dropped in the background.
+   */
+  @Test
+  public void testReleasedTenantIsDropped() throws Exception {
+    TenantLease tenantLease = tenantContainerPool.lease(DockerImage.POSTGRESQL_LATEST);
+    String tenantName = tenantLease.getTenantName();
+    Assertions.assertTrue(databaseExists(tenantLease, tenantName));
+
+    tenantLease.close();
+    Instant deadline = Instant.now()
+        .plus(Duration.ofMinutes(1));
+    while (databaseExists(tenantLease, tenantName) && Instant.now()
+        .isBefore(deadline)) {
+      Thread.sleep(100);
+    }
+    Assertions.assertFalse(databaseExists(tenantLease, tenantName));
+  }
+
+  /**
+   * Tests that leasing a tenant of a docker image without a tenant provisioner fails.
+   */
+  @Test
+  public void testUnsupportedDockerImage() {
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> tenantContainerPool.lease(DockerImage.SPLUNK_LATEST)
+    );
+  }
+}
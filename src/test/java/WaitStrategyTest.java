@@ -0,0 +1,220 @@
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class WaitStrategyTest {
+
+  /**
+   * Container stand-in whose published ports, logs and health status are set by the test.
+   */
+  private static class FakeWaitStrategyTarget implements WaitStrategyTarget {
+
+    private final int mappedPort;
+    private volatile String logs = "";
+    private volatile String healthStatus;
+    private volatile boolean running = true;
+
+    FakeWaitStrategyTarget(int mappedPort) {
+      this.mappedPort = mappedPort;
+    }
+
+    @Override
+    public String getContainerName() {
+      return "fake_container";
+    }
+
+    @Override
+    public String getHost() {
+      return "localhost";
+    }
+
+    @Override
+    public int getMappedPort(int containerPort) {
+      return mappedPort;
+    }
+
+    @Override
+    public String getLogs() {
+      return logs;
+    }
+
+    @Override
+    public String getHealthStatus() {
+      return healthStatus;
+    }
+
+    @Override
+    public boolean isRunning() {
+      return running;
+    }
+  }
+
+  /**
+   * Returns a local port that nothing is listening on.
+   *
+   * @return An unused local port.
+   * @throws IOException If no port could be allocated.
+   */
+  private static int getUnusedPort() throws IOException {
+    try (ServerSocket serverSocket = new ServerSocket(0)) {
+      return serverSocket.getLocalPort();
+    }
+  }
+
+  /**
+   * Tests that the TCP port strategy returns once the port accepts connections, and times out if
+   * it never does.
+   *
+   * @throws IOException If the test server socket can't be created.
+   */
+  @Test
+  public void testTcpPortWaitStrategy() throws IOException {
+    try (ServerSocket serverSocket = new ServerSocket(0)) {
+      FakeWaitStrategyTarget target = new FakeWaitStrategyTarget(serverSocket.getLocalPort());
+      Assertions.assertDoesNotThrow(
+          () -> WaitStrategy.forListeningPort(1234, Duration.ofSeconds(5))
+              .waitUntilReady(target)
+      );
+    }
+
+    FakeWaitStrategyTarget target = new FakeWaitStrategyTarget(getUnusedPort());
+    Assertions.assertThrows(
+        TimeoutException.class,
+        () -> WaitStrategy.forListeningPort(1234, Duration.ofMillis(500))
+            .waitUntilReady(target)
+    );
+  }
+
+  /**
+   * Tests that the log message strategy waits for the specified number of matching lines.
+   *
+   * @throws InterruptedException If the test is interrupted.
+   */
+  @Test
+  public void testLogMessageWaitStrategy() throws InterruptedException {
+    FakeWaitStrategyTarget target = new FakeWaitStrategyTarget(0);
+    WaitStrategy waitStrategy = WaitStrategy.forLogMessage(
+        ".*ready to accept connections.*", 2, Duration.ofMillis(500));
+
+    target.logs = "starting\ndatabase system is ready to accept connections\n";
+    Assertions.assertThrows(TimeoutException.class, () -> waitStrategy.waitUntilReady(target));
+
+    target.logs += "restarting\ndatabase system is ready to accept connections\n";
+    Assertions.assertDoesNotThrow(() -> waitStrategy.waitUntilReady(target));
+
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> WaitStrategy.forLogMessage(".*", 0, Duration.ofSeconds(1))
+    );
+  }
+
+  /**
+   * Tests that when the log stream ends early, the log message strategy polls the logs only for
+   * the rest of its startup timeout.
+   *
+   * @throws IOException If the fake docker engine can't be started.
+   */
+  @Test
+  public void testLogMessageWaitStrategyStreamEnded() throws IOException {
+    ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+    try (FakeDockerEngine fakeDockerEngine = new FakeDockerEngine(Duration.ZERO).start();
+        DockerUtility dockerUtility = DockerUtility.builder()
+            .withDockerHost(fakeDockerEngine.getDockerHost())
+            .build()) {
+      // The stream isn't started, so it only ends when it's closed
+      ContainerLogStream logStream = new ContainerLogStream(dockerUtility.getDockerClient(),
+          "fake_container", ContainerLogStream.defaultCapacityInLines);
+      FakeWaitStrategyTarget target = new FakeWaitStrategyTarget(0) {
+        @Override
+        public ContainerLogStream getLogStream() {
+          return logStream;
+        }
+      };
+      executorService.schedule(logStream::close, 700, TimeUnit.MILLISECONDS);
+
+      long startTime = System.nanoTime();
+      Assertions.assertThrows(
+          TimeoutException.class,
+          () -> WaitStrategy.forLogMessage("never", 1, Duration.ofSeconds(1))
+              .waitUntilReady(target)
+      );
+      Assertions.assertTrue(Duration.ofNanos(System.nanoTime() - startTime)
+          .compareTo(Duration.ofMillis(1_500)) < 0);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  /**
+   * Tests that the HTTP strategy only returns once the endpoint responds with a 200 status code.
+   *
+   * @throws IOException If the test HTTP server can't be created.
+   */
+  @Test
+  public void testHttpWaitStrategy() throws IOException {
+    HttpServer httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    httpServer.createContext("/ready", exchange -> {
+      exchange.sendResponseHeaders(200, -1);
+      exchange.close();
+    });
+    httpServer.createContext("/not_ready", exchange -> {
+      exchange.sendResponseHeaders(503, -1);
+      exchange.close();
+    });
+    httpServer.start();
+    try {
+      FakeWaitStrategyTarget target = new FakeWaitStrategyTarget(
+          httpServer.getAddress().getPort());
+      Assertions.assertDoesNotThrow(
+          () -> WaitStrategy.forHttp(80, "/ready", Duration.ofSeconds(5))
+              .waitUntilReady(target)
+      );
+      Assertions.assertThrows(
+          TimeoutException.class,
+          () -> WaitStrategy.forHttp(80, "/not_ready", Duration.ofMillis(500))
+              .waitUntilReady(target)
+      );
+    } finally {
+      httpServer.stop(0);
+    }
+  }
+
+  /**
+   * Tests the HEALTHCHECK strategy with healthy, unhealthy and missing health statuses.
+   */
+  @Test
+  public void testHealthcheckWaitStrategy() {
+    FakeWaitStrategyTarget target = new FakeWaitStrategyTarget(0);
+    WaitStrategy waitStrategy = WaitStrategy.forHealthcheck(Duration.ofMillis(500));
+
+    Assertions.assertThrows(IllegalStateException.class, () -> waitStrategy.waitUntilReady(target));
+
+    target.healthStatus = "starting";
+    Assertions.assertThrows(TimeoutException.class, () -> waitStrategy.waitUntilReady(target));
+
+    target.healthStatus = "healthy";
+    Assertions.assertDoesNotThrow(() -> waitStrategy.waitUntilReady(target));
+  }
+
+  /**
+   * Tests that waiting is aborted as soon as the container stops running.
+   */
+  @Test
+  public void testWaitAbortsWhenContainerStops() {
+    FakeWaitStrategyTarget target = new FakeWaitStrategyTarget(0);
+    target.running = false;
+    Assertions.assertThrows(
+        IllegalStateException.class,
+        () -> WaitStrategy.forLogMessage("never", 1, Duration.ofMinutes(1))
+            .waitUntilReady(target)
+    );
+  }
+}